@@ -0,0 +1,175 @@
+package com.petshop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.petshop.dto.AgendamentoResponseDTO;
+import com.petshop.dto.PedidoResponseDTO;
+import com.petshop.dto.PetResponseDTO;
+import com.petshop.dto.ProdutoResponseDTO;
+import com.petshop.model.Agendamento;
+import com.petshop.model.Agendamento.StatusAgendamento;
+import com.petshop.model.Categoria;
+import com.petshop.model.Cliente;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Pet;
+import com.petshop.model.Produto;
+import com.petshop.model.Servico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão entidade → DTO feita pelos controllers e serialização JSON das
+ * respostas. Os conversores são privados; são chamados por MethodHandle para
+ * medir exatamente o código que atende as requisições.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RespostaBenchmark {
+
+    private static final MethodHandle PEDIDO_PARA_DTO =
+            conversor(PedidoController.class, new PedidoController(), Pedido.class, PedidoResponseDTO.class);
+    private static final MethodHandle AGENDAMENTO_PARA_DTO =
+            conversor(AgendamentoController.class, new AgendamentoController(), Agendamento.class,
+                    AgendamentoResponseDTO.class);
+    private static final MethodHandle PET_PARA_DTO =
+            conversor(PetController.class, new PetController(), Pet.class, PetResponseDTO.class);
+    private static final MethodHandle PRODUTO_PARA_DTO =
+            conversor(ProdutoController.class, new ProdutoController(), Produto.class, ProdutoResponseDTO.class);
+
+    // Itens por pedido
+    @Param({"1", "20"})
+    private int quantidadeItens;
+
+    // Mesma configuração de datas do ObjectMapper do Spring Boot
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private Pedido pedido;
+    private Agendamento agendamento;
+    private Pet pet;
+    private Produto produto;
+
+    private PedidoResponseDTO pedidoDTO;
+    private AgendamentoResponseDTO agendamentoDTO;
+    private List<PedidoResponseDTO> paginaPedidos;
+
+    @Setup
+    public void preparar() throws Throwable {
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        cliente.setNome("Maria Santos");
+        cliente.setTelefone("11988888888");
+
+        Categoria categoria = new Categoria("Rações", "Rações secas e úmidas");
+        categoria.setId(1L);
+        produto = new Produto("Ração Premium", "Ração para cães adultos", 89.9, 50, "/img/racao.png");
+        produto.setId(1L);
+        produto.setCategoria(categoria);
+
+        pedido = new Pedido(cliente);
+        pedido.setId(1L);
+        pedido.setDataPedido(LocalDateTime.of(2025, 1, 10, 9, 30));
+        pedido.setFormaPagamento("pix");
+        pedido.setObservacoes("Entregar pela manhã");
+        for (int i = 0; i < quantidadeItens; i++) {
+            ItemPedido item = new ItemPedido(produto, 1 + i % 3);
+            item.setId((long) i);
+            pedido.adicionarItem(item);
+        }
+
+        pet = new Pet("Rex", "cao", "Labrador", 4, 28.5, "M", true, "Pet sensível");
+        pet.setId(1L);
+        pet.setCliente(cliente);
+
+        agendamento = new Agendamento(LocalDate.of(2025, 1, 15), LocalTime.of(10, 0), "local", "grande",
+                "Pet sensível", 120.0);
+        agendamento.setId(1L);
+        agendamento.setStatus(StatusAgendamento.PENDENTE);
+        agendamento.setCliente(cliente);
+        agendamento.setPet(pet);
+        for (long i = 1; i <= 3; i++) {
+            Servico servico = new Servico("Serviço " + i, "Descrição " + i, 40.0);
+            servico.setId(i);
+            agendamento.getServicos().add(servico);
+        }
+
+        pedidoDTO = (PedidoResponseDTO) PEDIDO_PARA_DTO.invokeExact(pedido);
+        agendamentoDTO = (AgendamentoResponseDTO) AGENDAMENTO_PARA_DTO.invokeExact(agendamento);
+        // Uma página de listagem no limite padrão do cursor
+        paginaPedidos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            paginaPedidos.add(pedidoDTO);
+        }
+    }
+
+    @Benchmark
+    public PedidoResponseDTO converterPedido() throws Throwable {
+        return (PedidoResponseDTO) PEDIDO_PARA_DTO.invokeExact(pedido);
+    }
+
+    @Benchmark
+    public AgendamentoResponseDTO converterAgendamento() throws Throwable {
+        return (AgendamentoResponseDTO) AGENDAMENTO_PARA_DTO.invokeExact(agendamento);
+    }
+
+    @Benchmark
+    public PetResponseDTO converterPet() throws Throwable {
+        return (PetResponseDTO) PET_PARA_DTO.invokeExact(pet);
+    }
+
+    @Benchmark
+    public ProdutoResponseDTO converterProduto() throws Throwable {
+        return (ProdutoResponseDTO) PRODUTO_PARA_DTO.invokeExact(produto);
+    }
+
+    @Benchmark
+    public byte[] serializarPedido() throws Exception {
+        return objectMapper.writeValueAsBytes(pedidoDTO);
+    }
+
+    @Benchmark
+    public byte[] serializarAgendamento() throws Exception {
+        return objectMapper.writeValueAsBytes(agendamentoDTO);
+    }
+
+    @Benchmark
+    public byte[] serializarPaginaPedidos() throws Exception {
+        return objectMapper.writeValueAsBytes(paginaPedidos);
+    }
+
+    private static MethodHandle conversor(Class<?> controller, Object instancia, Class<?> entidade, Class<?> dto) {
+        try {
+            return MethodHandles.privateLookupIn(controller, MethodHandles.lookup())
+                    .findVirtual(controller, "toResponseDTO", MethodType.methodType(dto, entidade))
+                    .bindTo(instancia);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Conversor não encontrado em " + controller.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.petshop.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recalcular o total percorre todos os itens do pedido; mede o custo em
+ * pedidos grandes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PedidoBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int quantidadeItens;
+
+    private Pedido pedido;
+
+    @Setup
+    public void preparar() {
+        pedido = new Pedido(new Cliente());
+        for (int i = 0; i < quantidadeItens; i++) {
+            Produto produto = new Produto("Produto " + i, null, 10.0 + (i % 100), 100, null);
+            produto.setId((long) i);
+            ItemPedido item = new ItemPedido(produto, 1 + (i % 5));
+            // Sem adicionarItem: ele recalcula o total a cada inclusão
+            item.setPedido(pedido);
+            pedido.getItens().add(item);
+        }
+    }
+
+    @Benchmark
+    public Double calcularValorTotal() {
+        pedido.calcularValorTotal();
+        return pedido.getValorTotal();
+    }
+}
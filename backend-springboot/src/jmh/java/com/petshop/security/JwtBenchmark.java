@@ -0,0 +1,80 @@
+package com.petshop.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da geração e validação de tokens e do filtro de autenticação, que
+ * roda em toda requisição.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "petshop-secret-key-must-be-at-least-256-bits-long-for-HS256-algorithm";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filtro;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+
+        filtro = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+
+        token = jwtUtil.generateToken("admin", "ADMIN");
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtUtil.generateToken("admin", "ADMIN");
+    }
+
+    @Benchmark
+    public Boolean validarToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String extrairRole() {
+        return jwtUtil.extractRole(token);
+    }
+
+    @Benchmark
+    public Object filtrarComToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pedidos");
+        request.addHeader("Authorization", "Bearer " + token);
+        filtro.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request.getAttribute("role");
+    }
+
+    // Referência: custo fixo do filtro e dos objetos de requisição simulados
+    @Benchmark
+    public Object filtrarSemToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produtos");
+        filtro.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request.getAttribute("role");
+    }
+}
@@ -8,10 +8,14 @@ import com.petshop.repository.CategoriaRepository;
 import com.petshop.repository.ProdutoRepository;
 import com.petshop.repository.ServicoRepository;
 import com.petshop.repository.UsuarioRepository;
+import com.petshop.security.SenhaHasher;
+import com.petshop.service.LivroEstoque;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class DataInitializer implements CommandLineRunner {
 
@@ -27,6 +31,12 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private SenhaHasher senhaHasher;
+
+    @Autowired
+    private LivroEstoque livroEstoque;
+
     @Override
     public void run(String... args) throws Exception {
         // Verifica se já existem dados
@@ -116,6 +126,11 @@ public class DataInitializer implements CommandLineRunner {
         camaOrtopedica.setAtivo(true);
         produtoRepository.save(camaOrtopedica);
 
+        // Estoque inicial no livro de estoque
+        for (Produto produto : List.of(racaoPremium, racaoGatos, kitBanho, antipulgas, kitColeira, camaOrtopedica)) {
+            livroEstoque.importar(produto.getId(), produto.getQuantidadeEstoque());
+        }
+
         // Criar Serviços
         Servico banho = new Servico();
         banho.setNome("Banho");
@@ -142,9 +157,7 @@ public class DataInitializer implements CommandLineRunner {
         Usuario admin = new Usuario();
         admin.setUsername("admin");
         // Hash da senha com BCrypt
-        org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder encoder = 
-            new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder();
-        admin.setSenha(encoder.encode("admin123"));
+        admin.setSenha(senhaHasher.hash("admin123"));
         admin.setEmail("admin@petshop.com");
         admin.setRole("ADMIN");
         admin.setAtivo(true);
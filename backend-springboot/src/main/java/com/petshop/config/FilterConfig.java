@@ -1,11 +1,19 @@
 package com.petshop.config;
 
+import com.petshop.security.IdempotenciaFilter;
 import com.petshop.security.JwtAuthenticationFilter;
+import com.petshop.security.LimiteRequisicoesFilter;
+import com.petshop.security.LimiteRequisicoesFilter.Grupo;
+import com.petshop.service.ArmazemIdempotencia;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 public class FilterConfig {
 
@@ -20,4 +28,49 @@ public class FilterConfig {
         registrationBean.setOrder(1);
         return registrationBean;
     }
+
+    // Depois do JWT, para limitar por usuário autenticado em vez de por IP
+    @Bean
+    public FilterRegistrationBean<LimiteRequisicoesFilter> limiteRequisicoesFilter(
+            @Value("${limite-requisicoes.habilitado:true}") boolean habilitado,
+            @Value("${limite-requisicoes.tempo-ocioso-ms:600000}") long tempoOciosoMs,
+            @Value("${limite-requisicoes.maximo-baldes:100000}") long maximoBaldes,
+            @Value("${limite-requisicoes.busca.rotas:/api/produtos/buscar}") List<String> buscaRotas,
+            @Value("${limite-requisicoes.busca.capacidade:20}") int buscaCapacidade,
+            @Value("${limite-requisicoes.busca.reposicao-por-segundo:5}") double buscaReposicao,
+            @Value("${limite-requisicoes.auth.rotas:/api/auth/login,/api/auth/registrar}") List<String> authRotas,
+            @Value("${limite-requisicoes.auth.capacidade:10}") int authCapacidade,
+            @Value("${limite-requisicoes.auth.reposicao-por-segundo:0.5}") double authReposicao,
+            @Value("${limite-requisicoes.catalogo.rotas:/api/produtos/**,/api/categorias/**,/api/servicos/**}") List<String> catalogoRotas,
+            @Value("${limite-requisicoes.catalogo.capacidade:100}") int catalogoCapacidade,
+            @Value("${limite-requisicoes.catalogo.reposicao-por-segundo:20}") double catalogoReposicao,
+            @Value("${limite-requisicoes.padrao.capacidade:60}") int padraoCapacidade,
+            @Value("${limite-requisicoes.padrao.reposicao-por-segundo:10}") double padraoReposicao) {
+        // Ordem importa: a busca casa antes do restante do catálogo
+        List<Grupo> grupos = List.of(
+                new Grupo("busca", buscaRotas, buscaCapacidade, buscaReposicao),
+                new Grupo("auth", authRotas, authCapacidade, authReposicao),
+                new Grupo("catalogo", catalogoRotas, catalogoCapacidade, catalogoReposicao));
+        Grupo padrao = new Grupo("padrao", List.of(), padraoCapacidade, padraoReposicao);
+
+        FilterRegistrationBean<LimiteRequisicoesFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new LimiteRequisicoesFilter(grupos, padrao,
+                Duration.ofMillis(tempoOciosoMs), maximoBaldes));
+        registrationBean.addUrlPatterns("/api/*");
+        registrationBean.setOrder(2);
+        registrationBean.setEnabled(habilitado);
+        return registrationBean;
+    }
+
+    // Depois do limite de requisições: repetições também contam no balde
+    @Bean
+    public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(
+            ArmazemIdempotencia armazemIdempotencia,
+            @Value("${idempotencia.rotas:/api/pedidos,/api/agendamentos}") List<String> rotas) {
+        FilterRegistrationBean<IdempotenciaFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new IdempotenciaFilter(armazemIdempotencia));
+        registrationBean.addUrlPatterns(rotas.toArray(String[]::new));
+        registrationBean.setOrder(3);
+        return registrationBean;
+    }
 }
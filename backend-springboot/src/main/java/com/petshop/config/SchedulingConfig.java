@@ -0,0 +1,35 @@
+package com.petshop.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Tarefas periódicas (@Scheduled), como a gravação em lote do último acesso
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // Scheduler das descargas de write-behind (reservas de estoque, vendas
+    // diárias, último acesso): um checkpoint ou uma compactação demorada no
+    // scheduler padrão não atrasa a gravação das somas pendentes
+    public static final String GRAVACAO_EM_LOTE = "gravacaoEmLoteScheduler";
+
+    // Scheduler padrão, configurado por spring.task.scheduling.*; declarado
+    // aqui porque o Spring Boot deixa de criá-lo quando há outro TaskScheduler
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(GRAVACAO_EM_LOTE)
+    public ThreadPoolTaskScheduler gravacaoEmLoteScheduler(
+            @Value("${agendamento.gravacao-em-lote.threads:2}") int threads) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("gravacao-lote-");
+        return scheduler;
+    }
+}
@@ -16,9 +16,9 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
-                .allowedHeaders("Content-Type", "Authorization", "X-Requested-With")
+                .allowedHeaders("Content-Type", "Authorization", "X-Requested-With", "If-None-Match", "Idempotency-Key")
                 .allowCredentials(true)
-                .exposedHeaders("X-Pagination", "X-Total-Count")
+                .exposedHeaders("X-Pagination", "X-Total-Count", "ETag", "Retry-After", "Idempotent-Replayed")
                 .maxAge(3600); // Cache preflight por 1 hora
     }
 }
@@ -1,5 +1,6 @@
 package com.petshop.controller;
 
+import com.petshop.dto.PaginaCursor;
 import com.petshop.dto.AgendamentoRequestDTO;
 import com.petshop.dto.AgendamentoResponseDTO;
 import com.petshop.dto.ServicoSimpleDTO;
@@ -27,12 +28,16 @@ public class AgendamentoController {
     private AgendamentoService agendamentoService;
 
     @GetMapping
-    public ResponseEntity<List<AgendamentoResponseDTO>> listarTodos() {
-        List<AgendamentoResponseDTO> agendamentos = agendamentoService.listarTodos()
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(agendamentos);
+    public ResponseEntity<List<AgendamentoResponseDTO>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean total) {
+        PaginaCursor<AgendamentoResponseDTO> pagina = agendamentoService
+                .listarPagina(cursor, PaginaCursor.normalizarLimite(limit));
+        Long totalRegistros = total ? agendamentoService.contarTodos() : null;
+        return ResponseEntity.ok()
+                .headers(pagina.cabecalhos(totalRegistros))
+                .body(pagina.getItens());
     }
 
     @GetMapping("/{id}")
@@ -44,30 +49,21 @@ public class AgendamentoController {
 
     @GetMapping("/cliente/{clienteId}")
     public ResponseEntity<List<AgendamentoResponseDTO>> buscarPorCliente(@PathVariable Long clienteId) {
-        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorCliente(clienteId)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorCliente(clienteId);
         return ResponseEntity.ok(agendamentos);
     }
 
     @GetMapping("/data/{data}")
     public ResponseEntity<List<AgendamentoResponseDTO>> buscarPorData(@PathVariable String data) {
         LocalDate localDate = LocalDate.parse(data);
-        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorData(localDate)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorData(localDate);
         return ResponseEntity.ok(agendamentos);
     }
 
     @GetMapping("/status/{status}")
     public ResponseEntity<List<AgendamentoResponseDTO>> buscarPorStatus(@PathVariable String status) {
         StatusAgendamento statusEnum = StatusAgendamento.valueOf(status.toUpperCase());
-        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorStatus(statusEnum)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<AgendamentoResponseDTO> agendamentos = agendamentoService.buscarPorStatus(statusEnum);
         return ResponseEntity.ok(agendamentos);
     }
 
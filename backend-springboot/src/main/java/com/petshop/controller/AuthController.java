@@ -4,11 +4,13 @@ import com.petshop.dto.LoginRequestDTO;
 import com.petshop.dto.LoginResponseDTO;
 import com.petshop.dto.UsuarioRequestDTO;
 import com.petshop.model.Usuario;
+import com.petshop.security.HashIndisponivelException;
 import com.petshop.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +32,8 @@ public class AuthController {
         try {
             LoginResponseDTO response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
+        } catch (HashIndisponivelException e) {
+            return indisponivel(e);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -49,6 +53,8 @@ public class AuthController {
             response.put("email", usuario.getEmail());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (HashIndisponivelException e) {
+            return indisponivel(e);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -80,4 +86,51 @@ public class AuthController {
             return ResponseEntity.ok(response);
         }
     }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Encerrar sessão", description = "Revoga o token enviado no header Authorization")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Token não fornecido");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+        try {
+            authService.revogarToken(authHeader.substring(7));
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+
+    @PostMapping("/revogar")
+    @Operation(summary = "Revogar token", description = "Revoga o token informado no corpo (ex.: sessão de outro dispositivo)")
+    public ResponseEntity<?> revogar(@RequestBody Map<String, String> body) {
+        String token = body.get("token");
+        if (token == null || token.isBlank()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Token é obrigatório");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        try {
+            authService.revogarToken(token);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    // 429/503 com Retry-After quando o pool de hashing de senhas está saturado
+    private ResponseEntity<?> indisponivel(HashIndisponivelException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSegundos()))
+                .body(error);
+    }
 }
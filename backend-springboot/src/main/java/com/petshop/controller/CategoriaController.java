@@ -3,6 +3,7 @@ package com.petshop.controller;
 import com.petshop.dto.CategoriaRequestDTO;
 import com.petshop.dto.CategoriaResponseDTO;
 import com.petshop.model.Categoria;
+import com.petshop.service.CatalogoVersoes;
 import com.petshop.service.CategoriaService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,8 +24,14 @@ public class CategoriaController {
     @Autowired
     private CategoriaService categoriaService;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     @GetMapping
-    public ResponseEntity<List<CategoriaResponseDTO>> listarTodas() {
+    public ResponseEntity<List<CategoriaResponseDTO>> listarTodas(WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.CATEGORIA))) {
+            return null;
+        }
         List<CategoriaResponseDTO> categorias = categoriaService.listarTodas()
                 .stream()
                 .map(this::toResponseDTO)
@@ -32,7 +40,10 @@ public class CategoriaController {
     }
 
     @GetMapping("/ativas")
-    public ResponseEntity<List<CategoriaResponseDTO>> listarAtivas() {
+    public ResponseEntity<List<CategoriaResponseDTO>> listarAtivas(WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.CATEGORIA))) {
+            return null;
+        }
         List<CategoriaResponseDTO> categorias = categoriaService.listarAtivas()
                 .stream()
                 .map(this::toResponseDTO)
@@ -41,7 +52,10 @@ public class CategoriaController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoriaResponseDTO> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<CategoriaResponseDTO> buscarPorId(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagItem(CatalogoVersoes.Recurso.CATEGORIA, id))) {
+            return null;
+        }
         return categoriaService.buscarPorId(id)
                 .map(categoria -> ResponseEntity.ok(toResponseDTO(categoria)))
                 .orElse(ResponseEntity.notFound().build());
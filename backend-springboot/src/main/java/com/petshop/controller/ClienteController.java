@@ -1,5 +1,6 @@
 package com.petshop.controller;
 
+import com.petshop.dto.PaginaCursor;
 import com.petshop.dto.ClienteRequestDTO;
 import com.petshop.dto.ClienteResponseDTO;
 import com.petshop.model.Cliente;
@@ -24,13 +25,18 @@ public class ClienteController {
     private ClienteService clienteService;
 
     @GetMapping
-    @Operation(summary = "Listar todos os clientes", description = "Retorna uma lista com todos os clientes cadastrados")
-    public ResponseEntity<List<ClienteResponseDTO>> listarTodos() {
-        List<ClienteResponseDTO> clientes = clienteService.listarTodos()
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(clientes);
+    @Operation(summary = "Listar clientes", description = "Retorna uma página de clientes (paginação por cursor via X-Pagination)")
+    public ResponseEntity<List<ClienteResponseDTO>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean total) {
+        PaginaCursor<ClienteResponseDTO> pagina = clienteService
+                .listarPagina(cursor, PaginaCursor.normalizarLimite(limit))
+                .map(this::toResponseDTO);
+        Long totalRegistros = total ? clienteService.contarTodos() : null;
+        return ResponseEntity.ok()
+                .headers(pagina.cabecalhos(totalRegistros))
+                .body(pagina.getItens());
     }
 
     @GetMapping("/{id}")
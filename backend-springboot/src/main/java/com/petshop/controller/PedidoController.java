@@ -2,18 +2,28 @@ package com.petshop.controller;
 
 import com.petshop.dto.ItemPedidoDTO;
 import com.petshop.dto.ItemPedidoRequestDTO;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.dto.PedidoRequestDTO;
 import com.petshop.dto.PedidoResponseDTO;
 import com.petshop.model.Pedido;
 import com.petshop.model.Pedido.StatusPedido;
+import com.petshop.service.PedidoExportacaoService;
+import com.petshop.service.PedidoExportacaoService.Formato;
 import com.petshop.service.PedidoService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,13 +35,47 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private PedidoExportacaoService pedidoExportacaoService;
+
     @GetMapping
-    public ResponseEntity<List<PedidoResponseDTO>> listarTodos() {
-        List<PedidoResponseDTO> pedidos = pedidoService.listarTodos()
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(pedidos);
+    public ResponseEntity<List<PedidoResponseDTO>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean total) {
+        PaginaCursor<PedidoResponseDTO> pagina = pedidoService
+                .listarPagina(cursor, PaginaCursor.normalizarLimite(limit));
+        Long totalRegistros = total ? pedidoService.contarTodos() : null;
+        return ResponseEntity.ok()
+                .headers(pagina.cabecalhos(totalRegistros))
+                .body(pagina.getItens());
+    }
+
+    /**
+     * Exporta os pedidos em JSON, NDJSON ou CSV, escrevendo a resposta à
+     * medida que os pedidos são lidos do banco. O período é inclusivo nas
+     * duas datas.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "json") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) String status) {
+        // Parâmetros validados antes de a resposta começar a ser escrita
+        Formato formatoExportacao = Formato.de(formato);
+        StatusPedido statusEnum = status != null ? StatusPedido.valueOf(status.toUpperCase()) : null;
+        LocalDateTime inicio = dataInicio != null ? dataInicio.atStartOfDay() : null;
+        LocalDateTime fim = dataFim != null ? dataFim.plusDays(1).atStartOfDay() : null;
+
+        StreamingResponseBody corpo = saida ->
+                pedidoExportacaoService.exportar(formatoExportacao, inicio, fim, statusEnum, saida);
+        String arquivo = "pedidos." + formatoExportacao.getExtensao();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacao.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(arquivo).build().toString())
+                .body(corpo);
     }
 
     @GetMapping("/{id}")
@@ -43,20 +87,14 @@ public class PedidoController {
 
     @GetMapping("/cliente/{clienteId}")
     public ResponseEntity<List<PedidoResponseDTO>> buscarPorCliente(@PathVariable Long clienteId) {
-        List<PedidoResponseDTO> pedidos = pedidoService.buscarPorCliente(clienteId)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<PedidoResponseDTO> pedidos = pedidoService.buscarPorCliente(clienteId);
         return ResponseEntity.ok(pedidos);
     }
 
     @GetMapping("/status/{status}")
     public ResponseEntity<List<PedidoResponseDTO>> buscarPorStatus(@PathVariable String status) {
         StatusPedido statusEnum = StatusPedido.valueOf(status.toUpperCase());
-        List<PedidoResponseDTO> pedidos = pedidoService.buscarPorStatus(statusEnum)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<PedidoResponseDTO> pedidos = pedidoService.buscarPorStatus(statusEnum);
         return ResponseEntity.ok(pedidos);
     }
 
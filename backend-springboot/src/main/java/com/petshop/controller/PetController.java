@@ -1,5 +1,6 @@
 package com.petshop.controller;
 
+import com.petshop.dto.PaginaCursor;
 import com.petshop.dto.PetRequestDTO;
 import com.petshop.dto.PetResponseDTO;
 import com.petshop.model.Pet;
@@ -12,7 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/pets")
@@ -23,12 +23,16 @@ public class PetController {
     private PetService petService;
 
     @GetMapping
-    public ResponseEntity<List<PetResponseDTO>> listarTodos() {
-        List<PetResponseDTO> pets = petService.listarTodos()
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(pets);
+    public ResponseEntity<List<PetResponseDTO>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean total) {
+        PaginaCursor<PetResponseDTO> pagina = petService
+                .listarPagina(cursor, PaginaCursor.normalizarLimite(limit));
+        Long totalRegistros = total ? petService.contarTodos() : null;
+        return ResponseEntity.ok()
+                .headers(pagina.cabecalhos(totalRegistros))
+                .body(pagina.getItens());
     }
 
     @GetMapping("/{id}")
@@ -40,19 +44,13 @@ public class PetController {
 
     @GetMapping("/cliente/{clienteId}")
     public ResponseEntity<List<PetResponseDTO>> buscarPorCliente(@PathVariable Long clienteId) {
-        List<PetResponseDTO> pets = petService.buscarPorCliente(clienteId)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<PetResponseDTO> pets = petService.buscarPorCliente(clienteId);
         return ResponseEntity.ok(pets);
     }
 
     @GetMapping("/tipo/{tipo}")
     public ResponseEntity<List<PetResponseDTO>> buscarPorTipo(@PathVariable String tipo) {
-        List<PetResponseDTO> pets = petService.buscarPorTipo(tipo)
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+        List<PetResponseDTO> pets = petService.buscarPorTipo(tipo);
         return ResponseEntity.ok(pets);
     }
 
@@ -1,8 +1,12 @@
 package com.petshop.controller;
 
+import com.petshop.dto.MaisVendidoDTO;
+import com.petshop.dto.MovimentacaoEstoqueDTO;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.dto.ProdutoRequestDTO;
 import com.petshop.dto.ProdutoResponseDTO;
 import com.petshop.model.Produto;
+import com.petshop.service.CatalogoVersoes;
 import com.petshop.service.ProdutoService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,8 +14,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,17 +28,32 @@ public class ProdutoController {
     @Autowired
     private ProdutoService produtoService;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     @GetMapping
-    public ResponseEntity<List<ProdutoResponseDTO>> listarTodos() {
-        List<ProdutoResponseDTO> produtos = produtoService.listarTodos()
-                .stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<List<ProdutoResponseDTO>> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean total,
+            WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.PRODUTO))) {
+            return null;
+        }
+        PaginaCursor<ProdutoResponseDTO> pagina = produtoService
+                .listarPagina(cursor, PaginaCursor.normalizarLimite(limit))
+                .map(this::toResponseDTO);
+        Long totalRegistros = total ? produtoService.contarTodos() : null;
+        return ResponseEntity.ok()
+                .headers(pagina.cabecalhos(totalRegistros))
+                .body(pagina.getItens());
     }
 
     @GetMapping("/disponiveis")
-    public ResponseEntity<List<ProdutoResponseDTO>> listarDisponiveis() {
+    public ResponseEntity<List<ProdutoResponseDTO>> listarDisponiveis(WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.PRODUTO))) {
+            return null;
+        }
         List<ProdutoResponseDTO> produtos = produtoService.listarDisponiveis()
                 .stream()
                 .map(this::toResponseDTO)
@@ -41,14 +62,20 @@ public class ProdutoController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoResponseDTO> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<ProdutoResponseDTO> buscarPorId(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagItem(CatalogoVersoes.Recurso.PRODUTO, id))) {
+            return null;
+        }
         return produtoService.buscarPorId(id)
                 .map(produto -> ResponseEntity.ok(toResponseDTO(produto)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/categoria/{categoriaId}")
-    public ResponseEntity<List<ProdutoResponseDTO>> listarPorCategoria(@PathVariable Long categoriaId) {
+    public ResponseEntity<List<ProdutoResponseDTO>> listarPorCategoria(@PathVariable Long categoriaId, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.PRODUTO))) {
+            return null;
+        }
         List<ProdutoResponseDTO> produtos = produtoService.listarPorCategoria(categoriaId)
                 .stream()
                 .map(this::toResponseDTO)
@@ -57,7 +84,10 @@ public class ProdutoController {
     }
 
     @GetMapping("/categoria/{categoriaId}/disponiveis")
-    public ResponseEntity<List<ProdutoResponseDTO>> listarDisponiveisPorCategoria(@PathVariable Long categoriaId) {
+    public ResponseEntity<List<ProdutoResponseDTO>> listarDisponiveisPorCategoria(@PathVariable Long categoriaId, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.PRODUTO))) {
+            return null;
+        }
         List<ProdutoResponseDTO> produtos = produtoService.listarDisponiveisPorCategoria(categoriaId)
                 .stream()
                 .map(this::toResponseDTO)
@@ -66,7 +96,10 @@ public class ProdutoController {
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<List<ProdutoResponseDTO>> buscarPorNome(@RequestParam String termo) {
+    public ResponseEntity<List<ProdutoResponseDTO>> buscarPorNome(@RequestParam String termo, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.PRODUTO))) {
+            return null;
+        }
         List<ProdutoResponseDTO> produtos = produtoService.buscarPorNome(termo)
                 .stream()
                 .map(this::toResponseDTO)
@@ -83,6 +116,36 @@ public class ProdutoController {
         return ResponseEntity.ok(produtos);
     }
 
+    @GetMapping("/mais-vendidos")
+    public ResponseEntity<List<MaisVendidoDTO>> listarMaisVendidos(
+            @RequestParam(defaultValue = "7") int dias,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(produtoService.listarMaisVendidos(dias, categoriaId, Math.max(1, Math.min(limite, 50))));
+    }
+
+    @PostMapping("/mais-vendidos/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirMaisVendidos() {
+        return ResponseEntity.ok(Map.of("vendas", produtoService.reconstruirMaisVendidos()));
+    }
+
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCache() {
+        return ResponseEntity.ok(produtoService.estatisticasCache());
+    }
+
+    @GetMapping("/{id}/movimentacoes")
+    public ResponseEntity<List<MovimentacaoEstoqueDTO>> listarMovimentacoes(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(produtoService.listarMovimentacoes(id, Math.max(1, Math.min(limite, 500))));
+    }
+
+    @PostMapping("/estoque/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirEstoque() {
+        return ResponseEntity.ok(Map.of("produtos", produtoService.reconstruirEstoque()));
+    }
+
     @PostMapping
     public ResponseEntity<ProdutoResponseDTO> criar(@Valid @RequestBody ProdutoRequestDTO dto) {
         Produto produto = toEntity(dto);
@@ -0,0 +1,51 @@
+package com.petshop.controller;
+
+import com.petshop.dto.VendaCategoriaDTO;
+import com.petshop.dto.VendaPeriodoDTO;
+import com.petshop.service.VendasDiariasService;
+import com.petshop.service.VendasDiariasService.Agrupamento;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/relatorios/vendas")
+@Tag(name = "Relatórios de vendas", description = "Receita e quantidade vendida a partir do consolidado diário")
+public class RelatorioVendasController {
+
+    // Intervalo padrão quando as datas não são informadas
+    private static final int DIAS_PADRAO = 30;
+
+    @Autowired
+    private VendasDiariasService vendasDiariasService;
+
+    @GetMapping
+    public ResponseEntity<List<VendaPeriodoDTO>> porPeriodo(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(defaultValue = "DIA") Agrupamento agrupamento) {
+        LocalDate ate = fim != null ? fim : LocalDate.now();
+        LocalDate de = inicio != null ? inicio : ate.minusDays(DIAS_PADRAO - 1);
+        return ResponseEntity.ok(vendasDiariasService.porPeriodo(de, ate, agrupamento));
+    }
+
+    @GetMapping("/categorias")
+    public ResponseEntity<List<VendaCategoriaDTO>> porCategoria(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        LocalDate ate = fim != null ? fim : LocalDate.now();
+        LocalDate de = inicio != null ? inicio : ate.minusDays(DIAS_PADRAO - 1);
+        return ResponseEntity.ok(vendasDiariasService.porCategoria(de, ate));
+    }
+
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruir() {
+        return ResponseEntity.ok(Map.of("linhas", vendasDiariasService.reconstruir()));
+    }
+}
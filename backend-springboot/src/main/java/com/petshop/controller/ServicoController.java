@@ -3,6 +3,7 @@ package com.petshop.controller;
 import com.petshop.dto.ServicoRequestDTO;
 import com.petshop.dto.ServicoResponseDTO;
 import com.petshop.model.Servico;
+import com.petshop.service.CatalogoVersoes;
 import com.petshop.service.ServicoService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,8 +24,14 @@ public class ServicoController {
     @Autowired
     private ServicoService servicoService;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     @GetMapping
-    public ResponseEntity<List<ServicoResponseDTO>> listarTodos() {
+    public ResponseEntity<List<ServicoResponseDTO>> listarTodos(WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.SERVICO))) {
+            return null;
+        }
         List<ServicoResponseDTO> servicos = servicoService.listarTodos()
                 .stream()
                 .map(this::toResponseDTO)
@@ -32,7 +40,10 @@ public class ServicoController {
     }
 
     @GetMapping("/ativos")
-    public ResponseEntity<List<ServicoResponseDTO>> listarAtivos() {
+    public ResponseEntity<List<ServicoResponseDTO>> listarAtivos(WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagColecao(CatalogoVersoes.Recurso.SERVICO))) {
+            return null;
+        }
         List<ServicoResponseDTO> servicos = servicoService.listarAtivos()
                 .stream()
                 .map(this::toResponseDTO)
@@ -41,7 +52,10 @@ public class ServicoController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ServicoResponseDTO> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<ServicoResponseDTO> buscarPorId(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogoVersoes.etagItem(CatalogoVersoes.Recurso.SERVICO, id))) {
+            return null;
+        }
         return servicoService.buscarPorId(id)
                 .map(servico -> ResponseEntity.ok(toResponseDTO(servico)))
                 .orElse(ResponseEntity.notFound().build());
@@ -25,6 +25,27 @@ public class AgendamentoResponseDTO {
     public AgendamentoResponseDTO() {
     }
 
+    // Usado pelas projeções JPQL das listagens; os serviços são preenchidos depois
+    public AgendamentoResponseDTO(Long id, LocalDate dataAgendamento, LocalTime horario,
+                                  String metodoAtendimento, String portePet, String observacoes,
+                                  Double valorTotal, Enum<?> status,
+                                  Long clienteId, String clienteNome, String clienteTelefone,
+                                  Long petId, String petNome) {
+        this.id = id;
+        this.dataAgendamento = dataAgendamento;
+        this.horario = horario;
+        this.metodoAtendimento = metodoAtendimento;
+        this.portePet = portePet;
+        this.observacoes = observacoes;
+        this.valorTotal = valorTotal;
+        this.status = status != null ? status.name() : null;
+        this.clienteId = clienteId;
+        this.clienteNome = clienteNome;
+        this.clienteTelefone = clienteTelefone;
+        this.petId = petId;
+        this.petNome = petNome;
+    }
+
     // Getters e Setters
     public Long getId() {
         return id;
@@ -0,0 +1,13 @@
+package com.petshop.dto;
+
+/**
+ * Item de pedido lido por projeção JPQL. Traz o id do pedido para que os
+ * itens de uma lista inteira de pedidos venham numa única consulta.
+ */
+public record ItemPedidoProjecao(Long pedidoId, Long id, Long produtoId, String produtoNome,
+                                 Integer quantidade, Double precoUnitario, Double subtotal) {
+
+    public ItemPedidoDTO toDTO() {
+        return new ItemPedidoDTO(id, produtoId, produtoNome, quantidade, precoUnitario, subtotal);
+    }
+}
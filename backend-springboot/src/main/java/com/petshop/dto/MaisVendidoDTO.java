@@ -0,0 +1,9 @@
+package com.petshop.dto;
+
+/**
+ * Produto do ranking de mais vendidos. A quantidade vendida é estimada:
+ * nunca fica abaixo da real e a supera em no máximo erroMaximo.
+ */
+public record MaisVendidoDTO(Long produtoId, String nome, Double preco, String urlImagem, Long categoriaId,
+                             Long quantidadeVendida, Long erroMaximo) {
+}
@@ -0,0 +1,13 @@
+package com.petshop.dto;
+
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lançamento do livro de estoque de um produto. Pedido nulo nos ajustes
+ * manuais e nas importações.
+ */
+public record MovimentacaoEstoqueDTO(Long id, Long pedidoId, TipoMovimentacao tipo, Integer quantidade,
+                                     LocalDateTime criadoEm) {
+}
@@ -0,0 +1,119 @@
+package com.petshop.dto;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Página de uma listagem paginada por cursor (keyset).
+ *
+ * O cursor é opaco para o cliente: codifica em Base64 (URL-safe) os valores
+ * da chave de ordenação do último item retornado. A próxima página é obtida
+ * com {@code WHERE chave > cursor ORDER BY chave LIMIT n}, sem OFFSET nem COUNT.
+ */
+public class PaginaCursor<T> {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private static final String SEPARADOR = "|";
+
+    private final List<T> itens;
+    private final int limite;
+    private final String proximoCursor;
+
+    public PaginaCursor(List<T> itens, int limite, String proximoCursor) {
+        this.itens = itens;
+        this.limite = limite;
+        this.proximoCursor = proximoCursor;
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que buscou {@code limite + 1}
+     * registros: o registro excedente apenas indica que existe próxima página.
+     */
+    public static <T> PaginaCursor<T> deResultado(List<T> resultado, int limite, Function<T, String> cursorDe) {
+        if (resultado.size() <= limite) {
+            return new PaginaCursor<>(resultado, limite, null);
+        }
+        List<T> itens = resultado.subList(0, limite);
+        return new PaginaCursor<>(itens, limite, cursorDe.apply(itens.get(limite - 1)));
+    }
+
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    public static String codificar(Object... partes) {
+        String valor = Arrays.stream(partes)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARADOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decodificar(String cursor, int quantidadePartes) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\" + SEPARADOR, -1);
+            if (partes.length != quantidadePartes) {
+                throw new IllegalArgumentException();
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor de paginação inválido");
+        }
+    }
+
+    public static Long decodificarId(String cursor) {
+        try {
+            return Long.parseLong(decodificar(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor de paginação inválido");
+        }
+    }
+
+    public <R> PaginaCursor<R> map(Function<T, R> conversor) {
+        return new PaginaCursor<>(
+                itens.stream().map(conversor).collect(Collectors.toList()),
+                limite,
+                proximoCursor);
+    }
+
+    /**
+     * Cabeçalhos X-Pagination (e X-Total-Count, quando o total foi solicitado).
+     */
+    public HttpHeaders cabecalhos(Long total) {
+        HttpHeaders headers = new HttpHeaders();
+        String next = proximoCursor != null ? "\"" + proximoCursor + "\"" : "null";
+        headers.add("X-Pagination",
+                "{\"limit\":" + limite + ",\"next\":" + next + ",\"hasNext\":" + temProxima() + "}");
+        if (total != null) {
+            headers.add("X-Total-Count", String.valueOf(total));
+        }
+        return headers;
+    }
+
+    public List<T> getItens() {
+        return itens;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public boolean temProxima() {
+        return proximoCursor != null;
+    }
+}
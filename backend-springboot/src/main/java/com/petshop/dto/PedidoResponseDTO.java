@@ -20,6 +20,21 @@ public class PedidoResponseDTO {
     public PedidoResponseDTO() {
     }
 
+    // Usado pelas projeções JPQL das listagens; os itens são preenchidos depois
+    public PedidoResponseDTO(Long id, LocalDateTime dataPedido, Double valorTotal, Enum<?> status,
+                             String formaPagamento, String observacoes,
+                             Long clienteId, String clienteNome, String clienteTelefone) {
+        this.id = id;
+        this.dataPedido = dataPedido;
+        this.valorTotal = valorTotal;
+        this.status = status != null ? status.name() : null;
+        this.formaPagamento = formaPagamento;
+        this.observacoes = observacoes;
+        this.clienteId = clienteId;
+        this.clienteNome = clienteNome;
+        this.clienteTelefone = clienteTelefone;
+    }
+
     // Getters e Setters
     public Long getId() {
         return id;
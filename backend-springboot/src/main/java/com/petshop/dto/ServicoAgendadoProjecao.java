@@ -0,0 +1,12 @@
+package com.petshop.dto;
+
+/**
+ * Serviço de um agendamento lido por projeção JPQL. Traz o id do agendamento
+ * para que os serviços de uma lista inteira venham numa única consulta.
+ */
+public record ServicoAgendadoProjecao(Long agendamentoId, Long id, String nome, Double preco) {
+
+    public ServicoSimpleDTO toDTO() {
+        return new ServicoSimpleDTO(id, nome, preco);
+    }
+}
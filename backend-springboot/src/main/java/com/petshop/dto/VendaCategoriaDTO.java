@@ -0,0 +1,8 @@
+package com.petshop.dto;
+
+/**
+ * Vendas de uma categoria num intervalo de datas. O nome vem nulo se a
+ * categoria foi excluída depois das vendas.
+ */
+public record VendaCategoriaDTO(Long categoriaId, String categoriaNome, Long quantidade, Double receita) {
+}
@@ -0,0 +1,10 @@
+package com.petshop.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Vendas de um período do relatório (dia, semana ou mês), identificado pela
+ * data em que começa. Lido da tabela vendas_diarias.
+ */
+public record VendaPeriodoDTO(LocalDate inicio, Long quantidade, Double receita) {
+}
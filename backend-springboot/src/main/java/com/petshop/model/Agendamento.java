@@ -2,19 +2,37 @@ package com.petshop.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
+// Planos de carga usados pelos repositórios: cliente e pet vêm no mesmo
+// SELECT; os serviços, em lote (@BatchSize) ou junto no detalhe
+@NamedEntityGraph(name = Agendamento.GRAFO_RESUMO,
+        attributeNodes = {@NamedAttributeNode("cliente"), @NamedAttributeNode("pet")})
+@NamedEntityGraph(name = Agendamento.GRAFO_DETALHE,
+        attributeNodes = {@NamedAttributeNode("cliente"), @NamedAttributeNode("pet"), @NamedAttributeNode("servicos")})
 @Entity
 @Table(name = "agendamentos")
 public class Agendamento {
 
+    public static final String GRAFO_RESUMO = "Agendamento.resumo";
+    public static final String GRAFO_DETALHE = "Agendamento.detalhe";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamentos_seq")
+    @SequenceGenerator(name = "agendamentos_seq", sequenceName = "agendamentos_seq", allocationSize = 50)
     private Long id;
 
+    // Versão para controle de concorrência otimista
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+
     @NotNull(message = "Data do agendamento é obrigatória")
     @Column(name = "data_agendamento", nullable = false)
     private LocalDate dataAgendamento;
@@ -51,6 +69,7 @@ public class Agendamento {
     private Pet pet;
 
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(
         name = "agendamento_servicos",
         joinColumns = @JoinColumn(name = "AgendamentosId"),
@@ -90,6 +109,10 @@ public class Agendamento {
         this.id = id;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     public LocalDate getDataAgendamento() {
         return dataAgendamento;
     }
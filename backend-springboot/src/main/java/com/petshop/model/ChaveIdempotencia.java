@@ -0,0 +1,116 @@
+package com.petshop.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Resposta guardada para um Idempotency-Key. A chave é o hash da rota, do
+ * cliente e do valor do cabeçalho; a impressão é o hash do corpo enviado.
+ * Status nulo indica execução em andamento: nesse caso expiraEm é o prazo
+ * da reserva, e não o fim da retenção.
+ */
+@Entity
+@Table(name = "chaves_idempotencia")
+public class ChaveIdempotencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String chave;
+
+    @Column(nullable = false, length = 64)
+    private String impressao;
+
+    private Integer status;
+
+    @Column(name = "tipo_conteudo", length = 100)
+    private String tipoConteudo;
+
+    @Lob
+    private byte[] corpo;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    // Construtores
+    public ChaveIdempotencia() {
+        this.criadoEm = LocalDateTime.now();
+    }
+
+    public ChaveIdempotencia(String chave, String impressao, LocalDateTime expiraEm) {
+        this();
+        this.chave = chave;
+        this.impressao = impressao;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public void setChave(String chave) {
+        this.chave = chave;
+    }
+
+    public String getImpressao() {
+        return impressao;
+    }
+
+    public void setImpressao(String impressao) {
+        this.impressao = impressao;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getTipoConteudo() {
+        return tipoConteudo;
+    }
+
+    public void setTipoConteudo(String tipoConteudo) {
+        this.tipoConteudo = tipoConteudo;
+    }
+
+    public byte[] getCorpo() {
+        return corpo;
+    }
+
+    public void setCorpo(byte[] corpo) {
+        this.corpo = corpo;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+
+    public void setExpiraEm(LocalDateTime expiraEm) {
+        this.expiraEm = expiraEm;
+    }
+}
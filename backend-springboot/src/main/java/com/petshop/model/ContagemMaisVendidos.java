@@ -0,0 +1,100 @@
+package com.petshop.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Checkpoint de um contador do ranking de mais vendidos: a contagem
+ * aproximada de um produto num dia, no geral (categoria 0) ou dentro de uma
+ * categoria. Cada checkpoint regrava os dias alterados desde o anterior; a
+ * tabela é lida só na inicialização.
+ */
+@Entity
+@Table(name = "mais_vendidos_checkpoint")
+@IdClass(ContagemMaisVendidos.Chave.class)
+public class ContagemMaisVendidos {
+
+    // Categoria dos contadores que valem para todas as categorias
+    public static final long TODAS_CATEGORIAS = 0L;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+
+    @Id
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Column(nullable = false)
+    private Long contagem;
+
+    @Column(nullable = false)
+    private Long erro;
+
+    public static class Chave implements Serializable {
+        private LocalDate dia;
+        private Long categoriaId;
+        private Long produtoId;
+
+        public Chave() {
+        }
+
+        public Chave(LocalDate dia, Long categoriaId, Long produtoId) {
+            this.dia = dia;
+            this.categoriaId = categoriaId;
+            this.produtoId = produtoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave chave)) return false;
+            return Objects.equals(dia, chave.dia) && Objects.equals(categoriaId, chave.categoriaId)
+                    && Objects.equals(produtoId, chave.produtoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, categoriaId, produtoId);
+        }
+    }
+
+    // Construtores
+    public ContagemMaisVendidos() {
+    }
+
+    public ContagemMaisVendidos(LocalDate dia, Long categoriaId, Long produtoId, Long contagem, Long erro) {
+        this.dia = dia;
+        this.categoriaId = categoriaId;
+        this.produtoId = produtoId;
+        this.contagem = contagem;
+        this.erro = erro;
+    }
+
+    // Getters
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getContagem() {
+        return contagem;
+    }
+
+    public Long getErro() {
+        return erro;
+    }
+}
@@ -2,18 +2,39 @@ package com.petshop.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+// Planos de carga usados pelos repositórios: as listagens trazem o cliente no
+// mesmo SELECT e os itens em lote (@BatchSize); o detalhe traz tudo de uma vez
+@NamedEntityGraph(name = Pedido.GRAFO_RESUMO, attributeNodes = @NamedAttributeNode("cliente"))
+@NamedEntityGraph(name = Pedido.GRAFO_DETALHE,
+        attributeNodes = {@NamedAttributeNode("cliente"), @NamedAttributeNode(value = "itens", subgraph = "itens")},
+        subgraphs = @NamedSubgraph(name = "itens", attributeNodes = @NamedAttributeNode("produto")))
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = @Index(name = "idx_pedidos_data_id", columnList = "data_pedido, id"))
 public class Pedido {
 
+    public static final String GRAFO_RESUMO = "Pedido.resumo";
+    public static final String GRAFO_DETALHE = "Pedido.detalhe";
+
+    // Sequência com alocação em blocos (pooled): o id é conhecido antes do
+    // INSERT, o que permite ao Hibernate agrupar os inserts em lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
 
+    // Versão para controle de concorrência otimista: mudanças de status
+    // simultâneas no mesmo pedido falham em conflito em vez de se sobrescrever
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+
     @NotNull(message = "Data do pedido é obrigatória")
     @Column(name = "data_pedido", nullable = false)
     private LocalDateTime dataPedido;
@@ -38,6 +59,7 @@ public class Pedido {
     private Cliente cliente;
 
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<ItemPedido> itens = new ArrayList<>();
 
     // Enum para status do pedido
@@ -69,6 +91,10 @@ public class Pedido {
         this.id = id;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     public LocalDateTime getDataPedido() {
         return dataPedido;
     }
@@ -0,0 +1,71 @@
+package com.petshop.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Token JWT revogado antes da expiração (logout). Guarda só o identificador
+ * (jti) e a expiração do token: depois dela o registro pode ser apagado, pois
+ * o próprio token já deixou de ser aceito.
+ */
+@Entity
+@Table(name = "tokens_revogados")
+public class TokenRevogado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String jti;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Column(name = "revogado_em", nullable = false)
+    private LocalDateTime revogadoEm;
+
+    // Construtores
+    public TokenRevogado() {
+        this.revogadoEm = LocalDateTime.now();
+    }
+
+    public TokenRevogado(String jti, LocalDateTime expiraEm) {
+        this();
+        this.jti = jti;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+
+    public void setExpiraEm(LocalDateTime expiraEm) {
+        this.expiraEm = expiraEm;
+    }
+
+    public LocalDateTime getRevogadoEm() {
+        return revogadoEm;
+    }
+
+    public void setRevogadoEm(LocalDateTime revogadoEm) {
+        this.revogadoEm = revogadoEm;
+    }
+}
@@ -0,0 +1,98 @@
+package com.petshop.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Vendas consolidadas de um produto num dia, na categoria que ele tinha na
+ * confirmação. Mantida de forma incremental pela confirmação e pelo
+ * cancelamento dos pedidos, para os relatórios de receita lerem uma linha
+ * por dia e produto em vez de todos os itens vendidos. Sem chave estrangeira,
+ * como o livro de estoque: o histórico sobrevive à exclusão do produto.
+ */
+@Entity
+@Table(name = "vendas_diarias", indexes = @Index(name = "idx_vendas_diarias_data", columnList = "data"))
+@IdClass(VendaDiaria.Chave.class)
+public class VendaDiaria {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Id
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Id
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    @Column(nullable = false)
+    private Double receita;
+
+    public static class Chave implements Serializable {
+        private LocalDate data;
+        private Long produtoId;
+        private Long categoriaId;
+
+        public Chave() {
+        }
+
+        public Chave(LocalDate data, Long produtoId, Long categoriaId) {
+            this.data = data;
+            this.produtoId = produtoId;
+            this.categoriaId = categoriaId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave chave)) return false;
+            return Objects.equals(data, chave.data) && Objects.equals(produtoId, chave.produtoId)
+                    && Objects.equals(categoriaId, chave.categoriaId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(data, produtoId, categoriaId);
+        }
+    }
+
+    // Construtores
+    public VendaDiaria() {
+    }
+
+    public VendaDiaria(LocalDate data, Long produtoId, Long categoriaId, Integer quantidade, Double receita) {
+        this.data = data;
+        this.produtoId = produtoId;
+        this.categoriaId = categoriaId;
+        this.quantidade = quantidade;
+        this.receita = receita;
+    }
+
+    // Getters
+    public LocalDate getData() {
+        return data;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public Double getReceita() {
+        return receita;
+    }
+}
@@ -1,7 +1,11 @@
 package com.petshop.repository;
 
+import com.petshop.dto.AgendamentoResponseDTO;
+import com.petshop.dto.ServicoAgendadoProjecao;
 import com.petshop.model.Agendamento;
 import com.petshop.model.Agendamento.StatusAgendamento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,17 +13,33 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
 
+    // Listagens carregam cliente e pet no mesmo SELECT (Agendamento.GRAFO_RESUMO);
+    // os serviços são buscados em lote ao serem acessados (@BatchSize)
+
+    @Override
+    @EntityGraph(Agendamento.GRAFO_RESUMO)
+    List<Agendamento> findAll();
+
+    @Override
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
+    Optional<Agendamento> findById(Long id);
+
+    @EntityGraph(Agendamento.GRAFO_RESUMO)
     List<Agendamento> findByClienteId(Long clienteId);
 
     List<Agendamento> findByPetId(Long petId);
 
+    @EntityGraph(Agendamento.GRAFO_RESUMO)
     List<Agendamento> findByStatus(StatusAgendamento status);
 
+    @EntityGraph(Agendamento.GRAFO_RESUMO)
     List<Agendamento> findByDataAgendamento(LocalDate dataAgendamento);
 
     List<Agendamento> findByDataAgendamentoAndStatus(LocalDate dataAgendamento, StatusAgendamento status);
@@ -27,8 +47,32 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
     @Query("SELECT a FROM Agendamento a WHERE a.dataAgendamento = :data AND a.horario = :horario")
     List<Agendamento> findByDataAndHorario(@Param("data") LocalDate data, @Param("horario") LocalTime horario);
 
+    @EntityGraph(Agendamento.GRAFO_RESUMO)
     @Query("SELECT a FROM Agendamento a WHERE a.dataAgendamento BETWEEN :dataInicio AND :dataFim")
     List<Agendamento> findByDataAgendamentoBetween(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
 
     boolean existsByDataAgendamentoAndHorario(LocalDate dataAgendamento, LocalTime horario);
+
+    // Projeções das listagens: a resposta é montada direto no SELECT, sem
+    // entidades gerenciadas nem snapshots para o dirty checking
+    String PROJECAO_RESPOSTA = "SELECT new com.petshop.dto.AgendamentoResponseDTO(a.id, a.dataAgendamento, " +
+            "a.horario, a.metodoAtendimento, a.portePet, a.observacoes, a.valorTotal, a.status, " +
+            "c.id, c.nome, c.telefone, pt.id, pt.nome) FROM Agendamento a JOIN a.cliente c JOIN a.pet pt ";
+
+    @Query(PROJECAO_RESPOSTA + "WHERE a.id > :aposId ORDER BY a.id")
+    List<AgendamentoResponseDTO> findRespostasPaginaAposId(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE c.id = :clienteId")
+    List<AgendamentoResponseDTO> findRespostasByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE a.dataAgendamento = :data")
+    List<AgendamentoResponseDTO> findRespostasByDataAgendamento(@Param("data") LocalDate data);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE a.status = :status")
+    List<AgendamentoResponseDTO> findRespostasByStatus(@Param("status") StatusAgendamento status);
+
+    // Serviços de vários agendamentos numa única consulta
+    @Query("SELECT new com.petshop.dto.ServicoAgendadoProjecao(a.id, s.id, s.nome, s.preco) " +
+           "FROM Agendamento a JOIN a.servicos s WHERE a.id IN :agendamentoIds")
+    List<ServicoAgendadoProjecao> findServicosByAgendamentoIds(@Param("agendamentoIds") Collection<Long> agendamentoIds);
 }
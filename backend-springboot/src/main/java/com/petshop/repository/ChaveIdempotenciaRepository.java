@@ -0,0 +1,44 @@
+package com.petshop.repository;
+
+import com.petshop.model.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, Long> {
+
+    Optional<ChaveIdempotencia> findByChave(String chave);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChaveIdempotencia c SET c.status = :status, c.tipoConteudo = :tipoConteudo, "
+            + "c.corpo = :corpo, c.expiraEm = :expiraEm WHERE c.chave = :chave AND c.status IS NULL")
+    int concluir(@Param("chave") String chave,
+                 @Param("status") Integer status,
+                 @Param("tipoConteudo") String tipoConteudo,
+                 @Param("corpo") byte[] corpo,
+                 @Param("expiraEm") LocalDateTime expiraEm);
+
+    // Só apaga reservas em andamento; respostas concluídas ficam até expirar
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.status IS NULL")
+    int liberar(@Param("chave") String chave);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.expiraEm <= :agora")
+    int removerSeExpirada(@Param("chave") String chave, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.expiraEm <= :agora")
+    int removerExpiradas(@Param("agora") LocalDateTime agora);
+}
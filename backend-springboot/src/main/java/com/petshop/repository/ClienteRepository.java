@@ -1,9 +1,13 @@
 package com.petshop.repository;
 
 import com.petshop.model.Cliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,7 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     boolean existsByCpf(String cpf);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT c FROM Cliente c WHERE c.id > :aposId ORDER BY c.id")
+    List<Cliente> findPaginaAposId(@Param("aposId") Long aposId, Pageable pageable);
 }
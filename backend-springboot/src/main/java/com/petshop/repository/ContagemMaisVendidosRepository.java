@@ -0,0 +1,17 @@
+package com.petshop.repository;
+
+import com.petshop.model.ContagemMaisVendidos;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ContagemMaisVendidosRepository extends JpaRepository<ContagemMaisVendidos, ContagemMaisVendidos.Chave> {
+
+    @Query("SELECT c FROM ContagemMaisVendidos c WHERE c.dia >= :desde")
+    List<ContagemMaisVendidos> findDesde(@Param("desde") LocalDate desde);
+}
@@ -1,11 +1,13 @@
 package com.petshop.repository;
 
+import com.petshop.dto.ItemPedidoProjecao;
 import com.petshop.model.ItemPedido;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +22,13 @@ public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
 
     @Query("SELECT SUM(i.quantidade) FROM ItemPedido i WHERE i.produto.id = :produtoId")
     Long getTotalQuantidadeVendidaPorProduto(@Param("produtoId") Long produtoId);
+
+    @Query("SELECT i FROM ItemPedido i JOIN FETCH i.produto WHERE i.pedido.id IN :pedidoIds ORDER BY i.id")
+    List<ItemPedido> findByPedidoIdsComProduto(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    // Itens de vários pedidos como projeção, sem entidades gerenciadas
+    @Query("SELECT new com.petshop.dto.ItemPedidoProjecao(i.pedido.id, i.id, pr.id, pr.nome, i.quantidade, " +
+           "i.precoUnitario, i.subtotal) FROM ItemPedido i JOIN i.produto pr " +
+           "WHERE i.pedido.id IN :pedidoIds ORDER BY i.id")
+    List<ItemPedidoProjecao> findProjecoesByPedidoIds(@Param("pedidoIds") Collection<Long> pedidoIds);
 }
@@ -1,30 +1,90 @@
 package com.petshop.repository;
 
+import com.petshop.dto.PedidoResponseDTO;
 import com.petshop.model.Pedido;
 import com.petshop.model.Pedido.StatusPedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
+    // Listagens carregam o cliente no mesmo SELECT (Pedido.GRAFO_RESUMO); os
+    // itens e produtos são buscados em lote ao serem acessados (@BatchSize)
+
+    @Override
+    @EntityGraph(Pedido.GRAFO_RESUMO)
+    List<Pedido> findAll();
+
+    @Override
+    @EntityGraph(Pedido.GRAFO_DETALHE)
+    Optional<Pedido> findById(Long id);
+
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByClienteId(Long clienteId);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByStatus(StatusPedido status);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByClienteIdAndStatus(Long clienteId, StatusPedido status);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     @Query("SELECT p FROM Pedido p WHERE p.dataPedido BETWEEN :dataInicio AND :dataFim")
     List<Pedido> findByDataPedidoBetween(@Param("dataInicio") LocalDateTime dataInicio, @Param("dataFim") LocalDateTime dataFim);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     @Query("SELECT p FROM Pedido p WHERE p.cliente.id = :clienteId ORDER BY p.dataPedido DESC")
     List<Pedido> findByClienteIdOrderByDataPedidoDesc(@Param("clienteId") Long clienteId);
 
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.status = :status")
     Long countByStatus(@Param("status") StatusPedido status);
+
+    // Projeções das listagens: a resposta é montada direto no SELECT, sem
+    // entidades gerenciadas nem snapshots para o dirty checking. Os itens vêm
+    // à parte (ItemPedidoRepository.findProjecoesByPedidoIds)
+    String PROJECAO_RESPOSTA = "SELECT new com.petshop.dto.PedidoResponseDTO(p.id, p.dataPedido, p.valorTotal, " +
+            "p.status, p.formaPagamento, p.observacoes, c.id, c.nome, c.telefone) FROM Pedido p JOIN p.cliente c ";
+
+    // Paginação keyset por (dataPedido, id), do mais recente para o mais antigo
+    @Query(PROJECAO_RESPOSTA + "ORDER BY p.dataPedido DESC, p.id DESC")
+    List<PedidoResponseDTO> findRespostasPrimeiraPagina(Pageable pageable);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE p.dataPedido < :data OR (p.dataPedido = :data AND p.id < :id) " +
+           "ORDER BY p.dataPedido DESC, p.id DESC")
+    List<PedidoResponseDTO> findRespostasPaginaAntesDe(@Param("data") LocalDateTime data, @Param("id") Long id,
+                                                       Pageable pageable);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE c.id = :clienteId ORDER BY p.dataPedido DESC")
+    List<PedidoResponseDTO> findRespostasByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE p.status = :status")
+    List<PedidoResponseDTO> findRespostasByStatus(@Param("status") StatusPedido status);
+
+    // Exportação: cursor do banco lido em blocos, sem materializar o histórico.
+    // Os filtros são opcionais (nulo = sem filtro); o período é [inicio, fim)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente " +
+           "WHERE (:inicio IS NULL OR p.dataPedido >= :inicio) " +
+           "AND (:fim IS NULL OR p.dataPedido < :fim) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "ORDER BY p.dataPedido, p.id")
+    Stream<Pedido> streamParaExportacao(@Param("inicio") LocalDateTime inicio,
+                                        @Param("fim") LocalDateTime fim,
+                                        @Param("status") StatusPedido status);
 }
@@ -1,7 +1,11 @@
 package com.petshop.repository;
 
+import com.petshop.dto.PetResponseDTO;
 import com.petshop.model.Pet;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +18,19 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
     List<Pet> findByTipo(String tipo);
 
     List<Pet> findByClienteIdAndTipo(Long clienteId, String tipo);
+
+    // Projeções das listagens: a resposta é montada direto no SELECT, sem
+    // entidades gerenciadas nem snapshots para o dirty checking
+    String PROJECAO_RESPOSTA = "SELECT new com.petshop.dto.PetResponseDTO(p.id, p.nome, p.tipo, p.raca, p.idade, " +
+            "p.peso, p.sexo, p.castrado, p.observacoes, p.temAlergia, p.precisaMedicacao, " +
+            "p.comportamentoAgressivo, c.id, c.nome) FROM Pet p JOIN p.cliente c ";
+
+    @Query(PROJECAO_RESPOSTA + "WHERE p.id > :aposId ORDER BY p.id")
+    List<PetResponseDTO> findRespostasPaginaAposId(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE c.id = :clienteId")
+    List<PetResponseDTO> findRespostasByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query(PROJECAO_RESPOSTA + "WHERE p.tipo = :tipo")
+    List<PetResponseDTO> findRespostasByTipo(@Param("tipo") String tipo);
 }
@@ -1,30 +1,51 @@
 package com.petshop.repository;
 
 import com.petshop.model.Produto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
-    List<Produto> findByCategoriaId(Long categoriaId);
+    @Query("SELECT p FROM Produto p JOIN FETCH p.categoria WHERE p.categoria.id = :categoriaId")
+    List<Produto> findByCategoriaId(@Param("categoriaId") Long categoriaId);
 
     List<Produto> findByAtivo(Boolean ativo);
 
     List<Produto> findByCategoriaIdAndAtivo(Long categoriaId, Boolean ativo);
 
-    @Query("SELECT p FROM Produto p WHERE p.ativo = true AND p.quantidadeEstoque > 0")
+    @Query("SELECT p FROM Produto p JOIN FETCH p.categoria WHERE p.ativo = true AND p.quantidadeEstoque > 0")
     List<Produto> findProdutosDisponiveis();
 
-    @Query("SELECT p FROM Produto p WHERE p.ativo = true AND p.quantidadeEstoque > 0 AND p.categoria.id = :categoriaId")
+    @Query("SELECT p FROM Produto p JOIN FETCH p.categoria WHERE p.ativo = true AND p.quantidadeEstoque > 0 AND p.categoria.id = :categoriaId")
     List<Produto> findProdutosDisponiveisPorCategoria(@Param("categoriaId") Long categoriaId);
 
-    @Query("SELECT p FROM Produto p WHERE LOWER(p.nome) LIKE LOWER(CONCAT('%', :termo, '%')) AND p.ativo = true")
-    List<Produto> buscarPorNome(@Param("termo") String termo);
+    @Query("SELECT p FROM Produto p LEFT JOIN FETCH p.categoria WHERE p.id IN :ids AND p.ativo = true")
+    List<Produto> findAtivosPorIds(@Param("ids") Collection<Long> ids);
 
     List<Produto> findByQuantidadeEstoqueLessThan(Integer quantidade);
+
+    @Query("SELECT p FROM Produto p JOIN FETCH p.categoria WHERE p.id > :aposId ORDER BY p.id")
+    List<Produto> findPaginaAposId(@Param("aposId") Long aposId, Pageable pageable);
+
+    // Baixa e devolução de estoque em um único UPDATE condicional: a
+    // verificação de saldo acontece no banco, sob o lock da linha, sem a
+    // sequência ler-verificar-salvar que perde atualizações concorrentes.
+    // Retornam a quantidade de produtos alterados.
+
+    @Modifying
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque - :quantidade " +
+           "WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade")
+    int reduzirEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @Modifying
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque + :quantidade WHERE p.id = :id")
+    int adicionarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
 }
@@ -0,0 +1,49 @@
+package com.petshop.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Balde de tokens sem trava: o estado (saldo e instante da última reposição)
+ * é um valor imutável trocado por compare-and-set, então requisições
+ * concorrentes do mesmo cliente nunca se bloqueiam.
+ *
+ * Os instantes são em nanossegundos (System.nanoTime), recebidos de fora para
+ * que o relógio possa ser controlado nos testes.
+ */
+final class BaldeTokens {
+
+    private record Estado(double tokens, long instante) {
+    }
+
+    private final double capacidade;
+    private final double reposicaoPorNano;
+    private final AtomicReference<Estado> estado;
+
+    BaldeTokens(int capacidade, double reposicaoPorSegundo, long agora) {
+        this.capacidade = capacidade;
+        this.reposicaoPorNano = reposicaoPorSegundo / 1_000_000_000d;
+        this.estado = new AtomicReference<>(new Estado(capacidade, agora));
+    }
+
+    /**
+     * Consome um token se houver saldo.
+     *
+     * @return 0 se a requisição pode seguir; senão, nanossegundos até haver
+     *         um token disponível
+     */
+    long consumir(long agora) {
+        while (true) {
+            Estado atual = estado.get();
+            // Instantes lidos por threads diferentes podem chegar fora de ordem
+            long decorrido = Math.max(0, agora - atual.instante());
+            double tokens = Math.min(capacidade, atual.tokens() + decorrido * reposicaoPorNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / reposicaoPorNano);
+            }
+            Estado novo = new Estado(tokens - 1, Math.max(agora, atual.instante()));
+            if (estado.compareAndSet(atual, novo)) {
+                return 0;
+            }
+        }
+    }
+}
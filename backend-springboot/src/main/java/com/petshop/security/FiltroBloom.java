@@ -0,0 +1,86 @@
+package com.petshop.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para strings: responde "com certeza não está" ou "talvez
+ * esteja", com taxa de falso positivo limitada ao número de elementos para o
+ * qual foi dimensionado.
+ *
+ * As posições saem de um hash de 64 bits dividido em duas metades (hashing
+ * duplo). Os bits ficam num AtomicLongArray, então consultas e inserções
+ * concorrentes dispensam trava.
+ */
+public final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funcoes;
+
+    public FiltroBloom(int elementosEsperados, double taxaFalsoPositivo) {
+        if (taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Taxa de falso positivo deve estar entre 0 e 1");
+        }
+        int n = Math.max(elementosEsperados, 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+        int palavras = (int) Math.min((Math.max(m, 64) + 63) / 64, Integer.MAX_VALUE - 8);
+        this.bits = new AtomicLongArray(palavras);
+        this.totalBits = (long) palavras * 64;
+        this.funcoes = Math.max(1, (int) Math.round((double) totalBits / n * ln2));
+    }
+
+    public void adicionar(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcoes; i++) {
+            long bit = posicao(h1 + i * h2);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+    }
+
+    public boolean talvezContenha(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcoes; i++) {
+            long bit = posicao(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int funcoes() {
+        return funcoes;
+    }
+
+    private long posicao(int combinado) {
+        return (combinado < 0 ? ~combinado : combinado) % totalBits;
+    }
+
+    // FNV-1a de 64 bits seguido da finalização do MurmurHash3
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
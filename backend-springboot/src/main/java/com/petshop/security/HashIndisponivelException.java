@@ -0,0 +1,27 @@
+package com.petshop.security;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * O pool de hashing de senhas não aceitou ou não concluiu a tarefa a tempo.
+ * 429 quando a fila está cheia, 503 quando a espera estourou o limite.
+ */
+public class HashIndisponivelException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final int retryAfterSegundos;
+
+    public HashIndisponivelException(HttpStatus status, String mensagem, int retryAfterSegundos) {
+        super(mensagem);
+        this.status = status;
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
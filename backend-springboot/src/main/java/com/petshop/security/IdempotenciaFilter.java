@@ -0,0 +1,228 @@
+package com.petshop.security;
+
+import com.petshop.service.ArmazemIdempotencia;
+import com.petshop.service.ArmazemIdempotencia.Resposta;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Idempotency-Key nos POST que criam recursos (pedidos, agendamentos).
+ *
+ * Sem o cabeçalho a requisição segue normalmente. Com ele, a primeira
+ * requisição reserva a chave, executa e, se der 2xx, tem a resposta
+ * guardada; repetições com a mesma chave recebem essa resposta sem executar
+ * de novo. A chave vale por cliente e por rota. Mesma chave com outro corpo
+ * é 422, e repetição enquanto a primeira ainda executa é 409. Respostas de
+ * erro não são guardadas: a chave é liberada para nova tentativa. Se a
+ * resposta 2xx não puder ser guardada, a chave continua reservada (409 nas
+ * repetições) até o prazo de execução vencer.
+ */
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaFilter.class);
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private final ArmazemIdempotencia armazem;
+
+    public IdempotenciaFilter(ArmazemIdempotencia armazem) {
+        this.armazem = armazem;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(CABECALHO) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String valor = request.getHeader(CABECALHO).trim();
+        if (valor.isEmpty() || valor.length() > TAMANHO_MAXIMO_CHAVE) {
+            erro(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+
+        CorpoRelido requisicao = new CorpoRelido(request);
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        String chave = sha256((caminho + "|" + LimiteRequisicoesFilter.cliente(request) + "|" + valor)
+                .getBytes(StandardCharsets.UTF_8));
+        String impressao = sha256(requisicao.corpo);
+
+        Optional<Resposta> guardada = armazem.buscar(chave);
+        if (guardada.isEmpty()) {
+            if (armazem.reservar(chave, impressao)) {
+                executar(requisicao, response, filterChain, chave, impressao);
+                return;
+            }
+            // Outra requisição reservou entre a busca e o INSERT
+            guardada = armazem.buscar(chave);
+        }
+
+        Resposta resposta = guardada.orElse(null);
+        if (resposta != null && !resposta.impressao().equals(impressao)) {
+            erro(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key já utilizada com outro corpo de requisição");
+        } else if (resposta == null || resposta.emAndamento()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            erro(response, HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key ainda em processamento");
+        } else {
+            repetir(response, resposta);
+        }
+    }
+
+    private void executar(HttpServletRequest requisicao, HttpServletResponse response, FilterChain filterChain,
+                          String chave, String impressao) throws ServletException, IOException {
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        boolean executada = false;
+        try {
+            filterChain.doFilter(requisicao, resposta);
+            int status = resposta.getStatus();
+            if (status >= 200 && status < 300) {
+                // O recurso já foi criado: daqui em diante a chave não é
+                // liberada, ou uma nova tentativa o criaria de novo
+                executada = true;
+                try {
+                    armazem.concluir(chave, impressao, status, resposta.getContentType(),
+                            resposta.getContentAsByteArray());
+                } catch (RuntimeException e) {
+                    log.warn("Resposta da Idempotency-Key não guardada; a reserva fica até expirar: {}",
+                            e.getMessage());
+                }
+            }
+        } finally {
+            if (!executada) {
+                armazem.liberar(chave);
+            }
+            resposta.copyBodyToResponse();
+        }
+    }
+
+    private static void repetir(HttpServletResponse response, Resposta resposta) throws IOException {
+        response.setStatus(resposta.status());
+        response.setHeader(CABECALHO_REPETIDA, "true");
+        if (resposta.tipoConteudo() != null) {
+            response.setContentType(resposta.tipoConteudo());
+        }
+        byte[] corpo = resposta.corpo() != null ? resposta.corpo() : new byte[0];
+        response.setContentLength(corpo.length);
+        response.getOutputStream().write(corpo);
+    }
+
+    private static void erro(HttpServletResponse response, HttpStatus status, String mensagem) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"" + mensagem + "\"}");
+    }
+
+    static String sha256(byte[] dados) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(dados));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Lê o corpo uma vez (para calcular a impressão) e o entrega de novo ao
+     * controller
+     */
+    static class CorpoRelido extends HttpServletRequestWrapper {
+
+        private final byte[] corpo;
+
+        CorpoRelido(HttpServletRequest request) throws IOException {
+            super(request);
+            this.corpo = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // O corpo inteiro já está em memória: os dados estão
+                // disponíveis de imediato e acabam quando o listener os lê
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return corpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return corpo.length;
+        }
+    }
+}
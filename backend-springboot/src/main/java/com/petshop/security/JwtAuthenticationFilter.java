@@ -1,5 +1,6 @@
 package com.petshop.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RevogacaoTokens revogacaoTokens;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
@@ -23,28 +27,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-        String role = null;
-
-        // Extrair JWT do header
+        // Extrair e validar o JWT do header numa única verificação
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                role = jwtUtil.extractRole(jwt);
+                Claims claims = jwtUtil.verificar(jwt);
+                if (revogacaoTokens.estaRevogado(claims.getId())) {
+                    logger.warn("JWT Token revogado: " + claims.getSubject());
+                } else if (claims.getSubject() != null) {
+                    request.setAttribute("username", claims.getSubject());
+                    request.setAttribute("role", claims.get("role", String.class));
+                    request.setAttribute("authenticated", true);
+                }
             } catch (Exception e) {
                 logger.warn("JWT Token inválido: " + e.getMessage());
             }
         }
 
-        // Validar token e adicionar informações ao request
-        if (username != null && jwtUtil.validateToken(jwt)) {
-            request.setAttribute("username", username);
-            request.setAttribute("role", role);
-            request.setAttribute("authenticated", true);
-        }
-
         filterChain.doFilter(request, response);
     }
 }
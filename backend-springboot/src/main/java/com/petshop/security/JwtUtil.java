@@ -1,6 +1,10 @@
 package com.petshop.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,11 +12,25 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Geração e verificação de tokens JWT.
+ *
+ * A chave HMAC e o parser são montados uma única vez. Tokens já verificados
+ * ficam num cache limitado, indexado pelo SHA-256 do token (o token em si não
+ * é guardado), e cada entrada expira junto com o próprio token: requisições
+ * repetidas da mesma sessão não refazem a verificação da assinatura nem a
+ * leitura do JSON.
+ */
 @Component
 public class JwtUtil {
 
@@ -22,9 +40,29 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 horas em ms
     private Long expiration;
 
+    @Value("${jwt.cache.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache = 10000;
+
+    // Montado no primeiro uso, depois que as propriedades foram injetadas
+    private volatile Verificador verificador;
+
+    private Verificador verificador() {
+        Verificador atual = verificador;
+        if (atual == null) {
+            synchronized (this) {
+                atual = verificador;
+                if (atual == null) {
+                    atual = new Verificador(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)),
+                            tamanhoMaximoCache);
+                    verificador = atual;
+                }
+            }
+        }
+        return atual;
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verificador().chave;
     }
 
     // Gerar token JWT
@@ -39,7 +77,9 @@ public class JwtUtil {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expiration);
 
+        // jti: identifica o token para revogação (logout)
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .claims(claims)
                 .subject(subject)
                 .issuedAt(now)
@@ -65,37 +105,88 @@ public class JwtUtil {
 
     // Extrair claim específico
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verificar(token);
         return claimsResolver.apply(claims);
     }
 
-    // Extrair todos os claims
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    // Verificar se token expirou
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Verifica assinatura e expiração e devolve os claims do token, numa
+     * única leitura. Lança {@link io.jsonwebtoken.JwtException} (ou
+     * IllegalArgumentException) se o token for inválido ou estiver expirado.
+     */
+    public Claims verificar(String token) {
+        Verificador atual = verificador();
+        String chave = digest(token);
+        Claims claims = atual.tokensVerificados.getIfPresent(chave);
+        if (claims == null) {
+            claims = atual.parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                atual.tokensVerificados.put(chave, claims);
+            }
+        }
+        return claims;
     }
 
-    // Validar token
+    // Validar token (a expiração já é conferida em verificar)
     public Boolean validateToken(String token, String username) {
         final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return extractedUsername.equals(username);
     }
 
     // Validar token (sem username)
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            verificar(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static final class Verificador {
+
+        private final SecretKey chave;
+        private final JwtParser parser;
+        private final Cache<String, Claims> tokensVerificados;
+
+        Verificador(SecretKey chave, long tamanhoMaximoCache) {
+            this.chave = chave;
+            this.parser = Jwts.parser().verifyWith(chave).build();
+            this.tokensVerificados = Caffeine.newBuilder()
+                    .maximumSize(tamanhoMaximoCache)
+                    .expireAfter(new ExpiraComToken())
+                    .build();
+        }
+    }
+
+    /**
+     * A entrada vale até o instante de expiração do próprio token.
+     */
+    private static final class ExpiraComToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String chave, Claims claims, long agora) {
+            long restanteMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, Claims claims, long agora, long duracaoAtual) {
+            return expireAfterCreate(chave, claims, agora);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, Claims claims, long agora, long duracaoAtual) {
+            return duracaoAtual;
+        }
+    }
 }
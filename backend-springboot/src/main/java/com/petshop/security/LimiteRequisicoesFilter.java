@@ -0,0 +1,113 @@
+package com.petshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Limite de requisições por cliente com balde de tokens.
+ *
+ * O cliente é o usuário do JWT (atributo "username" gravado pelo
+ * JwtAuthenticationFilter, que roda antes) ou, sem token, o IP de origem.
+ * Cada grupo de rotas tem capacidade e taxa de reposição próprias, e cada par
+ * grupo/cliente tem o seu balde. Os baldes ficam num cache que descarta os
+ * ociosos; não há trava global, apenas o compare-and-set de cada balde.
+ * Requisição acima do limite recebe 429 com Retry-After.
+ */
+public class LimiteRequisicoesFilter extends OncePerRequestFilter {
+
+    /**
+     * Grupo de rotas (padrões Ant) com o seu limite. O primeiro grupo cujas
+     * rotas casam com a requisição é o usado.
+     */
+    public record Grupo(String nome, List<String> rotas, int capacidade, double reposicaoPorSegundo) {
+    }
+
+    private final List<Grupo> grupos;
+    private final Grupo padrao;
+    private final Cache<String, BaldeTokens> baldes;
+    private final LongSupplier relogio;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public LimiteRequisicoesFilter(List<Grupo> grupos, Grupo padrao, Duration tempoOcioso, long maximoBaldes) {
+        this(grupos, padrao, tempoOcioso, maximoBaldes, System::nanoTime);
+    }
+
+    LimiteRequisicoesFilter(List<Grupo> grupos, Grupo padrao, Duration tempoOcioso, long maximoBaldes,
+                            LongSupplier relogio) {
+        this.grupos = List.copyOf(grupos);
+        this.padrao = padrao;
+        this.relogio = relogio;
+        this.baldes = Caffeine.newBuilder()
+                .expireAfterAccess(tempoOcioso)
+                .maximumSize(maximoBaldes)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        // Preflight de CORS não conta
+        if ("OPTIONS".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Grupo grupo = grupoDa(request.getRequestURI().substring(request.getContextPath().length()));
+        long agora = relogio.getAsLong();
+        BaldeTokens balde = baldes.get(grupo.nome() + "|" + cliente(request),
+                chave -> new BaldeTokens(grupo.capacidade(), grupo.reposicaoPorSegundo(), agora));
+
+        long espera = balde.consumir(agora);
+        if (espera == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long segundos = Math.max(1, (espera + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Muitas requisições, tente novamente em instantes\"}");
+    }
+
+    long baldesAtivos() {
+        baldes.cleanUp();
+        return baldes.estimatedSize();
+    }
+
+    private Grupo grupoDa(String caminho) {
+        for (Grupo grupo : grupos) {
+            for (String rota : grupo.rotas()) {
+                if (matcher.match(rota, caminho)) {
+                    return grupo;
+                }
+            }
+        }
+        return padrao;
+    }
+
+    static String cliente(HttpServletRequest request) {
+        Object username = request.getAttribute("username");
+        if (username instanceof String usuario) {
+            return "u:" + usuario;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
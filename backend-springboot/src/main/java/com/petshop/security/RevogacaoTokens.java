@@ -0,0 +1,116 @@
+package com.petshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.petshop.model.TokenRevogado;
+import com.petshop.repository.TokenRevogadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revogação de tokens JWT (logout) sem consulta ao banco em toda requisição.
+ *
+ * Os jti revogados ficam na tabela tokens_revogados e, em memória, num filtro
+ * de Bloom refeito periodicamente a partir dela. A consulta passa primeiro
+ * pelo filtro: um "não" encerra a verificação; só um "talvez" vai à tabela, e
+ * o resultado exato fica em cache até a próxima reconstrução. Revogações
+ * feitas em outra instância aparecem aqui na reconstrução seguinte.
+ */
+@Component
+public class RevogacaoTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(RevogacaoTokens.class);
+
+    private final TokenRevogadoRepository tokenRevogadoRepository;
+    private final int capacidadeMinima;
+    private final double taxaFalsoPositivo;
+    private final Cache<String, Boolean> confirmados;
+    private final Object trava = new Object();
+
+    // Nulo até a primeira reconstrução: enquanto isso, toda consulta vai à tabela
+    private volatile FiltroBloom filtro;
+
+    @Autowired
+    public RevogacaoTokens(TokenRevogadoRepository tokenRevogadoRepository,
+                           @Value("${jwt.revogacao.capacidade-minima:1024}") int capacidadeMinima,
+                           @Value("${jwt.revogacao.falso-positivo:0.01}") double taxaFalsoPositivo,
+                           @Value("${jwt.revogacao.intervalo-ms:60000}") long intervaloMs) {
+        this.tokenRevogadoRepository = tokenRevogadoRepository;
+        this.capacidadeMinima = capacidadeMinima;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.confirmados = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(intervaloMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Indica se o token de identificador jti foi revogado. Tokens sem jti
+     * (emitidos antes da revogação existir) não são revogáveis.
+     */
+    public boolean estaRevogado(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        FiltroBloom atual = filtro;
+        if (atual != null && !atual.talvezContenha(jti)) {
+            return false;
+        }
+        return confirmados.get(jti, tokenRevogadoRepository::existsByJti);
+    }
+
+    public void revogar(String jti, Date expiracao) {
+        if (jti == null) {
+            throw new RuntimeException("Token sem identificador não pode ser revogado");
+        }
+        LocalDateTime expiraEm = LocalDateTime.ofInstant(expiracao.toInstant(), ZoneId.systemDefault());
+        try {
+            if (!tokenRevogadoRepository.existsByJti(jti)) {
+                tokenRevogadoRepository.save(new TokenRevogado(jti, expiraEm));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Revogado ao mesmo tempo por outra requisição
+        }
+        // Sob a trava: ou entra no filtro atual ou a reconstrução em curso já lê do banco
+        synchronized (trava) {
+            FiltroBloom atual = filtro;
+            if (atual != null) {
+                atual.adicionar(jti);
+            }
+        }
+        confirmados.put(jti, true);
+    }
+
+    /**
+     * Refaz o filtro com os jti ainda válidos e apaga os registros vencidos.
+     * Roda ao iniciar e depois a cada intervalo; se o banco falhar, o filtro
+     * anterior continua em uso.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revogacao.intervalo-ms:60000}")
+    public void reconstruir() {
+        synchronized (trava) {
+            try {
+                LocalDateTime agora = LocalDateTime.now();
+                tokenRevogadoRepository.removerExpirados(agora);
+                List<String> jtis = tokenRevogadoRepository.findJtisValidos(agora);
+                // Folga para as revogações que chegam até a próxima reconstrução
+                FiltroBloom novo = new FiltroBloom(Math.max(capacidadeMinima, jtis.size() * 2), taxaFalsoPositivo);
+                jtis.forEach(novo::adicionar);
+                filtro = novo;
+            } catch (RuntimeException e) {
+                log.warn("Falha ao reconstruir o filtro de tokens revogados: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.petshop.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hash e conferência de senhas com BCrypt num pool próprio e limitado.
+ *
+ * Um pico de logins ocupa apenas as threads deste pool, não os workers do
+ * Tomcat. A fila tem tamanho fixo: quando enche, a requisição é recusada na
+ * hora (429); quando a espera pelo resultado passa do limite, 503. O custo do
+ * BCrypt é configurável e hashes com custo diferente são refeitos no próximo
+ * login bem-sucedido, sem exigir troca de senha.
+ */
+@Component
+public class SenhaHasher {
+
+    private static final Pattern CUSTO_BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final int custo;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    @Autowired
+    public SenhaHasher(@Value("${auth.bcrypt.custo:10}") int custo,
+                       @Value("${auth.bcrypt.threads:0}") int threads,
+                       @Value("${auth.bcrypt.fila:32}") int fila,
+                       @Value("${auth.bcrypt.timeout-ms:5000}") long timeoutMs) {
+        // Zero threads: uma por núcleo disponível
+        int tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.custo = custo;
+        this.encoder = new BCryptPasswordEncoder(custo);
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila), tarefa -> {
+                    Thread thread = new Thread(tarefa, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String hash(String senha) {
+        return executar(() -> encoder.encode(senha));
+    }
+
+    public boolean confere(String senha, String hash) {
+        return executar(() -> encoder.matches(senha, hash));
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo diferente do configurado.
+     */
+    public boolean precisaRehash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher matcher = CUSTO_BCRYPT.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != custo;
+    }
+
+    /**
+     * Novo hash com o custo atual, se o pool tiver folga. O rehash é
+     * oportunista: com o pool saturado, fica para um próximo login.
+     */
+    public Optional<String> rehash(String senha) {
+        try {
+            return Optional.of(hash(senha));
+        } catch (HashIndisponivelException e) {
+            return Optional.empty();
+        }
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(tarefa);
+        } catch (RejectedExecutionException e) {
+            throw new HashIndisponivelException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Muitas autenticações simultâneas, tente novamente em instantes", 1);
+        }
+        try {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new HashIndisponivelException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Serviço de autenticação sobrecarregado, tente novamente em instantes", 5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new HashIndisponivelException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Autenticação interrompida", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new RuntimeException("Erro ao processar a senha", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -1,5 +1,9 @@
 package com.petshop.service;
 
+import com.petshop.dto.AgendamentoResponseDTO;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.ServicoAgendadoProjecao;
+import com.petshop.dto.ServicoSimpleDTO;
 import com.petshop.model.Agendamento;
 import com.petshop.model.Agendamento.StatusAgendamento;
 import com.petshop.model.Cliente;
@@ -10,17 +14,24 @@ import com.petshop.repository.ClienteRepository;
 import com.petshop.repository.PetRepository;
 import com.petshop.repository.ServicoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class AgendamentoService {
 
+    private static final int LOTE_CONSULTA = 500;
+
     @Autowired
     private AgendamentoRepository agendamentoRepository;
 
@@ -38,24 +49,40 @@ public class AgendamentoService {
         return agendamentoRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursor<AgendamentoResponseDTO> listarPagina(String cursor, int limite) {
+        Long aposId = cursor != null ? PaginaCursor.decodificarId(cursor) : 0L;
+        List<AgendamentoResponseDTO> resultado = agendamentoRepository
+                .findRespostasPaginaAposId(aposId, PageRequest.of(0, limite + 1));
+        PaginaCursor<AgendamentoResponseDTO> pagina =
+                PaginaCursor.deResultado(resultado, limite, a -> PaginaCursor.codificar(a.getId()));
+        preencherServicos(pagina.getItens());
+        return pagina;
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return agendamentoRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Optional<Agendamento> buscarPorId(Long id) {
         return agendamentoRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
-    public List<Agendamento> buscarPorCliente(Long clienteId) {
-        return agendamentoRepository.findByClienteId(clienteId);
+    public List<AgendamentoResponseDTO> buscarPorCliente(Long clienteId) {
+        return preencherServicos(agendamentoRepository.findRespostasByClienteId(clienteId));
     }
 
     @Transactional(readOnly = true)
-    public List<Agendamento> buscarPorData(LocalDate data) {
-        return agendamentoRepository.findByDataAgendamento(data);
+    public List<AgendamentoResponseDTO> buscarPorData(LocalDate data) {
+        return preencherServicos(agendamentoRepository.findRespostasByDataAgendamento(data));
     }
 
     @Transactional(readOnly = true)
-    public List<Agendamento> buscarPorStatus(StatusAgendamento status) {
-        return agendamentoRepository.findByStatus(status);
+    public List<AgendamentoResponseDTO> buscarPorStatus(StatusAgendamento status) {
+        return preencherServicos(agendamentoRepository.findRespostasByStatus(status));
     }
 
     @Transactional(readOnly = true)
@@ -115,6 +142,7 @@ public class AgendamentoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public Agendamento atualizarStatus(Long id, StatusAgendamento novoStatus) {
         Agendamento agendamento = agendamentoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Agendamento não encontrado com ID: " + id));
@@ -124,6 +152,7 @@ public class AgendamentoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public void cancelar(Long id) {
         Agendamento agendamento = agendamentoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Agendamento não encontrado com ID: " + id));
@@ -144,4 +173,24 @@ public class AgendamentoService {
     public boolean verificarDisponibilidade(LocalDate data, LocalTime horario) {
         return !agendamentoRepository.existsByDataAgendamentoAndHorario(data, horario);
     }
+
+    // Serviços das listagens por projeção, em lotes de ids para não estourar
+    // o limite de parâmetros do banco
+    private List<AgendamentoResponseDTO> preencherServicos(List<AgendamentoResponseDTO> agendamentos) {
+        Map<Long, List<ServicoSimpleDTO>> servicosPorAgendamento = new HashMap<>();
+        for (int inicio = 0; inicio < agendamentos.size(); inicio += LOTE_CONSULTA) {
+            List<Long> ids = agendamentos.subList(inicio, Math.min(inicio + LOTE_CONSULTA, agendamentos.size()))
+                    .stream()
+                    .map(AgendamentoResponseDTO::getId)
+                    .collect(Collectors.toList());
+            for (ServicoAgendadoProjecao servico : agendamentoRepository.findServicosByAgendamentoIds(ids)) {
+                servicosPorAgendamento.computeIfAbsent(servico.agendamentoId(), k -> new ArrayList<>())
+                        .add(servico.toDTO());
+            }
+        }
+        for (AgendamentoResponseDTO agendamento : agendamentos) {
+            agendamento.setServicos(servicosPorAgendamento.getOrDefault(agendamento.getId(), new ArrayList<>()));
+        }
+        return agendamentos;
+    }
 }
@@ -0,0 +1,113 @@
+package com.petshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.petshop.model.ChaveIdempotencia;
+import com.petshop.repository.ChaveIdempotenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Respostas guardadas por Idempotency-Key.
+ *
+ * O banco é a fonte da verdade e o que coordena requisições concorrentes: a
+ * reserva é um INSERT na coluna única, então só uma execução por chave
+ * passa. As respostas concluídas também ficam num cache limitado, para que a
+ * repetição de um POST recente não precise ir ao banco. Registros expirados
+ * são apagados periodicamente.
+ */
+@Component
+public class ArmazemIdempotencia {
+
+    private static final Logger log = LoggerFactory.getLogger(ArmazemIdempotencia.class);
+
+    /**
+     * Resposta guardada (ou reserva em andamento, quando status é nulo)
+     */
+    public record Resposta(String impressao, Integer status, String tipoConteudo, byte[] corpo) {
+
+        public boolean emAndamento() {
+            return status == null;
+        }
+    }
+
+    private final ChaveIdempotenciaRepository repository;
+    private final Duration retencao;
+    private final Duration prazoExecucao;
+    private final Cache<String, Resposta> concluidas;
+
+    @Autowired
+    public ArmazemIdempotencia(ChaveIdempotenciaRepository repository,
+                               @Value("${idempotencia.retencao-horas:24}") long retencaoHoras,
+                               @Value("${idempotencia.prazo-execucao-ms:60000}") long prazoExecucaoMs,
+                               @Value("${idempotencia.cache.tamanho-maximo:10000}") long tamanhoMaximo) {
+        this.repository = repository;
+        this.retencao = Duration.ofHours(retencaoHoras);
+        this.prazoExecucao = Duration.ofMillis(prazoExecucaoMs);
+        this.concluidas = Caffeine.newBuilder()
+                .expireAfterWrite(retencao)
+                .maximumSize(tamanhoMaximo)
+                .build();
+    }
+
+    public Optional<Resposta> buscar(String chave) {
+        Resposta emCache = concluidas.getIfPresent(chave);
+        if (emCache != null) {
+            return Optional.of(emCache);
+        }
+        Optional<Resposta> resposta = repository.findByChave(chave)
+                .filter(registro -> registro.getExpiraEm().isAfter(LocalDateTime.now()))
+                .map(registro -> new Resposta(registro.getImpressao(), registro.getStatus(),
+                        registro.getTipoConteudo(), registro.getCorpo()));
+        resposta.filter(r -> !r.emAndamento()).ifPresent(r -> concluidas.put(chave, r));
+        return resposta;
+    }
+
+    /**
+     * Reserva a chave para uma execução. Uma reserva abandonada (processo
+     * encerrado no meio da requisição) expira após o prazo de execução.
+     *
+     * @return false se outra requisição já detém a chave
+     */
+    public boolean reservar(String chave, String impressao) {
+        LocalDateTime agora = LocalDateTime.now();
+        repository.removerSeExpirada(chave, agora);
+        try {
+            repository.saveAndFlush(new ChaveIdempotencia(chave, impressao, agora.plus(prazoExecucao)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void concluir(String chave, String impressao, int status, String tipoConteudo, byte[] corpo) {
+        repository.concluir(chave, status, tipoConteudo, corpo, LocalDateTime.now().plus(retencao));
+        concluidas.put(chave, new Resposta(impressao, status, tipoConteudo, corpo));
+    }
+
+    /**
+     * Desfaz a reserva para que o cliente possa tentar de novo com a mesma
+     * chave (respostas de erro não são guardadas)
+     */
+    public void liberar(String chave) {
+        repository.liberar(chave);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.limpeza-ms:600000}",
+            initialDelayString = "${idempotencia.limpeza-ms:600000}")
+    public void removerExpiradas() {
+        int removidas = repository.removerExpiradas(LocalDateTime.now());
+        if (removidas > 0) {
+            log.debug("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+}
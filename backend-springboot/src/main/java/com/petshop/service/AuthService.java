@@ -8,10 +8,11 @@ import com.petshop.model.Usuario;
 import com.petshop.repository.ClienteRepository;
 import com.petshop.repository.UsuarioRepository;
 import com.petshop.security.JwtUtil;
+import com.petshop.security.RevogacaoTokens;
+import com.petshop.security.SenhaHasher;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -28,22 +29,41 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private SenhaHasher senhaHasher;
+
+    @Autowired
+    private UltimoAcessoBuffer ultimoAcessoBuffer;
 
-    @Transactional
+    @Autowired
+    private RevogacaoTokens revogacaoTokens;
+
+    // Sem transação envolvendo o BCrypt: a espera pelo pool de hashing não
+    // deve segurar uma conexão do banco
     public LoginResponseDTO login(LoginRequestDTO loginRequest) {
         // Buscar usuário
         Usuario usuario = usuarioRepository.findByUsernameAndAtivo(loginRequest.getUsername(), true)
                 .orElseThrow(() -> new RuntimeException("Usuário ou senha inválidos"));
 
         // Validar senha com BCrypt
-        if (!passwordEncoder.matches(loginRequest.getSenha(), usuario.getSenha())) {
+        if (!senhaHasher.confere(loginRequest.getSenha(), usuario.getSenha())) {
             throw new RuntimeException("Usuário ou senha inválidos");
         }
 
-        // Atualizar último acesso
-        usuario.setUltimoAcesso(LocalDateTime.now());
-        usuarioRepository.save(usuario);
+        LocalDateTime agora = LocalDateTime.now();
+
+        // Hash gerado com outro custo: refaz com o custo atual (única escrita do login)
+        if (senhaHasher.precisaRehash(usuario.getSenha())) {
+            Optional<String> novoHash = senhaHasher.rehash(loginRequest.getSenha());
+            if (novoHash.isPresent()) {
+                usuario.setSenha(novoHash.get());
+                usuario.setUltimoAcesso(agora);
+                usuarioRepository.save(usuario);
+            }
+        }
+
+        // Último acesso fica em memória e é gravado em lote periodicamente
+        ultimoAcessoBuffer.registrar(usuario.getId(), agora);
 
         // Gerar token JWT
         String token = jwtUtil.generateToken(usuario.getUsername(), usuario.getRole());
@@ -60,7 +80,9 @@ public class AuthService {
         );
     }
 
-    @Transactional
+    // Sem transação envolvendo o BCrypt, como no login: as validações e o
+    // save rodam cada um na sua transação curta, e o username e o email únicos
+    // no banco barram o cadastro concorrente que passar pelas validações
     public Usuario registrar(UsuarioRequestDTO usuarioRequest) {
         // Validar se username já existe
         if (usuarioRepository.existsByUsername(usuarioRequest.getUsername())) {
@@ -72,27 +94,42 @@ public class AuthService {
             throw new RuntimeException("Email já cadastrado");
         }
 
+        // Buscar cliente antes do hash, para não gastar BCrypt num cadastro inválido
+        Cliente cliente = null;
+        if (usuarioRequest.getClienteId() != null) {
+            cliente = clienteRepository.findById(usuarioRequest.getClienteId())
+                    .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
+        }
+
         // Criar novo usuário
         Usuario usuario = new Usuario();
         usuario.setUsername(usuarioRequest.getUsername());
         // Hash da senha com BCrypt
-        usuario.setSenha(passwordEncoder.encode(usuarioRequest.getSenha()));
+        usuario.setSenha(senhaHasher.hash(usuarioRequest.getSenha()));
         usuario.setEmail(usuarioRequest.getEmail());
         usuario.setRole(usuarioRequest.getRole());
         usuario.setAtivo(true);
-
-        // Vincular cliente se fornecido
-        if (usuarioRequest.getClienteId() != null) {
-            Cliente cliente = clienteRepository.findById(usuarioRequest.getClienteId())
-                    .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-            usuario.setCliente(cliente);
-        }
+        usuario.setCliente(cliente);
 
         return usuarioRepository.save(usuario);
     }
 
     public boolean validarToken(String token) {
-        return jwtUtil.validateToken(token);
+        if (!jwtUtil.validateToken(token)) {
+            return false;
+        }
+        return !revogacaoTokens.estaRevogado(jwtUtil.extractClaim(token, Claims::getId));
+    }
+
+    // Logout: o token deixa de ser aceito mesmo antes de expirar
+    public void revogarToken(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.verificar(token);
+        } catch (Exception e) {
+            throw new RuntimeException("Token inválido ou expirado");
+        }
+        revogacaoTokens.revogar(claims.getId(), claims.getExpiration());
     }
 
     public Optional<Usuario> getUsuarioFromToken(String token) {
@@ -0,0 +1,89 @@
+package com.petshop.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Contadores de versão do catálogo (produtos, categorias e serviços), usados
+ * para gerar ETags sem carregar nem serializar as entidades.
+ *
+ * Cada escrita incrementa a versão da coleção e a do item alterado, sempre
+ * após o commit: assim um cliente nunca associa uma ETag nova a dados antigos.
+ * As versões vivem em memória e recomeçam a cada inicialização; a época no
+ * início da ETag impede que uma versão de antes do restart seja reaproveitada.
+ */
+@Component
+public class CatalogoVersoes {
+
+    public enum Recurso {
+        CATEGORIA("c", null),
+        SERVICO("s", null),
+        // A resposta de produto inclui o nome da categoria
+        PRODUTO("p", CATEGORIA);
+
+        private final String prefixo;
+        private final Recurso dependencia;
+
+        Recurso(String prefixo, Recurso dependencia) {
+            this.prefixo = prefixo;
+            this.dependencia = dependencia;
+        }
+    }
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Recurso, AtomicLong> colecoes = new EnumMap<>(Recurso.class);
+    private final Map<Recurso, Map<Long, AtomicLong>> itens = new EnumMap<>(Recurso.class);
+
+    public CatalogoVersoes() {
+        for (Recurso recurso : Recurso.values()) {
+            colecoes.put(recurso, new AtomicLong());
+            itens.put(recurso, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * ETag forte das listagens do recurso.
+     */
+    public String etagColecao(Recurso recurso) {
+        return etag(recurso, recurso.prefixo + colecoes.get(recurso).get());
+    }
+
+    /**
+     * ETag forte de um item do recurso.
+     */
+    public String etagItem(Recurso recurso, Long id) {
+        AtomicLong versao = itens.get(recurso).get(id);
+        return etag(recurso, recurso.prefixo + id + "v" + (versao != null ? versao.get() : 0));
+    }
+
+    public void alterado(Recurso recurso, Long id) {
+        alterados(recurso, id != null ? List.of(id) : List.of());
+    }
+
+    public void alterados(Recurso recurso, Collection<Long> ids) {
+        List<Long> copia = ids.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        TransacoesUtil.aposCommit(() -> {
+            for (Long id : copia) {
+                itens.get(recurso).computeIfAbsent(id, k -> new AtomicLong()).incrementAndGet();
+            }
+            colecoes.get(recurso).incrementAndGet();
+        });
+    }
+
+    private String etag(Recurso recurso, String versao) {
+        StringBuilder etag = new StringBuilder("\"").append(epoca).append('-').append(versao);
+        if (recurso.dependencia != null) {
+            etag.append('-').append(recurso.dependencia.prefixo).append(colecoes.get(recurso.dependencia).get());
+        }
+        return etag.append('"').toString();
+    }
+
+}
@@ -15,6 +15,9 @@ public class CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     @Transactional(readOnly = true)
     public List<Categoria> listarTodas() {
         return categoriaRepository.findAll();
@@ -40,7 +43,9 @@ public class CategoriaService {
         if (categoriaRepository.existsByNome(categoria.getNome())) {
             throw new RuntimeException("Já existe uma categoria com este nome");
         }
-        return categoriaRepository.save(categoria);
+        Categoria salvo = categoriaRepository.save(categoria);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.CATEGORIA, categoria.getId());
+        return salvo;
     }
 
     @Transactional
@@ -58,7 +63,9 @@ public class CategoriaService {
         categoria.setDescricao(categoriaAtualizada.getDescricao());
         categoria.setAtivo(categoriaAtualizada.getAtivo());
 
-        return categoriaRepository.save(categoria);
+        Categoria salvo = categoriaRepository.save(categoria);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.CATEGORIA, id);
+        return salvo;
     }
 
     @Transactional
@@ -67,6 +74,7 @@ public class CategoriaService {
                 .orElseThrow(() -> new RuntimeException("Categoria não encontrada com ID: " + id));
         categoria.setAtivo(true);
         categoriaRepository.save(categoria);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.CATEGORIA, id);
     }
 
     @Transactional
@@ -75,6 +83,7 @@ public class CategoriaService {
                 .orElseThrow(() -> new RuntimeException("Categoria não encontrada com ID: " + id));
         categoria.setAtivo(false);
         categoriaRepository.save(categoria);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.CATEGORIA, id);
     }
 
     @Transactional
@@ -83,5 +92,6 @@ public class CategoriaService {
             throw new RuntimeException("Categoria não encontrada com ID: " + id);
         }
         categoriaRepository.deleteById(id);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.CATEGORIA, id);
     }
 }
@@ -1,8 +1,10 @@
 package com.petshop.service;
 
+import com.petshop.dto.PaginaCursor;
 import com.petshop.model.Cliente;
 import com.petshop.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,18 @@ public class ClienteService {
         return clienteRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursor<Cliente> listarPagina(String cursor, int limite) {
+        Long aposId = cursor != null ? PaginaCursor.decodificarId(cursor) : 0L;
+        List<Cliente> resultado = clienteRepository.findPaginaAposId(aposId, PageRequest.of(0, limite + 1));
+        return PaginaCursor.deResultado(resultado, limite, c -> PaginaCursor.codificar(c.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return clienteRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Optional<Cliente> buscarPorId(Long id) {
         return clienteRepository.findById(id);
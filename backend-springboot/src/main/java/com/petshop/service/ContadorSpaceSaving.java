@@ -0,0 +1,137 @@
+package com.petshop.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contador aproximado dos ids mais frequentes (algoritmo Space-Saving), com
+ * memória fixa: no máximo {@code capacidade} contadores.
+ *
+ * Um id novo com os contadores cheios toma o lugar do menor, herdando a
+ * contagem dele como erro. A contagem de um id nunca fica abaixo da real e a
+ * supera em no máximo {@code erro}; qualquer id com mais de total/capacidade
+ * ocorrências está garantidamente entre os contadores. A capacidade é
+ * pequena, então o menor é achado por varredura, e só quando um id novo
+ * entra com tudo cheio. Não é thread-safe.
+ */
+final class ContadorSpaceSaving {
+
+    record Contagem(long id, long contagem, long erro) {
+    }
+
+    private static final Comparator<Contagem> MAIOR_PRIMEIRO =
+            Comparator.comparingLong(Contagem::contagem).reversed().thenComparingLong(Contagem::id);
+
+    private static final class Contador {
+        private long contagem;
+        private long erro;
+
+        private Contador(long contagem, long erro) {
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+    }
+
+    private final int capacidade;
+    private final Map<Long, Contador> contadores;
+
+    ContadorSpaceSaving(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva");
+        }
+        this.capacidade = capacidade;
+        this.contadores = new HashMap<>(capacidade * 2);
+    }
+
+    void somar(long id, long peso) {
+        Contador contador = contadores.get(id);
+        if (contador != null) {
+            contador.contagem += peso;
+        } else if (contadores.size() < capacidade) {
+            contadores.put(id, new Contador(peso, 0));
+        } else {
+            Map.Entry<Long, Contador> menor = menor();
+            contadores.remove(menor.getKey());
+            Contador substituto = menor.getValue();
+            substituto.erro = substituto.contagem;
+            substituto.contagem += peso;
+            contadores.put(id, substituto);
+        }
+    }
+
+    /**
+     * Repõe um contador lido de um checkpoint
+     */
+    void restaurar(long id, long contagem, long erro) {
+        if (contadores.size() < capacidade || contadores.containsKey(id)) {
+            contadores.put(id, new Contador(contagem, erro));
+        }
+    }
+
+    /**
+     * Os {@code limite} ids de maior contagem, em ordem decrescente
+     */
+    List<Contagem> maiores(int limite) {
+        return contagens().stream().sorted(MAIOR_PRIMEIRO).limit(limite).toList();
+    }
+
+    List<Contagem> contagens() {
+        List<Contagem> lista = new ArrayList<>(contadores.size());
+        contadores.forEach((id, contador) -> lista.add(new Contagem(id, contador.contagem, contador.erro)));
+        return lista;
+    }
+
+    boolean isVazio() {
+        return contadores.isEmpty();
+    }
+
+    /**
+     * Junta contadores de períodos diferentes num só, com a mesma garantia.
+     * Um id ausente de um contador cheio pode ter ocorrido lá até o menor
+     * valor dele, que entra na contagem e no erro do id.
+     */
+    static ContadorSpaceSaving mesclar(Collection<ContadorSpaceSaving> partes, int capacidade) {
+        Map<Long, long[]> somas = new HashMap<>();
+        long minimosAcumulados = 0;
+        for (ContadorSpaceSaving parte : partes) {
+            long minimo = parte.contadores.size() < parte.capacidade ? 0 : parte.menor().getValue().contagem;
+            // Ids vistos antes desta parte e ausentes dela recebem o mínimo dela
+            for (Map.Entry<Long, long[]> soma : somas.entrySet()) {
+                if (!parte.contadores.containsKey(soma.getKey())) {
+                    soma.getValue()[0] += minimo;
+                    soma.getValue()[1] += minimo;
+                }
+            }
+            // Ids novos podem ter ocorrido até o mínimo de cada parte anterior
+            long anteriores = minimosAcumulados;
+            for (Map.Entry<Long, Contador> entrada : parte.contadores.entrySet()) {
+                long[] soma = somas.computeIfAbsent(entrada.getKey(), id -> new long[]{anteriores, anteriores});
+                soma[0] += entrada.getValue().contagem;
+                soma[1] += entrada.getValue().erro;
+            }
+            minimosAcumulados += minimo;
+        }
+        ContadorSpaceSaving mesclado = new ContadorSpaceSaving(capacidade);
+        somas.entrySet().stream()
+                .map(soma -> new Contagem(soma.getKey(), soma.getValue()[0], soma.getValue()[1]))
+                .sorted(MAIOR_PRIMEIRO)
+                .limit(capacidade)
+                .forEach(contagem -> mesclado.contadores.put(contagem.id(),
+                        new Contador(contagem.contagem(), contagem.erro())));
+        return mesclado;
+    }
+
+    private Map.Entry<Long, Contador> menor() {
+        Map.Entry<Long, Contador> menor = null;
+        for (Map.Entry<Long, Contador> entrada : contadores.entrySet()) {
+            if (menor == null || entrada.getValue().contagem < menor.getValue().contagem) {
+                menor = entrada;
+            }
+        }
+        return menor;
+    }
+}
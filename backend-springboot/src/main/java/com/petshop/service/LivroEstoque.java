@@ -0,0 +1,132 @@
+package com.petshop.service;
+
+import com.petshop.dto.MovimentacaoEstoqueDTO;
+import com.petshop.model.MovimentacaoEstoque;
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
+import com.petshop.model.SnapshotEstoque;
+import com.petshop.repository.MovimentacaoEstoqueRepository;
+import com.petshop.repository.SnapshotEstoqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Livro de estoque: toda mudança de estoque vira um lançamento (baixa,
+ * devolução, ajuste ou importação) gravado só por INSERT, na mesma transação
+ * da operação que a causou. Inserts não disputam linha entre si, e o livro
+ * guarda o histórico que a coluna quantidade_estoque sozinha não guarda.
+ *
+ * O estoque de um produto é o snapshot mais os lançamentos criados a partir
+ * de snapshot.calculadoAte. A compactação periódica avança os snapshots até
+ * um instante com margem no passado, para não deixar de fora lançamentos de
+ * transações que ainda não fizeram commit. produtos.quantidade_estoque
+ * continua existindo para as consultas e pode ser reconstruída do livro.
+ */
+@Service
+public class LivroEstoque {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroEstoque.class);
+
+    private final MovimentacaoEstoqueRepository movimentacaoRepository;
+    private final SnapshotEstoqueRepository snapshotRepository;
+    private final long margemMs;
+
+    @Autowired
+    public LivroEstoque(MovimentacaoEstoqueRepository movimentacaoRepository,
+                        SnapshotEstoqueRepository snapshotRepository,
+                        @Value("${estoque.livro.margem-compactacao-ms:600000}") long margemMs) {
+        this.movimentacaoRepository = movimentacaoRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.margemMs = margemMs;
+    }
+
+    /**
+     * Lança as variações (com sinal) de um pedido; roda na transação dele
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoMovimentacao tipo, Long pedidoId, Map<Long, Integer> variacoes) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentacaoEstoque> lancamentos = new ArrayList<>(variacoes.size());
+        new TreeMap<>(variacoes).forEach((produtoId, quantidade) ->
+                lancamentos.add(new MovimentacaoEstoque(produtoId, pedidoId, tipo, quantidade, agora)));
+        movimentacaoRepository.saveAll(lancamentos);
+    }
+
+    /**
+     * Ajuste manual de estoque (diferença com sinal)
+     */
+    @Transactional
+    public void ajustar(Long produtoId, int diferenca) {
+        if (diferenca != 0) {
+            movimentacaoRepository.save(new MovimentacaoEstoque(produtoId, null, TipoMovimentacao.AJUSTE,
+                    diferenca, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Estoque inicial de um produto recém-cadastrado: snapshot zerado e a
+     * quantidade como lançamento de importação
+     */
+    @Transactional
+    public void importar(Long produtoId, int quantidade) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (!snapshotRepository.existsById(produtoId)) {
+            snapshotRepository.save(new SnapshotEstoque(produtoId, 0, agora));
+        }
+        movimentacaoRepository.save(new MovimentacaoEstoque(produtoId, null, TipoMovimentacao.IMPORTACAO,
+                quantidade, agora));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Integer> estoqueCalculado(Long produtoId) {
+        return snapshotRepository.findById(produtoId)
+                .map(snapshot -> snapshot.getQuantidade()
+                        + (int) movimentacaoRepository.somarDesde(produtoId, snapshot.getCalculadoAte()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MovimentacaoEstoqueDTO> movimentacoes(Long produtoId, int limite) {
+        return movimentacaoRepository.findRecentesPorProduto(produtoId, PageRequest.of(0, limite));
+    }
+
+    /**
+     * Regrava o estoque de todos os produtos a partir do livro. Produtos
+     * anteriores ao livro ganham antes um snapshot com o estoque atual.
+     *
+     * @return quantidade de produtos regravados
+     */
+    @Transactional
+    public int reconstruir() {
+        int novos = snapshotRepository.criarFaltantes(LocalDateTime.now());
+        if (novos > 0) {
+            log.info("{} produtos sem snapshot de estoque; estoque atual adotado como ponto de partida", novos);
+        }
+        return snapshotRepository.reconstruirEstoques();
+    }
+
+    /**
+     * Incorpora aos snapshots os lançamentos mais antigos que a margem
+     *
+     * @return quantidade de snapshots avançados
+     */
+    @Scheduled(fixedDelayString = "${estoque.livro.compactacao-ms:300000}",
+            initialDelayString = "${estoque.livro.compactacao-ms:300000}")
+    @Transactional
+    public int compactar() {
+        return snapshotRepository.compactar(LocalDateTime.now().minus(Duration.ofMillis(margemMs)));
+    }
+}
@@ -0,0 +1,294 @@
+package com.petshop.service;
+
+import com.petshop.model.ContagemMaisVendidos;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.VendaDiaria;
+import com.petshop.repository.ContagemMaisVendidosRepository;
+import com.petshop.repository.VendaDiariaRepository;
+import com.petshop.service.ContadorSpaceSaving.Contagem;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ranking dos produtos mais vendidos, no geral e por categoria, em janelas
+ * dos últimos dias, sem consultar itens_pedido.
+ *
+ * Cada dia tem um {@link ContadorSpaceSaving} geral e um por categoria,
+ * alimentados pelas confirmações de pedido depois do commit, no dia da data
+ * do pedido, como no consolidado diário; os dias mais antigos que a retenção
+ * são descartados. O ranking de uma janela junta os
+ * contadores dos dias dela e fica guardado até a próxima venda, então a
+ * leitura normal é uma consulta a um mapa. As contagens são aproximadas
+ * (nunca abaixo da real, acima no máximo pelo erro informado) e cancelamentos
+ * não são descontados.
+ *
+ * O estado vai periodicamente para a tabela mais_vendidos_checkpoint e volta
+ * dela na inicialização; uma queda perde no máximo as vendas de um intervalo.
+ * Cada checkpoint regrava só os dias que tiveram vendas desde o anterior e
+ * apaga os que saíram da retenção.
+ * Sem checkpoint, os contadores partem do consolidado vendas_diarias.
+ */
+@Component
+public class MaisVendidos implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MaisVendidos.class);
+
+    static final String SQL_APAGAR = "DELETE FROM mais_vendidos_checkpoint";
+    static final String SQL_APAGAR_DIA = "DELETE FROM mais_vendidos_checkpoint WHERE dia = ?";
+    static final String SQL_APAGAR_ANTERIORES = "DELETE FROM mais_vendidos_checkpoint WHERE dia < ?";
+    static final String SQL_GRAVAR = "INSERT INTO mais_vendidos_checkpoint (dia, categoria_id, produto_id, contagem, erro) " +
+                                     "VALUES (?, ?, ?, ?, ?)";
+
+    private record Venda(long produtoId, long categoriaId, long quantidade) {
+    }
+
+    private record Janela(LocalDate hoje, int dias, long categoriaId) {
+    }
+
+    private final ContagemMaisVendidosRepository checkpointRepository;
+    private final VendaDiariaRepository vendaDiariaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacidade;
+    private final int diasRetidos;
+
+    // Dia -> categoria (TODAS_CATEGORIAS para o geral) -> contador, sob o monitor deste objeto
+    private final TreeMap<LocalDate, Map<Long, ContadorSpaceSaving>> dias = new TreeMap<>();
+    // Rankings já calculados, até a próxima venda
+    private final Map<Janela, List<Contagem>> rankings = new ConcurrentHashMap<>();
+    private final ReentrantLock gravacao = new ReentrantLock();
+    // Dias com vendas desde o último checkpoint; depois de reconstruir, todos
+    private final TreeSet<LocalDate> diasAlterados = new TreeSet<>();
+    private boolean regravarTudo;
+
+    @Autowired
+    public MaisVendidos(ContagemMaisVendidosRepository checkpointRepository,
+                        VendaDiariaRepository vendaDiariaRepository,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${mais-vendidos.capacidade:200}") int capacidade,
+                        @Value("${mais-vendidos.dias:30}") int diasRetidos) {
+        this.checkpointRepository = checkpointRepository;
+        this.vendaDiariaRepository = vendaDiariaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacidade = capacidade;
+        this.diasRetidos = diasRetidos;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        restaurar();
+    }
+
+    /**
+     * Conta os itens de um pedido confirmado no dia da data dele, se a
+     * transação fizer commit
+     */
+    public void registrar(Pedido pedido) {
+        Map<Long, Venda> porProduto = new TreeMap<>();
+        for (ItemPedido item : pedido.getItens()) {
+            long produtoId = item.getProduto().getId();
+            long categoriaId = item.getProduto().getCategoria().getId();
+            porProduto.merge(produtoId, new Venda(produtoId, categoriaId, item.getQuantidade()),
+                    (atual, novo) -> new Venda(produtoId, categoriaId, atual.quantidade() + novo.quantidade()));
+        }
+        List<Venda> vendas = List.copyOf(porProduto.values());
+        LocalDate dia = pedido.getDataPedido().toLocalDate();
+        TransacoesUtil.aposCommit(() -> somar(dia, vendas));
+    }
+
+    /**
+     * Os produtos mais vendidos nos últimos {@code dias} dias (hoje incluído),
+     * no geral ou numa categoria, em ordem decrescente de contagem
+     */
+    public List<Contagem> maisVendidos(int dias, Long categoriaId, int limite) {
+        return maisVendidos(LocalDate.now(), dias, categoriaId, limite);
+    }
+
+    List<Contagem> maisVendidos(LocalDate hoje, int dias, Long categoriaId, int limite) {
+        if (dias < 1 || dias > diasRetidos) {
+            throw new RuntimeException("A janela deve ter de 1 a " + diasRetidos + " dias");
+        }
+        Janela janela = new Janela(hoje, dias,
+                categoriaId != null ? categoriaId : ContagemMaisVendidos.TODAS_CATEGORIAS);
+        List<Contagem> ranking = rankings.get(janela);
+        if (ranking == null) {
+            ranking = calcular(janela);
+        }
+        return ranking.subList(0, Math.min(limite, ranking.size()));
+    }
+
+    /**
+     * Grava no checkpoint os dias que tiveram vendas desde o último
+     *
+     * @return quantidade de contadores gravados
+     */
+    @Scheduled(fixedDelayString = "${mais-vendidos.checkpoint-ms:60000}",
+            initialDelayString = "${mais-vendidos.checkpoint-ms:60000}")
+    @PreDestroy
+    public int checkpoint() {
+        gravacao.lock();
+        try {
+            List<Object[]> linhas = new ArrayList<>();
+            List<Object[]> diasApagados = new ArrayList<>();
+            boolean tudo;
+            Set<LocalDate> gravados;
+            LocalDate primeiroDia;
+            synchronized (this) {
+                if (!regravarTudo && diasAlterados.isEmpty()) {
+                    return 0;
+                }
+                tudo = regravarTudo;
+                gravados = new TreeSet<>(tudo ? dias.keySet() : diasAlterados);
+                for (LocalDate dia : gravados) {
+                    diasApagados.add(new Object[]{dia});
+                    dias.getOrDefault(dia, Map.of()).forEach((categoriaId, contador) -> {
+                        for (Contagem contagem : contador.contagens()) {
+                            linhas.add(new Object[]{dia, categoriaId, contagem.id(), contagem.contagem(), contagem.erro()});
+                        }
+                    });
+                }
+                primeiroDia = dias.isEmpty() ? null : dias.firstKey();
+                regravarTudo = false;
+                diasAlterados.clear();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (tudo) {
+                        jdbcTemplate.update(SQL_APAGAR);
+                    } else {
+                        // Dias que saíram da retenção desde o último checkpoint
+                        if (primeiroDia != null) {
+                            jdbcTemplate.update(SQL_APAGAR_ANTERIORES, primeiroDia);
+                        }
+                        jdbcTemplate.batchUpdate(SQL_APAGAR_DIA, diasApagados);
+                    }
+                    jdbcTemplate.batchUpdate(SQL_GRAVAR, linhas);
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    regravarTudo |= tudo;
+                    diasAlterados.addAll(gravados);
+                }
+                log.warn("Erro ao gravar o checkpoint dos mais vendidos: {}", e.getMessage());
+                return 0;
+            }
+            return linhas.size();
+        } finally {
+            gravacao.unlock();
+        }
+    }
+
+    /**
+     * Recarrega os contadores do checkpoint ou, sem checkpoint, do
+     * consolidado diário de vendas
+     *
+     * @return quantidade de linhas lidas
+     */
+    public synchronized int restaurar() {
+        LocalDate desde = LocalDate.now().minusDays(diasRetidos - 1);
+        List<ContagemMaisVendidos> checkpoint = checkpointRepository.findDesde(desde);
+        if (checkpoint.isEmpty()) {
+            return reconstruir();
+        }
+        dias.clear();
+        rankings.clear();
+        for (ContagemMaisVendidos contagem : checkpoint) {
+            contador(contagem.getDia(), contagem.getCategoriaId())
+                    .restaurar(contagem.getProdutoId(), contagem.getContagem(), contagem.getErro());
+        }
+        regravarTudo = false;
+        diasAlterados.clear();
+        log.info("Mais vendidos restaurados do checkpoint: {} contadores", checkpoint.size());
+        return checkpoint.size();
+    }
+
+    /**
+     * Descarta os contadores e os refaz a partir do consolidado diário de
+     * vendas, que conta também os cancelamentos. O próximo checkpoint
+     * substitui o anterior.
+     *
+     * @return quantidade de linhas lidas
+     */
+    public synchronized int reconstruir() {
+        LocalDate desde = LocalDate.now().minusDays(diasRetidos - 1);
+        List<VendaDiaria> vendas = vendaDiariaRepository.findDesde(desde);
+        dias.clear();
+        rankings.clear();
+        for (VendaDiaria venda : vendas) {
+            if (venda.getQuantidade() > 0) {
+                contador(venda.getData(), ContagemMaisVendidos.TODAS_CATEGORIAS).somar(venda.getProdutoId(), venda.getQuantidade());
+                contador(venda.getData(), venda.getCategoriaId()).somar(venda.getProdutoId(), venda.getQuantidade());
+            }
+        }
+        regravarTudo = true;
+        log.info("Mais vendidos reconstruídos a partir de {} linhas de vendas diárias", vendas.size());
+        return vendas.size();
+    }
+
+    synchronized void somar(LocalDate dia, List<Venda> vendas) {
+        for (Venda venda : vendas) {
+            contador(dia, ContagemMaisVendidos.TODAS_CATEGORIAS).somar(venda.produtoId(), venda.quantidade());
+            contador(dia, venda.categoriaId()).somar(venda.produtoId(), venda.quantidade());
+        }
+        // A retenção conta do dia mais recente: um pedido antigo confirmado
+        // agora não descarta os dias seguintes a ele
+        if (!dias.isEmpty()) {
+            dias.headMap(dias.lastKey().minusDays(diasRetidos - 1)).clear();
+        }
+        rankings.clear();
+        diasAlterados.add(dia);
+    }
+
+    // Para os testes: venda avulsa num dia qualquer
+    void somar(LocalDate dia, long produtoId, long categoriaId, long quantidade) {
+        somar(dia, List.of(new Venda(produtoId, categoriaId, quantidade)));
+    }
+
+    private synchronized List<Contagem> calcular(Janela janela) {
+        List<ContadorSpaceSaving> partes = new ArrayList<>();
+        dias.subMap(janela.hoje().minusDays(janela.dias() - 1), true, janela.hoje(), true).values()
+                .forEach(contadores -> {
+                    ContadorSpaceSaving contador = contadores.get(janela.categoriaId());
+                    if (contador != null) {
+                        partes.add(contador);
+                    }
+                });
+        ContadorSpaceSaving janelaInteira = partes.size() == 1
+                ? partes.get(0)
+                : ContadorSpaceSaving.mesclar(partes, capacidade);
+        List<Contagem> ranking = janelaInteira.maiores(capacidade);
+        // Rankings de outro dia não serão mais pedidos
+        rankings.keySet().removeIf(outra -> !outra.hoje().equals(janela.hoje()));
+        rankings.put(janela, ranking);
+        return ranking;
+    }
+
+    private ContadorSpaceSaving contador(LocalDate dia, long categoriaId) {
+        return dias.computeIfAbsent(dia, d -> new HashMap<>())
+                .computeIfAbsent(categoriaId, id -> new ContadorSpaceSaving(capacidade));
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.petshop.service;
+
+import java.util.function.LongFunction;
+
+/**
+ * Mapa de id (long) para valor, com chaves primitivas em endereçamento aberto.
+ *
+ * A leitura não trava nem aloca: lê a tabela publicada por último. Inserções
+ * são raras (um produto entra uma vez e fica) e copiam a tabela inteira,
+ * serializadas entre si, de modo que quem lê nunca vê uma tabela pela metade.
+ */
+final class MapaPorId<V> {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    // Valor nulo marca posição livre, então qualquer long serve de chave
+    private record Tabela(long[] chaves, Object[] valores, int tamanho) {
+    }
+
+    private volatile Tabela tabela = new Tabela(new long[CAPACIDADE_INICIAL], new Object[CAPACIDADE_INICIAL], 0);
+
+    @SuppressWarnings("unchecked")
+    V get(long id) {
+        Tabela atual = tabela;
+        int mascara = atual.chaves.length - 1;
+        for (int i = posicao(id, mascara); ; i = (i + 1) & mascara) {
+            Object valor = atual.valores[i];
+            if (valor == null) {
+                return null;
+            }
+            if (atual.chaves[i] == id) {
+                return (V) valor;
+            }
+        }
+    }
+
+    /**
+     * Valor do id, criado se ainda não existir. Se a criação devolver nulo
+     * nada é inserido.
+     */
+    synchronized V computeIfAbsent(long id, LongFunction<V> criar) {
+        V existente = get(id);
+        if (existente != null) {
+            return existente;
+        }
+        V novo = criar.apply(id);
+        if (novo != null) {
+            Tabela atual = tabela;
+            Tabela maior = copiar(atual, atual.tamanho + 1);
+            inserir(maior, id, novo);
+            tabela = new Tabela(maior.chaves, maior.valores, atual.tamanho + 1);
+        }
+        return novo;
+    }
+
+    /**
+     * Troca todo o conteúdo de uma vez, numa única cópia
+     */
+    synchronized void substituir(long[] ids, V[] valores) {
+        Tabela nova = vazia(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            inserir(nova, ids[i], valores[i]);
+        }
+        tabela = new Tabela(nova.chaves, nova.valores, ids.length);
+    }
+
+    int size() {
+        return tabela.tamanho;
+    }
+
+    private static Tabela copiar(Tabela origem, int tamanho) {
+        Tabela destino = vazia(tamanho);
+        for (int i = 0; i < origem.valores.length; i++) {
+            if (origem.valores[i] != null) {
+                inserir(destino, origem.chaves[i], origem.valores[i]);
+            }
+        }
+        return destino;
+    }
+
+    // Ocupação de no máximo metade mantém as sondagens curtas
+    private static Tabela vazia(int tamanho) {
+        int capacidade = CAPACIDADE_INICIAL;
+        while (capacidade < tamanho * 2) {
+            capacidade <<= 1;
+        }
+        return new Tabela(new long[capacidade], new Object[capacidade], 0);
+    }
+
+    private static void inserir(Tabela tabela, long id, Object valor) {
+        int mascara = tabela.chaves.length - 1;
+        int i = posicao(id, mascara);
+        while (tabela.valores[i] != null && tabela.chaves[i] != id) {
+            i = (i + 1) & mascara;
+        }
+        tabela.chaves[i] = id;
+        tabela.valores[i] = valor;
+    }
+
+    // Ids sequenciais espalhados pela tabela
+    private static int posicao(long id, int mascara) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
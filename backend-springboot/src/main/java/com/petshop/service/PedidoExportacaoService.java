@@ -0,0 +1,314 @@
+package com.petshop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.petshop.dto.ItemPedidoDTO;
+import com.petshop.dto.PedidoResponseDTO;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Pedido.StatusPedido;
+import com.petshop.repository.ItemPedidoRepository;
+import com.petshop.repository.PedidoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exportação de pedidos em JSON, NDJSON ou CSV com memória constante.
+ *
+ * Os pedidos são lidos por um cursor do banco ({@code Stream<Pedido>}) e
+ * processados em lotes: os itens de cada lote vêm numa única consulta, o lote
+ * é escrito na saída e o contexto de persistência é limpo antes do próximo.
+ * Assim nem o Hibernate nem a resposta acumulam o histórico inteiro.
+ */
+@Service
+public class PedidoExportacaoService {
+
+    public enum Formato {
+        JSON("application/json", "json"),
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        public static Formato de(String valor) {
+            try {
+                return valueOf(valor.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Formato de exportação inválido: " + valor);
+            }
+        }
+    }
+
+    static final String CABECALHO_CSV = "pedido_id,data_pedido,status,forma_pagamento,cliente_id,cliente_nome,"
+            + "valor_total,item_id,produto_id,produto_nome,quantidade,preco_unitario,subtotal";
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pedidos.exportacao.tamanho-lote:500}")
+    private int tamanhoLote = 500;
+
+    /**
+     * Escreve na saída os pedidos do período [inicio, fim) com o status
+     * informado, em ordem cronológica. Filtros nulos não restringem.
+     *
+     * @return quantidade de pedidos exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportar(Formato formato, LocalDateTime inicio, LocalDateTime fim, StatusPedido status,
+                         OutputStream saida) throws IOException {
+        long total = 0;
+        try (Stream<Pedido> pedidos = pedidoRepository.streamParaExportacao(inicio, fim, status);
+             Escritor escritor = escritorPara(formato, saida)) {
+            List<Pedido> lote = new ArrayList<>(tamanhoLote);
+            Iterator<Pedido> iterator = pedidos.iterator();
+            while (iterator.hasNext()) {
+                lote.add(iterator.next());
+                if (lote.size() >= tamanhoLote) {
+                    total += escreverLote(lote, escritor);
+                }
+            }
+            total += escreverLote(lote, escritor);
+            escritor.finalizar();
+        }
+        return total;
+    }
+
+    private int escreverLote(List<Pedido> lote, Escritor escritor) throws IOException {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = lote.stream().map(Pedido::getId).collect(Collectors.toList());
+        Map<Long, List<ItemPedidoDTO>> itensPorPedido = itemPedidoRepository.findByPedidoIdsComProduto(ids)
+                .stream()
+                .collect(Collectors.groupingBy(
+                        item -> item.getPedido().getId(),
+                        Collectors.mapping(this::toItemDTO, Collectors.toList())));
+
+        for (Pedido pedido : lote) {
+            escritor.escrever(toResponseDTO(pedido, itensPorPedido.getOrDefault(pedido.getId(), List.of())));
+        }
+        escritor.flush();
+
+        // Desanexa o lote já escrito; o cursor continua aberto para o próximo
+        entityManager.clear();
+        int quantidade = lote.size();
+        lote.clear();
+        return quantidade;
+    }
+
+    private Escritor escritorPara(Formato formato, OutputStream saida) throws IOException {
+        switch (formato) {
+            case CSV:
+                return new EscritorCsv(saida);
+            case NDJSON:
+                return new EscritorJson(saida, false);
+            default:
+                return new EscritorJson(saida, true);
+        }
+    }
+
+    private PedidoResponseDTO toResponseDTO(Pedido pedido, List<ItemPedidoDTO> itens) {
+        PedidoResponseDTO dto = new PedidoResponseDTO();
+        dto.setId(pedido.getId());
+        dto.setDataPedido(pedido.getDataPedido());
+        dto.setValorTotal(pedido.getValorTotal());
+        dto.setStatus(pedido.getStatus().toString());
+        dto.setFormaPagamento(pedido.getFormaPagamento());
+        dto.setObservacoes(pedido.getObservacoes());
+        dto.setClienteId(pedido.getCliente().getId());
+        dto.setClienteNome(pedido.getCliente().getNome());
+        dto.setClienteTelefone(pedido.getCliente().getTelefone());
+        dto.setItens(itens);
+        return dto;
+    }
+
+    private ItemPedidoDTO toItemDTO(ItemPedido item) {
+        return new ItemPedidoDTO(
+                item.getId(),
+                item.getProduto().getId(),
+                item.getProduto().getNome(),
+                item.getQuantidade(),
+                item.getPrecoUnitario(),
+                item.getSubtotal());
+    }
+
+    private interface Escritor extends Closeable {
+
+        void escrever(PedidoResponseDTO pedido) throws IOException;
+
+        void flush() throws IOException;
+
+        void finalizar() throws IOException;
+    }
+
+    /**
+     * JSON (um array) ou NDJSON (um objeto por linha).
+     */
+    private class EscritorJson implements Escritor {
+
+        private final ObjectWriter writer;
+        private final JsonGenerator gerador;
+        private final boolean array;
+
+        EscritorJson(OutputStream saida, boolean array) throws IOException {
+            // Sem flush a cada objeto: a saída é esvaziada uma vez por lote
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.gerador = writer.createGenerator(saida);
+            this.gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Uma exportação interrompida não pode sair com o ']' final e
+            // parecer completa: só finalizar() fecha o array
+            this.gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            // No NDJSON o separador entre objetos é a quebra de linha
+            this.gerador.setRootValueSeparator(null);
+            this.array = array;
+            if (array) {
+                gerador.writeStartArray();
+            }
+        }
+
+        @Override
+        public void escrever(PedidoResponseDTO pedido) throws IOException {
+            writer.writeValue(gerador, pedido);
+            if (!array) {
+                gerador.writeRaw('\n');
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gerador.flush();
+        }
+
+        @Override
+        public void finalizar() throws IOException {
+            if (array) {
+                gerador.writeEndArray();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            gerador.close();
+        }
+    }
+
+    /**
+     * Uma linha por item; pedidos sem itens saem com as colunas de item vazias.
+     */
+    private static class EscritorCsv implements Escritor {
+
+        private final Writer saida;
+
+        EscritorCsv(OutputStream saida) throws IOException {
+            this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+            this.saida.write(CABECALHO_CSV);
+            this.saida.write("\r\n");
+        }
+
+        @Override
+        public void escrever(PedidoResponseDTO pedido) throws IOException {
+            String colunasPedido = String.join(",",
+                    valor(pedido.getId()),
+                    valor(pedido.getDataPedido()),
+                    valor(pedido.getStatus()),
+                    valor(pedido.getFormaPagamento()),
+                    valor(pedido.getClienteId()),
+                    valor(pedido.getClienteNome()),
+                    valor(pedido.getValorTotal()));
+            if (pedido.getItens().isEmpty()) {
+                saida.write(colunasPedido);
+                saida.write(",,,,,,\r\n");
+                return;
+            }
+            for (ItemPedidoDTO item : pedido.getItens()) {
+                saida.write(colunasPedido);
+                saida.write(',');
+                saida.write(String.join(",",
+                        valor(item.getId()),
+                        valor(item.getProdutoId()),
+                        valor(item.getProdutoNome()),
+                        valor(item.getQuantidade()),
+                        valor(item.getPrecoUnitario()),
+                        valor(item.getSubtotal())));
+                saida.write("\r\n");
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            saida.flush();
+        }
+
+        @Override
+        public void finalizar() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Não fecha a resposta, apenas esvazia o buffer
+            saida.flush();
+        }
+
+        static String valor(Object valor) {
+            if (valor == null) {
+                return "";
+            }
+            if (valor instanceof Double numero) {
+                return BigDecimal.valueOf(numero).toPlainString();
+            }
+            String texto = valor.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                    || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                return '"' + texto.replace("\"", "\"\"") + '"';
+            }
+            return texto;
+        }
+    }
+}
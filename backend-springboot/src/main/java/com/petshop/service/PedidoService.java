@@ -1,51 +1,104 @@
 package com.petshop.service;
 
+import com.petshop.dto.ItemPedidoDTO;
+import com.petshop.dto.ItemPedidoProjecao;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PedidoResponseDTO;
 import com.petshop.model.Pedido;
 import com.petshop.model.Pedido.StatusPedido;
 import com.petshop.model.ItemPedido;
 import com.petshop.model.Cliente;
 import com.petshop.model.Produto;
+import com.petshop.repository.ItemPedidoRepository;
 import com.petshop.repository.PedidoRepository;
 import com.petshop.repository.ClienteRepository;
 import com.petshop.repository.ProdutoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class PedidoService {
 
+    private static final int LOTE_CONSULTA = 500;
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
+    @Autowired
+    private ItemPedidoRepository itemPedidoRepository;
+
     @Autowired
     private ClienteRepository clienteRepository;
 
     @Autowired
     private ProdutoRepository produtoRepository;
 
+    @Autowired
+    private ReservaEstoque reservaEstoque;
+
+    @Autowired
+    private VendasDiariasService vendasDiariasService;
+
+    @Autowired
+    private MaisVendidos maisVendidos;
+
     @Transactional(readOnly = true)
     public List<Pedido> listarTodos() {
         return pedidoRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursor<PedidoResponseDTO> listarPagina(String cursor, int limite) {
+        PageRequest pagina = PageRequest.of(0, limite + 1);
+        List<PedidoResponseDTO> resultado;
+        if (cursor == null) {
+            resultado = pedidoRepository.findRespostasPrimeiraPagina(pagina);
+        } else {
+            String[] partes = PaginaCursor.decodificar(cursor, 2);
+            LocalDateTime data;
+            Long id;
+            try {
+                data = LocalDateTime.parse(partes[0]);
+                id = Long.parseLong(partes[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor de paginação inválido");
+            }
+            resultado = pedidoRepository.findRespostasPaginaAntesDe(data, id, pagina);
+        }
+        PaginaCursor<PedidoResponseDTO> paginaCursor = PaginaCursor.deResultado(resultado, limite,
+                p -> PaginaCursor.codificar(p.getDataPedido(), p.getId()));
+        preencherItens(paginaCursor.getItens());
+        return paginaCursor;
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return pedidoRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Optional<Pedido> buscarPorId(Long id) {
         return pedidoRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorCliente(Long clienteId) {
-        return pedidoRepository.findByClienteIdOrderByDataPedidoDesc(clienteId);
+    public List<PedidoResponseDTO> buscarPorCliente(Long clienteId) {
+        return preencherItens(pedidoRepository.findRespostasByClienteId(clienteId));
     }
 
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorStatus(StatusPedido status) {
-        return pedidoRepository.findByStatus(status);
+    public List<PedidoResponseDTO> buscarPorStatus(StatusPedido status) {
+        return preencherItens(pedidoRepository.findRespostasByStatus(status));
     }
 
     @Transactional(readOnly = true)
@@ -63,6 +116,7 @@ public class PedidoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public Pedido adicionarItem(Long pedidoId, Long produtoId, Integer quantidade) {
         Pedido pedido = pedidoRepository.findById(pedidoId)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + pedidoId));
@@ -89,6 +143,7 @@ public class PedidoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public Pedido removerItem(Long pedidoId, Long itemId) {
         Pedido pedido = pedidoRepository.findById(pedidoId)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + pedidoId));
@@ -107,6 +162,7 @@ public class PedidoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public Pedido confirmar(Long id) {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
@@ -115,21 +171,23 @@ public class PedidoService {
             throw new RuntimeException("Não é possível confirmar um pedido sem itens");
         }
 
-        // Reduzir estoque dos produtos
-        for (ItemPedido item : pedido.getItens()) {
-            Produto produto = item.getProduto();
-            if (!produto.temEstoque(item.getQuantidade())) {
-                throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
-            }
-            produto.reduzirEstoque(item.getQuantidade());
-            produtoRepository.save(produto);
+        // Baixa nos saldos em memória, tudo ou nada, sem travar as linhas dos
+        // produtos; o banco recebe a baixa no próximo lote da reserva
+        Map<Long, Integer> quantidades = produtosDistintos(pedido);
+        Optional<Long> semSaldo = reservaEstoque.reservar(pedido.getId(), quantidades);
+        if (semSaldo.isPresent()) {
+            throw new RuntimeException(estoqueInsuficiente(pedido, semSaldo.get()));
         }
+        reservaEstoque.confirmar(pedido.getId(), quantidades);
+        vendasDiariasService.registrar(pedido);
+        maisVendidos.registrar(pedido);
 
         pedido.setStatus(StatusPedido.CONFIRMADO);
         return pedidoRepository.save(pedido);
     }
 
     @Transactional
+    @RepetirEmConflito
     public Pedido atualizarStatus(Long id, StatusPedido novoStatus) {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
@@ -139,6 +197,7 @@ public class PedidoService {
     }
 
     @Transactional
+    @RepetirEmConflito
     public Pedido cancelar(Long id) {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado com ID: " + id));
@@ -151,11 +210,8 @@ public class PedidoService {
         if (pedido.getStatus() == StatusPedido.CONFIRMADO || 
             pedido.getStatus() == StatusPedido.PROCESSANDO ||
             pedido.getStatus() == StatusPedido.ENVIADO) {
-            for (ItemPedido item : pedido.getItens()) {
-                Produto produto = item.getProduto();
-                produto.adicionarEstoque(item.getQuantidade());
-                produtoRepository.save(produto);
-            }
+            reservaEstoque.devolver(pedido.getId(), produtosDistintos(pedido));
+            vendasDiariasService.estornar(pedido);
         }
 
         pedido.setStatus(StatusPedido.CANCELADO);
@@ -178,4 +234,40 @@ public class PedidoService {
     public Long contarPorStatus(StatusPedido status) {
         return pedidoRepository.countByStatus(status);
     }
+
+    // Quantidade pedida por produto, somando itens repetidos
+    private Map<Long, Integer> produtosDistintos(Pedido pedido) {
+        Map<Long, Integer> quantidades = new HashMap<>();
+        for (ItemPedido item : pedido.getItens()) {
+            quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Integer::sum);
+        }
+        return quantidades;
+    }
+
+    private String estoqueInsuficiente(Pedido pedido, Long produtoId) {
+        return pedido.getItens().stream()
+                .map(ItemPedido::getProduto)
+                .filter(produto -> produtoId.equals(produto.getId()))
+                .findFirst()
+                .map(produto -> "Estoque insuficiente para o produto: " + produto.getNome())
+                .orElse("Estoque insuficiente para os itens do pedido");
+    }
+
+    // Itens das listagens por projeção, em lotes de ids para não estourar o
+    // limite de parâmetros do banco
+    private List<PedidoResponseDTO> preencherItens(List<PedidoResponseDTO> pedidos) {
+        Map<Long, List<ItemPedidoDTO>> itensPorPedido = new HashMap<>();
+        for (int inicio = 0; inicio < pedidos.size(); inicio += LOTE_CONSULTA) {
+            List<Long> ids = pedidos.subList(inicio, Math.min(inicio + LOTE_CONSULTA, pedidos.size())).stream()
+                    .map(PedidoResponseDTO::getId)
+                    .collect(Collectors.toList());
+            for (ItemPedidoProjecao item : itemPedidoRepository.findProjecoesByPedidoIds(ids)) {
+                itensPorPedido.computeIfAbsent(item.pedidoId(), k -> new ArrayList<>()).add(item.toDTO());
+            }
+        }
+        for (PedidoResponseDTO pedido : pedidos) {
+            pedido.setItens(itensPorPedido.getOrDefault(pedido.getId(), new ArrayList<>()));
+        }
+        return pedidos;
+    }
 }
@@ -1,10 +1,13 @@
 package com.petshop.service;
 
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PetResponseDTO;
 import com.petshop.model.Pet;
 import com.petshop.model.Cliente;
 import com.petshop.repository.PetRepository;
 import com.petshop.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,19 +28,31 @@ public class PetService {
         return petRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursor<PetResponseDTO> listarPagina(String cursor, int limite) {
+        Long aposId = cursor != null ? PaginaCursor.decodificarId(cursor) : 0L;
+        List<PetResponseDTO> resultado = petRepository.findRespostasPaginaAposId(aposId, PageRequest.of(0, limite + 1));
+        return PaginaCursor.deResultado(resultado, limite, p -> PaginaCursor.codificar(p.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return petRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Optional<Pet> buscarPorId(Long id) {
         return petRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
-    public List<Pet> buscarPorCliente(Long clienteId) {
-        return petRepository.findByClienteId(clienteId);
+    public List<PetResponseDTO> buscarPorCliente(Long clienteId) {
+        return petRepository.findRespostasByClienteId(clienteId);
     }
 
     @Transactional(readOnly = true)
-    public List<Pet> buscarPorTipo(String tipo) {
-        return petRepository.findByTipo(tipo);
+    public List<PetResponseDTO> buscarPorTipo(String tipo) {
+        return petRepository.findRespostasByTipo(tipo);
     }
 
     @Transactional
@@ -0,0 +1,215 @@
+package com.petshop.service;
+
+import com.petshop.model.Produto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido em memória para a busca de produtos por nome e descrição.
+ *
+ * Os textos são normalizados (minúsculas, sem acentos) e cada palavra é
+ * indexada pelos seus prefixos, de modo que "racao" e "raç" encontram
+ * "Ração". Uma busca exige que todas as palavras do termo casem e ordena os
+ * produtos por relevância: palavra inteira no nome pesa mais que prefixo, e o
+ * nome pesa mais que a descrição. Apenas produtos ativos são indexados.
+ */
+@Component
+public class ProdutoBuscaIndice {
+
+    // Prefixos mais longos que isso não ganham entrada própria: a busca usa o
+    // prefixo truncado e confirma a palavra completa na pontuação
+    static final int TAMANHO_MAXIMO_PREFIXO = 12;
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final Map<String, Set<Long>> prefixos = new ConcurrentHashMap<>();
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    private final int maximoResultados;
+
+    @Autowired
+    public ProdutoBuscaIndice(@Value("${catalogo.busca.maximo-resultados:50}") int maximoResultados) {
+        this.maximoResultados = maximoResultados;
+    }
+
+    /**
+     * Substitui todo o conteúdo do índice pelos produtos informados.
+     */
+    public synchronized void reconstruir(Collection<Produto> produtos) {
+        prefixos.clear();
+        documentos.clear();
+        for (Produto produto : produtos) {
+            aplicar(produto.getId(), documentoDe(produto));
+        }
+    }
+
+    /**
+     * Indexa (ou reindexa) o produto após o commit da transação corrente.
+     * Produtos inativos são removidos do índice.
+     */
+    public void indexar(Produto produto) {
+        Long id = produto.getId();
+        Documento documento = documentoDe(produto);
+        TransacoesUtil.aposCommit(() -> aplicar(id, documento));
+    }
+
+    public void remover(Long produtoId) {
+        TransacoesUtil.aposCommit(() -> aplicar(produtoId, null));
+    }
+
+    /**
+     * IDs dos produtos que casam com todas as palavras do termo, do mais
+     * relevante para o menos relevante.
+     */
+    public List<Long> buscar(String termo) {
+        List<String> palavras = tokenizar(termo).stream().distinct().collect(Collectors.toList());
+        if (palavras.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> candidatos = null;
+        for (String palavra : palavras) {
+            Set<Long> ids = prefixos.getOrDefault(chave(palavra), Set.of());
+            if (candidatos == null) {
+                candidatos = new HashSet<>(ids);
+            } else {
+                candidatos.retainAll(ids);
+            }
+            if (candidatos.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (Long id : candidatos) {
+            Documento documento = documentos.get(id);
+            if (documento == null) {
+                continue;
+            }
+            int pontuacao = documento.pontuar(palavras);
+            if (pontuacao > 0) {
+                resultados.add(new Resultado(id, pontuacao));
+            }
+        }
+
+        return resultados.stream()
+                .sorted(Comparator.comparingInt(Resultado::pontuacao).reversed()
+                        .thenComparing(Resultado::id))
+                .limit(maximoResultados)
+                .map(Resultado::id)
+                .collect(Collectors.toList());
+    }
+
+    public int tamanho() {
+        return documentos.size();
+    }
+
+    /**
+     * Minúsculas, sem acentos e separado em palavras alfanuméricas.
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String semAcentos = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARADORES.split(semAcentos.toLowerCase(Locale.ROOT)))
+                .filter(p -> !p.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String chave(String palavra) {
+        return palavra.length() > TAMANHO_MAXIMO_PREFIXO ? palavra.substring(0, TAMANHO_MAXIMO_PREFIXO) : palavra;
+    }
+
+    private static Documento documentoDe(Produto produto) {
+        if (!Boolean.TRUE.equals(produto.getAtivo())) {
+            return null;
+        }
+        return new Documento(tokenizar(produto.getNome()), tokenizar(produto.getDescricao()));
+    }
+
+    private synchronized void aplicar(Long id, Documento documento) {
+        Documento anterior = documento != null ? documentos.put(id, documento) : documentos.remove(id);
+        if (anterior != null) {
+            for (String prefixo : anterior.prefixos()) {
+                prefixos.computeIfPresent(prefixo, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        if (documento != null) {
+            for (String prefixo : documento.prefixos()) {
+                prefixos.computeIfAbsent(prefixo, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+
+    private record Documento(List<String> nome, List<String> descricao) {
+
+        Set<String> prefixos() {
+            Set<String> resultado = new HashSet<>();
+            for (List<String> palavras : List.of(nome, descricao)) {
+                for (String palavra : palavras) {
+                    int limite = Math.min(palavra.length(), TAMANHO_MAXIMO_PREFIXO);
+                    for (int i = 1; i <= limite; i++) {
+                        resultado.add(palavra.substring(0, i));
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * Soma, para cada palavra buscada, o melhor casamento encontrado.
+         * Retorna zero se alguma palavra não casar (prefixo truncado no índice).
+         */
+        int pontuar(List<String> buscadas) {
+            int total = 0;
+            for (String buscada : buscadas) {
+                int melhor = Math.max(melhorCasamento(nome, buscada, 10, 6), melhorCasamento(descricao, buscada, 3, 1));
+                if (melhor == 0) {
+                    return 0;
+                }
+                total += melhor;
+            }
+            // Nome começando pelo termo buscado aparece primeiro
+            if (!nome.isEmpty() && nome.get(0).startsWith(buscadas.get(0))) {
+                total += 2;
+            }
+            return total;
+        }
+
+        private static int melhorCasamento(List<String> palavras, String buscada, int exato, int prefixo) {
+            int melhor = 0;
+            for (String palavra : palavras) {
+                if (palavra.equals(buscada)) {
+                    return exato;
+                }
+                if (palavra.startsWith(buscada)) {
+                    melhor = prefixo;
+                }
+            }
+            return melhor;
+        }
+    }
+
+    private record Resultado(Long id, int pontuacao) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.petshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.petshop.model.Produto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache read-through das listagens públicas do catálogo de produtos.
+ *
+ * As entradas têm tamanho máximo e expiram por TTL. Escritas em produtos
+ * invalidam apenas as listagens afetadas (a listagem global de disponíveis e
+ * as listagens da categoria do produto), sempre após o commit da transação.
+ */
+@Component
+public class ProdutoCatalogoCache {
+
+    private final Cache<Chave, List<Produto>> cache;
+    private final LongAdder invalidacoes = new LongAdder();
+
+    @Autowired
+    public ProdutoCatalogoCache(
+            @Value("${catalogo.cache.tamanho-maximo:500}") long tamanhoMaximo,
+            @Value("${catalogo.cache.ttl-segundos:60}") long ttlSegundos) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+    }
+
+    public List<Produto> disponiveis(Supplier<List<Produto>> carregador) {
+        return obter(new Chave(TipoListagem.DISPONIVEIS, null), carregador);
+    }
+
+    public List<Produto> porCategoria(Long categoriaId, Supplier<List<Produto>> carregador) {
+        return obter(new Chave(TipoListagem.CATEGORIA, categoriaId), carregador);
+    }
+
+    public List<Produto> disponiveisPorCategoria(Long categoriaId, Supplier<List<Produto>> carregador) {
+        return obter(new Chave(TipoListagem.DISPONIVEIS_CATEGORIA, categoriaId), carregador);
+    }
+
+    /**
+     * Invalida as listagens que podem conter o produto informado.
+     */
+    public void invalidarProduto(Produto produto) {
+        Long categoriaId = produto.getCategoria() != null ? produto.getCategoria().getId() : null;
+        invalidarCategorias(Collections.singletonList(categoriaId));
+    }
+
+    /**
+     * Invalida a listagem global e as listagens das categorias informadas.
+     * Uma categoria nula (desconhecida) invalida o cache inteiro.
+     */
+    public void invalidarCategorias(Collection<Long> categoriaIds) {
+        List<Long> ids = new ArrayList<>(categoriaIds);
+        // Invalidar antes do commit permitiria que uma leitura concorrente
+        // repovoasse o cache com o estado antigo
+        TransacoesUtil.aposCommit(() -> {
+            if (ids.stream().anyMatch(Objects::isNull)) {
+                cache.invalidateAll();
+            } else {
+                List<Chave> chaves = new ArrayList<>();
+                chaves.add(new Chave(TipoListagem.DISPONIVEIS, null));
+                for (Long id : ids) {
+                    chaves.add(new Chave(TipoListagem.CATEGORIA, id));
+                    chaves.add(new Chave(TipoListagem.DISPONIVEIS_CATEGORIA, id));
+                }
+                cache.invalidateAll(chaves);
+            }
+            invalidacoes.increment();
+        });
+    }
+
+    public void invalidarTudo() {
+        TransacoesUtil.aposCommit(() -> {
+            cache.invalidateAll();
+            invalidacoes.increment();
+        });
+    }
+
+    /**
+     * Contadores para dimensionamento do cache.
+     */
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("entradas", cache.estimatedSize());
+        resultado.put("acertos", stats.hitCount());
+        resultado.put("falhas", stats.missCount());
+        resultado.put("taxaAcerto", stats.hitRate());
+        resultado.put("remocoes", stats.evictionCount());
+        resultado.put("invalidacoes", invalidacoes.sum());
+        return resultado;
+    }
+
+    private List<Produto> obter(Chave chave, Supplier<List<Produto>> carregador) {
+        return cache.get(chave, k -> List.copyOf(carregador.get()));
+    }
+
+
+    private enum TipoListagem {
+        DISPONIVEIS,
+        CATEGORIA,
+        DISPONIVEIS_CATEGORIA
+    }
+
+    private record Chave(TipoListagem tipo, Long categoriaId) {
+    }
+}
@@ -1,15 +1,26 @@
 package com.petshop.service;
 
+import com.petshop.dto.MaisVendidoDTO;
+import com.petshop.dto.MovimentacaoEstoqueDTO;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.model.Produto;
 import com.petshop.model.Categoria;
 import com.petshop.repository.ProdutoRepository;
 import com.petshop.repository.CategoriaRepository;
+import com.petshop.service.ContadorSpaceSaving.Contagem;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProdutoService {
@@ -20,24 +31,64 @@ public class ProdutoService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private ProdutoCatalogoCache catalogoCache;
+
+    @Autowired
+    private ProdutoBuscaIndice buscaIndice;
+
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
+    @Autowired
+    private ReservaEstoque reservaEstoque;
+
+    @Autowired
+    private LivroEstoque livroEstoque;
+
+    @Autowired
+    private MaisVendidos maisVendidos;
+
+    /**
+     * Carrega o índice de busca após a inicialização (inclusive dos dados de exemplo).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruirIndiceBusca() {
+        buscaIndice.reconstruir(produtoRepository.findByAtivo(true));
+    }
+
     @Transactional(readOnly = true)
     public List<Produto> listarTodos() {
         return produtoRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursor<Produto> listarPagina(String cursor, int limite) {
+        Long aposId = cursor != null ? PaginaCursor.decodificarId(cursor) : 0L;
+        List<Produto> resultado = produtoRepository.findPaginaAposId(aposId, PageRequest.of(0, limite + 1));
+        return PaginaCursor.deResultado(resultado, limite, p -> PaginaCursor.codificar(p.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public long contarTodos() {
+        return produtoRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public List<Produto> listarDisponiveis() {
-        return produtoRepository.findProdutosDisponiveis();
+        return catalogoCache.disponiveis(produtoRepository::findProdutosDisponiveis);
     }
 
     @Transactional(readOnly = true)
     public List<Produto> listarPorCategoria(Long categoriaId) {
-        return produtoRepository.findByCategoriaId(categoriaId);
+        return catalogoCache.porCategoria(categoriaId, () -> produtoRepository.findByCategoriaId(categoriaId));
     }
 
     @Transactional(readOnly = true)
     public List<Produto> listarDisponiveisPorCategoria(Long categoriaId) {
-        return produtoRepository.findProdutosDisponiveisPorCategoria(categoriaId);
+        return catalogoCache.disponiveisPorCategoria(categoriaId,
+                () -> produtoRepository.findProdutosDisponiveisPorCategoria(categoriaId));
     }
 
     @Transactional(readOnly = true)
@@ -47,7 +98,16 @@ public class ProdutoService {
 
     @Transactional(readOnly = true)
     public List<Produto> buscarPorNome(String termo) {
-        return produtoRepository.buscarPorNome(termo);
+        List<Long> ids = buscaIndice.buscar(termo);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Produto> porId = produtoRepository.findAtivosPorIds(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -61,10 +121,16 @@ public class ProdutoService {
                 .orElseThrow(() -> new RuntimeException("Categoria não encontrada com ID: " + categoriaId));
         
         produto.setCategoria(categoria);
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+        livroEstoque.importar(salvo.getId(), salvo.getQuantidadeEstoque() != null ? salvo.getQuantidadeEstoque() : 0);
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, produto.getId());
+        buscaIndice.indexar(salvo);
+        return salvo;
     }
 
     @Transactional
+    @RepetirEmConflito
     public Produto atualizar(Long id, Produto produtoAtualizado) {
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
@@ -72,58 +138,79 @@ public class ProdutoService {
         produto.setNome(produtoAtualizado.getNome());
         produto.setDescricao(produtoAtualizado.getDescricao());
         produto.setPreco(produtoAtualizado.getPreco());
+        estoqueAjustado(id, diferenca(produto.getQuantidadeEstoque(), produtoAtualizado.getQuantidadeEstoque()));
         produto.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
         produto.setUrlImagem(produtoAtualizado.getUrlImagem());
         produto.setAtivo(produtoAtualizado.getAtivo());
 
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, produto.getId());
+        buscaIndice.indexar(salvo);
+        return salvo;
     }
 
     @Transactional
+    @RepetirEmConflito
     public Produto atualizarEstoque(Long id, Integer quantidade) {
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
         
+        estoqueAjustado(id, diferenca(produto.getQuantidadeEstoque(), quantidade));
         produto.setQuantidadeEstoque(quantidade);
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, produto.getId());
+        return salvo;
     }
 
     @Transactional
     public Produto adicionarEstoque(Long id, Integer quantidade) {
-        Produto produto = produtoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
-        
-        produto.adicionarEstoque(quantidade);
-        return produtoRepository.save(produto);
+        estoqueAjustado(id, quantidade);
+        if (produtoRepository.adicionarEstoque(id, quantidade) == 0) {
+            throw new RuntimeException("Produto não encontrado com ID: " + id);
+        }
+        return estoqueAlterado(id);
     }
 
     @Transactional
     public Produto reduzirEstoque(Long id, Integer quantidade) {
-        Produto produto = produtoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
-        
-        if (!produto.temEstoque(quantidade)) {
-            throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
+        // O saldo da reserva decide: a coluna ainda não tem as baixas
+        // confirmadas que esperam o próximo lote
+        if (!reservaEstoque.baixar(id, quantidade)) {
+            throw estoqueInsuficiente(id);
         }
-        
-        produto.reduzirEstoque(quantidade);
-        return produtoRepository.save(produto);
+        livroEstoque.ajustar(id, -quantidade);
+        // O UPDATE condicional continua como segunda barreira, para a coluna
+        // nunca ficar negativa; a recusa desfaz a baixa no saldo
+        if (produtoRepository.reduzirEstoque(id, quantidade) == 0) {
+            throw estoqueInsuficiente(id);
+        }
+        return estoqueAlterado(id);
     }
 
     @Transactional
+    @RepetirEmConflito
     public void ativar(Long id) {
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
         produto.setAtivo(true);
         produtoRepository.save(produto);
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, produto.getId());
+        buscaIndice.indexar(produto);
     }
 
     @Transactional
+    @RepetirEmConflito
     public void desativar(Long id) {
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
         produto.setAtivo(false);
         produtoRepository.save(produto);
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, produto.getId());
+        buscaIndice.indexar(produto);
     }
 
     @Transactional
@@ -132,5 +219,89 @@ public class ProdutoService {
             throw new RuntimeException("Produto não encontrado com ID: " + id);
         }
         produtoRepository.deleteById(id);
+        catalogoCache.invalidarTudo();
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, id);
+        buscaIndice.remover(id);
+    }
+
+    public Map<String, Object> estatisticasCache() {
+        return catalogoCache.estatisticas();
+    }
+
+    @Transactional(readOnly = true)
+    public List<MovimentacaoEstoqueDTO> listarMovimentacoes(Long id, int limite) {
+        if (!produtoRepository.existsById(id)) {
+            throw new RuntimeException("Produto não encontrado com ID: " + id);
+        }
+        return livroEstoque.movimentacoes(id, limite);
+    }
+
+    /**
+     * Regrava o estoque de todos os produtos a partir do livro de estoque,
+     * para corrigir a coluna depois de um incidente.
+     */
+    public int reconstruirEstoque() {
+        int produtos = reservaEstoque.reconciliar();
+        catalogoCache.invalidarTudo();
+        catalogoVersoes.alterados(CatalogoVersoes.Recurso.PRODUTO,
+                produtoRepository.findAll().stream().map(Produto::getId).collect(Collectors.toList()));
+        return produtos;
+    }
+
+    /**
+     * Mais vendidos dos últimos dias, só entre os produtos disponíveis. Lê o
+     * ranking em memória e a listagem de disponíveis do cache, sem consulta
+     * ao banco no caso comum. O ranking vem inteiro e só é cortado no limite
+     * depois do filtro, para indisponíveis no topo não encurtarem a lista.
+     */
+    public List<MaisVendidoDTO> listarMaisVendidos(int dias, Long categoriaId, int limite) {
+        List<Contagem> ranking = maisVendidos.maisVendidos(dias, categoriaId, Integer.MAX_VALUE);
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Produto> disponiveis = listarDisponiveis().stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        return ranking.stream()
+                .filter(contagem -> disponiveis.containsKey(contagem.id()))
+                .limit(limite)
+                .map(contagem -> {
+                    Produto produto = disponiveis.get(contagem.id());
+                    return new MaisVendidoDTO(produto.getId(), produto.getNome(), produto.getPreco(),
+                            produto.getUrlImagem(), produto.getCategoria().getId(),
+                            contagem.contagem(), contagem.erro());
+                })
+                .collect(Collectors.toList());
+    }
+
+    public int reconstruirMaisVendidos() {
+        return maisVendidos.reconstruir();
+    }
+
+    // Relê o produto após o UPDATE, que não passa pelo contexto de persistência
+    private Produto estoqueAlterado(Long id) {
+        Produto produto = produtoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
+        catalogoCache.invalidarProduto(produto);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, id);
+        return produto;
+    }
+
+    // Toda mudança direta na coluna vai para o livro e para o saldo da
+    // reserva. Chamado antes do UPDATE e do lançamento: a partir daqui uma
+    // reconciliação espera o fim da transação (ver ReservaEstoque)
+    private void estoqueAjustado(Long id, int diferenca) {
+        reservaEstoque.estoqueAlterado(id, diferenca);
+        livroEstoque.ajustar(id, diferenca);
+    }
+
+    private RuntimeException estoqueInsuficiente(Long id) {
+        Produto produto = produtoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Produto não encontrado com ID: " + id));
+        return new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
+    }
+
+    // Estoque novo menos o anterior
+    private static int diferenca(Integer anterior, Integer novo) {
+        return (novo != null ? novo : 0) - (anterior != null ? anterior : 0);
     }
 }
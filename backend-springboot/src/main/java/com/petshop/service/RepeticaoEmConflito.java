@@ -0,0 +1,79 @@
+package com.petshop.service;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Repetição dos métodos marcados com {@link RepetirEmConflito}.
+ *
+ * Roda por fora do @Transactional (precedência mais alta), então o conflito
+ * de versão, que o Hibernate só detecta no flush do commit, já chegou aqui
+ * traduzido e com a transação desfeita. Entre as tentativas espera um tempo
+ * aleatório entre zero e um teto que dobra a cada vez (jitter total), para
+ * que as requisições que colidiram não voltem a colidir no mesmo instante.
+ * Chamado de dentro de uma transação já aberta não repete: o contexto de
+ * persistência continuaria com a versão antiga, e quem abriu a transação é
+ * que deve repetir.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RepeticaoEmConflito {
+
+    private static final Logger log = LoggerFactory.getLogger(RepeticaoEmConflito.class);
+
+    private final int tentativas;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+
+    @Autowired
+    public RepeticaoEmConflito(@Value("${concorrencia.repeticao.tentativas:3}") int tentativas,
+                               @Value("${concorrencia.repeticao.espera-base-ms:20}") long esperaBaseMs,
+                               @Value("${concorrencia.repeticao.espera-maxima-ms:200}") long esperaMaximaMs) {
+        this.tentativas = Math.max(1, tentativas);
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    @Around("@annotation(com.petshop.service.RepetirEmConflito)")
+    public Object repetir(ProceedingJoinPoint chamada) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return chamada.proceed();
+        }
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return chamada.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa >= tentativas) {
+                    log.warn("Conflito de versão em {} após {} tentativas", chamada.getSignature().toShortString(),
+                            tentativa);
+                    throw e;
+                }
+                try {
+                    Thread.sleep(espera(tentativa));
+                } catch (InterruptedException interrompida) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Aleatório em [0, min(máximo, base * 2^(tentativa - 1))]
+    long espera(int tentativa) {
+        long teto = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(tentativa - 1, 20));
+        return ThreadLocalRandom.current().nextLong(teto + 1);
+    }
+}
@@ -0,0 +1,19 @@
+package com.petshop.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Repete o método de serviço quando a transação dele falha por conflito de
+ * versão (outra requisição alterou a mesma entidade antes do commit). Cada
+ * tentativa abre uma transação nova e relê as entidades; esgotadas as
+ * tentativas, o conflito chega ao cliente como 409. Ver {@link RepeticaoEmConflito}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RepetirEmConflito {
+}
@@ -0,0 +1,558 @@
+package com.petshop.service;
+
+import com.petshop.config.SchedulingConfig;
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Reserva de estoque em memória com gravação posterior (write-behind).
+ *
+ * Cada produto tem um saldo disponível atômico (estoque do banco, menos o que
+ * foi reservado ou baixado e ainda não gravado). Confirmar um pedido é um
+ * compare-and-set por produto, sem lock de linha: pedidos concorrentes do
+ * mesmo produto só disputam o contador. As baixas e devoluções efetivadas são
+ * somadas por produto e chegam a produtos.quantidade_estoque num lote
+ * periódico, um UPDATE por produto, qualquer que seja o número de pedidos.
+ *
+ * Para não perder nada numa queda, a transação do pedido lança a baixa ou a
+ * devolução no livro de estoque (só INSERT, sem disputa). Na inicialização o
+ * estoque dos produtos é reconstruído do livro antes de os saldos serem
+ * carregados. As listagens refletem o banco com o atraso de um lote.
+ *
+ * As Function Apps escrevem na mesma coluna. Cada saldo guarda o valor que a
+ * coluna deveria ter só com as escritas desta instância, e uma sincronização
+ * periódica relê a coluna e aplica ao saldo a diferença, que é o que foi
+ * alterado por fora. Entre duas sincronizações esta instância ainda pode
+ * vender estoque já vendido por outra; a gravação em lote não deixa a coluna
+ * ficar negativa e segura a variação até a próxima sincronização corrigir o
+ * saldo.
+ *
+ * Uma reconciliação sob demanda não pode cair entre o commit de um
+ * lançamento e a aplicação dele na memória: a coluna reconstruída já o
+ * conteria e a memória o aplicaria de novo. Reservas, confirmações,
+ * devoluções e ajustes seguram a leitura de um lock do lançamento até o fim
+ * da transação, e a reconciliação espera pela escrita.
+ */
+@Component
+public class ReservaEstoque implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaEstoque.class);
+
+    static final String SQL_SALDO = "SELECT quantidade_estoque, categoria_id FROM produtos WHERE id = ?";
+    static final String SQL_SALDOS = "SELECT id, quantidade_estoque, categoria_id FROM produtos";
+    // Nunca deixa a coluna negativa; a variação recusada fica pendente
+    static final String SQL_GRAVAR_PRODUTO = "UPDATE produtos SET quantidade_estoque = quantidade_estoque + ?, versao = versao + 1 " +
+                                             "WHERE id = ? AND quantidade_estoque + ? >= 0";
+
+    // Espera máxima pelo lock na sincronização; sem ele, fica para a próxima
+    private static final long ESPERA_SINCRONIZACAO_MS = 100;
+
+    private static final class Saldo {
+        private final AtomicInteger disponivel;
+        // Valor esperado na coluna com as escritas desta instância
+        private final AtomicInteger gravado;
+        private final Long categoriaId;
+
+        private Saldo(int estoque, Long categoriaId) {
+            this.disponivel = new AtomicInteger(estoque);
+            this.gravado = new AtomicInteger(estoque);
+            this.categoriaId = categoriaId;
+        }
+    }
+
+    private record Reserva(Map<Long, Integer> quantidades, long expiraEm) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LivroEstoque livroEstoque;
+    private final ProdutoCatalogoCache catalogoCache;
+    private final CatalogoVersoes catalogoVersoes;
+    private final long ttlMs;
+    private final long esperaReconciliacaoMs;
+
+    private final MapaPorId<Saldo> saldos = new MapaPorId<>();
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    // Variação líquida por produto já lançada no livro e ainda não gravada em produtos
+    private final Map<Long, Integer> naoGravados = new ConcurrentHashMap<>();
+    // Leitura: operações em andamento sobre o estoque; escrita: reconciliação
+    private final ReentrantReadWriteLock lancamentos = new ReentrantReadWriteLock();
+
+    @Autowired
+    public ReservaEstoque(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          LivroEstoque livroEstoque,
+                          ProdutoCatalogoCache catalogoCache,
+                          CatalogoVersoes catalogoVersoes,
+                          @Value("${estoque.reserva.ttl-ms:60000}") long ttlMs,
+                          @Value("${estoque.reserva.espera-reconciliacao-ms:10000}") long esperaReconciliacaoMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Transação própria: o lote não pode depender do commit de quem o disparou
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.livroEstoque = livroEstoque;
+        this.catalogoCache = catalogoCache;
+        this.catalogoVersoes = catalogoVersoes;
+        this.ttlMs = ttlMs;
+        this.esperaReconciliacaoMs = esperaReconciliacaoMs;
+    }
+
+    // Antes do servidor web aceitar requisições
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconciliar();
+    }
+
+    /**
+     * Reconstrói o estoque dos produtos a partir do livro (o que uma parada
+     * sem descarga deixou de gravar volta assim) e recarrega os saldos.
+     * Também serve para corrigir o estoque depois de um incidente.
+     *
+     * Espera terminarem as transações que já lançaram no livro, sem deixar
+     * outras começarem, e grava as variações pendentes antes de reconstruir;
+     * o que sobrar delas (falha na gravação) é descartado, pois o livro já
+     * as contém.
+     *
+     * @return quantidade de produtos reconstruídos
+     */
+    public int reconciliar() {
+        Lock escrita = lancamentos.writeLock();
+        try {
+            if (!escrita.tryLock(esperaReconciliacaoMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Há pedidos em confirmação ou cancelamento; tente reconstruir o estoque novamente");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reconstrução do estoque interrompida");
+        }
+        try {
+            synchronized (this) {
+                descarregar();
+                int produtos = livroEstoque.reconstruir();
+                naoGravados.clear();
+
+                List<Long> ids = new ArrayList<>();
+                List<Saldo> valores = new ArrayList<>();
+                jdbcTemplate.query(SQL_SALDOS, rs -> {
+                    ids.add(rs.getLong(1));
+                    valores.add(new Saldo(rs.getInt(2), rs.getObject(3, Long.class)));
+                });
+                saldos.substituir(ids.stream().mapToLong(Long::longValue).toArray(), valores.toArray(new Saldo[0]));
+                reservas.clear();
+                return produtos;
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Separa as quantidades do pedido, tudo ou nada. A reserva expira se não
+     * for confirmada nem liberada dentro do TTL.
+     *
+     * @return vazio se reservou; senão o id do primeiro produto sem saldo
+     */
+    public Optional<Long> reservar(Long pedidoId, Map<Long, Integer> quantidades) {
+        Map<Long, Integer> ordenadas = new TreeMap<>(quantidades);
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        try {
+            List<Long> baixados = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entrada : ordenadas.entrySet()) {
+                Saldo saldo = saldo(entrada.getKey());
+                if (saldo == null || !tentarBaixar(saldo.disponivel, entrada.getValue())) {
+                    baixados.forEach(produtoId -> ajustar(produtoId, ordenadas.get(produtoId)));
+                    return Optional.of(entrada.getKey());
+                }
+                baixados.add(entrada.getKey());
+            }
+            Reserva anterior = reservas.put(pedidoId, new Reserva(Map.copyOf(ordenadas), System.currentTimeMillis() + ttlMs));
+            if (anterior != null) {
+                devolverSaldo(anterior.quantidades);
+            }
+            return Optional.empty();
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Torna a reserva do pedido uma baixa. Deve rodar na transação que
+     * confirma o pedido: a baixa é lançada no livro nela, o saldo fica
+     * baixado no commit e volta no rollback.
+     */
+    public void confirmar(Long pedidoId, Map<Long, Integer> quantidades) {
+        Map<Long, Integer> copia = Map.copyOf(quantidades);
+        lancar(() -> livroEstoque.registrar(TipoMovimentacao.BAIXA, pedidoId, negativas(quantidades)), confirmada -> {
+            if (!confirmada) {
+                liberar(pedidoId);
+                return;
+            }
+            if (reservas.remove(pedidoId) == null) {
+                // A reserva expirou antes do commit, mas a baixa já vale
+                log.warn("Reserva do pedido {} expirou antes da confirmação; estoque baixado mesmo assim", pedidoId);
+                copia.forEach((produtoId, quantidade) -> ajustar(produtoId, -quantidade));
+            }
+            copia.forEach((produtoId, quantidade) -> naoGravados.merge(produtoId, -quantidade, Integer::sum));
+        });
+    }
+
+    /**
+     * Devolve ao estoque as quantidades de um pedido já baixado. Deve rodar
+     * na transação que cancela o pedido; o saldo volta no commit.
+     */
+    public void devolver(Long pedidoId, Map<Long, Integer> quantidades) {
+        Map<Long, Integer> copia = Map.copyOf(quantidades);
+        lancar(() -> livroEstoque.registrar(TipoMovimentacao.DEVOLUCAO, pedidoId, quantidades), confirmada -> {
+            if (confirmada) {
+                devolverSaldo(copia);
+                copia.forEach((produtoId, quantidade) -> naoGravados.merge(produtoId, quantidade, Integer::sum));
+            }
+        });
+    }
+
+    /**
+     * Desfaz a reserva do pedido, se houver
+     */
+    public void liberar(Long pedidoId) {
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        try {
+            Reserva reserva = reservas.remove(pedidoId);
+            if (reserva != null) {
+                devolverSaldo(reserva.quantidades);
+            }
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Acompanha uma alteração de estoque feita direto no banco (ajuste
+     * manual, entrada de mercadoria), aplicada ao saldo no commit. Produto
+     * ainda não carregado é lido do banco quando for reservado. Chamar na
+     * transação da alteração, antes de alterar a coluna e de lançar o ajuste
+     * no livro.
+     */
+    public void estoqueAlterado(Long produtoId, int diferenca) {
+        lancar(() -> { }, confirmada -> {
+            if (confirmada) {
+                ajustar(produtoId, diferenca);
+                gravado(produtoId, diferenca);
+            }
+        });
+    }
+
+    /**
+     * Baixa manual (perda, avaria), decidida pelo saldo, que já desconta as
+     * baixas confirmadas e ainda não gravadas na coluna. Chamar na transação
+     * que baixa a coluna, antes do UPDATE e do lançamento do ajuste no livro;
+     * o saldo volta no rollback.
+     *
+     * @return false se o produto não existir ou não tiver saldo
+     */
+    public boolean baixar(Long produtoId, int quantidade) {
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        boolean baixou = false;
+        try {
+            Saldo saldo = saldo(produtoId);
+            baixou = saldo != null && tentarBaixar(saldo.disponivel, quantidade);
+        } finally {
+            if (!baixou) {
+                leitura.unlock();
+            }
+        }
+        if (baixou) {
+            TransacoesUtil.aoConcluir(confirmada -> {
+                try {
+                    if (confirmada) {
+                        gravado(produtoId, -quantidade);
+                    } else {
+                        ajustar(produtoId, quantidade);
+                    }
+                } finally {
+                    leitura.unlock();
+                }
+            });
+        }
+        return baixou;
+    }
+
+    public Optional<Integer> disponivel(Long produtoId) {
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        try {
+            return Optional.ofNullable(saldo(produtoId)).map(saldo -> saldo.disponivel.get());
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    public int quantidadePendente() {
+        return naoGravados.size();
+    }
+
+    public int quantidadeReservada() {
+        return reservas.size();
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.reserva.expiracao-intervalo-ms:10000}",
+            initialDelayString = "${estoque.reserva.expiracao-intervalo-ms:10000}")
+    public void expirarPeriodicamente() {
+        expirar(System.currentTimeMillis());
+    }
+
+    /**
+     * Libera as reservas vencidas
+     *
+     * @return quantidade de reservas liberadas
+     */
+    public int expirar(long agora) {
+        int liberadas = 0;
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        try {
+            for (Map.Entry<Long, Reserva> entrada : reservas.entrySet()) {
+                if (entrada.getValue().expiraEm < agora && reservas.remove(entrada.getKey(), entrada.getValue())) {
+                    devolverSaldo(entrada.getValue().quantidades);
+                    liberadas++;
+                }
+            }
+        } finally {
+            leitura.unlock();
+        }
+        if (liberadas > 0) {
+            log.info("{} reservas de estoque expiradas e liberadas", liberadas);
+        }
+        return liberadas;
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.reserva.sincronizacao-intervalo-ms:10000}",
+            initialDelayString = "${estoque.reserva.sincronizacao-intervalo-ms:10000}")
+    public void sincronizarPeriodicamente() {
+        sincronizar();
+    }
+
+    /**
+     * Relê a coluna de estoque e aplica aos saldos o que foi alterado fora
+     * desta instância (Function Apps, SQL manual) desde a última leitura.
+     * Espera a escrita do lock, como a reconciliação, mas por pouco tempo: com
+     * pedidos em andamento a sincronização fica para a próxima vez.
+     *
+     * @return quantidade de produtos com saldo ajustado
+     */
+    public int sincronizar() {
+        Lock escrita = lancamentos.writeLock();
+        try {
+            if (!escrita.tryLock(ESPERA_SINCRONIZACAO_MS, TimeUnit.MILLISECONDS)) {
+                log.debug("Sincronização do estoque adiada: há operações em andamento");
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        try {
+            // Sem lote em gravação: a coluna e o valor esperado andam juntos
+            synchronized (this) {
+                Map<Long, Integer> externas = new TreeMap<>();
+                jdbcTemplate.query(SQL_SALDOS, rs -> {
+                    Saldo saldo = saldos.get(rs.getLong(1));
+                    if (saldo != null && rs.getInt(2) != saldo.gravado.get()) {
+                        externas.put(rs.getLong(1), rs.getInt(2) - saldo.gravado.get());
+                    }
+                });
+                if (externas.isEmpty()) {
+                    return 0;
+                }
+                Set<Long> categoriaIds = new HashSet<>();
+                externas.forEach((produtoId, diferenca) -> {
+                    Saldo saldo = saldos.get(produtoId);
+                    saldo.disponivel.addAndGet(diferenca);
+                    saldo.gravado.addAndGet(diferenca);
+                    categoriaIds.add(saldo.categoriaId);
+                });
+                catalogoCache.invalidarCategorias(categoriaIds);
+                catalogoVersoes.alterados(CatalogoVersoes.Recurso.PRODUTO, externas.keySet());
+                log.info("Estoque alterado fora desta instância em {} produtos; saldos ajustados", externas.size());
+                return externas.size();
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.reserva.gravacao-intervalo-ms:1000}",
+            initialDelayString = "${estoque.reserva.gravacao-intervalo-ms:1000}",
+            scheduler = SchedulingConfig.GRAVACAO_EM_LOTE)
+    public void descarregarPeriodicamente() {
+        descarregar();
+    }
+
+    /**
+     * Grava as variações líquidas acumuladas, um UPDATE por produto num único
+     * lote. Se o banco falhar, as variações voltam para o acumulado e seguem
+     * no próximo lote. Uma variação que deixaria a coluna negativa (estoque
+     * vendido por fora desta instância) também fica pendente, até a coluna
+     * ter saldo para ela ou uma reconciliação.
+     *
+     * @return quantidade de produtos atualizados no banco
+     */
+    @PreDestroy
+    public synchronized int descarregar() {
+        if (naoGravados.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> lote = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entrada : naoGravados.entrySet()) {
+            // Só sai do acumulado se não chegou variação nova desde a leitura
+            // Baixa e devolução que se anulam não viram UPDATE
+            if (naoGravados.remove(entrada.getKey(), entrada.getValue()) && entrada.getValue() != 0) {
+                lote.put(entrada.getKey(), entrada.getValue());
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(lote.keySet());
+        List<Object[]> parametros = new ArrayList<>(lote.size());
+        lote.forEach((produtoId, delta) -> parametros.add(new Object[]{delta, produtoId, delta}));
+        int[] atualizados;
+        try {
+            atualizados = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(SQL_GRAVAR_PRODUTO, parametros));
+        } catch (RuntimeException e) {
+            lote.forEach((produtoId, delta) -> naoGravados.merge(produtoId, delta, Integer::sum));
+            log.warn("Falha ao gravar o estoque de {} produtos; nova tentativa no próximo lote: {}",
+                    lote.size(), e.getMessage());
+            return 0;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (atualizados[i] == 0) {
+                recusado(ids.get(i), lote.remove(ids.get(i)));
+            } else {
+                gravado(ids.get(i), lote.get(ids.get(i)));
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        // Estoque faz parte das listagens e da ETag dos produtos
+        Set<Long> categoriaIds = new HashSet<>();
+        for (Long produtoId : lote.keySet()) {
+            Saldo saldo = saldos.get(produtoId);
+            categoriaIds.add(saldo != null ? saldo.categoriaId : null);
+        }
+        catalogoCache.invalidarCategorias(categoriaIds);
+        catalogoVersoes.alterados(CatalogoVersoes.Recurso.PRODUTO, lote.keySet());
+        return lote.size();
+    }
+
+    // Nenhuma linha atualizada: produto excluído (a variação é descartada) ou
+    // coluna que ficaria negativa (a variação espera o próximo lote)
+    private void recusado(Long produtoId, int delta) {
+        if (jdbcTemplate.query(SQL_SALDO, rs -> rs.next() ? Boolean.TRUE : null, produtoId) == null) {
+            return;
+        }
+        naoGravados.merge(produtoId, delta, Integer::sum);
+        log.warn("Estoque do produto {} ficaria negativo com a variação {}; mantida pendente", produtoId, delta);
+    }
+
+    private Saldo saldo(Long produtoId) {
+        Saldo saldo = saldos.get(produtoId);
+        if (saldo != null) {
+            return saldo;
+        }
+        return saldos.computeIfAbsent(produtoId, id -> jdbcTemplate.query(SQL_SALDO,
+                rs -> rs.next() ? new Saldo(rs.getInt(1), rs.getObject(2, Long.class)) : null, id));
+    }
+
+    private static boolean tentarBaixar(AtomicInteger disponivel, int quantidade) {
+        int atual;
+        do {
+            atual = disponivel.get();
+            if (atual < quantidade) {
+                return false;
+            }
+        } while (!disponivel.compareAndSet(atual, atual - quantidade));
+        return true;
+    }
+
+    private void ajustar(Long produtoId, int diferenca) {
+        Saldo saldo = saldos.get(produtoId);
+        if (saldo != null && diferenca != 0) {
+            saldo.disponivel.addAndGet(diferenca);
+        }
+    }
+
+    // A coluna recebeu uma escrita desta instância
+    private void gravado(Long produtoId, int diferenca) {
+        Saldo saldo = saldos.get(produtoId);
+        if (saldo != null && diferenca != 0) {
+            saldo.gravado.addAndGet(diferenca);
+        }
+    }
+
+    private void devolverSaldo(Map<Long, Integer> quantidades) {
+        quantidades.forEach(this::ajustar);
+    }
+
+    private static Map<Long, Integer> negativas(Map<Long, Integer> quantidades) {
+        Map<Long, Integer> negativas = new TreeMap<>();
+        quantidades.forEach((produtoId, quantidade) -> negativas.put(produtoId, -quantidade));
+        return negativas;
+    }
+
+    // Faz o lançamento e aplica a ação no fim da transação, com a leitura de
+    // lancamentos presa entre os dois (a liberação roda na mesma thread). Se
+    // o lançamento falhar a ação roda já, como num rollback: a reserva de uma
+    // confirmação volta ao saldo em vez de esperar o TTL.
+    private void lancar(Runnable lancamento, Consumer<Boolean> acao) {
+        Lock leitura = lancamentos.readLock();
+        leitura.lock();
+        try {
+            lancamento.run();
+        } catch (RuntimeException e) {
+            try {
+                acao.accept(false);
+            } finally {
+                leitura.unlock();
+            }
+            throw e;
+        }
+        TransacoesUtil.aoConcluir(confirmada -> {
+            try {
+                acao.accept(confirmada);
+            } finally {
+                leitura.unlock();
+            }
+        });
+    }
+}
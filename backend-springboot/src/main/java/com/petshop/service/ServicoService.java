@@ -15,6 +15,9 @@ public class ServicoService {
     @Autowired
     private ServicoRepository servicoRepository;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     @Transactional(readOnly = true)
     public List<Servico> listarTodos() {
         return servicoRepository.findAll();
@@ -40,7 +43,9 @@ public class ServicoService {
         if (servicoRepository.existsByNome(servico.getNome())) {
             throw new RuntimeException("Já existe um serviço com este nome");
         }
-        return servicoRepository.save(servico);
+        Servico salvo = servicoRepository.save(servico);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.SERVICO, servico.getId());
+        return salvo;
     }
 
     @Transactional
@@ -59,7 +64,9 @@ public class ServicoService {
         servico.setPreco(servicoAtualizado.getPreco());
         servico.setAtivo(servicoAtualizado.getAtivo());
 
-        return servicoRepository.save(servico);
+        Servico salvo = servicoRepository.save(servico);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.SERVICO, id);
+        return salvo;
     }
 
     @Transactional
@@ -68,6 +75,7 @@ public class ServicoService {
                 .orElseThrow(() -> new RuntimeException("Serviço não encontrado com ID: " + id));
         servico.setAtivo(true);
         servicoRepository.save(servico);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.SERVICO, id);
     }
 
     @Transactional
@@ -76,6 +84,7 @@ public class ServicoService {
                 .orElseThrow(() -> new RuntimeException("Serviço não encontrado com ID: " + id));
         servico.setAtivo(false);
         servicoRepository.save(servico);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.SERVICO, id);
     }
 
     @Transactional
@@ -84,5 +93,6 @@ public class ServicoService {
             throw new RuntimeException("Serviço não encontrado com ID: " + id);
         }
         servicoRepository.deleteById(id);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.SERVICO, id);
     }
 }
@@ -0,0 +1,51 @@
+package com.petshop.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Ações amarradas ao fim da transação corrente, para os caches e contadores
+ * em memória só enxergarem o que o banco confirmou.
+ *
+ * Sem transação ativa a ação roda na hora, como se tivesse havido commit.
+ */
+final class TransacoesUtil {
+
+    private TransacoesUtil() {
+    }
+
+    /**
+     * Roda a ação depois do commit; num rollback ela é descartada
+     */
+    static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    /**
+     * Roda a ação no fim da transação, com true se houve commit e false se
+     * houve rollback
+     */
+    static void aoConcluir(Consumer<Boolean> acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    acao.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            acao.accept(true);
+        }
+    }
+}
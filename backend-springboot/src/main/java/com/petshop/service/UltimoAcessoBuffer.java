@@ -0,0 +1,89 @@
+package com.petshop.service;
+
+import com.petshop.config.SchedulingConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind do último acesso dos usuários.
+ *
+ * O login só registra o horário em memória (o mais recente por usuário) e o
+ * banco recebe tudo periodicamente num único UPDATE em lote, além de uma
+ * descarga final no encerramento da aplicação. O UPDATE nunca volta um
+ * horário para trás, então a ordem entre descargas não importa.
+ */
+@Component
+public class UltimoAcessoBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(UltimoAcessoBuffer.class);
+
+    static final String SQL_ATUALIZAR = "UPDATE usuarios SET ultimo_acesso = ? "
+            + "WHERE id = ? AND (ultimo_acesso IS NULL OR ultimo_acesso < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LocalDateTime> pendentes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UltimoAcessoBuffer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void registrar(Long usuarioId, LocalDateTime quando) {
+        pendentes.merge(usuarioId, quando, (atual, novo) -> novo.isAfter(atual) ? novo : atual);
+    }
+
+    public int quantidadePendente() {
+        return pendentes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.ultimo-acesso.intervalo-ms:30000}",
+            initialDelayString = "${auth.ultimo-acesso.intervalo-ms:30000}",
+            scheduler = SchedulingConfig.GRAVACAO_EM_LOTE)
+    public void descarregarPeriodicamente() {
+        descarregar();
+    }
+
+    /**
+     * Grava os horários pendentes num lote, em ordem de id. Se o banco
+     * falhar, os horários voltam para o buffer e seguem na próxima descarga.
+     *
+     * @return quantidade de usuários enviados ao banco
+     */
+    @PreDestroy
+    public synchronized int descarregar() {
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        Map<Long, LocalDateTime> lote = new TreeMap<>();
+        for (Map.Entry<Long, LocalDateTime> entrada : pendentes.entrySet()) {
+            // Só sai do buffer se não chegou acesso mais novo desde a leitura
+            if (pendentes.remove(entrada.getKey(), entrada.getValue())) {
+                lote.put(entrada.getKey(), entrada.getValue());
+            }
+        }
+
+        List<Object[]> parametros = new ArrayList<>(lote.size());
+        lote.forEach((id, quando) -> parametros.add(new Object[]{quando, id, quando}));
+        try {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR, parametros);
+            return parametros.size();
+        } catch (RuntimeException e) {
+            lote.forEach(this::registrar);
+            log.warn("Falha ao gravar o último acesso de {} usuários; nova tentativa na próxima descarga: {}",
+                    lote.size(), e.getMessage());
+            return 0;
+        }
+    }
+}
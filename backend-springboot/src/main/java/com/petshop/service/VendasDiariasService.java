@@ -0,0 +1,320 @@
+package com.petshop.service;
+
+import com.petshop.config.SchedulingConfig;
+import com.petshop.dto.VendaCategoriaDTO;
+import com.petshop.dto.VendaPeriodoDTO;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Pedido.StatusPedido;
+import com.petshop.model.Produto;
+import com.petshop.repository.VendaDiariaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Consolidado diário de vendas (tabela vendas_diarias), por dia, produto e
+ * categoria.
+ *
+ * A confirmação de um pedido soma os itens dele e o cancelamento que devolve
+ * estoque subtrai. O dia é o da data do pedido e a categoria é a que fica
+ * gravada em cada item na confirmação, para o estorno cair na mesma linha da
+ * venda. Os relatórios somam linhas por dia em vez de varrer itens_pedido;
+ * semana e mês são agrupados aqui a partir dos dias.
+ *
+ * As somas não tocam a tabela na transação do pedido: no commit elas são
+ * acumuladas em memória por linha, e um lote periódico grava um UPDATE por
+ * linha, qualquer que seja o número de pedidos. Assim a confirmação de um
+ * produto muito vendido não disputa a linha do dia com as outras. Os
+ * relatórios refletem as vendas com o atraso de um lote, e uma queda perde o
+ * que ainda não foi gravado; a reconstrução refaz tudo a partir dos pedidos.
+ */
+@Service
+public class VendasDiariasService {
+
+    private static final Logger log = LoggerFactory.getLogger(VendasDiariasService.class);
+
+    static final String SQL_SOMAR = "UPDATE vendas_diarias SET quantidade = quantidade + ?, receita = receita + ? " +
+                                    "WHERE data = ? AND produto_id = ? AND categoria_id = ?";
+    static final String SQL_CRIAR = "INSERT INTO vendas_diarias (data, produto_id, categoria_id, quantidade, receita) " +
+                                    "VALUES (?, ?, ?, ?, ?)";
+
+    // Pedidos com estoque baixado e não devolvido
+    static final List<String> STATUS_VENDIDOS = List.of(StatusPedido.CONFIRMADO.name(),
+            StatusPedido.PROCESSANDO.name(), StatusPedido.ENVIADO.name(), StatusPedido.ENTREGUE.name());
+
+    // Ordem de gravação do lote: lotes concorrentes travam as linhas na mesma ordem
+    private static final Comparator<Linha> ORDEM = Comparator.comparing(Linha::data)
+            .thenComparing(Linha::produtoId)
+            .thenComparing(Linha::categoriaId);
+
+    public enum Agrupamento {
+        DIA, SEMANA, MES
+    }
+
+    private record Linha(LocalDate data, Long produtoId, Long categoriaId) {
+    }
+
+    private record Soma(int quantidade, double receita) {
+
+        Soma mais(Soma outra) {
+            return new Soma(quantidade + outra.quantidade, receita + outra.receita);
+        }
+
+        boolean vazia() {
+            return quantidade == 0 && receita == 0;
+        }
+    }
+
+    private final VendaDiariaRepository vendaDiariaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long esperaReconstrucaoMs;
+
+    // Somas de pedidos com commit feito e ainda não gravadas
+    private final Map<Linha, Soma> pendentes = new ConcurrentHashMap<>();
+    // Leitura: pedidos entre o registro e o fim da transação; escrita: reconstrução
+    private final ReentrantReadWriteLock registros = new ReentrantReadWriteLock();
+
+    @Autowired
+    public VendasDiariasService(VendaDiariaRepository vendaDiariaRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${vendas.diarias.espera-reconstrucao-ms:10000}") long esperaReconstrucaoMs) {
+        this.vendaDiariaRepository = vendaDiariaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Transação própria: o lote e a reconstrução não dependem de quem os disparou
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.esperaReconstrucaoMs = esperaReconstrucaoMs;
+    }
+
+    /**
+     * Soma os itens de um pedido confirmado e grava neles a categoria atual
+     * de cada produto; roda na transação dele e a soma vale no commit
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Pedido pedido) {
+        for (ItemPedido item : pedido.getItens()) {
+            item.setCategoriaId(item.getProduto().getCategoria().getId());
+        }
+        acumular(pedido, 1);
+    }
+
+    /**
+     * Subtrai os itens de um pedido cancelado depois de confirmado, na
+     * categoria gravada na confirmação
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void estornar(Pedido pedido) {
+        acumular(pedido, -1);
+    }
+
+    public int quantidadePendente() {
+        return pendentes.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendaPeriodoDTO> porPeriodo(LocalDate inicio, LocalDate fim, Agrupamento agrupamento) {
+        validarIntervalo(inicio, fim);
+        List<VendaPeriodoDTO> dias = vendaDiariaRepository.somarPorDia(inicio, fim);
+        if (agrupamento == Agrupamento.DIA) {
+            return dias;
+        }
+        Map<LocalDate, VendaPeriodoDTO> periodos = new LinkedHashMap<>();
+        for (VendaPeriodoDTO dia : dias) {
+            LocalDate inicioPeriodo = inicioDoPeriodo(dia.inicio(), agrupamento);
+            periodos.merge(inicioPeriodo, new VendaPeriodoDTO(inicioPeriodo, dia.quantidade(), dia.receita()),
+                    (atual, novo) -> new VendaPeriodoDTO(atual.inicio(), atual.quantidade() + novo.quantidade(),
+                            atual.receita() + novo.receita()));
+        }
+        return new ArrayList<>(periodos.values());
+    }
+
+    @Transactional(readOnly = true)
+    public List<VendaCategoriaDTO> porCategoria(LocalDate inicio, LocalDate fim) {
+        validarIntervalo(inicio, fim);
+        return vendaDiariaRepository.somarPorCategoria(inicio, fim);
+    }
+
+    /**
+     * Regenera o consolidado a partir de todos os pedidos vendidos, com a
+     * categoria gravada em cada item (a atual do produto nos itens vendidos
+     * antes de ela ser gravada), e descarta as somas pendentes, que ele já
+     * contém. Espera terminarem os pedidos que já registraram a venda, sem
+     * deixar outros registrarem, para nenhum ficar de fora nem contar duas
+     * vezes.
+     *
+     * @return quantidade de linhas geradas
+     */
+    public int reconstruir() {
+        Lock escrita = registros.writeLock();
+        try {
+            if (!escrita.tryLock(esperaReconstrucaoMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Há pedidos em confirmação ou cancelamento; tente reconstruir as vendas novamente");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reconstrução das vendas interrompida");
+        }
+        try {
+            synchronized (this) {
+                Integer linhas = transactionTemplate.execute(status -> {
+                    int apagadas = vendaDiariaRepository.apagarTudo();
+                    int geradas = vendaDiariaRepository.reconstruir(STATUS_VENDIDOS);
+                    log.info("Vendas diárias reconstruídas: {} linhas apagadas, {} geradas", apagadas, geradas);
+                    return geradas;
+                });
+                pendentes.clear();
+                return linhas != null ? linhas : 0;
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${vendas.diarias.gravacao-intervalo-ms:5000}",
+            initialDelayString = "${vendas.diarias.gravacao-intervalo-ms:5000}",
+            scheduler = SchedulingConfig.GRAVACAO_EM_LOTE)
+    public void descarregarPeriodicamente() {
+        descarregar();
+    }
+
+    /**
+     * Grava as somas acumuladas: um UPDATE por linha num único lote e, para
+     * as linhas que ainda não existem, INSERT. Se o banco falhar, as somas
+     * voltam para o acumulado e seguem no próximo lote.
+     *
+     * @return quantidade de linhas gravadas
+     */
+    @PreDestroy
+    public synchronized int descarregar() {
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        Map<Linha, Soma> lote = new TreeMap<>(ORDEM);
+        for (Map.Entry<Linha, Soma> entrada : pendentes.entrySet()) {
+            // Só sai do acumulado se não chegou soma nova desde a leitura;
+            // venda e estorno que se anulam não viram UPDATE
+            if (pendentes.remove(entrada.getKey(), entrada.getValue()) && !entrada.getValue().vazia()) {
+                lote.put(entrada.getKey(), entrada.getValue());
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        List<Linha> linhas = new ArrayList<>(lote.keySet());
+        List<Object[]> parametros = new ArrayList<>(lote.size());
+        lote.forEach((linha, soma) -> parametros.add(new Object[]{soma.quantidade(), soma.receita(),
+                linha.data(), linha.produtoId(), linha.categoriaId()}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] atualizadas = jdbcTemplate.batchUpdate(SQL_SOMAR, parametros);
+                for (int i = 0; i < linhas.size(); i++) {
+                    if (atualizadas[i] == 0) {
+                        criar(linhas.get(i), lote.get(linhas.get(i)));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            lote.forEach((linha, soma) -> pendentes.merge(linha, soma, Soma::mais));
+            log.warn("Falha ao gravar as vendas diárias de {} linhas; nova tentativa no próximo lote: {}",
+                    lote.size(), e.getMessage());
+            return 0;
+        }
+        return lote.size();
+    }
+
+    // Segunda-feira da semana ou primeiro dia do mês
+    static LocalDate inicioDoPeriodo(LocalDate data, Agrupamento agrupamento) {
+        return switch (agrupamento) {
+            case DIA -> data;
+            case SEMANA -> data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> data.withDayOfMonth(1);
+        };
+    }
+
+    private void validarIntervalo(LocalDate inicio, LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            throw new RuntimeException("A data final deve ser igual ou posterior à data inicial");
+        }
+    }
+
+    // Uma soma por produto, entregue ao acumulado no commit. A leitura de
+    // registros fica presa até lá (a liberação roda na mesma thread), para a
+    // reconstrução não cair entre o commit e o acúmulo.
+    private void acumular(Pedido pedido, int sinal) {
+        LocalDate data = pedido.getDataPedido().toLocalDate();
+        Map<Linha, Soma> somas = new TreeMap<>(ORDEM);
+        for (ItemPedido item : pedido.getItens()) {
+            Produto produto = item.getProduto();
+            Linha linha = new Linha(data, produto.getId(), categoriaDaVenda(item));
+            somas.merge(linha, new Soma(sinal * item.getQuantidade(), sinal * item.getSubtotal()), Soma::mais);
+        }
+        Lock leitura = registros.readLock();
+        leitura.lock();
+        TransacoesUtil.aoConcluir(confirmada -> {
+            try {
+                if (confirmada) {
+                    somas.forEach((linha, soma) -> pendentes.merge(linha, soma, Soma::mais));
+                }
+            } finally {
+                leitura.unlock();
+            }
+        });
+    }
+
+    // Itens vendidos antes de a categoria ser gravada ficam com a atual do
+    // produto, a mesma que a reconstrução usa para eles
+    private static Long categoriaDaVenda(ItemPedido item) {
+        return item.getCategoriaId() != null ? item.getCategoriaId() : item.getProduto().getCategoria().getId();
+    }
+
+    // Primeira venda da linha: INSERT depois de um savepoint da conexão do
+    // lote. Se outra escrita (as Function Apps gravam direto) criou a linha
+    // depois do UPDATE, o INSERT falha na chave, só ele é desfeito e o UPDATE
+    // é refeito sobre a linha dela.
+    private void criar(Linha linha, Soma soma) {
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        try {
+            jdbcTemplate.update(SQL_CRIAR, linha.data(), linha.produtoId(), linha.categoriaId(),
+                    soma.quantidade(), soma.receita());
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) conexao -> {
+                conexao.rollback(savepoint);
+                return null;
+            });
+            jdbcTemplate.update(SQL_SOMAR, soma.quantidade(), soma.receita(),
+                    linha.data(), linha.produtoId(), linha.categoriaId());
+        }
+    }
+}
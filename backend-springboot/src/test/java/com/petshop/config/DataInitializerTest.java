@@ -4,6 +4,8 @@ import com.petshop.repository.CategoriaRepository;
 import com.petshop.repository.ProdutoRepository;
 import com.petshop.repository.ServicoRepository;
 import com.petshop.repository.UsuarioRepository;
+import com.petshop.security.SenhaHasher;
+import com.petshop.service.LivroEstoque;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -26,6 +28,12 @@ class DataInitializerTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private SenhaHasher senhaHasher;
+
+    @Mock
+    private LivroEstoque livroEstoque;
+
     @InjectMocks
     private DataInitializer dataInitializer;
 
@@ -55,6 +63,7 @@ class DataInitializerTest {
         verify(categoriaRepository).count();
         verify(categoriaRepository, atLeast(3)).save(any());
         verify(produtoRepository, atLeast(6)).save(any());
+        verify(livroEstoque, times(6)).importar(any(), anyInt());
         verify(servicoRepository, atLeast(3)).save(any());
         verify(usuarioRepository, atLeast(1)).save(any());
     }
@@ -1,8 +1,16 @@
 package com.petshop.config;
 
+import com.petshop.repository.ChaveIdempotenciaRepository;
+import com.petshop.security.IdempotenciaFilter;
+import com.petshop.security.LimiteRequisicoesFilter;
+import com.petshop.service.ArmazemIdempotencia;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 class FilterConfigTest {
 
@@ -18,4 +26,39 @@ class FilterConfigTest {
         FilterConfig config = new FilterConfig();
         assertEquals("FilterConfig", config.getClass().getSimpleName());
     }
+
+    @Test
+    void deveRegistrarLimiteDepoisDoJwt() {
+        // Arrange
+        FilterConfig config = new FilterConfig();
+
+        // Act
+        FilterRegistrationBean<LimiteRequisicoesFilter> registro = config.limiteRequisicoesFilter(true, 600000, 1000,
+                List.of("/api/produtos/buscar"), 20, 5,
+                List.of("/api/auth/login"), 10, 0.5,
+                List.of("/api/produtos/**"), 100, 20,
+                60, 10);
+
+        // Assert
+        assertNotNull(registro.getFilter());
+        assertEquals(2, registro.getOrder());
+        assertTrue(registro.getUrlPatterns().contains("/api/*"));
+        assertTrue(registro.isEnabled());
+    }
+
+    @Test
+    void deveRegistrarIdempotenciaSoNasRotasConfiguradas() {
+        // Arrange
+        FilterConfig config = new FilterConfig();
+        ArmazemIdempotencia armazem = new ArmazemIdempotencia(mock(ChaveIdempotenciaRepository.class), 24, 60000, 100);
+
+        // Act
+        FilterRegistrationBean<IdempotenciaFilter> registro = config.idempotenciaFilter(armazem,
+                List.of("/api/pedidos", "/api/agendamentos"));
+
+        // Assert
+        assertEquals(3, registro.getOrder());
+        assertEquals(2, registro.getUrlPatterns().size());
+        assertTrue(registro.getUrlPatterns().contains("/api/pedidos"));
+    }
 }
@@ -1,5 +1,8 @@
 package com.petshop.controller;
 
+import com.petshop.dto.AgendamentoResponseDTO;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.ServicoSimpleDTO;
 import com.petshop.model.Agendamento;
 import com.petshop.model.Agendamento.StatusAgendamento;
 import com.petshop.model.Cliente;
@@ -78,13 +81,23 @@ class AgendamentoControllerTest {
         agendamento.getServicos().add(servico);
     }
 
+    private AgendamentoResponseDTO resposta() {
+        AgendamentoResponseDTO dto = new AgendamentoResponseDTO(agendamento.getId(), agendamento.getDataAgendamento(),
+                agendamento.getHorario(), agendamento.getMetodoAtendimento(), agendamento.getPortePet(),
+                agendamento.getObservacoes(), agendamento.getValorTotal(), agendamento.getStatus(),
+                cliente.getId(), cliente.getNome(), cliente.getTelefone(), pet.getId(), pet.getNome());
+        dto.setServicos(List.of(new ServicoSimpleDTO(servico.getId(), servico.getNome(), servico.getPreco())));
+        return dto;
+    }
+
     // ========== Testes de Listagem ==========
 
     @Test
     void testListarTodos() throws Exception {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
-        when(agendamentoService.listarTodos()).thenReturn(agendamentos);
+        List<AgendamentoResponseDTO> agendamentos = Arrays.asList(resposta());
+        when(agendamentoService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(agendamentos, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/agendamentos"))
@@ -97,7 +110,7 @@ class AgendamentoControllerTest {
                 .andExpect(jsonPath("$[0].clienteNome").value("Maria Santos"))
                 .andExpect(jsonPath("$[0].petNome").value("Rex"));
 
-        verify(agendamentoService, times(1)).listarTodos();
+        verify(agendamentoService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
@@ -130,7 +143,7 @@ class AgendamentoControllerTest {
     @Test
     void testBuscarPorCliente() throws Exception {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
+        List<AgendamentoResponseDTO> agendamentos = Arrays.asList(resposta());
         when(agendamentoService.buscarPorCliente(1L)).thenReturn(agendamentos);
 
         // Act & Assert
@@ -146,7 +159,7 @@ class AgendamentoControllerTest {
     void testBuscarPorData() throws Exception {
         // Arrange
         LocalDate data = LocalDate.of(2025, 1, 15);
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
+        List<AgendamentoResponseDTO> agendamentos = Arrays.asList(resposta());
         when(agendamentoService.buscarPorData(data)).thenReturn(agendamentos);
 
         // Act & Assert
@@ -160,7 +173,7 @@ class AgendamentoControllerTest {
     @Test
     void testBuscarPorStatus() throws Exception {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
+        List<AgendamentoResponseDTO> agendamentos = Arrays.asList(resposta());
         when(agendamentoService.buscarPorStatus(StatusAgendamento.PENDENTE)).thenReturn(agendamentos);
 
         // Act & Assert
@@ -315,8 +328,9 @@ class AgendamentoControllerTest {
     @Test
     void testListarComServicos() throws Exception {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
-        when(agendamentoService.listarTodos()).thenReturn(agendamentos);
+        List<AgendamentoResponseDTO> agendamentos = Arrays.asList(resposta());
+        when(agendamentoService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(agendamentos, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/agendamentos"))
@@ -326,6 +340,6 @@ class AgendamentoControllerTest {
                 .andExpect(jsonPath("$[0].servicos[0].nome").value("Banho"))
                 .andExpect(jsonPath("$[0].servicos[0].preco").value(50.0));
 
-        verify(agendamentoService, times(1)).listarTodos();
+        verify(agendamentoService, times(1)).listarPagina(isNull(), anyInt());
     }
 }
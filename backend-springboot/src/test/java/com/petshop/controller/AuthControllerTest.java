@@ -2,6 +2,7 @@ package com.petshop.controller;
 
 import com.petshop.dto.LoginRequestDTO;
 import com.petshop.dto.LoginResponseDTO;
+import com.petshop.security.HashIndisponivelException;
 import com.petshop.security.JwtAuthenticationFilter;
 import com.petshop.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -87,6 +89,25 @@ class AuthControllerTest {
         verify(authService, times(1)).login(any(LoginRequestDTO.class));
     }
 
+    @Test
+    void testLoginComPoolDeHashSaturado() throws Exception {
+        // Arrange
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setUsername("testuser");
+        loginRequest.setSenha("senha123");
+
+        when(authService.login(any(LoginRequestDTO.class)))
+            .thenThrow(new HashIndisponivelException(HttpStatus.TOO_MANY_REQUESTS, "Muitas autenticações simultâneas", 1));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error").value("Muitas autenticações simultâneas"));
+    }
+
     @Test
     void testValidarTokenValido() throws Exception {
         // Arrange
@@ -126,4 +147,60 @@ class AuthControllerTest {
 
         verify(authService, never()).validarToken(anyString());
     }
+
+    @Test
+    void testLogoutRevogaTokenDoHeader() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", "Bearer valid-token"))
+                .andExpect(status().isNoContent());
+
+        verify(authService, times(1)).revogarToken("valid-token");
+    }
+
+    @Test
+    void testLogoutSemHeader() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/logout"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Token não fornecido"));
+
+        verify(authService, never()).revogarToken(anyString());
+    }
+
+    @Test
+    void testLogoutComTokenInvalido() throws Exception {
+        // Arrange
+        doThrow(new RuntimeException("Token inválido ou expirado"))
+            .when(authService).revogarToken("invalid-token");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", "Bearer invalid-token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Token inválido ou expirado"));
+    }
+
+    @Test
+    void testRevogarTokenDoCorpo() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/revogar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"token\": \"outro-token\"}"))
+                .andExpect(status().isNoContent());
+
+        verify(authService, times(1)).revogarToken("outro-token");
+    }
+
+    @Test
+    void testRevogarSemToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/revogar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Token é obrigatório"));
+
+        verify(authService, never()).revogarToken(anyString());
+    }
 }
@@ -2,6 +2,7 @@ package com.petshop.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petshop.model.Categoria;
+import com.petshop.service.CatalogoVersoes;
 import com.petshop.service.CategoriaService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -18,6 +20,8 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +30,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         excludeFilters = @ComponentScan.Filter(
                 type = FilterType.ASSIGNABLE_TYPE,
                 classes = com.petshop.security.JwtAuthenticationFilter.class))
+@Import(CatalogoVersoes.class)
 class CategoriaControllerTest {
 
     @Autowired
@@ -119,4 +124,29 @@ class CategoriaControllerTest {
         mockMvc.perform(delete("/api/categorias/1"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void deveRetornar304QuandoEtagNaoMudou() throws Exception {
+        when(categoriaService.listarTodas()).thenReturn(List.of());
+
+        String etag = mockMvc.perform(get("/api/categorias"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/categorias").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(categoriaService, times(1)).listarTodas();
+    }
+
+    @Test
+    void deveRetornar200QuandoEtagDiferente() throws Exception {
+        when(categoriaService.listarTodas()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/categorias").header("If-None-Match", "\"antiga\""))
+                .andExpect(status().isOk());
+    }
 }
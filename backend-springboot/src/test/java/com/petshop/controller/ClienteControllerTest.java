@@ -1,6 +1,7 @@
 package com.petshop.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.model.Cliente;
 import com.petshop.service.ClienteService;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,7 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -55,7 +57,8 @@ class ClienteControllerTest {
         
         List<Cliente> clientes = Arrays.asList(cliente1);
         
-        when(clienteService.listarTodos()).thenReturn(clientes);
+        when(clienteService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(clientes, PaginaCursor.LIMITE_PADRAO, null));
         
         mockMvc.perform(get("/api/clientes"))
                 .andExpect(status().isOk())
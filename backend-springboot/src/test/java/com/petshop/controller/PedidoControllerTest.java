@@ -1,10 +1,15 @@
 package com.petshop.controller;
 
+import com.petshop.dto.ItemPedidoDTO;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PedidoResponseDTO;
 import com.petshop.model.Cliente;
 import com.petshop.model.ItemPedido;
 import com.petshop.model.Pedido;
 import com.petshop.model.Pedido.StatusPedido;
 import com.petshop.model.Produto;
+import com.petshop.service.PedidoExportacaoService;
+import com.petshop.service.PedidoExportacaoService.Formato;
 import com.petshop.service.PedidoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,8 +19,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -37,6 +46,9 @@ class PedidoControllerTest {
     @MockBean
     private PedidoService pedidoService;
 
+    @MockBean
+    private PedidoExportacaoService pedidoExportacaoService;
+
     private Pedido pedido;
     private Cliente cliente;
     private Produto produto;
@@ -72,13 +84,23 @@ class PedidoControllerTest {
         pedido.getItens().add(itemPedido);
     }
 
+    private PedidoResponseDTO resposta() {
+        PedidoResponseDTO dto = new PedidoResponseDTO(pedido.getId(), pedido.getDataPedido(), pedido.getValorTotal(),
+                pedido.getStatus(), pedido.getFormaPagamento(), pedido.getObservacoes(),
+                cliente.getId(), cliente.getNome(), cliente.getTelefone());
+        dto.setItens(List.of(new ItemPedidoDTO(itemPedido.getId(), produto.getId(), produto.getNome(),
+                itemPedido.getQuantidade(), itemPedido.getPrecoUnitario(), itemPedido.getSubtotal())));
+        return dto;
+    }
+
     // ========== Testes de Listagem ==========
 
     @Test
     void testListarTodos() throws Exception {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
-        when(pedidoService.listarTodos()).thenReturn(pedidos);
+        List<PedidoResponseDTO> pedidos = Arrays.asList(resposta());
+        when(pedidoService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pedidos, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pedidos"))
@@ -88,7 +110,7 @@ class PedidoControllerTest {
                 .andExpect(jsonPath("$[0].status").value("PENDENTE"))
                 .andExpect(jsonPath("$[0].clienteNome").value("João Silva"));
 
-        verify(pedidoService, times(1)).listarTodos();
+        verify(pedidoService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
@@ -121,7 +143,7 @@ class PedidoControllerTest {
     @Test
     void testBuscarPorCliente() throws Exception {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
+        List<PedidoResponseDTO> pedidos = Arrays.asList(resposta());
         when(pedidoService.buscarPorCliente(1L)).thenReturn(pedidos);
 
         // Act & Assert
@@ -136,7 +158,7 @@ class PedidoControllerTest {
     @Test
     void testBuscarPorStatus() throws Exception {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
+        List<PedidoResponseDTO> pedidos = Arrays.asList(resposta());
         when(pedidoService.buscarPorStatus(StatusPedido.PENDENTE)).thenReturn(pedidos);
 
         // Act & Assert
@@ -271,6 +293,17 @@ class PedidoControllerTest {
         verify(pedidoService, times(1)).cancelar(1L);
     }
 
+    @Test
+    void testCancelarPedidoEmConflitoRetorna409() throws Exception {
+        // Arrange
+        when(pedidoService.cancelar(1L)).thenThrow(new ObjectOptimisticLockingFailureException(Pedido.class, 1L));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/pedidos/1/cancelar"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
     // ========== Testes de Deleção ==========
 
     @Test
@@ -290,8 +323,9 @@ class PedidoControllerTest {
     @Test
     void testListarComItens() throws Exception {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
-        when(pedidoService.listarTodos()).thenReturn(pedidos);
+        List<PedidoResponseDTO> pedidos = Arrays.asList(resposta());
+        when(pedidoService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pedidos, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pedidos"))
@@ -302,6 +336,82 @@ class PedidoControllerTest {
                 .andExpect(jsonPath("$[0].itens[0].quantidade").value(1))
                 .andExpect(jsonPath("$[0].itens[0].precoUnitario").value(89.90));
 
-        verify(pedidoService, times(1)).listarTodos();
+        verify(pedidoService, times(1)).listarPagina(isNull(), anyInt());
+    }
+
+    @Test
+    void testListarTodosComCursorELimite() throws Exception {
+        // Arrange
+        List<PedidoResponseDTO> pedidos = Arrays.asList(resposta());
+        when(pedidoService.listarPagina("abc", 1))
+                .thenReturn(new PaginaCursor<>(pedidos, 1, "proximo"));
+        when(pedidoService.contarTodos()).thenReturn(5L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/pedidos")
+                        .param("cursor", "abc")
+                        .param("limit", "1")
+                        .param("total", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string("X-Pagination", "{\"limit\":1,\"next\":\"proximo\",\"hasNext\":true}"))
+                .andExpect(header().string("X-Total-Count", "5"));
+    }
+
+    @Test
+    void testListarTodosSemTotalNaoConta() throws Exception {
+        // Arrange
+        when(pedidoService.listarPagina(isNull(), anyInt()))
+                .thenReturn(new PaginaCursor<>(List.of(), PaginaCursor.LIMITE_PADRAO, null));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/pedidos"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"));
+
+        verify(pedidoService, never()).contarTodos();
+    }
+
+    // ========== Testes de Exportação ==========
+
+    @Test
+    void testExportarEmStreaming() throws Exception {
+        // Arrange
+        when(pedidoExportacaoService.exportar(eq(Formato.NDJSON), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream saida = invocation.getArgument(4);
+                    saida.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/pedidos/exportar")
+                        .param("formato", "ndjson")
+                        .param("dataInicio", "2025-01-01")
+                        .param("dataFim", "2025-01-31")
+                        .param("status", "entregue"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"pedidos.ndjson\""))
+                .andExpect(content().string("{\"id\":1}\n"));
+
+        verify(pedidoExportacaoService).exportar(eq(Formato.NDJSON),
+                eq(LocalDateTime.of(2025, 1, 1, 0, 0)),
+                eq(LocalDateTime.of(2025, 2, 1, 0, 0)),
+                eq(StatusPedido.ENTREGUE), any());
+    }
+
+    @Test
+    void testExportarFormatoInvalido() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/pedidos/exportar").param("formato", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(pedidoExportacaoService);
     }
 }
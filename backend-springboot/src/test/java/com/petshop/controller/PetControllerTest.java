@@ -1,5 +1,7 @@
 package com.petshop.controller;
 
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PetResponseDTO;
 import com.petshop.model.Cliente;
 import com.petshop.model.Pet;
 import com.petshop.service.PetService;
@@ -59,13 +61,21 @@ class PetControllerTest {
         pet.setCliente(cliente);
     }
 
+    private PetResponseDTO resposta(Pet pet) {
+        return new PetResponseDTO(pet.getId(), pet.getNome(), pet.getTipo(), pet.getRaca(), pet.getIdade(),
+                pet.getPeso(), pet.getSexo(), pet.getCastrado(), pet.getObservacoes(), pet.getTemAlergia(),
+                pet.getPrecisaMedicacao(), pet.getComportamentoAgressivo(),
+                pet.getCliente().getId(), pet.getCliente().getNome());
+    }
+
     // ========== Testes de Listagem ==========
 
     @Test
     void testListarTodos() throws Exception {
         // Arrange
-        List<Pet> pets = Arrays.asList(pet);
-        when(petService.listarTodos()).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
+        when(petService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pets, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pets"))
@@ -80,7 +90,7 @@ class PetControllerTest {
                 .andExpect(jsonPath("$[0].castrado").value(true))
                 .andExpect(jsonPath("$[0].clienteNome").value("Ana Lima"));
 
-        verify(petService, times(1)).listarTodos();
+        verify(petService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
@@ -114,7 +124,7 @@ class PetControllerTest {
     @Test
     void testBuscarPorCliente() throws Exception {
         // Arrange
-        List<Pet> pets = Arrays.asList(pet);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
         when(petService.buscarPorCliente(1L)).thenReturn(pets);
 
         // Act & Assert
@@ -130,7 +140,7 @@ class PetControllerTest {
     @Test
     void testBuscarPorTipo() throws Exception {
         // Arrange
-        List<Pet> pets = Arrays.asList(pet);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
         when(petService.buscarPorTipo("cao")).thenReturn(pets);
 
         // Act & Assert
@@ -273,8 +283,9 @@ class PetControllerTest {
         // Arrange
         pet.setTemAlergia(true);
         pet.setObservacoes("Alérgico a frango");
-        List<Pet> pets = Arrays.asList(pet);
-        when(petService.listarTodos()).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
+        when(petService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pets, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pets"))
@@ -282,22 +293,23 @@ class PetControllerTest {
                 .andExpect(jsonPath("$[0].temAlergia").value(true))
                 .andExpect(jsonPath("$[0].observacoes").value("Alérgico a frango"));
 
-        verify(petService, times(1)).listarTodos();
+        verify(petService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
     void testPetComMedicacao() throws Exception {
         // Arrange
         pet.setPrecisaMedicacao(true);
-        List<Pet> pets = Arrays.asList(pet);
-        when(petService.listarTodos()).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
+        when(petService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pets, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pets"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].precisaMedicacao").value(true));
 
-        verify(petService, times(1)).listarTodos();
+        verify(petService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
@@ -305,15 +317,16 @@ class PetControllerTest {
         // Arrange
         pet.setComportamentoAgressivo(true);
         pet.setObservacoes("Requer cuidado especial durante o banho");
-        List<Pet> pets = Arrays.asList(pet);
-        when(petService.listarTodos()).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta(pet));
+        when(petService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(pets, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/pets"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].comportamentoAgressivo").value(true));
 
-        verify(petService, times(1)).listarTodos();
+        verify(petService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     // ========== Testes de Diferentes Tipos de Pets ==========
@@ -332,7 +345,7 @@ class PetControllerTest {
         gato.setCastrado(false);
         gato.setCliente(cliente);
 
-        List<Pet> gatos = Arrays.asList(gato);
+        List<PetResponseDTO> gatos = Arrays.asList(resposta(gato));
         when(petService.buscarPorTipo("gato")).thenReturn(gatos);
 
         // Act & Assert
@@ -358,7 +371,7 @@ class PetControllerTest {
         passaro.setCastrado(false);
         passaro.setCliente(cliente);
 
-        List<Pet> passaros = Arrays.asList(passaro);
+        List<PetResponseDTO> passaros = Arrays.asList(resposta(passaro));
         when(petService.buscarPorTipo("passaro")).thenReturn(passaros);
 
         // Act & Assert
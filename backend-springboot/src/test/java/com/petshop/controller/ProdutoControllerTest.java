@@ -1,7 +1,12 @@
 package com.petshop.controller;
 
+import com.petshop.dto.MaisVendidoDTO;
+import com.petshop.dto.MovimentacaoEstoqueDTO;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.model.Categoria;
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
 import com.petshop.model.Produto;
+import com.petshop.service.CatalogoVersoes;
 import com.petshop.service.ProdutoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,11 +15,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -26,6 +34,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         excludeFilters = @ComponentScan.Filter(
                 type = FilterType.ASSIGNABLE_TYPE,
                 classes = com.petshop.security.JwtAuthenticationFilter.class))
+@Import(CatalogoVersoes.class)
 class ProdutoControllerTest {
 
     @Autowired
@@ -34,6 +43,9 @@ class ProdutoControllerTest {
     @MockBean
     private ProdutoService produtoService;
 
+    @Autowired
+    private CatalogoVersoes catalogoVersoes;
+
     private Produto produto;
     private Categoria categoria;
 
@@ -57,7 +69,8 @@ class ProdutoControllerTest {
     void testListarTodos() throws Exception {
         // Arrange
         List<Produto> produtos = Arrays.asList(produto);
-        when(produtoService.listarTodos()).thenReturn(produtos);
+        when(produtoService.listarPagina(isNull(), eq(PaginaCursor.LIMITE_PADRAO)))
+                .thenReturn(new PaginaCursor<>(produtos, PaginaCursor.LIMITE_PADRAO, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/produtos"))
@@ -66,7 +79,7 @@ class ProdutoControllerTest {
                 .andExpect(jsonPath("$[0].preco").value(89.90))
                 .andExpect(jsonPath("$[0].quantidadeEstoque").value(50));
 
-        verify(produtoService, times(1)).listarTodos();
+        verify(produtoService, times(1)).listarPagina(isNull(), anyInt());
     }
 
     @Test
@@ -98,6 +111,31 @@ class ProdutoControllerTest {
         verify(produtoService, times(1)).buscarPorId(1L);
     }
 
+    @Test
+    void testBuscarPorIdNaoModificadoNaoConsultaServico() throws Exception {
+        // Arrange
+        String etag = catalogoVersoes.etagItem(CatalogoVersoes.Recurso.PRODUTO, 1L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(produtoService, never()).buscarPorId(anyLong());
+    }
+
+    @Test
+    void testBuscarPorIdAposAlteracaoRetornaNovaEtag() throws Exception {
+        // Arrange
+        String etagAntiga = catalogoVersoes.etagItem(CatalogoVersoes.Recurso.PRODUTO, 1L);
+        catalogoVersoes.alterado(CatalogoVersoes.Recurso.PRODUTO, 1L);
+        when(produtoService.buscarPorId(1L)).thenReturn(Optional.of(produto));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/1").header("If-None-Match", etagAntiga))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogoVersoes.etagItem(CatalogoVersoes.Recurso.PRODUTO, 1L)));
+    }
+
     @Test
     void testBuscarPorIdNaoEncontrado() throws Exception {
         // Arrange
@@ -272,4 +310,61 @@ class ProdutoControllerTest {
 
         verify(produtoService, times(1)).deletar(1L);
     }
+
+    @Test
+    void testEstatisticasCache() throws Exception {
+        // Arrange
+        when(produtoService.estatisticasCache()).thenReturn(Map.of("acertos", 10L, "falhas", 2L));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/cache/estatisticas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acertos").value(10))
+                .andExpect(jsonPath("$.falhas").value(2));
+    }
+
+    @Test
+    void testListarMaisVendidos() throws Exception {
+        // Arrange
+        when(produtoService.listarMaisVendidos(30, 1L, 5)).thenReturn(List.of(
+                new MaisVendidoDTO(1L, "Ração Premium", 89.90, null, 1L, 42L, 2L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/mais-vendidos")
+                        .param("dias", "30")
+                        .param("categoriaId", "1")
+                        .param("limite", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome").value("Ração Premium"))
+                .andExpect(jsonPath("$[0].quantidadeVendida").value(42))
+                .andExpect(jsonPath("$[0].erroMaximo").value(2));
+    }
+
+    @Test
+    void testListarMaisVendidosLimitaOTamanho() throws Exception {
+        // Arrange
+        when(produtoService.listarMaisVendidos(7, null, 50)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/mais-vendidos").param("limite", "1000"))
+                .andExpect(status().isOk());
+
+        verify(produtoService).listarMaisVendidos(7, null, 50);
+    }
+
+    @Test
+    void testListarMovimentacoes() throws Exception {
+        // Arrange
+        when(produtoService.listarMovimentacoes(1L, 50)).thenReturn(List.of(
+                new MovimentacaoEstoqueDTO(7L, 911L, TipoMovimentacao.BAIXA, -3, LocalDateTime.of(2024, 3, 15, 10, 0))));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/produtos/1/movimentacoes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].pedidoId").value(911))
+                .andExpect(jsonPath("$[0].tipo").value("BAIXA"))
+                .andExpect(jsonPath("$[0].quantidade").value(-3))
+                .andExpect(jsonPath("$[0].produtoId").doesNotExist());
+    }
 }
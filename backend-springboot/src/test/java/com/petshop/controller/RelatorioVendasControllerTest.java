@@ -0,0 +1,93 @@
+package com.petshop.controller;
+
+import com.petshop.dto.VendaCategoriaDTO;
+import com.petshop.dto.VendaPeriodoDTO;
+import com.petshop.service.VendasDiariasService;
+import com.petshop.service.VendasDiariasService.Agrupamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = RelatorioVendasController.class,
+        excludeFilters = @ComponentScan.Filter(
+                type = FilterType.ASSIGNABLE_TYPE,
+                classes = com.petshop.security.JwtAuthenticationFilter.class))
+class RelatorioVendasControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private VendasDiariasService vendasDiariasService;
+
+    @Test
+    void testPorPeriodoMensal() throws Exception {
+        // Arrange
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        LocalDate fim = LocalDate.of(2024, 3, 31);
+        when(vendasDiariasService.porPeriodo(inicio, fim, Agrupamento.MES))
+                .thenReturn(List.of(new VendaPeriodoDTO(LocalDate.of(2024, 2, 1), 4L, 359.6)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/relatorios/vendas")
+                        .param("inicio", "2024-01-01")
+                        .param("fim", "2024-03-31")
+                        .param("agrupamento", "MES"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].inicio").value("2024-02-01"))
+                .andExpect(jsonPath("$[0].quantidade").value(4))
+                .andExpect(jsonPath("$[0].receita").value(359.6));
+    }
+
+    @Test
+    void testPorPeriodoPadraoUltimosTrintaDias() throws Exception {
+        // Arrange
+        LocalDate hoje = LocalDate.now();
+        when(vendasDiariasService.porPeriodo(hoje.minusDays(29), hoje, Agrupamento.DIA)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/relatorios/vendas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        verify(vendasDiariasService).porPeriodo(hoje.minusDays(29), hoje, Agrupamento.DIA);
+    }
+
+    @Test
+    void testPorCategoria() throws Exception {
+        // Arrange
+        LocalDate dia = LocalDate.of(2024, 3, 15);
+        when(vendasDiariasService.porCategoria(dia, dia))
+                .thenReturn(List.of(new VendaCategoriaDTO(1L, "Ração", 3L, 269.7)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/relatorios/vendas/categorias")
+                        .param("inicio", "2024-03-15")
+                        .param("fim", "2024-03-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoriaNome").value("Ração"))
+                .andExpect(jsonPath("$[0].receita").value(269.7));
+    }
+
+    @Test
+    void testReconstruir() throws Exception {
+        // Arrange
+        when(vendasDiariasService.reconstruir()).thenReturn(12);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/relatorios/vendas/reconstruir"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.linhas").value(12));
+    }
+}
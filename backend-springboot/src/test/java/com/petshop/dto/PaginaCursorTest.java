@@ -0,0 +1,58 @@
+package com.petshop.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginaCursorTest {
+
+    @Test
+    void deveCodificarEDecodificarCursor() {
+        LocalDateTime data = LocalDateTime.of(2025, 3, 10, 14, 30, 15);
+        String cursor = PaginaCursor.codificar(data, 42L);
+
+        String[] partes = PaginaCursor.decodificar(cursor, 2);
+
+        assertEquals(data, LocalDateTime.parse(partes[0]));
+        assertEquals("42", partes[1]);
+        assertEquals(7L, PaginaCursor.decodificarId(PaginaCursor.codificar(7L)));
+    }
+
+    @Test
+    void deveRejeitarCursorInvalido() {
+        assertThrows(RuntimeException.class, () -> PaginaCursor.decodificarId("%%%"));
+        assertThrows(RuntimeException.class, () -> PaginaCursor.decodificarId(PaginaCursor.codificar("abc")));
+        assertThrows(RuntimeException.class, () -> PaginaCursor.decodificar(PaginaCursor.codificar(1L), 2));
+    }
+
+    @Test
+    void deveIndicarProximaPaginaQuandoHaRegistroExcedente() {
+        PaginaCursor<Integer> pagina = PaginaCursor.deResultado(List.of(1, 2, 3), 2, String::valueOf);
+
+        assertEquals(List.of(1, 2), pagina.getItens());
+        assertTrue(pagina.temProxima());
+        assertEquals("2", pagina.getProximoCursor());
+    }
+
+    @Test
+    void deveEncerrarQuandoNaoHaRegistroExcedente() {
+        PaginaCursor<Integer> pagina = PaginaCursor.deResultado(List.of(1, 2), 2, String::valueOf);
+
+        assertEquals(2, pagina.getItens().size());
+        assertFalse(pagina.temProxima());
+        assertEquals("{\"limit\":2,\"next\":null,\"hasNext\":false}",
+                pagina.cabecalhos(null).getFirst("X-Pagination"));
+        assertNull(pagina.cabecalhos(null).getFirst("X-Total-Count"));
+    }
+
+    @Test
+    void deveNormalizarLimite() {
+        assertEquals(PaginaCursor.LIMITE_PADRAO, PaginaCursor.normalizarLimite(null));
+        assertEquals(PaginaCursor.LIMITE_PADRAO, PaginaCursor.normalizarLimite(0));
+        assertEquals(10, PaginaCursor.normalizarLimite(10));
+        assertEquals(PaginaCursor.LIMITE_MAXIMO, PaginaCursor.normalizarLimite(10_000));
+    }
+}
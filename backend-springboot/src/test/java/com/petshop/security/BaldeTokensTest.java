@@ -0,0 +1,88 @@
+package com.petshop.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaldeTokensTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    @Test
+    void testConsomeAteACapacidade() {
+        // Arrange
+        BaldeTokens balde = new BaldeTokens(3, 1, 0);
+
+        // Act & Assert
+        assertEquals(0, balde.consumir(0));
+        assertEquals(0, balde.consumir(0));
+        assertEquals(0, balde.consumir(0));
+        assertEquals(SEGUNDO, balde.consumir(0));
+    }
+
+    @Test
+    void testRepoeComOTempo() {
+        // Arrange
+        BaldeTokens balde = new BaldeTokens(1, 2, 0);
+        balde.consumir(0);
+
+        // Act & Assert: 2 tokens por segundo, um a cada meio segundo
+        assertEquals(SEGUNDO / 4, balde.consumir(SEGUNDO / 4));
+        assertEquals(0, balde.consumir(SEGUNDO / 2));
+    }
+
+    @Test
+    void testReposicaoNaoPassaDaCapacidade() {
+        // Arrange
+        BaldeTokens balde = new BaldeTokens(2, 10, 0);
+
+        // Act: uma hora parado
+        long agora = 3600 * SEGUNDO;
+        int aceitas = 0;
+        while (balde.consumir(agora) == 0) {
+            aceitas++;
+        }
+
+        // Assert
+        assertEquals(2, aceitas);
+    }
+
+    @Test
+    void testInstanteForaDeOrdemNaoGeraTokens() {
+        // Arrange
+        BaldeTokens balde = new BaldeTokens(1, 1, SEGUNDO);
+        balde.consumir(SEGUNDO);
+
+        // Act & Assert
+        assertTrue(balde.consumir(0) > 0);
+    }
+
+    @Test
+    void testConcorrenciaNaoUltrapassaOLimite() throws Exception {
+        // Arrange: sem reposição, só a capacidade inicial
+        BaldeTokens balde = new BaldeTokens(1000, 1e-9, 0);
+        AtomicInteger aceitas = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            threads.submit(() -> {
+                for (int j = 0; j < 500; j++) {
+                    if (balde.consumir(0) == 0) {
+                        aceitas.incrementAndGet();
+                    }
+                }
+            });
+        }
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1000, aceitas.get());
+    }
+}
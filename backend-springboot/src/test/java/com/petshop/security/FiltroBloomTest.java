@@ -0,0 +1,63 @@
+package com.petshop.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroBloomTest {
+
+    @Test
+    void testElementosAdicionadosSempreEncontrados() {
+        // Arrange
+        FiltroBloom filtro = new FiltroBloom(1000, 0.01);
+        String[] valores = new String[1000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = UUID.randomUUID().toString();
+            filtro.adicionar(valores[i]);
+        }
+
+        // Act & Assert: filtro de Bloom não tem falso negativo
+        for (String valor : valores) {
+            assertTrue(filtro.talvezContenha(valor));
+        }
+    }
+
+    @Test
+    void testTaxaDeFalsoPositivoProximaDaConfigurada() {
+        // Arrange
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar(UUID.randomUUID().toString());
+        }
+
+        // Act
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.talvezContenha(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+
+        // Assert: folga de 2x sobre o 1% esperado
+        assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+        assertEquals(7, filtro.funcoes());
+    }
+
+    @Test
+    void testFiltroVazioNaoContemNada() {
+        // Arrange
+        FiltroBloom filtro = new FiltroBloom(0, 0.01);
+
+        // Act & Assert
+        assertFalse(filtro.talvezContenha("qualquer"));
+    }
+
+    @Test
+    void testTaxaInvalida() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 1));
+    }
+}
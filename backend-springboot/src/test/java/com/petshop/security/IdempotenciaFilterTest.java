@@ -0,0 +1,244 @@
+package com.petshop.security;
+
+import com.petshop.model.ChaveIdempotencia;
+import com.petshop.repository.ChaveIdempotenciaRepository;
+import com.petshop.service.ArmazemIdempotencia;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotenciaFilterTest {
+
+    private ChaveIdempotenciaRepository repository;
+    private IdempotenciaFilter filter;
+    private final AtomicInteger execucoes = new AtomicInteger();
+    private int statusDoController = 201;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChaveIdempotenciaRepository.class);
+        when(repository.findByChave(anyString())).thenReturn(Optional.empty());
+        filter = new IdempotenciaFilter(new ArmazemIdempotencia(repository, 24, 60000, 100));
+    }
+
+    @Test
+    void testRepeticaoDevolveRespostaGuardadaSemExecutar() throws Exception {
+        // Arrange
+        MockHttpServletResponse primeira = executar(requisicao("chave-1", "{\"clienteId\":1}"));
+
+        // Act
+        MockHttpServletResponse repetida = executar(requisicao("chave-1", "{\"clienteId\":1}"));
+
+        // Assert
+        assertEquals(1, execucoes.get());
+        assertEquals(201, primeira.getStatus());
+        assertEquals(201, repetida.getStatus());
+        assertEquals(primeira.getContentAsString(), repetida.getContentAsString());
+        assertEquals("true", repetida.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+        assertNull(primeira.getHeader(IdempotenciaFilter.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void testControllerRecebeOCorpoOriginal() throws Exception {
+        // Act
+        MockHttpServletResponse response = executar(requisicao("chave-1", "{\"clienteId\":7}"));
+
+        // Assert: o servlet de teste devolve o corpo que leu
+        assertTrue(response.getContentAsString().contains("{\"clienteId\":7}"));
+    }
+
+    @Test
+    void testCorpoRelidoPorLeituraAssincrona() throws Exception {
+        // Arrange
+        IdempotenciaFilter.CorpoRelido corpo = new IdempotenciaFilter.CorpoRelido(
+                requisicao("chave-1", "{\"clienteId\":7}"));
+        ServletInputStream entrada = corpo.getInputStream();
+        ByteArrayOutputStream lido = new ByteArrayOutputStream();
+        AtomicInteger fim = new AtomicInteger();
+
+        // Act
+        entrada.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[4];
+                while (entrada.isReady() && !entrada.isFinished()) {
+                    int n = entrada.read(buffer, 0, buffer.length);
+                    if (n > 0) {
+                        lido.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                fim.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        // Assert
+        assertEquals("{\"clienteId\":7}", lido.toString(StandardCharsets.UTF_8));
+        assertEquals(1, fim.get());
+    }
+
+    @Test
+    void testMesmaChaveComOutroCorpoResponde422() throws Exception {
+        // Arrange
+        executar(requisicao("chave-1", "{\"clienteId\":1}"));
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("chave-1", "{\"clienteId\":2}"));
+
+        // Assert
+        assertEquals(422, response.getStatus());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void testChaveValePorCliente() throws Exception {
+        // Arrange
+        MockHttpServletRequest outroCliente = requisicao("chave-1", "{\"clienteId\":1}");
+        outroCliente.setAttribute("username", "outro");
+        executar(requisicao("chave-1", "{\"clienteId\":1}"));
+
+        // Act
+        MockHttpServletResponse response = executar(outroCliente);
+
+        // Assert
+        assertEquals(201, response.getStatus());
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    void testRespostaDeErroLiberaAChave() throws Exception {
+        // Arrange
+        statusDoController = 400;
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("chave-1", "{}"));
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        verify(repository).liberar(anyString());
+        verify(repository, never()).concluir(anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testFalhaAoGuardarRespostaNaoLiberaAChave() throws Exception {
+        // Arrange: o pedido foi criado, mas o UPDATE da resposta falha
+        when(repository.concluir(anyString(), anyInt(), any(), any(), any()))
+                .thenThrow(new RuntimeException("Conexão perdida"));
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("chave-1", "{}"));
+
+        // Assert
+        assertEquals(201, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"id\":1"));
+        verify(repository, never()).liberar(anyString());
+    }
+
+    @Test
+    void testExcecaoNoControllerLiberaAChave() {
+        // Arrange
+        FilterChain falha = (req, res) -> {
+            throw new ServletException("Erro no controller");
+        };
+
+        // Act & Assert
+        assertThrows(ServletException.class, () -> filter.doFilter(requisicao("chave-1", "{}"),
+                new MockHttpServletResponse(), falha));
+        verify(repository).liberar(anyString());
+    }
+
+    @Test
+    void testChaveEmAndamentoResponde409() throws Exception {
+        // Arrange: o INSERT falha porque outra requisição já reservou a chave
+        ChaveIdempotencia reservada = new ChaveIdempotencia("x", IdempotenciaFilter.sha256(
+                "{}".getBytes(StandardCharsets.UTF_8)), LocalDateTime.now().plusMinutes(1));
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicada"));
+        when(repository.findByChave(anyString())).thenReturn(Optional.empty(), Optional.of(reservada));
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("chave-1", "{}"));
+
+        // Assert
+        assertEquals(409, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    void testSemCabecalhoNaoGuardaNada() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = requisicao(null, "{}");
+
+        // Act
+        executar(request);
+        executar(request);
+
+        // Assert
+        assertEquals(2, execucoes.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testChaveVaziaResponde400() throws Exception {
+        // Act
+        MockHttpServletResponse response = executar(requisicao("  ", "{}"));
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        assertEquals(0, execucoes.get());
+    }
+
+    private MockHttpServletRequest requisicao(String chave, String corpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pedidos");
+        request.setContentType("application/json");
+        request.setContent(corpo.getBytes(StandardCharsets.UTF_8));
+        request.setAttribute("username", "maria");
+        if (chave != null) {
+            request.addHeader(IdempotenciaFilter.CABECALHO, chave);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse executar(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                String corpo = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                res.setStatus(statusDoController);
+                res.setContentType("application/json");
+                res.getWriter().write("{\"id\":" + execucoes.incrementAndGet() + ",\"recebido\":" + corpo + "}");
+            }
+        }));
+        return response;
+    }
+}
@@ -1,5 +1,8 @@
 package com.petshop.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -149,4 +152,59 @@ class JwtUtilTest {
         assertEquals("ADMIN", role2);
         assertNotEquals(token1, token2);
     }
+
+    @Test
+    void testVerificarReaproveitaTokenJaVerificado() {
+        // Arrange
+        String token = jwtUtil.generateToken("testuser", "CLIENTE");
+
+        // Act
+        Claims primeira = jwtUtil.verificar(token);
+        Claims segunda = jwtUtil.verificar(token);
+
+        // Assert
+        assertSame(primeira, segunda);
+        assertEquals("testuser", segunda.getSubject());
+        assertEquals("CLIENTE", segunda.get("role", String.class));
+    }
+
+    @Test
+    void testTokenAdulteradoNaoAproveitaCache() {
+        // Arrange
+        String token = jwtUtil.generateToken("testuser", "CLIENTE");
+        jwtUtil.verificar(token);
+        String[] partes = token.split("\\.");
+        String outro = jwtUtil.generateToken("admin", "ADMIN");
+        String adulterado = outro.split("\\.")[0] + "." + outro.split("\\.")[1] + "." + partes[2];
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.verificar(adulterado));
+        assertFalse(jwtUtil.validateToken(adulterado));
+    }
+
+    @Test
+    void testTokenExpiradoInvalido() {
+        // Arrange
+        ReflectionTestUtils.setField(jwtUtil, "expiration", -1000L);
+        String token = jwtUtil.generateToken("testuser", "CLIENTE");
+
+        // Act & Assert
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verificar(token));
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void testTokensTemIdentificadoresDistintos() {
+        // Arrange
+        String primeiro = jwtUtil.generateToken("testuser", "CLIENTE");
+        String segundo = jwtUtil.generateToken("testuser", "CLIENTE");
+
+        // Act
+        String jtiPrimeiro = jwtUtil.verificar(primeiro).getId();
+        String jtiSegundo = jwtUtil.verificar(segundo).getId();
+
+        // Assert
+        assertNotNull(jtiPrimeiro);
+        assertNotEquals(jtiPrimeiro, jtiSegundo);
+    }
 }
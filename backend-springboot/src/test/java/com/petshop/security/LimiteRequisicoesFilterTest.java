@@ -0,0 +1,144 @@
+package com.petshop.security;
+
+import com.petshop.security.LimiteRequisicoesFilter.Grupo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteRequisicoesFilterTest {
+
+    private final AtomicLong relogio = new AtomicLong();
+    private LimiteRequisicoesFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        List<Grupo> grupos = List.of(
+                new Grupo("busca", List.of("/api/produtos/buscar"), 2, 1),
+                new Grupo("catalogo", List.of("/api/produtos/**"), 5, 1));
+        Grupo padrao = new Grupo("padrao", List.of(), 3, 1);
+        filter = new LimiteRequisicoesFilter(grupos, padrao, Duration.ofMinutes(10), 1000, relogio::get);
+    }
+
+    @Test
+    void testAcimaDoLimiteResponde429ComRetryAfter() throws Exception {
+        // Arrange
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("Muitas requisições"));
+    }
+
+    @Test
+    void testRequisicaoBarradaNaoSegueNaCadeia() throws Exception {
+        // Arrange
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testGruposTemBaldesSeparados() throws Exception {
+        // Arrange: esgota a busca
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("GET", "/api/produtos/1", "10.0.0.1"));
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(2, filter.baldesAtivos());
+    }
+
+    @Test
+    void testClientesTemBaldesSeparados() throws Exception {
+        // Arrange
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Act
+        MockHttpServletResponse outroIp = executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.2"));
+        MockHttpServletRequest autenticado = requisicao("GET", "/api/produtos/buscar", "10.0.0.1");
+        autenticado.setAttribute("username", "admin");
+        MockHttpServletResponse usuario = executar(autenticado);
+
+        // Assert
+        assertEquals(200, outroIp.getStatus());
+        assertEquals(200, usuario.getStatus());
+    }
+
+    @Test
+    void testRotaSemGrupoUsaPadrao() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            executar(requisicao("GET", "/api/pedidos", "10.0.0.1"));
+        }
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("GET", "/api/pedidos", "10.0.0.1"));
+
+        // Assert
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void testLiberaDepoisDaReposicao() throws Exception {
+        // Arrange
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+        relogio.addAndGet(1_000_000_000L);
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Assert
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void testPreflightNaoConsome() throws Exception {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            executar(requisicao("OPTIONS", "/api/produtos/buscar", "10.0.0.1"));
+        }
+
+        // Act
+        MockHttpServletResponse response = executar(requisicao("GET", "/api/produtos/buscar", "10.0.0.1"));
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(1, filter.baldesAtivos());
+    }
+
+    private MockHttpServletRequest requisicao(String metodo, String uri, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private MockHttpServletResponse executar(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,119 @@
+package com.petshop.security;
+
+import com.petshop.model.TokenRevogado;
+import com.petshop.repository.TokenRevogadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevogacaoTokensTest {
+
+    @Mock
+    private TokenRevogadoRepository tokenRevogadoRepository;
+
+    private RevogacaoTokens revogacaoTokens;
+
+    @BeforeEach
+    void setUp() {
+        revogacaoTokens = new RevogacaoTokens(tokenRevogadoRepository, 1024, 0.01, 60000);
+    }
+
+    @Test
+    void testAntesDaPrimeiraReconstrucaoConsultaATabela() {
+        // Arrange
+        when(tokenRevogadoRepository.existsByJti("jti-1")).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(revogacaoTokens.estaRevogado("jti-1"));
+        verify(tokenRevogadoRepository, times(1)).existsByJti("jti-1");
+    }
+
+    @Test
+    void testTokenForaDoFiltroNaoConsultaATabela() {
+        // Arrange
+        when(tokenRevogadoRepository.findJtisValidos(any(LocalDateTime.class))).thenReturn(List.of("jti-revogado"));
+        revogacaoTokens.reconstruir();
+
+        // Act
+        boolean revogado = revogacaoTokens.estaRevogado("jti-valido");
+
+        // Assert
+        assertFalse(revogado);
+        verify(tokenRevogadoRepository, never()).existsByJti(anyString());
+        verify(tokenRevogadoRepository, times(1)).removerExpirados(any(LocalDateTime.class));
+    }
+
+    @Test
+    void testTokenNoFiltroConfirmaNaTabelaUmaVez() {
+        // Arrange
+        when(tokenRevogadoRepository.findJtisValidos(any(LocalDateTime.class))).thenReturn(List.of("jti-revogado"));
+        when(tokenRevogadoRepository.existsByJti("jti-revogado")).thenReturn(true);
+        revogacaoTokens.reconstruir();
+
+        // Act & Assert
+        assertTrue(revogacaoTokens.estaRevogado("jti-revogado"));
+        assertTrue(revogacaoTokens.estaRevogado("jti-revogado"));
+        verify(tokenRevogadoRepository, times(1)).existsByJti("jti-revogado");
+    }
+
+    @Test
+    void testRevogarGravaEPassaAValerNaHora() {
+        // Arrange
+        when(tokenRevogadoRepository.findJtisValidos(any(LocalDateTime.class))).thenReturn(List.of());
+        revogacaoTokens.reconstruir();
+        Date expiracao = new Date(System.currentTimeMillis() + 60_000);
+
+        // Act
+        revogacaoTokens.revogar("jti-logout", expiracao);
+
+        // Assert
+        assertTrue(revogacaoTokens.estaRevogado("jti-logout"));
+        verify(tokenRevogadoRepository, times(1)).save(any(TokenRevogado.class));
+        verify(tokenRevogadoRepository, times(1)).existsByJti("jti-logout");
+    }
+
+    @Test
+    void testRevogarTokenSemJti() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> revogacaoTokens.revogar(null, new Date()));
+        verify(tokenRevogadoRepository, never()).save(any(TokenRevogado.class));
+    }
+
+    @Test
+    void testTokenSemJtiNuncaRevogado() {
+        // Act & Assert
+        assertFalse(revogacaoTokens.estaRevogado(null));
+        verifyNoInteractions(tokenRevogadoRepository);
+    }
+
+    @Test
+    void testFalhaNaReconstrucaoMantemFiltroAnterior() {
+        // Arrange
+        when(tokenRevogadoRepository.findJtisValidos(any(LocalDateTime.class)))
+            .thenReturn(List.of("jti-revogado"))
+            .thenThrow(new DataAccessResourceFailureException("banco fora"));
+        when(tokenRevogadoRepository.existsByJti("jti-revogado")).thenReturn(true);
+        revogacaoTokens.reconstruir();
+
+        // Act
+        revogacaoTokens.reconstruir();
+
+        // Assert
+        assertTrue(revogacaoTokens.estaRevogado("jti-revogado"));
+        assertFalse(revogacaoTokens.estaRevogado("jti-valido"));
+        verify(tokenRevogadoRepository, never()).existsByJti("jti-valido");
+    }
+}
@@ -0,0 +1,93 @@
+package com.petshop.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SenhaHasherTest {
+
+    private SenhaHasher senhaHasher;
+
+    @AfterEach
+    void tearDown() {
+        senhaHasher.encerrar();
+    }
+
+    @Test
+    void testHashEConfere() {
+        // Arrange
+        senhaHasher = new SenhaHasher(4, 1, 4, 5000);
+
+        // Act
+        String hash = senhaHasher.hash("senha123");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(senhaHasher.confere("senha123", hash));
+        assertFalse(senhaHasher.confere("outra", hash));
+    }
+
+    @Test
+    void testPrecisaRehashQuandoCustoDifere() {
+        // Arrange
+        senhaHasher = new SenhaHasher(5, 1, 4, 5000);
+
+        // Act & Assert
+        assertTrue(senhaHasher.precisaRehash(new BCryptPasswordEncoder(4).encode("senha123")));
+        assertFalse(senhaHasher.precisaRehash(new BCryptPasswordEncoder(5).encode("senha123")));
+        assertFalse(senhaHasher.precisaRehash("texto-que-nao-e-bcrypt"));
+        assertFalse(senhaHasher.precisaRehash(null));
+    }
+
+    @Test
+    void testEsperaAlemDoLimiteResponde503() {
+        // Arrange: custo alto o bastante para não terminar em 1 ms
+        senhaHasher = new SenhaHasher(12, 1, 4, 1);
+
+        // Act
+        HashIndisponivelException exception = assertThrows(HashIndisponivelException.class,
+                () -> senhaHasher.hash("senha123"));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void testFilaCheiaResponde429() throws Exception {
+        // Arrange: uma thread e uma vaga na fila para dez logins simultâneos
+        senhaHasher = new SenhaHasher(12, 1, 1, 10000);
+        ExecutorService clientes = Executors.newFixedThreadPool(10);
+        List<Callable<HttpStatus>> logins = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            logins.add(() -> {
+                try {
+                    senhaHasher.hash("senha123");
+                    return HttpStatus.OK;
+                } catch (HashIndisponivelException e) {
+                    return e.getStatus();
+                }
+            });
+        }
+
+        // Act
+        List<HttpStatus> resultados = new ArrayList<>();
+        for (Future<HttpStatus> resultado : clientes.invokeAll(logins)) {
+            resultados.add(resultado.get());
+        }
+        clientes.shutdown();
+
+        // Assert: no máximo a tarefa em execução e a da fila foram aceitas
+        assertTrue(resultados.stream().filter(HttpStatus.OK::equals).count() <= 2);
+        assertTrue(resultados.stream().filter(HttpStatus.TOO_MANY_REQUESTS::equals).count() >= 8);
+    }
+}
@@ -1,5 +1,8 @@
 package com.petshop.service;
 
+import com.petshop.dto.AgendamentoResponseDTO;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.ServicoAgendadoProjecao;
 import com.petshop.model.Agendamento;
 import com.petshop.model.Agendamento.StatusAgendamento;
 import com.petshop.model.Cliente;
@@ -135,16 +138,20 @@ class AgendamentoServiceTest {
     @Test
     void testBuscarPorCliente() {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
-        when(agendamentoRepository.findByClienteId(1L)).thenReturn(agendamentos);
+        when(agendamentoRepository.findRespostasByClienteId(1L)).thenReturn(Arrays.asList(resposta()));
+        when(agendamentoRepository.findServicosByAgendamentoIds(List.of(1L)))
+                .thenReturn(List.of(new ServicoAgendadoProjecao(1L, 1L, "Banho", 50.0)));
 
         // Act
-        List<Agendamento> resultado = agendamentoService.buscarPorCliente(1L);
+        List<AgendamentoResponseDTO> resultado = agendamentoService.buscarPorCliente(1L);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        verify(agendamentoRepository, times(1)).findByClienteId(1L);
+        assertEquals(1, resultado.get(0).getServicos().size());
+        assertEquals("Banho", resultado.get(0).getServicos().get(0).getNome());
+        verify(agendamentoRepository, times(1)).findRespostasByClienteId(1L);
+        verify(agendamentoRepository, never()).findByClienteId(any());
     }
 
     // Region: BuscarPorData Tests
@@ -153,16 +160,16 @@ class AgendamentoServiceTest {
     void testBuscarPorData() {
         // Arrange
         LocalDate data = LocalDate.now().plusDays(1);
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
-        when(agendamentoRepository.findByDataAgendamento(data)).thenReturn(agendamentos);
+        when(agendamentoRepository.findRespostasByDataAgendamento(data)).thenReturn(Arrays.asList(resposta()));
 
         // Act
-        List<Agendamento> resultado = agendamentoService.buscarPorData(data);
+        List<AgendamentoResponseDTO> resultado = agendamentoService.buscarPorData(data);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        verify(agendamentoRepository, times(1)).findByDataAgendamento(data);
+        assertTrue(resultado.get(0).getServicos().isEmpty());
+        verify(agendamentoRepository, times(1)).findRespostasByDataAgendamento(data);
     }
 
     // Region: BuscarPorStatus Tests
@@ -170,17 +177,48 @@ class AgendamentoServiceTest {
     @Test
     void testBuscarPorStatus() {
         // Arrange
-        List<Agendamento> agendamentos = Arrays.asList(agendamento);
-        when(agendamentoRepository.findByStatus(StatusAgendamento.PENDENTE)).thenReturn(agendamentos);
+        when(agendamentoRepository.findRespostasByStatus(StatusAgendamento.PENDENTE))
+                .thenReturn(Arrays.asList(resposta()));
 
         // Act
-        List<Agendamento> resultado = agendamentoService.buscarPorStatus(StatusAgendamento.PENDENTE);
+        List<AgendamentoResponseDTO> resultado = agendamentoService.buscarPorStatus(StatusAgendamento.PENDENTE);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        assertEquals(StatusAgendamento.PENDENTE, resultado.get(0).getStatus());
-        verify(agendamentoRepository, times(1)).findByStatus(StatusAgendamento.PENDENTE);
+        assertEquals("PENDENTE", resultado.get(0).getStatus());
+        verify(agendamentoRepository, times(1)).findRespostasByStatus(StatusAgendamento.PENDENTE);
+    }
+
+    @Test
+    void testListarPaginaCarregaServicosDaPaginaNumaConsulta() {
+        // Arrange
+        AgendamentoResponseDTO segundo = resposta();
+        segundo.setId(2L);
+        AgendamentoResponseDTO excedente = resposta();
+        excedente.setId(3L);
+        when(agendamentoRepository.findRespostasPaginaAposId(eq(0L), any()))
+                .thenReturn(Arrays.asList(resposta(), segundo, excedente));
+        when(agendamentoRepository.findServicosByAgendamentoIds(List.of(1L, 2L))).thenReturn(List.of(
+                new ServicoAgendadoProjecao(2L, 1L, "Banho", 50.0),
+                new ServicoAgendadoProjecao(2L, 2L, "Tosa", 30.0)));
+
+        // Act
+        PaginaCursor<AgendamentoResponseDTO> pagina = agendamentoService.listarPagina(null, 2);
+
+        // Assert
+        assertEquals(2, pagina.getItens().size());
+        assertTrue(pagina.getItens().get(0).getServicos().isEmpty());
+        assertEquals(2, pagina.getItens().get(1).getServicos().size());
+        assertTrue(pagina.temProxima());
+        verify(agendamentoRepository, times(1)).findServicosByAgendamentoIds(anyCollection());
+    }
+
+    private AgendamentoResponseDTO resposta() {
+        return new AgendamentoResponseDTO(agendamento.getId(), agendamento.getDataAgendamento(),
+                agendamento.getHorario(), agendamento.getMetodoAtendimento(), agendamento.getPortePet(),
+                agendamento.getObservacoes(), agendamento.getValorTotal(), agendamento.getStatus(),
+                cliente.getId(), cliente.getNome(), cliente.getTelefone(), pet.getId(), pet.getNome());
     }
 
     // Region: BuscarPorPeriodo Tests
@@ -0,0 +1,92 @@
+package com.petshop.service;
+
+import com.petshop.model.ChaveIdempotencia;
+import com.petshop.repository.ChaveIdempotenciaRepository;
+import com.petshop.service.ArmazemIdempotencia.Resposta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArmazemIdempotenciaTest {
+
+    @Mock
+    private ChaveIdempotenciaRepository repository;
+
+    private ArmazemIdempotencia armazem;
+
+    @BeforeEach
+    void setUp() {
+        armazem = new ArmazemIdempotencia(repository, 24, 60000, 100);
+    }
+
+    @Test
+    void testReservarRemoveExpiradaAntesDoInsert() {
+        // Act
+        boolean reservada = armazem.reservar("k", "imp");
+
+        // Assert
+        assertTrue(reservada);
+        verify(repository).removerSeExpirada(eq("k"), any(LocalDateTime.class));
+        verify(repository).saveAndFlush(argThat(c -> "k".equals(c.getChave()) && c.getStatus() == null));
+    }
+
+    @Test
+    void testReservarChaveJaExistenteRetornaFalse() {
+        // Arrange
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicada"));
+
+        // Act & Assert
+        assertFalse(armazem.reservar("k", "imp"));
+    }
+
+    @Test
+    void testRespostaConcluidaVemDoCacheSemIrAoBanco() {
+        // Arrange
+        armazem.concluir("k", "imp", 201, "application/json", new byte[]{1, 2});
+
+        // Act
+        Optional<Resposta> resposta = armazem.buscar("k");
+
+        // Assert
+        assertTrue(resposta.isPresent());
+        assertEquals(201, resposta.get().status());
+        verify(repository, never()).findByChave(anyString());
+    }
+
+    @Test
+    void testRegistroExpiradoNoBancoEIgnorado() {
+        // Arrange
+        ChaveIdempotencia expirada = new ChaveIdempotencia("k", "imp", LocalDateTime.now().minusMinutes(1));
+        expirada.setStatus(201);
+        when(repository.findByChave("k")).thenReturn(Optional.of(expirada));
+
+        // Act & Assert
+        assertTrue(armazem.buscar("k").isEmpty());
+    }
+
+    @Test
+    void testReservaEmAndamentoNaoVaiParaOCache() {
+        // Arrange
+        ChaveIdempotencia reservada = new ChaveIdempotencia("k", "imp", LocalDateTime.now().plusMinutes(1));
+        when(repository.findByChave("k")).thenReturn(Optional.of(reservada));
+
+        // Act
+        armazem.buscar("k");
+        Optional<Resposta> resposta = armazem.buscar("k");
+
+        // Assert
+        assertTrue(resposta.get().emAndamento());
+        verify(repository, times(2)).findByChave("k");
+    }
+}
@@ -2,23 +2,34 @@ package com.petshop.service;
 
 import com.petshop.dto.LoginRequestDTO;
 import com.petshop.dto.LoginResponseDTO;
+import com.petshop.dto.UsuarioRequestDTO;
 import com.petshop.model.Usuario;
 import com.petshop.repository.ClienteRepository;
 import com.petshop.repository.UsuarioRepository;
+import com.petshop.security.HashIndisponivelException;
 import com.petshop.security.JwtUtil;
+import com.petshop.security.RevogacaoTokens;
+import com.petshop.security.SenhaHasher;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +44,15 @@ class AuthServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private UltimoAcessoBuffer ultimoAcessoBuffer;
+
+    @Mock
+    private RevogacaoTokens revogacaoTokens;
+
+    @Spy
+    private SenhaHasher senhaHasher = new SenhaHasher(10, 1, 8, 5000);
+
     @InjectMocks
     private AuthService authService;
 
@@ -63,8 +83,6 @@ class AuthServiceTest {
             .thenReturn(Optional.of(usuario));
         when(jwtUtil.generateToken(anyString(), anyString()))
             .thenReturn("fake-jwt-token");
-        when(usuarioRepository.save(any(Usuario.class)))
-            .thenReturn(usuario);
 
         // Act
         LoginResponseDTO response = authService.login(loginRequest);
@@ -77,7 +95,8 @@ class AuthServiceTest {
         assertEquals("CLIENTE", response.getRole());
         
         verify(usuarioRepository, times(1)).findByUsernameAndAtivo("testuser", true);
-        verify(usuarioRepository, times(1)).save(any(Usuario.class));
+        verify(usuarioRepository, never()).save(any(Usuario.class));
+        verify(ultimoAcessoBuffer, times(1)).registrar(eq(1L), any(LocalDateTime.class));
         verify(jwtUtil, times(1)).generateToken("testuser", "CLIENTE");
     }
 
@@ -120,6 +139,114 @@ class AuthServiceTest {
         verify(jwtUtil, never()).generateToken(anyString(), anyString());
     }
 
+    @Test
+    void testLoginRefazHashComCustoDiferente() {
+        // Arrange
+        usuario.setSenha(new BCryptPasswordEncoder(4).encode("senha123"));
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setUsername("testuser");
+        loginRequest.setSenha("senha123");
+
+        when(usuarioRepository.findByUsernameAndAtivo(anyString(), anyBoolean()))
+            .thenReturn(Optional.of(usuario));
+        when(jwtUtil.generateToken(anyString(), anyString()))
+            .thenReturn("fake-jwt-token");
+
+        // Act
+        authService.login(loginRequest);
+
+        // Assert
+        assertTrue(usuario.getSenha().startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches("senha123", usuario.getSenha()));
+        assertNotNull(usuario.getUltimoAcesso());
+        verify(usuarioRepository, times(1)).save(usuario);
+        verify(ultimoAcessoBuffer, times(1)).registrar(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testLoginNaoRefazHashComCustoAtual() {
+        // Arrange
+        String hashOriginal = usuario.getSenha();
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setUsername("testuser");
+        loginRequest.setSenha("senha123");
+
+        when(usuarioRepository.findByUsernameAndAtivo(anyString(), anyBoolean()))
+            .thenReturn(Optional.of(usuario));
+        when(jwtUtil.generateToken(anyString(), anyString()))
+            .thenReturn("fake-jwt-token");
+
+        // Act
+        authService.login(loginRequest);
+
+        // Assert
+        assertEquals(hashOriginal, usuario.getSenha());
+        verify(senhaHasher, never()).rehash(anyString());
+    }
+
+    @Test
+    void testLoginComPoolDeHashSaturado() {
+        // Arrange
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setUsername("testuser");
+        loginRequest.setSenha("senha123");
+
+        when(usuarioRepository.findByUsernameAndAtivo(anyString(), anyBoolean()))
+            .thenReturn(Optional.of(usuario));
+        doThrow(new HashIndisponivelException(HttpStatus.TOO_MANY_REQUESTS, "Muitas autenticações simultâneas", 1))
+            .when(senhaHasher).confere(anyString(), anyString());
+
+        // Act & Assert
+        HashIndisponivelException exception = assertThrows(HashIndisponivelException.class, () -> {
+            authService.login(loginRequest);
+        });
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        verify(jwtUtil, never()).generateToken(anyString(), anyString());
+        verify(usuarioRepository, never()).save(any(Usuario.class));
+        verifyNoInteractions(ultimoAcessoBuffer);
+    }
+
+    @Test
+    void testRegistrarGravaOHashDaSenha() {
+        // Arrange
+        UsuarioRequestDTO request = new UsuarioRequestDTO();
+        request.setUsername("novo");
+        request.setSenha("senha123");
+        request.setEmail("novo@petshop.com");
+        request.setRole("CLIENTE");
+
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Usuario salvo = authService.registrar(request);
+
+        // Assert
+        assertEquals("novo", salvo.getUsername());
+        assertTrue(passwordEncoder.matches("senha123", salvo.getSenha()));
+        assertNull(salvo.getCliente());
+    }
+
+    @Test
+    void testRegistrarComClienteInexistenteNaoCalculaHash() {
+        // Arrange
+        UsuarioRequestDTO request = new UsuarioRequestDTO();
+        request.setUsername("novo");
+        request.setSenha("senha123");
+        request.setEmail("novo@petshop.com");
+        request.setRole("CLIENTE");
+        request.setClienteId(99L);
+
+        when(clienteRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> authService.registrar(request));
+
+        assertEquals("Cliente não encontrado", exception.getMessage());
+        verify(senhaHasher, never()).hash(anyString());
+        verify(usuarioRepository, never()).save(any(Usuario.class));
+    }
+
     @Test
     void testValidarTokenValido() {
         // Arrange
@@ -148,6 +275,55 @@ class AuthServiceTest {
         verify(jwtUtil, times(1)).validateToken(token);
     }
 
+    @Test
+    void testValidarTokenRevogado() {
+        // Arrange
+        JwtUtil jwtReal = new JwtUtil();
+        ReflectionTestUtils.setField(jwtReal, "secret", "petshop-secret-key-must-be-at-least-256-bits-long-for-HS256-algorithm");
+        ReflectionTestUtils.setField(jwtReal, "expiration", 60000L);
+        ReflectionTestUtils.setField(authService, "jwtUtil", jwtReal);
+        String token = jwtReal.generateToken("testuser", "CLIENTE");
+        when(revogacaoTokens.estaRevogado(anyString())).thenReturn(true);
+
+        // Act
+        boolean resultado = authService.validarToken(token);
+
+        // Assert
+        assertFalse(resultado);
+        verify(revogacaoTokens, times(1)).estaRevogado(jwtReal.verificar(token).getId());
+    }
+
+    @Test
+    void testRevogarTokenRegistraJtiEExpiracao() {
+        // Arrange
+        JwtUtil jwtReal = new JwtUtil();
+        ReflectionTestUtils.setField(jwtReal, "secret", "petshop-secret-key-must-be-at-least-256-bits-long-for-HS256-algorithm");
+        ReflectionTestUtils.setField(jwtReal, "expiration", 60000L);
+        ReflectionTestUtils.setField(authService, "jwtUtil", jwtReal);
+        String token = jwtReal.generateToken("testuser", "CLIENTE");
+        Claims claims = jwtReal.verificar(token);
+
+        // Act
+        authService.revogarToken(token);
+
+        // Assert
+        verify(revogacaoTokens, times(1)).revogar(claims.getId(), claims.getExpiration());
+    }
+
+    @Test
+    void testRevogarTokenInvalido() {
+        // Arrange
+        when(jwtUtil.verificar("token-invalido")).thenThrow(new MalformedJwtException("malformado"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            authService.revogarToken("token-invalido");
+        });
+
+        assertEquals("Token inválido ou expirado", exception.getMessage());
+        verifyNoInteractions(revogacaoTokens);
+    }
+
     @Test
     void testGetUsuarioFromToken() {
         // Arrange
@@ -0,0 +1,69 @@
+package com.petshop.service;
+
+import com.petshop.service.CatalogoVersoes.Recurso;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoVersoesTest {
+
+    private CatalogoVersoes versoes;
+
+    @BeforeEach
+    void setUp() {
+        versoes = new CatalogoVersoes();
+    }
+
+    @Test
+    void testEtagEstavelSemAlteracoes() {
+        assertEquals(versoes.etagColecao(Recurso.SERVICO), versoes.etagColecao(Recurso.SERVICO));
+        assertEquals(versoes.etagItem(Recurso.SERVICO, 1L), versoes.etagItem(Recurso.SERVICO, 1L));
+    }
+
+    @Test
+    void testEtagForte() {
+        String etag = versoes.etagColecao(Recurso.PRODUTO);
+
+        assertTrue(etag.startsWith("\""));
+        assertTrue(etag.endsWith("\""));
+        assertFalse(etag.startsWith("W/"));
+    }
+
+    @Test
+    void testAlteracaoMudaItemEColecao() {
+        String colecao = versoes.etagColecao(Recurso.PRODUTO);
+        String item1 = versoes.etagItem(Recurso.PRODUTO, 1L);
+        String item2 = versoes.etagItem(Recurso.PRODUTO, 2L);
+
+        versoes.alterado(Recurso.PRODUTO, 1L);
+
+        assertNotEquals(colecao, versoes.etagColecao(Recurso.PRODUTO));
+        assertNotEquals(item1, versoes.etagItem(Recurso.PRODUTO, 1L));
+        assertEquals(item2, versoes.etagItem(Recurso.PRODUTO, 2L));
+    }
+
+    @Test
+    void testAlteracaoDeCategoriaMudaEtagDeProdutos() {
+        String colecao = versoes.etagColecao(Recurso.PRODUTO);
+        String item = versoes.etagItem(Recurso.PRODUTO, 1L);
+        String servicos = versoes.etagColecao(Recurso.SERVICO);
+
+        versoes.alterado(Recurso.CATEGORIA, 3L);
+
+        assertNotEquals(colecao, versoes.etagColecao(Recurso.PRODUTO));
+        assertNotEquals(item, versoes.etagItem(Recurso.PRODUTO, 1L));
+        assertEquals(servicos, versoes.etagColecao(Recurso.SERVICO));
+    }
+
+    @Test
+    void testAlteradosIgnoraIdsNulos() {
+        String colecao = versoes.etagColecao(Recurso.PRODUTO);
+
+        versoes.alterados(Recurso.PRODUTO, Arrays.asList(1L, null));
+
+        assertNotEquals(colecao, versoes.etagColecao(Recurso.PRODUTO));
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -23,6 +24,9 @@ class CategoriaServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Spy
+    private CatalogoVersoes catalogoVersoes = new CatalogoVersoes();
+
     @InjectMocks
     private CategoriaService categoriaService;
 
@@ -226,6 +230,7 @@ class CategoriaServiceTest {
         // Assert
         assertTrue(categoria.getAtivo());
         verify(categoriaRepository, times(1)).save(any(Categoria.class));
+        verify(catalogoVersoes, times(1)).alterado(CatalogoVersoes.Recurso.CATEGORIA, 1L);
     }
 
     @Test
@@ -280,6 +285,7 @@ class CategoriaServiceTest {
         // Assert
         verify(categoriaRepository, times(1)).existsById(1L);
         verify(categoriaRepository, times(1)).deleteById(1L);
+        verify(catalogoVersoes, times(1)).alterado(CatalogoVersoes.Recurso.CATEGORIA, 1L);
     }
 
     @Test
@@ -0,0 +1,109 @@
+package com.petshop.service;
+
+import com.petshop.service.ContadorSpaceSaving.Contagem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorSpaceSavingTest {
+
+    @Test
+    void testContagemExataDentroDaCapacidade() {
+        // Arrange
+        ContadorSpaceSaving contador = new ContadorSpaceSaving(10);
+
+        // Act
+        contador.somar(1, 5);
+        contador.somar(2, 3);
+        contador.somar(1, 2);
+
+        // Assert
+        assertEquals(List.of(new Contagem(1, 7, 0), new Contagem(2, 3, 0)), contador.maiores(10));
+    }
+
+    @Test
+    void testIdNovoSubstituiOMenorEHerdaOErro() {
+        // Arrange
+        ContadorSpaceSaving contador = new ContadorSpaceSaving(2);
+        contador.somar(1, 10);
+        contador.somar(2, 4);
+
+        // Act
+        contador.somar(3, 1);
+
+        // Assert
+        assertEquals(List.of(new Contagem(1, 10, 0), new Contagem(3, 5, 4)), contador.maiores(2));
+    }
+
+    @Test
+    void testFrequentesSobrevivemAoFluxo() {
+        // Arrange: 3 produtos com 30% das vendas cada, no meio de 5000 ocorrências dispersas
+        ContadorSpaceSaving contador = new ContadorSpaceSaving(20);
+        Random aleatorio = new Random(42);
+        long[] reais = new long[1000];
+
+        // Act
+        for (int i = 0; i < 20000; i++) {
+            int id = i % 4 == 3 ? 10 + aleatorio.nextInt(990) : i % 4;
+            reais[id]++;
+            contador.somar(id, 1);
+        }
+
+        // Assert
+        List<Contagem> maiores = contador.maiores(3);
+        assertEquals(3, maiores.size());
+        for (Contagem contagem : maiores) {
+            assertTrue(contagem.id() < 3);
+            assertTrue(contagem.contagem() >= reais[(int) contagem.id()]);
+            assertTrue(contagem.contagem() - contagem.erro() <= reais[(int) contagem.id()]);
+        }
+    }
+
+    @Test
+    void testMesclarSomaPeriodosEContaOMinimoDosCheios() {
+        // Arrange
+        ContadorSpaceSaving segunda = new ContadorSpaceSaving(2);
+        segunda.somar(1, 10);
+        segunda.somar(2, 3);
+        ContadorSpaceSaving terca = new ContadorSpaceSaving(2);
+        terca.somar(1, 4);
+        terca.somar(3, 6);
+
+        // Act
+        ContadorSpaceSaving semana = ContadorSpaceSaving.mesclar(List.of(segunda, terca), 2);
+
+        // Assert: 2 pode ter vendido até 4 na terça, e 3 até 3 na segunda
+        assertEquals(List.of(new Contagem(1, 14, 0), new Contagem(3, 9, 3)), semana.maiores(5));
+    }
+
+    @Test
+    void testMesclarParteNaoCheiaNaoAcrescentaErro() {
+        // Arrange
+        ContadorSpaceSaving segunda = new ContadorSpaceSaving(5);
+        segunda.somar(1, 2);
+        ContadorSpaceSaving terca = new ContadorSpaceSaving(5);
+        terca.somar(2, 3);
+
+        // Act
+        ContadorSpaceSaving semana = ContadorSpaceSaving.mesclar(List.of(segunda, terca), 5);
+
+        // Assert
+        assertEquals(List.of(new Contagem(2, 3, 0), new Contagem(1, 2, 0)), semana.maiores(5));
+    }
+
+    @Test
+    void testRestaurarRespeitaACapacidade() {
+        // Arrange
+        ContadorSpaceSaving contador = new ContadorSpaceSaving(1);
+
+        // Act
+        contador.restaurar(1, 8, 2);
+        contador.restaurar(2, 5, 0);
+
+        // Assert
+        assertEquals(List.of(new Contagem(1, 8, 2)), contador.maiores(5));
+    }
+}
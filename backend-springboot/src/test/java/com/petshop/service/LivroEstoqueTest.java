@@ -0,0 +1,148 @@
+package com.petshop.service;
+
+import com.petshop.model.MovimentacaoEstoque;
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
+import com.petshop.model.SnapshotEstoque;
+import com.petshop.repository.MovimentacaoEstoqueRepository;
+import com.petshop.repository.SnapshotEstoqueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LivroEstoqueTest {
+
+    @Mock
+    private MovimentacaoEstoqueRepository movimentacaoRepository;
+
+    @Mock
+    private SnapshotEstoqueRepository snapshotRepository;
+
+    private LivroEstoque livro;
+
+    @BeforeEach
+    void setUp() {
+        livro = new LivroEstoque(movimentacaoRepository, snapshotRepository, 600000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRegistrarGravaUmLancamentoPorProduto() {
+        // Act
+        livro.registrar(TipoMovimentacao.BAIXA, 100L, Map.of(2L, -1, 1L, -3));
+
+        // Assert
+        ArgumentCaptor<List<MovimentacaoEstoque>> lancamentos = ArgumentCaptor.forClass(List.class);
+        verify(movimentacaoRepository).saveAll(lancamentos.capture());
+        List<MovimentacaoEstoque> gravados = lancamentos.getValue();
+        assertEquals(2, gravados.size());
+        assertEquals(1L, gravados.get(0).getProdutoId());
+        assertEquals(-3, gravados.get(0).getQuantidade());
+        assertEquals(100L, gravados.get(0).getPedidoId());
+        assertEquals(TipoMovimentacao.BAIXA, gravados.get(0).getTipo());
+        assertEquals(2L, gravados.get(1).getProdutoId());
+    }
+
+    @Test
+    void testAjustarIgnoraDiferencaZero() {
+        // Act
+        livro.ajustar(1L, 0);
+
+        // Assert
+        verifyNoInteractions(movimentacaoRepository);
+    }
+
+    @Test
+    void testAjustarGravaDiferencaComSinal() {
+        // Act
+        livro.ajustar(1L, -7);
+
+        // Assert
+        ArgumentCaptor<MovimentacaoEstoque> lancamento = ArgumentCaptor.forClass(MovimentacaoEstoque.class);
+        verify(movimentacaoRepository).save(lancamento.capture());
+        assertEquals(TipoMovimentacao.AJUSTE, lancamento.getValue().getTipo());
+        assertEquals(-7, lancamento.getValue().getQuantidade());
+        assertNull(lancamento.getValue().getPedidoId());
+    }
+
+    @Test
+    void testImportarCriaSnapshotZeradoSoUmaVez() {
+        // Arrange
+        when(snapshotRepository.existsById(1L)).thenReturn(false, true);
+
+        // Act
+        livro.importar(1L, 50);
+        livro.importar(1L, 10);
+
+        // Assert
+        verify(snapshotRepository, times(1)).save(any(SnapshotEstoque.class));
+        verify(movimentacaoRepository, times(2)).save(any(MovimentacaoEstoque.class));
+    }
+
+    @Test
+    void testEstoqueCalculadoSomaSnapshotELancamentos() {
+        // Arrange
+        LocalDateTime corte = LocalDateTime.now().minusHours(1);
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.of(new SnapshotEstoque(1L, 40, corte)));
+        when(movimentacaoRepository.somarDesde(1L, corte)).thenReturn(-6L);
+
+        // Act
+        Optional<Integer> estoque = livro.estoqueCalculado(1L);
+
+        // Assert
+        assertEquals(Optional.of(34), estoque);
+    }
+
+    @Test
+    void testEstoqueCalculadoSemSnapshot() {
+        // Arrange
+        when(snapshotRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // Act / Assert
+        assertTrue(livro.estoqueCalculado(9L).isEmpty());
+    }
+
+    @Test
+    void testReconstruirCriaSnapshotsFaltantesAntes() {
+        // Arrange
+        when(snapshotRepository.criarFaltantes(any())).thenReturn(2);
+        when(snapshotRepository.reconstruirEstoques()).thenReturn(6);
+
+        // Act
+        int produtos = livro.reconstruir();
+
+        // Assert
+        assertEquals(6, produtos);
+        InOrder ordem = inOrder(snapshotRepository);
+        ordem.verify(snapshotRepository).criarFaltantes(any());
+        ordem.verify(snapshotRepository).reconstruirEstoques();
+    }
+
+    @Test
+    void testCompactarRespeitaAMargem() {
+        // Arrange
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(10);
+
+        // Act
+        livro.compactar();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(snapshotRepository).compactar(limite.capture());
+        assertFalse(limite.getValue().isBefore(antes));
+        assertTrue(limite.getValue().isBefore(LocalDateTime.now().minusMinutes(9)));
+    }
+}
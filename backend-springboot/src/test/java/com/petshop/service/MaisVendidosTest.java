@@ -0,0 +1,236 @@
+package com.petshop.service;
+
+import com.petshop.model.Categoria;
+import com.petshop.model.ContagemMaisVendidos;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Produto;
+import com.petshop.model.VendaDiaria;
+import com.petshop.repository.ContagemMaisVendidosRepository;
+import com.petshop.repository.VendaDiariaRepository;
+import com.petshop.service.ContadorSpaceSaving.Contagem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MaisVendidosTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2026, 3, 10);
+
+    @Mock
+    private ContagemMaisVendidosRepository checkpointRepository;
+
+    @Mock
+    private VendaDiariaRepository vendaDiariaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MaisVendidos maisVendidos;
+
+    @BeforeEach
+    void setUp() {
+        maisVendidos = new MaisVendidos(checkpointRepository, vendaDiariaRepository, jdbcTemplate,
+                transactionManager, 10, 30);
+    }
+
+    @Test
+    void testJanelaSoContaOsDiasDela() {
+        // Arrange: o produto 1 vendeu muito há 20 dias, o 2 vendeu nesta semana
+        maisVendidos.somar(HOJE.minusDays(20), 1L, 1L, 50);
+        maisVendidos.somar(HOJE.minusDays(3), 2L, 1L, 8);
+        maisVendidos.somar(HOJE, 2L, 1L, 4);
+        maisVendidos.somar(HOJE, 1L, 1L, 1);
+
+        // Act
+        List<Contagem> semana = maisVendidos.maisVendidos(HOJE, 7, null, 10);
+        List<Contagem> mes = maisVendidos.maisVendidos(HOJE, 30, null, 10);
+
+        // Assert
+        assertEquals(List.of(new Contagem(2, 12, 0), new Contagem(1, 1, 0)), semana);
+        assertEquals(List.of(new Contagem(1, 51, 0), new Contagem(2, 12, 0)), mes);
+    }
+
+    @Test
+    void testRankingPorCategoria() {
+        // Arrange
+        maisVendidos.somar(HOJE, 1L, 1L, 5);
+        maisVendidos.somar(HOJE, 2L, 2L, 9);
+        maisVendidos.somar(HOJE, 3L, 1L, 7);
+
+        // Act
+        List<Contagem> categoria = maisVendidos.maisVendidos(HOJE, 7, 1L, 10);
+        List<Contagem> geral = maisVendidos.maisVendidos(HOJE, 7, null, 1);
+
+        // Assert
+        assertEquals(List.of(new Contagem(3, 7, 0), new Contagem(1, 5, 0)), categoria);
+        assertEquals(List.of(new Contagem(2, 9, 0)), geral);
+    }
+
+    @Test
+    void testVendaNovaAtualizaRankingJaCalculado() {
+        // Arrange
+        maisVendidos.somar(HOJE, 1L, 1L, 5);
+        maisVendidos.maisVendidos(HOJE, 7, null, 10);
+
+        // Act
+        maisVendidos.somar(HOJE, 2L, 1L, 6);
+
+        // Assert
+        assertEquals(2L, maisVendidos.maisVendidos(HOJE, 7, null, 10).get(0).id());
+    }
+
+    @Test
+    void testRegistrarContaNoDiaDoPedido() {
+        // Arrange: pedido de três dias atrás confirmado hoje
+        Categoria racoes = new Categoria();
+        racoes.setId(1L);
+        Produto racao = new Produto();
+        racao.setId(1L);
+        racao.setPreco(50.0);
+        racao.setCategoria(racoes);
+        Pedido pedido = new Pedido();
+        pedido.setDataPedido(HOJE.minusDays(3).atTime(18, 0));
+        pedido.setItens(new ArrayList<>(List.of(new ItemPedido(racao, 2))));
+
+        // Act
+        maisVendidos.registrar(pedido);
+
+        // Assert
+        assertEquals(List.of(new Contagem(1, 2, 0)), maisVendidos.maisVendidos(HOJE.minusDays(3), 1, null, 10));
+        assertEquals(List.of(), maisVendidos.maisVendidos(HOJE, 1, null, 10));
+    }
+
+    @Test
+    void testVendaAntigaNaoDescartaDiasMaisRecentes() {
+        // Arrange
+        maisVendidos.somar(HOJE, 2L, 1L, 4);
+
+        // Act: fora da retenção contada de hoje
+        maisVendidos.somar(HOJE.minusDays(40), 1L, 1L, 9);
+
+        // Assert
+        assertEquals(List.of(new Contagem(2, 4, 0)), maisVendidos.maisVendidos(HOJE, 30, null, 10));
+        assertEquals(List.of(), maisVendidos.maisVendidos(HOJE.minusDays(40), 1, null, 10));
+    }
+
+    @Test
+    void testJanelaForaDaRetencaoLancaExcecao() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> maisVendidos.maisVendidos(HOJE, 31, null, 10));
+
+        assertEquals("A janela deve ter de 1 a 30 dias", exception.getMessage());
+    }
+
+    @Test
+    void testCheckpointSoGravaQuandoHouveVendas() {
+        // Arrange
+        maisVendidos.somar(HOJE, 1L, 1L, 5);
+
+        // Act
+        int primeiro = maisVendidos.checkpoint();
+        int segundo = maisVendidos.checkpoint();
+
+        // Assert: contador geral e da categoria
+        assertEquals(2, primeiro);
+        assertEquals(0, segundo);
+        verify(jdbcTemplate).batchUpdate(eq(MaisVendidos.SQL_GRAVAR), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckpointSoRegravaOsDiasAlterados() {
+        // Arrange: ontem já está no checkpoint
+        maisVendidos.somar(HOJE.minusDays(1), 1L, 1L, 5);
+        maisVendidos.checkpoint();
+        maisVendidos.somar(HOJE, 2L, 1L, 3);
+        reset(jdbcTemplate);
+
+        // Act
+        int gravados = maisVendidos.checkpoint();
+
+        // Assert
+        assertEquals(2, gravados);
+        ArgumentCaptor<List<Object[]>> apagados = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(MaisVendidos.SQL_APAGAR_DIA), apagados.capture());
+        assertArrayEquals(new Object[]{HOJE}, apagados.getValue().get(0));
+        assertEquals(1, apagados.getValue().size());
+        verify(jdbcTemplate).update(MaisVendidos.SQL_APAGAR_ANTERIORES, HOJE.minusDays(1));
+        verify(jdbcTemplate, never()).update(MaisVendidos.SQL_APAGAR);
+    }
+
+    @Test
+    void testCheckpointComErroTentaDeNovo() {
+        // Arrange
+        maisVendidos.somar(HOJE, 1L, 1L, 5);
+        when(jdbcTemplate.batchUpdate(eq(MaisVendidos.SQL_APAGAR_DIA), anyList()))
+                .thenThrow(new RuntimeException("Conexão perdida"))
+                .thenReturn(new int[]{0});
+
+        // Act
+        int primeiro = maisVendidos.checkpoint();
+        int segundo = maisVendidos.checkpoint();
+
+        // Assert
+        assertEquals(0, primeiro);
+        assertEquals(2, segundo);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(MaisVendidos.SQL_GRAVAR), anyList());
+    }
+
+    @Test
+    void testRestaurarDoCheckpoint() {
+        // Arrange
+        LocalDate hoje = LocalDate.now();
+        when(checkpointRepository.findDesde(hoje.minusDays(29))).thenReturn(List.of(
+                new ContagemMaisVendidos(hoje, ContagemMaisVendidos.TODAS_CATEGORIAS, 1L, 12L, 2L),
+                new ContagemMaisVendidos(hoje, 1L, 1L, 12L, 2L)));
+
+        // Act
+        int lidas = maisVendidos.restaurar();
+
+        // Assert
+        assertEquals(2, lidas);
+        assertEquals(List.of(new Contagem(1, 12, 2)), maisVendidos.maisVendidos(hoje, 7, 1L, 10));
+        assertEquals(0, maisVendidos.checkpoint());
+        verifyNoInteractions(vendaDiariaRepository);
+    }
+
+    @Test
+    void testSemCheckpointReconstroiDasVendasDiarias() {
+        // Arrange: linhas zeradas por cancelamento não entram
+        LocalDate hoje = LocalDate.now();
+        when(checkpointRepository.findDesde(hoje.minusDays(29))).thenReturn(List.of());
+        when(vendaDiariaRepository.findDesde(hoje.minusDays(29))).thenReturn(List.of(
+                new VendaDiaria(hoje.minusDays(1), 1L, 1L, 3, 30.0),
+                new VendaDiaria(hoje, 2L, 1L, 0, 0.0),
+                new VendaDiaria(hoje, 1L, 1L, 2, 20.0)));
+
+        // Act
+        int lidas = maisVendidos.restaurar();
+
+        // Assert
+        assertEquals(3, lidas);
+        assertEquals(List.of(new Contagem(1, 5, 0)), maisVendidos.maisVendidos(hoje, 7, null, 10));
+        // Geral e categoria, nos dois dias, substituindo o checkpoint inteiro
+        assertEquals(4, maisVendidos.checkpoint());
+        verify(jdbcTemplate).update(MaisVendidos.SQL_APAGAR);
+    }
+}
@@ -0,0 +1,72 @@
+package com.petshop.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapaPorIdTest {
+
+    @Test
+    void testComputeIfAbsentCriaUmaVezSo() {
+        // Arrange
+        MapaPorId<String> mapa = new MapaPorId<>();
+
+        // Act
+        String primeiro = mapa.computeIfAbsent(7L, id -> "sete");
+        String segundo = mapa.computeIfAbsent(7L, id -> "outro");
+
+        // Assert
+        assertEquals("sete", primeiro);
+        assertEquals("sete", segundo);
+        assertEquals("sete", mapa.get(7L));
+        assertNull(mapa.get(8L));
+        assertEquals(1, mapa.size());
+    }
+
+    @Test
+    void testCresceMantendoTodasAsChaves() {
+        // Arrange
+        MapaPorId<Long> mapa = new MapaPorId<>();
+
+        // Act
+        for (long id = 1; id <= 1000; id++) {
+            mapa.computeIfAbsent(id * 31, chave -> chave);
+        }
+
+        // Assert
+        assertEquals(1000, mapa.size());
+        for (long id = 1; id <= 1000; id++) {
+            assertEquals(id * 31, mapa.get(id * 31));
+        }
+        assertNull(mapa.get(0L));
+    }
+
+    @Test
+    void testCriacaoNulaNaoInsere() {
+        // Arrange
+        MapaPorId<String> mapa = new MapaPorId<>();
+
+        // Act
+        String valor = mapa.computeIfAbsent(1L, id -> null);
+
+        // Assert
+        assertNull(valor);
+        assertEquals(0, mapa.size());
+    }
+
+    @Test
+    void testSubstituirTrocaTodoOConteudo() {
+        // Arrange
+        MapaPorId<String> mapa = new MapaPorId<>();
+        mapa.computeIfAbsent(1L, id -> "antigo");
+
+        // Act
+        mapa.substituir(new long[]{2L, 3L}, new String[]{"dois", "três"});
+
+        // Assert
+        assertNull(mapa.get(1L));
+        assertEquals("dois", mapa.get(2L));
+        assertEquals("três", mapa.get(3L));
+        assertEquals(2, mapa.size());
+    }
+}
@@ -0,0 +1,197 @@
+package com.petshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.petshop.model.Cliente;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Pedido.StatusPedido;
+import com.petshop.model.Produto;
+import com.petshop.repository.ItemPedidoRepository;
+import com.petshop.repository.PedidoRepository;
+import com.petshop.service.PedidoExportacaoService.Formato;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PedidoExportacaoServiceTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ItemPedidoRepository itemPedidoRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private PedidoExportacaoService exportacaoService;
+
+    private Pedido pedido1;
+    private Pedido pedido2;
+    private ItemPedido item;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        cliente.setNome("Silva, João");
+
+        Produto produto = new Produto();
+        produto.setId(7L);
+        produto.setNome("Ração \"Premium\"");
+
+        pedido1 = new Pedido(cliente);
+        pedido1.setId(1L);
+        pedido1.setDataPedido(LocalDateTime.of(2025, 1, 10, 9, 30));
+        pedido1.setValorTotal(179.8);
+        pedido1.setStatus(StatusPedido.ENTREGUE);
+        pedido1.setFormaPagamento("pix");
+
+        pedido2 = new Pedido(cliente);
+        pedido2.setId(2L);
+        pedido2.setDataPedido(LocalDateTime.of(2025, 1, 11, 15, 0));
+        pedido2.setValorTotal(10.0);
+
+        item = new ItemPedido();
+        item.setId(3L);
+        item.setPedido(pedido1);
+        item.setProduto(produto);
+        item.setQuantidade(2);
+        item.setPrecoUnitario(89.9);
+    }
+
+    private String exportar(Formato formato) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        long total = exportacaoService.exportar(formato, null, null, null, saida);
+        assertEquals(2, total);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testExportarJsonComItensDoLote() throws Exception {
+        // Arrange
+        when(pedidoRepository.streamParaExportacao(null, null, null)).thenReturn(Stream.of(pedido1, pedido2));
+        when(itemPedidoRepository.findByPedidoIdsComProduto(List.of(1L, 2L))).thenReturn(List.of(item));
+
+        // Act
+        String json = exportar(Formato.JSON);
+
+        // Assert
+        List<?> pedidos = objectMapper.readValue(json, List.class);
+        assertEquals(2, pedidos.size());
+        assertTrue(json.startsWith("[{\"id\":1,\"dataPedido\":\"2025-01-10T09:30:00\""));
+        assertTrue(json.contains("\"produtoNome\":\"Ração \\\"Premium\\\"\""));
+        assertTrue(json.contains("\"id\":2") && json.endsWith("\"itens\":[]}]"));
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void testExportarJsonInterrompidaNaoFechaOArray() {
+        // Arrange
+        when(pedidoRepository.streamParaExportacao(null, null, null)).thenReturn(Stream.of(pedido1, pedido2));
+        when(itemPedidoRepository.findByPedidoIdsComProduto(List.of(1L, 2L)))
+                .thenThrow(new RuntimeException("Conexão perdida"));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // Act
+        assertThrows(RuntimeException.class,
+                () -> exportacaoService.exportar(Formato.JSON, null, null, null, saida));
+
+        // Assert
+        assertEquals("[", saida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExportarNdjsonUmPedidoPorLinha() throws Exception {
+        // Arrange
+        when(pedidoRepository.streamParaExportacao(null, null, null)).thenReturn(Stream.of(pedido1, pedido2));
+        when(itemPedidoRepository.findByPedidoIdsComProduto(anyCollection())).thenReturn(List.of(item));
+
+        // Act
+        String[] linhas = exportar(Formato.NDJSON).split("\n");
+
+        // Assert
+        assertEquals(2, linhas.length);
+        assertTrue(linhas[0].startsWith("{\"id\":1,"));
+        assertTrue(linhas[1].startsWith("{\"id\":2,"));
+    }
+
+    @Test
+    void testExportarCsvUmaLinhaPorItem() throws Exception {
+        // Arrange
+        when(pedidoRepository.streamParaExportacao(null, null, null)).thenReturn(Stream.of(pedido1, pedido2));
+        when(itemPedidoRepository.findByPedidoIdsComProduto(anyCollection())).thenReturn(List.of(item));
+
+        // Act
+        String[] linhas = exportar(Formato.CSV).split("\r\n");
+
+        // Assert
+        assertEquals(3, linhas.length);
+        assertEquals(PedidoExportacaoService.CABECALHO_CSV, linhas[0]);
+        assertEquals("1,2025-01-10T09:30,ENTREGUE,pix,1,\"Silva, João\",179.8,3,7,\"Ração \"\"Premium\"\"\",2,89.9,179.8",
+                linhas[1]);
+        assertEquals("2,2025-01-11T15:00,PENDENTE,,1,\"Silva, João\",10.0,,,,,,", linhas[2]);
+    }
+
+    @Test
+    void testExportarEmLotesLimpaContextoACadaLote() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(exportacaoService, "tamanhoLote", 1);
+        when(pedidoRepository.streamParaExportacao(null, null, null)).thenReturn(Stream.of(pedido1, pedido2));
+        when(itemPedidoRepository.findByPedidoIdsComProduto(anyCollection())).thenReturn(List.of());
+
+        // Act
+        exportar(Formato.NDJSON);
+
+        // Assert
+        verify(itemPedidoRepository).findByPedidoIdsComProduto(List.of(1L));
+        verify(itemPedidoRepository).findByPedidoIdsComProduto(List.of(2L));
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testExportarSemPedidos() throws Exception {
+        // Arrange
+        when(pedidoRepository.streamParaExportacao(any(), any(), eq(StatusPedido.CANCELADO))).thenReturn(Stream.empty());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // Act
+        long total = exportacaoService.exportar(Formato.JSON, null, null, StatusPedido.CANCELADO, saida);
+
+        // Assert
+        assertEquals(0, total);
+        assertEquals("[]", saida.toString(StandardCharsets.UTF_8));
+        verifyNoInteractions(itemPedidoRepository, entityManager);
+    }
+
+    @Test
+    void testFormatoInvalido() {
+        assertEquals(Formato.CSV, Formato.de("csv"));
+        assertThrows(RuntimeException.class, () -> Formato.de("xml"));
+    }
+}
@@ -1,11 +1,15 @@
 package com.petshop.service;
 
+import com.petshop.dto.ItemPedidoProjecao;
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PedidoResponseDTO;
 import com.petshop.model.Cliente;
 import com.petshop.model.ItemPedido;
 import com.petshop.model.Pedido;
 import com.petshop.model.Pedido.StatusPedido;
 import com.petshop.model.Produto;
 import com.petshop.repository.ClienteRepository;
+import com.petshop.repository.ItemPedidoRepository;
 import com.petshop.repository.PedidoRepository;
 import com.petshop.repository.ProdutoRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +23,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,12 +36,24 @@ class PedidoServiceTest {
     @Mock
     private PedidoRepository pedidoRepository;
 
+    @Mock
+    private ItemPedidoRepository itemPedidoRepository;
+
     @Mock
     private ClienteRepository clienteRepository;
 
     @Mock
     private ProdutoRepository produtoRepository;
 
+    @Mock
+    private ReservaEstoque reservaEstoque;
+
+    @Mock
+    private VendasDiariasService vendasDiariasService;
+
+    @Mock
+    private MaisVendidos maisVendidos;
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -127,16 +144,20 @@ class PedidoServiceTest {
     @Test
     void testBuscarPorCliente() {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
-        when(pedidoRepository.findByClienteIdOrderByDataPedidoDesc(1L)).thenReturn(pedidos);
+        when(pedidoRepository.findRespostasByClienteId(1L)).thenReturn(Arrays.asList(resposta(pedido)));
+        when(itemPedidoRepository.findProjecoesByPedidoIds(List.of(1L))).thenReturn(List.of(
+                new ItemPedidoProjecao(1L, 5L, 1L, "Ração Premium", 2, 89.9, 179.8)));
 
         // Act
-        List<Pedido> resultado = pedidoService.buscarPorCliente(1L);
+        List<PedidoResponseDTO> resultado = pedidoService.buscarPorCliente(1L);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        verify(pedidoRepository, times(1)).findByClienteIdOrderByDataPedidoDesc(1L);
+        assertEquals(1, resultado.get(0).getItens().size());
+        assertEquals("Ração Premium", resultado.get(0).getItens().get(0).getProdutoNome());
+        verify(pedidoRepository, times(1)).findRespostasByClienteId(1L);
+        verify(pedidoRepository, never()).findByClienteIdOrderByDataPedidoDesc(any());
     }
 
     // ========== BuscarPorStatus Tests ==========
@@ -144,17 +165,17 @@ class PedidoServiceTest {
     @Test
     void testBuscarPorStatus() {
         // Arrange
-        List<Pedido> pedidos = Arrays.asList(pedido);
-        when(pedidoRepository.findByStatus(StatusPedido.PENDENTE)).thenReturn(pedidos);
+        when(pedidoRepository.findRespostasByStatus(StatusPedido.PENDENTE)).thenReturn(Arrays.asList(resposta(pedido)));
 
         // Act
-        List<Pedido> resultado = pedidoService.buscarPorStatus(StatusPedido.PENDENTE);
+        List<PedidoResponseDTO> resultado = pedidoService.buscarPorStatus(StatusPedido.PENDENTE);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        assertEquals(StatusPedido.PENDENTE, resultado.get(0).getStatus());
-        verify(pedidoRepository, times(1)).findByStatus(StatusPedido.PENDENTE);
+        assertEquals("PENDENTE", resultado.get(0).getStatus());
+        assertTrue(resultado.get(0).getItens().isEmpty());
+        verify(pedidoRepository, times(1)).findRespostasByStatus(StatusPedido.PENDENTE);
     }
 
     // ========== BuscarPorPeriodo Tests ==========
@@ -353,7 +374,7 @@ class PedidoServiceTest {
         itemPedido.setPedido(pedido);
         pedido.getItens().add(itemPedido);
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+        when(reservaEstoque.reservar(1L, Map.of(1L, 2))).thenReturn(Optional.empty());
         when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
 
         // Act
@@ -362,7 +383,10 @@ class PedidoServiceTest {
         // Assert
         assertNotNull(resultado);
         assertEquals(StatusPedido.CONFIRMADO, resultado.getStatus());
-        verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(reservaEstoque, times(1)).confirmar(1L, Map.of(1L, 2));
+        verify(vendasDiariasService, times(1)).registrar(pedido);
+        verify(maisVendidos, times(1)).registrar(pedido);
+        verify(produtoRepository, never()).save(any(Produto.class));
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
     }
 
@@ -386,13 +410,53 @@ class PedidoServiceTest {
         itemPedido.setPedido(pedido);
         pedido.getItens().add(itemPedido);
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(reservaEstoque.reservar(1L, Map.of(1L, 100))).thenReturn(Optional.of(1L));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             pedidoService.confirmar(1L);
         });
 
-        assertTrue(exception.getMessage().contains("Estoque insuficiente"));
+        assertEquals("Estoque insuficiente para o produto: Ração Premium", exception.getMessage());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(reservaEstoque, never()).confirmar(any(), any());
+        verify(vendasDiariasService, never()).registrar(any());
+        verify(maisVendidos, never()).registrar(any());
+    }
+
+    @Test
+    void testConfirmarEstoqueConsumidoPorOutroPedido() {
+        // Arrange: o estoque lido do produto sobra, mas o saldo já foi reservado por outro pedido
+        itemPedido.setPedido(pedido);
+        pedido.getItens().add(itemPedido);
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(reservaEstoque.reservar(1L, Map.of(1L, 2))).thenReturn(Optional.of(1L));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            pedidoService.confirmar(1L);
+        });
+
+        assertEquals("Estoque insuficiente para o produto: Ração Premium", exception.getMessage());
+    }
+
+    @Test
+    void testConfirmarItensRepetidosContamUmProduto() {
+        // Arrange
+        ItemPedido outroItem = new ItemPedido(produto, 3);
+        itemPedido.setPedido(pedido);
+        pedido.getItens().add(itemPedido);
+        pedido.getItens().add(outroItem);
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(reservaEstoque.reservar(1L, Map.of(1L, 5))).thenReturn(Optional.empty());
+        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.confirmar(1L);
+
+        // Assert
+        assertEquals(StatusPedido.CONFIRMADO, resultado.getStatus());
+        verify(reservaEstoque, times(1)).confirmar(1L, Map.of(1L, 5));
     }
 
     // ========== AtualizarStatus Tests ==========
@@ -439,6 +503,8 @@ class PedidoServiceTest {
         // Assert
         assertEquals(StatusPedido.CANCELADO, resultado.getStatus());
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(reservaEstoque, never()).devolver(any(), any());
+        verify(vendasDiariasService, never()).estornar(any());
     }
 
     @Test
@@ -447,9 +513,7 @@ class PedidoServiceTest {
         pedido.setStatus(StatusPedido.CONFIRMADO);
         itemPedido.setPedido(pedido);
         pedido.getItens().add(itemPedido);
-        produto.setQuantidadeEstoque(48); // Já reduzido
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
         when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
 
         // Act
@@ -457,8 +521,9 @@ class PedidoServiceTest {
 
         // Assert
         assertEquals(StatusPedido.CANCELADO, resultado.getStatus());
-        assertEquals(50, produto.getQuantidadeEstoque()); // 48 + 2
-        verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(reservaEstoque, times(1)).devolver(1L, Map.of(1L, 2));
+        verify(vendasDiariasService, times(1)).estornar(pedido);
+        verify(produtoRepository, never()).save(any(Produto.class));
     }
 
     @Test
@@ -532,4 +597,57 @@ class PedidoServiceTest {
         assertEquals(5L, resultado);
         verify(pedidoRepository, times(1)).countByStatus(StatusPedido.PENDENTE);
     }
+
+    // ========== Paginação Tests ==========
+
+    @Test
+    void testListarPaginaPrimeiraPagina() {
+        // Arrange
+        Pedido outro = new Pedido();
+        outro.setId(2L);
+        outro.setDataPedido(pedido.getDataPedido().minusDays(1));
+        when(pedidoRepository.findRespostasPrimeiraPagina(any()))
+                .thenReturn(Arrays.asList(resposta(pedido), resposta(outro)));
+
+        // Act
+        PaginaCursor<PedidoResponseDTO> pagina = pedidoService.listarPagina(null, 1);
+
+        // Assert
+        assertEquals(1, pagina.getItens().size());
+        assertTrue(pagina.temProxima());
+        String[] cursor = PaginaCursor.decodificar(pagina.getProximoCursor(), 2);
+        assertEquals(pedido.getDataPedido(), LocalDateTime.parse(cursor[0]));
+        assertEquals("1", cursor[1]);
+        // Itens só dos pedidos que ficaram na página
+        verify(itemPedidoRepository).findProjecoesByPedidoIds(List.of(1L));
+    }
+
+    @Test
+    void testListarPaginaComCursor() {
+        // Arrange
+        LocalDateTime data = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(pedidoRepository.findRespostasPaginaAntesDe(eq(data), eq(10L), any()))
+                .thenReturn(Arrays.asList(resposta(pedido)));
+
+        // Act
+        PaginaCursor<PedidoResponseDTO> pagina = pedidoService.listarPagina(PaginaCursor.codificar(data, 10L), 5);
+
+        // Assert
+        assertEquals(1, pagina.getItens().size());
+        assertFalse(pagina.temProxima());
+        verify(pedidoRepository, never()).findRespostasPrimeiraPagina(any());
+    }
+
+    @Test
+    void testListarPaginaCursorInvalido() {
+        String cursor = PaginaCursor.codificar("nao-e-data", "x");
+
+        assertThrows(RuntimeException.class, () -> pedidoService.listarPagina(cursor, 5));
+    }
+
+    private PedidoResponseDTO resposta(Pedido origem) {
+        return new PedidoResponseDTO(origem.getId(), origem.getDataPedido(), origem.getValorTotal(),
+                origem.getStatus(), origem.getFormaPagamento(), origem.getObservacoes(),
+                cliente.getId(), cliente.getNome(), cliente.getTelefone());
+    }
 }
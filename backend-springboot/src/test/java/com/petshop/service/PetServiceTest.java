@@ -1,5 +1,7 @@
 package com.petshop.service;
 
+import com.petshop.dto.PaginaCursor;
+import com.petshop.dto.PetResponseDTO;
 import com.petshop.model.Cliente;
 import com.petshop.model.Pet;
 import com.petshop.repository.ClienteRepository;
@@ -102,32 +104,56 @@ class PetServiceTest {
     @Test
     void testBuscarPorCliente() {
         // Arrange
-        List<Pet> pets = Arrays.asList(pet);
-        when(petRepository.findByClienteId(1L)).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta());
+        when(petRepository.findRespostasByClienteId(1L)).thenReturn(pets);
 
         // Act
-        List<Pet> resultado = petService.buscarPorCliente(1L);
+        List<PetResponseDTO> resultado = petService.buscarPorCliente(1L);
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
-        verify(petRepository, times(1)).findByClienteId(1L);
+        assertEquals(1L, resultado.get(0).getClienteId());
+        verify(petRepository, times(1)).findRespostasByClienteId(1L);
+        verify(petRepository, never()).findByClienteId(any());
     }
 
     @Test
     void testBuscarPorTipo() {
         // Arrange
-        List<Pet> pets = Arrays.asList(pet);
-        when(petRepository.findByTipo("cao")).thenReturn(pets);
+        List<PetResponseDTO> pets = Arrays.asList(resposta());
+        when(petRepository.findRespostasByTipo("cao")).thenReturn(pets);
 
         // Act
-        List<Pet> resultado = petService.buscarPorTipo("cao");
+        List<PetResponseDTO> resultado = petService.buscarPorTipo("cao");
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
         assertEquals("cao", resultado.get(0).getTipo());
-        verify(petRepository, times(1)).findByTipo("cao");
+        verify(petRepository, times(1)).findRespostasByTipo("cao");
+    }
+
+    @Test
+    void testListarPaginaPorProjecao() {
+        // Arrange
+        PetResponseDTO outro = resposta();
+        outro.setId(2L);
+        when(petRepository.findRespostasPaginaAposId(eq(0L), any())).thenReturn(Arrays.asList(resposta(), outro));
+
+        // Act
+        PaginaCursor<PetResponseDTO> pagina = petService.listarPagina(null, 1);
+
+        // Assert
+        assertEquals(1, pagina.getItens().size());
+        assertTrue(pagina.temProxima());
+        assertEquals(1L, PaginaCursor.decodificarId(pagina.getProximoCursor()));
+    }
+
+    private PetResponseDTO resposta() {
+        return new PetResponseDTO(pet.getId(), pet.getNome(), pet.getTipo(), pet.getRaca(), pet.getIdade(),
+                pet.getPeso(), pet.getSexo(), pet.getCastrado(), pet.getObservacoes(), pet.getTemAlergia(),
+                pet.getPrecisaMedicacao(), pet.getComportamentoAgressivo(), cliente.getId(), cliente.getNome());
     }
 
     @Test
@@ -0,0 +1,104 @@
+package com.petshop.service;
+
+import com.petshop.model.Produto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProdutoBuscaIndiceTest {
+
+    private ProdutoBuscaIndice indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new ProdutoBuscaIndice(50);
+        indice.reconstruir(List.of(
+                produto(1L, "Ração Premium para Cães", "Alimento completo", true),
+                produto(2L, "Petisco Natural", "Complemento da ração diária", true),
+                produto(3L, "Coleira Antipulgas", "Proteção por oito meses", true),
+                produto(4L, "Ração Light", "Linha descontinuada", false)));
+    }
+
+    private Produto produto(Long id, String nome, String descricao, boolean ativo) {
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setNome(nome);
+        produto.setDescricao(descricao);
+        produto.setAtivo(ativo);
+        return produto;
+    }
+
+    @Test
+    void testBuscaIgnoraAcentosEMaiusculas() {
+        assertEquals(List.of(1L, 2L), indice.buscar("RACAO"));
+        assertEquals(List.of(1L, 2L), indice.buscar("ração"));
+    }
+
+    @Test
+    void testBuscaPorPrefixo() {
+        assertEquals(List.of(3L), indice.buscar("col"));
+        assertEquals(List.of(3L), indice.buscar("antipul"));
+    }
+
+    @Test
+    void testNomeTemPrioridadeSobreDescricao() {
+        List<Long> resultado = indice.buscar("racao");
+
+        assertEquals(1L, resultado.get(0));
+        assertEquals(2L, resultado.get(1));
+    }
+
+    @Test
+    void testTodasAsPalavrasPrecisamCasar() {
+        assertEquals(List.of(1L), indice.buscar("racao caes"));
+        assertTrue(indice.buscar("racao gatos").isEmpty());
+    }
+
+    @Test
+    void testProdutoInativoNaoEIndexado() {
+        assertFalse(indice.buscar("light").contains(4L));
+        assertEquals(3, indice.tamanho());
+    }
+
+    @Test
+    void testReindexarSubstituiTextoAnterior() {
+        indice.indexar(produto(3L, "Peitoral Ajustável", "Nylon", true));
+
+        assertTrue(indice.buscar("coleira").isEmpty());
+        assertEquals(List.of(3L), indice.buscar("ajustavel"));
+    }
+
+    @Test
+    void testRemover() {
+        indice.remover(1L);
+
+        assertEquals(List.of(2L), indice.buscar("racao"));
+    }
+
+    @Test
+    void testPalavraMaiorQuePrefixoIndexadoConfirmaPalavraCompleta() {
+        indice.indexar(produto(5L, "Antiparasitário", "Uso externo", true));
+
+        assertEquals(List.of(5L), indice.buscar("antiparasitario"));
+        assertTrue(indice.buscar("antiparasitarioxyz").isEmpty());
+    }
+
+    @Test
+    void testTermoVazio() {
+        assertTrue(indice.buscar("  ").isEmpty());
+        assertTrue(indice.buscar(null).isEmpty());
+    }
+
+    @Test
+    void testLimiteDeResultados() {
+        ProdutoBuscaIndice limitado = new ProdutoBuscaIndice(1);
+        limitado.reconstruir(List.of(
+                produto(1L, "Ração A", null, true),
+                produto(2L, "Ração B", null, true)));
+
+        assertEquals(List.of(1L), limitado.buscar("racao"));
+    }
+}
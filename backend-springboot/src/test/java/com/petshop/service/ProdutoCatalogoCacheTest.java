@@ -0,0 +1,102 @@
+package com.petshop.service;
+
+import com.petshop.model.Categoria;
+import com.petshop.model.Produto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProdutoCatalogoCacheTest {
+
+    private ProdutoCatalogoCache cache;
+    private Produto produto;
+    private AtomicInteger carregamentos;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProdutoCatalogoCache(100, 60);
+        carregamentos = new AtomicInteger();
+
+        Categoria categoria = new Categoria();
+        categoria.setId(1L);
+        categoria.setNome("Ração");
+
+        produto = new Produto();
+        produto.setId(1L);
+        produto.setNome("Ração Premium");
+        produto.setCategoria(categoria);
+    }
+
+    private List<Produto> carregar() {
+        carregamentos.incrementAndGet();
+        return List.of(produto);
+    }
+
+    @Test
+    void testLeituraRepetidaServidaDoCache() {
+        cache.disponiveis(this::carregar);
+        cache.disponiveis(this::carregar);
+
+        assertEquals(1, carregamentos.get());
+        Map<String, Object> stats = cache.estatisticas();
+        assertEquals(1L, stats.get("acertos"));
+        assertEquals(1L, stats.get("falhas"));
+    }
+
+    @Test
+    void testInvalidarProdutoRemoveSomenteCategoriaAfetada() {
+        cache.porCategoria(1L, this::carregar);
+        cache.porCategoria(2L, this::carregar);
+        cache.disponiveis(this::carregar);
+
+        cache.invalidarProduto(produto);
+
+        cache.porCategoria(1L, this::carregar);
+        cache.porCategoria(2L, this::carregar);
+        cache.disponiveis(this::carregar);
+
+        // categoria 1 e listagem global recarregadas, categoria 2 preservada
+        assertEquals(5, carregamentos.get());
+        assertEquals(1L, cache.estatisticas().get("invalidacoes"));
+    }
+
+    @Test
+    void testInvalidarCategoriaDesconhecidaLimpaTudo() {
+        cache.porCategoria(1L, this::carregar);
+        cache.disponiveisPorCategoria(2L, this::carregar);
+
+        produto.setCategoria(null);
+        cache.invalidarProduto(produto);
+
+        cache.porCategoria(1L, this::carregar);
+        cache.disponiveisPorCategoria(2L, this::carregar);
+
+        assertEquals(4, carregamentos.get());
+    }
+
+    @Test
+    void testInvalidarCategorias() {
+        cache.disponiveisPorCategoria(1L, this::carregar);
+        cache.disponiveisPorCategoria(3L, this::carregar);
+
+        cache.invalidarCategorias(Set.of(1L));
+
+        cache.disponiveisPorCategoria(1L, this::carregar);
+        cache.disponiveisPorCategoria(3L, this::carregar);
+
+        assertEquals(3, carregamentos.get());
+    }
+
+    @Test
+    void testListaRetornadaImutavel() {
+        List<Produto> resultado = cache.disponiveis(this::carregar);
+
+        assertThrows(UnsupportedOperationException.class, () -> resultado.add(new Produto()));
+    }
+}
@@ -1,14 +1,18 @@
 package com.petshop.service;
 
+import com.petshop.dto.MaisVendidoDTO;
+import com.petshop.dto.PaginaCursor;
 import com.petshop.model.Produto;
 import com.petshop.model.Categoria;
 import com.petshop.repository.ProdutoRepository;
 import com.petshop.repository.CategoriaRepository;
+import com.petshop.service.ContadorSpaceSaving.Contagem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -28,6 +32,24 @@ class ProdutoServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Spy
+    private ProdutoCatalogoCache catalogoCache = new ProdutoCatalogoCache(100, 60);
+
+    @Spy
+    private ProdutoBuscaIndice buscaIndice = new ProdutoBuscaIndice(50);
+
+    @Spy
+    private CatalogoVersoes catalogoVersoes = new CatalogoVersoes();
+
+    @Mock
+    private ReservaEstoque reservaEstoque;
+
+    @Mock
+    private LivroEstoque livroEstoque;
+
+    @Mock
+    private MaisVendidos maisVendidos;
+
     @InjectMocks
     private ProdutoService produtoService;
 
@@ -82,6 +104,38 @@ class ProdutoServiceTest {
         verify(produtoRepository, times(1)).findProdutosDisponiveis();
     }
 
+    @Test
+    void testListarDisponiveisUsaCache() {
+        // Arrange
+        when(produtoRepository.findProdutosDisponiveis()).thenReturn(Arrays.asList(produto));
+
+        // Act
+        produtoService.listarDisponiveis();
+        List<Produto> resultado = produtoService.listarDisponiveis();
+
+        // Assert
+        assertEquals(1, resultado.size());
+        verify(produtoRepository, times(1)).findProdutosDisponiveis();
+    }
+
+    @Test
+    void testReduzirEstoqueInvalidaCache() {
+        // Arrange
+        when(produtoRepository.findProdutosDisponiveisPorCategoria(1L)).thenReturn(Arrays.asList(produto));
+        when(reservaEstoque.baixar(1L, 5)).thenReturn(true);
+        when(produtoRepository.reduzirEstoque(1L, 5)).thenReturn(1);
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        produtoService.listarDisponiveisPorCategoria(1L);
+
+        // Act
+        produtoService.reduzirEstoque(1L, 5);
+        produtoService.listarDisponiveisPorCategoria(1L);
+
+        // Assert
+        verify(catalogoCache, times(1)).invalidarProduto(produto);
+        verify(produtoRepository, times(2)).findProdutosDisponiveisPorCategoria(1L);
+    }
+
     @Test
     void testBuscarPorId() {
         // Arrange
@@ -124,6 +178,7 @@ class ProdutoServiceTest {
         assertEquals(categoria, resultado.getCategoria());
         verify(categoriaRepository, times(1)).findById(1L);
         verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(livroEstoque, times(1)).importar(1L, 50);
     }
 
     @Test
@@ -162,6 +217,8 @@ class ProdutoServiceTest {
         assertEquals("Ração Premium Plus", resultado.getNome());
         verify(produtoRepository, times(1)).findById(1L);
         verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(livroEstoque, times(1)).ajustar(1L, 10);
+        verify(reservaEstoque, times(1)).estoqueAlterado(1L, 10);
     }
 
     @Test
@@ -193,13 +250,16 @@ class ProdutoServiceTest {
         assertEquals(100, resultado.getQuantidadeEstoque());
         verify(produtoRepository, times(1)).findById(1L);
         verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(reservaEstoque, times(1)).estoqueAlterado(1L, 50); // 100 - 50
+        verify(livroEstoque, times(1)).ajustar(1L, 50);
     }
 
     @Test
     void testAdicionarEstoque() {
         // Arrange
+        when(produtoRepository.adicionarEstoque(1L, 25)).thenReturn(1);
+        produto.setQuantidadeEstoque(75); // valor gravado pelo UPDATE
         when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
-        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
 
         // Act
         Produto resultado = produtoService.adicionarEstoque(1L, 25);
@@ -207,15 +267,32 @@ class ProdutoServiceTest {
         // Assert
         assertNotNull(resultado);
         assertEquals(75, resultado.getQuantidadeEstoque()); // 50 + 25
-        verify(produtoRepository, times(1)).findById(1L);
-        verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(produtoRepository, times(1)).adicionarEstoque(1L, 25);
+        verify(produtoRepository, never()).save(any(Produto.class));
+        verify(reservaEstoque, times(1)).estoqueAlterado(1L, 25);
+    }
+
+    @Test
+    void testAdicionarEstoqueProdutoNaoEncontrado() {
+        // Arrange
+        when(produtoRepository.adicionarEstoque(999L, 5)).thenReturn(0);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            produtoService.adicionarEstoque(999L, 5);
+        });
+
+        assertEquals("Produto não encontrado com ID: 999", exception.getMessage());
+        verify(catalogoVersoes, never()).alterado(any(), any());
     }
 
     @Test
     void testReduzirEstoqueComSucesso() {
         // Arrange
+        when(reservaEstoque.baixar(1L, 20)).thenReturn(true);
+        when(produtoRepository.reduzirEstoque(1L, 20)).thenReturn(1);
+        produto.setQuantidadeEstoque(30); // valor gravado pelo UPDATE
         when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
-        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
 
         // Act
         Produto resultado = produtoService.reduzirEstoque(1L, 20);
@@ -223,13 +300,17 @@ class ProdutoServiceTest {
         // Assert
         assertNotNull(resultado);
         assertEquals(30, resultado.getQuantidadeEstoque()); // 50 - 20
-        verify(produtoRepository, times(1)).findById(1L);
-        verify(produtoRepository, times(1)).save(any(Produto.class));
+        verify(produtoRepository, times(1)).reduzirEstoque(1L, 20);
+        verify(produtoRepository, never()).save(any(Produto.class));
+        verify(reservaEstoque, never()).estoqueAlterado(any(), anyInt());
+        verify(livroEstoque, times(1)).ajustar(1L, -20);
+        verify(catalogoVersoes, times(1)).alterado(CatalogoVersoes.Recurso.PRODUTO, 1L);
     }
 
     @Test
     void testReduzirEstoqueInsuficiente() {
         // Arrange
+        when(reservaEstoque.baixar(1L, 100)).thenReturn(false);
         when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
 
         // Act & Assert
@@ -239,7 +320,35 @@ class ProdutoServiceTest {
         
         assertTrue(exception.getMessage().contains("Estoque insuficiente"));
         verify(produtoRepository, times(1)).findById(1L);
-        verify(produtoRepository, never()).save(any(Produto.class));
+        verify(produtoRepository, never()).reduzirEstoque(anyLong(), anyInt());
+        verify(livroEstoque, never()).ajustar(anyLong(), anyInt());
+        verify(catalogoCache, never()).invalidarProduto(any());
+    }
+
+    @Test
+    void testReduzirEstoqueComBaixaPendenteNaoConfiaNaColuna() {
+        // Arrange: a coluna ainda tem 50, mas baixas confirmadas e não
+        // gravadas deixaram o saldo abaixo de 30
+        when(reservaEstoque.baixar(1L, 30)).thenReturn(false);
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> produtoService.reduzirEstoque(1L, 30));
+        verify(produtoRepository, never()).reduzirEstoque(anyLong(), anyInt());
+    }
+
+    @Test
+    void testReduzirEstoqueProdutoNaoEncontrado() {
+        // Arrange
+        when(reservaEstoque.baixar(999L, 1)).thenReturn(false);
+        when(produtoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            produtoService.reduzirEstoque(999L, 1);
+        });
+
+        assertEquals("Produto não encontrado com ID: 999", exception.getMessage());
     }
 
     @Test
@@ -305,17 +414,44 @@ class ProdutoServiceTest {
     @Test
     void testBuscarPorNome() {
         // Arrange
-        List<Produto> produtos = Arrays.asList(produto);
-        when(produtoRepository.buscarPorNome("Ração")).thenReturn(produtos);
+        buscaIndice.reconstruir(Arrays.asList(produto));
+        when(produtoRepository.findAtivosPorIds(List.of(1L))).thenReturn(Arrays.asList(produto));
 
         // Act
-        List<Produto> resultado = produtoService.buscarPorNome("Ração");
+        List<Produto> resultado = produtoService.buscarPorNome("racao");
 
         // Assert
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
         assertTrue(resultado.get(0).getNome().contains("Ração"));
-        verify(produtoRepository, times(1)).buscarPorNome("Ração");
+        verify(produtoRepository, times(1)).findAtivosPorIds(List.of(1L));
+    }
+
+    @Test
+    void testBuscarPorNomeSemResultadoNaoConsultaBanco() {
+        // Arrange
+        buscaIndice.reconstruir(Arrays.asList(produto));
+
+        // Act
+        List<Produto> resultado = produtoService.buscarPorNome("coleira");
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verify(produtoRepository, never()).findAtivosPorIds(anyCollection());
+    }
+
+    @Test
+    void testDesativarRemoveDoIndiceDeBusca() {
+        // Arrange
+        buscaIndice.reconstruir(Arrays.asList(produto));
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+
+        // Act
+        produtoService.desativar(1L);
+
+        // Assert
+        assertTrue(buscaIndice.buscar("premium").isEmpty());
+        assertEquals(0, buscaIndice.tamanho());
     }
 
     @Test
@@ -334,4 +470,69 @@ class ProdutoServiceTest {
         assertTrue(resultado.get(0).getQuantidadeEstoque() < 10);
         verify(produtoRepository, times(1)).findByQuantidadeEstoqueLessThan(10);
     }
+
+    @Test
+    void testListarPaginaAposCursor() {
+        // Arrange
+        when(produtoRepository.findPaginaAposId(eq(3L), any())).thenReturn(Arrays.asList(produto));
+
+        // Act
+        PaginaCursor<Produto> pagina = produtoService.listarPagina(PaginaCursor.codificar(3L), 10);
+
+        // Assert
+        assertEquals(1, pagina.getItens().size());
+        assertFalse(pagina.temProxima());
+        verify(produtoRepository, never()).findAll();
+    }
+
+    @Test
+    void testListarMaisVendidosSoEntreDisponiveis() {
+        // Arrange: o produto 2 vendeu mais, mas saiu de estoque; o limite de 1
+        // ainda traz o produto 1
+        when(maisVendidos.maisVendidos(7, null, Integer.MAX_VALUE))
+                .thenReturn(List.of(new Contagem(2L, 40, 3), new Contagem(1L, 25, 0)));
+        when(produtoRepository.findProdutosDisponiveis()).thenReturn(List.of(produto));
+
+        // Act
+        List<MaisVendidoDTO> resultado = produtoService.listarMaisVendidos(7, null, 1);
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(1L, resultado.get(0).produtoId());
+        assertEquals("Ração Premium", resultado.get(0).nome());
+        assertEquals(25L, resultado.get(0).quantidadeVendida());
+        assertEquals(1L, resultado.get(0).categoriaId());
+    }
+
+    @Test
+    void testListarMaisVendidosCortaNoLimiteDepoisDoFiltro() {
+        // Arrange
+        Produto petisco = new Produto();
+        petisco.setId(3L);
+        petisco.setNome("Petisco");
+        petisco.setPreco(10.0);
+        petisco.setCategoria(produto.getCategoria());
+        when(maisVendidos.maisVendidos(7, null, Integer.MAX_VALUE)).thenReturn(List.of(
+                new Contagem(3L, 40, 0), new Contagem(1L, 25, 0), new Contagem(2L, 10, 0)));
+        when(produtoRepository.findProdutosDisponiveis()).thenReturn(List.of(produto, petisco));
+
+        // Act
+        List<MaisVendidoDTO> resultado = produtoService.listarMaisVendidos(7, null, 2);
+
+        // Assert
+        assertEquals(List.of(3L, 1L), resultado.stream().map(MaisVendidoDTO::produtoId).toList());
+    }
+
+    @Test
+    void testListarMaisVendidosSemVendasNaoConsultaProdutos() {
+        // Arrange
+        when(maisVendidos.maisVendidos(30, 1L, Integer.MAX_VALUE)).thenReturn(List.of());
+
+        // Act
+        List<MaisVendidoDTO> resultado = produtoService.listarMaisVendidos(30, 1L, 5);
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(produtoRepository);
+    }
 }
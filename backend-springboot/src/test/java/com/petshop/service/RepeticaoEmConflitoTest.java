@@ -0,0 +1,120 @@
+package com.petshop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepeticaoEmConflitoTest {
+
+    // Serviço falso que entra em conflito nas primeiras chamadas
+    static class Servico {
+        int chamadas;
+        int conflitos;
+
+        @RepetirEmConflito
+        public String atualizar() {
+            chamadas++;
+            if (chamadas <= conflitos) {
+                throw new ObjectOptimisticLockingFailureException("Pedido", 1L);
+            }
+            return "ok";
+        }
+
+        @RepetirEmConflito
+        public String falhar() {
+            chamadas++;
+            throw new RuntimeException("Pedido não encontrado com ID: 1");
+        }
+
+        public String semAnotacao() {
+            chamadas++;
+            throw new ObjectOptimisticLockingFailureException("Pedido", 1L);
+        }
+    }
+
+    private Servico alvo;
+    private Servico servico;
+
+    @BeforeEach
+    void setUp() {
+        alvo = new Servico();
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(alvo);
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAspect(new RepeticaoEmConflito(3, 1, 5));
+        servico = fabrica.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void testRepeteAteConseguir() {
+        // Arrange
+        alvo.conflitos = 2;
+
+        // Act
+        String resultado = servico.atualizar();
+
+        // Assert
+        assertEquals("ok", resultado);
+        assertEquals(3, alvo.chamadas);
+    }
+
+    @Test
+    void testDesisteDepoisDasTentativas() {
+        // Arrange
+        alvo.conflitos = 10;
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> servico.atualizar());
+        assertEquals(3, alvo.chamadas);
+    }
+
+    @Test
+    void testOutrosErrosNaoSaoRepetidos() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> servico.falhar());
+        assertEquals(1, alvo.chamadas);
+    }
+
+    @Test
+    void testMetodoSemAnotacaoNaoRepete() {
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> servico.semAnotacao());
+        assertEquals(1, alvo.chamadas);
+    }
+
+    @Test
+    void testDentroDeTransacaoAbertaNaoRepete() {
+        // Arrange
+        alvo.conflitos = 1;
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> servico.atualizar());
+        assertEquals(1, alvo.chamadas);
+    }
+
+    @Test
+    void testEsperaTemJitterLimitadoPeloTeto() {
+        // Arrange
+        RepeticaoEmConflito repeticao = new RepeticaoEmConflito(5, 20, 100);
+
+        // Act & Assert
+        for (int i = 0; i < 200; i++) {
+            assertTrue(repeticao.espera(1) <= 20);
+            assertTrue(repeticao.espera(2) <= 40);
+            long espera = repeticao.espera(10);
+            assertTrue(espera >= 0 && espera <= 100);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.petshop.service;
+
+import com.petshop.model.MovimentacaoEstoque.TipoMovimentacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservaEstoqueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private LivroEstoque livroEstoque;
+
+    @Mock
+    private ProdutoCatalogoCache catalogoCache;
+
+    @Mock
+    private CatalogoVersoes catalogoVersoes;
+
+    private ReservaEstoque reserva;
+
+    @BeforeEach
+    void setUp() {
+        reserva = new ReservaEstoque(jdbcTemplate, transactionManager, livroEstoque, catalogoCache, catalogoVersoes, 60000, 200);
+    }
+
+    @Test
+    void testReservarBaixaSaldoSemTocarNoEstoqueDoBanco() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+
+        // Act
+        Optional<Long> semSaldo = reserva.reservar(100L, Map.of(1L, 4));
+
+        // Assert
+        assertTrue(semSaldo.isEmpty());
+        assertEquals(Optional.of(6), reserva.disponivel(1L));
+        assertEquals(1, reserva.quantidadeReservada());
+        verifyNoInteractions(livroEstoque);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testReservarEhTudoOuNada() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        estoqueNoBanco(2L, 1, 5L);
+
+        // Act
+        Optional<Long> semSaldo = reserva.reservar(100L, Map.of(1L, 4, 2L, 3));
+
+        // Assert
+        assertEquals(Optional.of(2L), semSaldo);
+        assertEquals(Optional.of(10), reserva.disponivel(1L));
+        assertEquals(Optional.of(1), reserva.disponivel(2L));
+        assertEquals(0, reserva.quantidadeReservada());
+    }
+
+    @Test
+    void testReservarProdutoInexistente() {
+        // Arrange
+        when(jdbcTemplate.query(eq(ReservaEstoque.SQL_SALDO), any(ResultSetExtractor.class), eq(9L))).thenReturn(null);
+
+        // Act
+        Optional<Long> semSaldo = reserva.reservar(100L, Map.of(9L, 1));
+
+        // Assert
+        assertEquals(Optional.of(9L), semSaldo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConfirmarEDescarregarGravaUmLotePorProduto() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 2));
+        reserva.reservar(101L, Map.of(1L, 3));
+        colunaAceita();
+
+        // Act
+        reserva.confirmar(100L, Map.of(1L, 2));
+        reserva.confirmar(101L, Map.of(1L, 3));
+        int produtos = reserva.descarregar();
+
+        // Assert
+        verify(livroEstoque).registrar(TipoMovimentacao.BAIXA, 100L, Map.of(1L, -2));
+        verify(livroEstoque).registrar(TipoMovimentacao.BAIXA, 101L, Map.of(1L, -3));
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), lote.capture());
+        assertEquals(1, produtos);
+        assertEquals(1, lote.getValue().size());
+        assertArrayEquals(new Object[]{-5, 1L, -5}, lote.getValue().get(0));
+        assertEquals(Optional.of(5), reserva.disponivel(1L));
+        assertEquals(0, reserva.quantidadePendente());
+        verify(catalogoCache).invalidarCategorias(Set.of(5L));
+        verify(catalogoVersoes).alterados(CatalogoVersoes.Recurso.PRODUTO, Set.of(1L));
+    }
+
+    @Test
+    void testDevolucaoAntesDaGravacaoAnulaABaixa() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 2));
+        reserva.confirmar(100L, Map.of(1L, 2));
+
+        // Act
+        reserva.devolver(100L, Map.of(1L, 2));
+        int produtos = reserva.descarregar();
+
+        // Assert
+        assertEquals(0, produtos);
+        assertEquals(Optional.of(10), reserva.disponivel(1L));
+        verify(livroEstoque).registrar(TipoMovimentacao.DEVOLUCAO, 100L, Map.of(1L, 2));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testExpirarDevolveReservasVencidas() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+
+        // Act
+        int cedo = reserva.expirar(System.currentTimeMillis());
+        int tarde = reserva.expirar(System.currentTimeMillis() + 120000);
+
+        // Assert
+        assertEquals(0, cedo);
+        assertEquals(1, tarde);
+        assertEquals(Optional.of(10), reserva.disponivel(1L));
+        assertEquals(0, reserva.quantidadeReservada());
+    }
+
+    @Test
+    void testConfirmarReservaExpiradaBaixaMesmoAssim() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+        reserva.expirar(System.currentTimeMillis() + 120000);
+
+        // Act
+        reserva.confirmar(100L, Map.of(1L, 4));
+
+        // Assert
+        assertEquals(Optional.of(6), reserva.disponivel(1L));
+        assertEquals(1, reserva.quantidadePendente());
+    }
+
+    @Test
+    void testFalhaAoLancarNoLivroLiberaAReserva() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+        doThrow(new DataAccessResourceFailureException("banco fora"))
+                .when(livroEstoque).registrar(TipoMovimentacao.BAIXA, 100L, Map.of(1L, -4));
+
+        // Act
+        assertThrows(DataAccessResourceFailureException.class, () -> reserva.confirmar(100L, Map.of(1L, 4)));
+
+        // Assert: o saldo volta sem esperar o TTL e a reconstrução não fica bloqueada
+        assertEquals(Optional.of(10), reserva.disponivel(1L));
+        assertEquals(0, reserva.quantidadeReservada());
+        assertEquals(0, reserva.quantidadePendente());
+        when(livroEstoque.reconstruir()).thenReturn(1);
+        assertEquals(1, reserva.reconciliar());
+    }
+
+    @Test
+    void testFalhaNaGravacaoMantemPendencias() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 2));
+        reserva.confirmar(100L, Map.of(1L, 2));
+        when(jdbcTemplate.batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("banco fora"));
+
+        // Act
+        int produtos = reserva.descarregar();
+
+        // Assert
+        assertEquals(0, produtos);
+        assertEquals(1, reserva.quantidadePendente());
+        verify(catalogoVersoes, never()).alterados(any(), any());
+    }
+
+    @Test
+    void testVariacaoQueDeixariaAColunaNegativaFicaPendente() {
+        // Arrange: outra instância vendeu o estoque que o saldo ainda mostra
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+        reserva.confirmar(100L, Map.of(1L, 4));
+        when(jdbcTemplate.batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), anyList())).thenReturn(new int[]{0});
+
+        // Act
+        int produtos = reserva.descarregar();
+
+        // Assert
+        assertEquals(0, produtos);
+        assertEquals(1, reserva.quantidadePendente());
+        verify(catalogoVersoes, never()).alterados(any(), any());
+    }
+
+    @Test
+    void testVariacaoDeProdutoExcluidoEhDescartada() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+        reserva.confirmar(100L, Map.of(1L, 4));
+        when(jdbcTemplate.batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), anyList())).thenReturn(new int[]{0});
+        estoqueNoBanco(1L, null, null);
+
+        // Act
+        reserva.descarregar();
+
+        // Assert
+        assertEquals(0, reserva.quantidadePendente());
+    }
+
+    @Test
+    void testBaixarDecidePeloSaldoEDevolveNoRollback() {
+        // Arrange: 6 dos 10 da coluna já foram confirmados e não gravados
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 6));
+        reserva.confirmar(100L, Map.of(1L, 6));
+
+        // Act
+        boolean demais = reserva.baixar(1L, 5);
+        TransactionSynchronizationManager.initSynchronization();
+        boolean baixou;
+        List<TransactionSynchronization> sincronizacoes;
+        try {
+            baixou = reserva.baixar(1L, 3);
+            sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Optional<Integer> durante = reserva.disponivel(1L);
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        assertFalse(demais);
+        assertTrue(baixou);
+        assertEquals(Optional.of(1), durante);
+        assertEquals(Optional.of(4), reserva.disponivel(1L));
+    }
+
+    @Test
+    void testSincronizarAplicaAlteracaoFeitaPorFora() {
+        // Arrange: as Function Apps venderam 3 dos 10
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+        colunaNoBanco(1L, 7);
+
+        // Act
+        int ajustados = reserva.sincronizar();
+
+        // Assert
+        assertEquals(1, ajustados);
+        assertEquals(Optional.of(3), reserva.disponivel(1L));
+        verify(catalogoVersoes).alterados(CatalogoVersoes.Recurso.PRODUTO, Set.of(1L));
+        assertEquals(0, reserva.sincronizar());
+    }
+
+    @Test
+    void testSincronizarIgnoraAsGravacoesDestaInstancia() {
+        // Arrange: baixa gravada em lote e entrada de mercadoria direto na coluna
+        estoqueNoBanco(1L, 10, 5L);
+        colunaAceita();
+        reserva.reservar(100L, Map.of(1L, 2));
+        reserva.confirmar(100L, Map.of(1L, 2));
+        reserva.descarregar();
+        reserva.estoqueAlterado(1L, 5);
+        colunaNoBanco(1L, 13);
+
+        // Act
+        int ajustados = reserva.sincronizar();
+
+        // Assert
+        assertEquals(0, ajustados);
+        assertEquals(Optional.of(13), reserva.disponivel(1L));
+    }
+
+    @Test
+    void testSincronizarAdiadaComTransacaoEmAndamento() throws Exception {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 2));
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizacoes;
+        try {
+            reserva.confirmar(100L, Map.of(1L, 2));
+            sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act
+        int ajustados = CompletableFuture.supplyAsync(reserva::sincronizar).get();
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Assert
+        assertEquals(0, ajustados);
+        verify(jdbcTemplate, never()).query(eq(ReservaEstoque.SQL_SALDOS), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testEstoqueAlteradoNoBancoAcompanhaOSaldo() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 4));
+
+        // Act
+        reserva.estoqueAlterado(1L, 20);
+
+        // Assert
+        assertEquals(Optional.of(26), reserva.disponivel(1L));
+    }
+
+    @Test
+    void testReconciliarReconstroiDoLivroAntesDeCarregar() {
+        // Arrange
+        estoqueNoBanco(1L, 10, 5L);
+        reserva.reservar(100L, Map.of(1L, 2));
+        reserva.confirmar(100L, Map.of(1L, 2));
+        when(livroEstoque.reconstruir()).thenReturn(3);
+        colunaAceita();
+
+        // Act
+        int produtos = reserva.reconciliar();
+
+        // Assert: a baixa pendente é gravada antes, e a coluna é regravada do livro
+        assertEquals(3, produtos);
+        assertEquals(0, reserva.quantidadePendente());
+        InOrder ordem = inOrder(livroEstoque, jdbcTemplate);
+        ordem.verify(jdbcTemplate).batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), anyList());
+        ordem.verify(livroEstoque).reconstruir();
+        ordem.verify(jdbcTemplate).query(eq(ReservaEstoque.SQL_SALDOS), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testReconciliarEsperaTransacaoQueJaLancouNoLivro() throws Exception {
+        // Arrange: a baixa foi lançada e a transação ainda não terminou
+        estoqueNoBanco(1L, 10, 5L);
+        colunaAceita();
+        reserva.reservar(100L, Map.of(1L, 2));
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizacoes;
+        try {
+            reserva.confirmar(100L, Map.of(1L, 2));
+            sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act
+        CompletableFuture<Integer> durante = CompletableFuture.supplyAsync(reserva::reconciliar);
+        ExecutionException recusada = assertThrows(ExecutionException.class, durante::get);
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        int produtos = CompletableFuture.supplyAsync(reserva::reconciliar).get();
+
+        // Assert: só reconstrói depois que a baixa chegou à memória
+        assertTrue(recusada.getCause().getMessage().contains("tente reconstruir o estoque novamente"));
+        assertEquals(0, produtos);
+        verify(livroEstoque, times(1)).reconstruir();
+        assertEquals(0, reserva.quantidadePendente());
+    }
+
+    // Coluna lida pela sincronização
+    private void colunaNoBanco(Long produtoId, int quantidade) {
+        doAnswer(invocacao -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(produtoId);
+            when(rs.getInt(2)).thenReturn(quantidade);
+            ((RowCallbackHandler) invocacao.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(ReservaEstoque.SQL_SALDOS), any(RowCallbackHandler.class));
+    }
+
+    // Todas as linhas do lote atualizadas
+    private void colunaAceita() {
+        when(jdbcTemplate.batchUpdate(eq(ReservaEstoque.SQL_GRAVAR_PRODUTO), anyList())).thenAnswer(invocacao -> {
+            int[] linhas = new int[((List<?>) invocacao.getArgument(1)).size()];
+            Arrays.fill(linhas, 1);
+            return linhas;
+        });
+    }
+
+    // Linha de produtos lida quando o saldo é carregado sob demanda; sem
+    // quantidade, o produto não existe
+    @SuppressWarnings("unchecked")
+    private void estoqueNoBanco(Long produtoId, Integer quantidade, Long categoriaId) {
+        doAnswer(invocacao -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(quantidade != null);
+            if (quantidade != null) {
+                lenient().when(rs.getInt(1)).thenReturn(quantidade);
+                lenient().when(rs.getObject(2, Long.class)).thenReturn(categoriaId);
+            }
+            return ((ResultSetExtractor<Object>) invocacao.getArgument(1)).extractData(rs);
+        }).when(jdbcTemplate).query(eq(ReservaEstoque.SQL_SALDO), any(ResultSetExtractor.class), eq(produtoId));
+    }
+}
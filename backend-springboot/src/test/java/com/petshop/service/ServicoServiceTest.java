@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -23,6 +24,9 @@ class ServicoServiceTest {
     @Mock
     private ServicoRepository servicoRepository;
 
+    @Spy
+    private CatalogoVersoes catalogoVersoes = new CatalogoVersoes();
+
     @InjectMocks
     private ServicoService servicoService;
 
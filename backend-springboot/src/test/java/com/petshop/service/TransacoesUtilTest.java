@@ -0,0 +1,65 @@
+package com.petshop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransacoesUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSemTransacaoRodaNaHora() {
+        // Arrange
+        List<Object> execucoes = new ArrayList<>();
+
+        // Act
+        TransacoesUtil.aposCommit(() -> execucoes.add("commit"));
+        TransacoesUtil.aoConcluir(execucoes::add);
+
+        // Assert
+        assertEquals(List.of("commit", true), execucoes);
+    }
+
+    @Test
+    void testAposCommitEsperaOCommit() {
+        // Arrange
+        List<String> execucoes = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        TransacoesUtil.aposCommit(() -> execucoes.add("commit"));
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+
+        // Assert
+        assertTrue(execucoes.isEmpty());
+        sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of("commit"), execucoes);
+    }
+
+    @Test
+    void testAoConcluirInformaORollback() {
+        // Arrange
+        List<Boolean> resultados = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        TransacoesUtil.aoConcluir(resultados::add);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        assertEquals(List.of(false), resultados);
+    }
+}
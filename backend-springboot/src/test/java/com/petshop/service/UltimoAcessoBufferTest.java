@@ -0,0 +1,81 @@
+package com.petshop.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UltimoAcessoBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UltimoAcessoBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new UltimoAcessoBuffer(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDescarregarEnviaUmLoteOrdenadoComHorarioMaisRecente() {
+        // Arrange
+        LocalDateTime antes = LocalDateTime.of(2024, 1, 10, 8, 0);
+        LocalDateTime depois = antes.plusMinutes(5);
+        buffer.registrar(3L, antes);
+        buffer.registrar(1L, depois);
+        buffer.registrar(1L, antes);
+
+        // Act
+        int enviados = buffer.descarregar();
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(UltimoAcessoBuffer.SQL_ATUALIZAR), lote.capture());
+        assertEquals(2, enviados);
+        assertArrayEquals(new Object[]{depois, 1L, depois}, lote.getValue().get(0));
+        assertArrayEquals(new Object[]{antes, 3L, antes}, lote.getValue().get(1));
+        assertEquals(0, buffer.quantidadePendente());
+    }
+
+    @Test
+    void testDescarregarSemPendentesNaoAcessaBanco() {
+        // Act
+        int enviados = buffer.descarregar();
+
+        // Assert
+        assertEquals(0, enviados);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFalhaNoBancoDevolveHorariosAoBuffer() {
+        // Arrange
+        buffer.registrar(1L, LocalDateTime.now());
+        buffer.registrar(2L, LocalDateTime.now());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("banco fora"));
+
+        // Act
+        int enviados = buffer.descarregar();
+
+        // Assert
+        assertEquals(0, enviados);
+        assertEquals(2, buffer.quantidadePendente());
+    }
+}
@@ -0,0 +1,356 @@
+package com.petshop.service;
+
+import com.petshop.dto.VendaPeriodoDTO;
+import com.petshop.model.Categoria;
+import com.petshop.model.ItemPedido;
+import com.petshop.model.Pedido;
+import com.petshop.model.Produto;
+import com.petshop.repository.VendaDiariaRepository;
+import com.petshop.service.VendasDiariasService.Agrupamento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VendasDiariasServiceTest {
+
+    @Mock
+    private VendaDiariaRepository vendaDiariaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private VendasDiariasService service;
+    private Pedido pedido;
+    private Produto racao;
+    private Produto coleira;
+
+    @BeforeEach
+    void setUp() {
+        service = new VendasDiariasService(vendaDiariaRepository, jdbcTemplate, transactionManager, 200);
+
+        Categoria alimentos = new Categoria();
+        alimentos.setId(10L);
+        Categoria acessorios = new Categoria();
+        acessorios.setId(20L);
+
+        racao = new Produto();
+        racao.setId(2L);
+        racao.setPreco(50.0);
+        racao.setCategoria(alimentos);
+
+        coleira = new Produto();
+        coleira.setId(1L);
+        coleira.setPreco(30.0);
+        coleira.setCategoria(acessorios);
+
+        pedido = new Pedido();
+        pedido.setId(100L);
+        pedido.setDataPedido(LocalDateTime.of(2024, 3, 15, 23, 50));
+        pedido.setItens(new ArrayList<>(List.of(new ItemPedido(racao, 2), new ItemPedido(coleira, 1),
+                new ItemPedido(racao, 1))));
+    }
+
+    private Object[] soma(int quantidade, double receita, Long produtoId, Long categoriaId) {
+        return new Object[]{quantidade, receita, LocalDate.of(2024, 3, 15), produtoId, categoriaId};
+    }
+
+    // Parâmetros do lote de UPDATEs gravado pela descarga
+    @SuppressWarnings("unchecked")
+    private List<Object[]> loteGravado() {
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(VendasDiariasService.SQL_SOMAR), lote.capture());
+        return lote.getValue();
+    }
+
+    // Quantas linhas do lote já existem na tabela
+    private void linhasExistentes(int... atualizadas) {
+        when(jdbcTemplate.batchUpdate(eq(VendasDiariasService.SQL_SOMAR), anyList())).thenReturn(atualizadas);
+    }
+
+    @Test
+    void testRegistrarNaoTocaATabelaNaTransacaoDoPedido() {
+        // Act
+        service.registrar(pedido);
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(2, service.quantidadePendente());
+    }
+
+    @Test
+    void testDescarregarGravaUmaLinhaPorProdutoEmOrdemDeId() {
+        // Arrange
+        service.registrar(pedido);
+        linhasExistentes(1, 1);
+
+        // Act
+        int linhas = service.descarregar();
+
+        // Assert
+        assertEquals(2, linhas);
+        List<Object[]> lote = loteGravado();
+        assertArrayEquals(soma(1, 30.0, 1L, 20L), lote.get(0));
+        assertArrayEquals(soma(3, 150.0, 2L, 10L), lote.get(1));
+        verify(jdbcTemplate, never()).update(eq(VendasDiariasService.SQL_CRIAR), any(Object[].class));
+        assertEquals(0, service.quantidadePendente());
+    }
+
+    @Test
+    void testPedidosDoMesmoProdutoViramUmUpdate() {
+        // Arrange
+        Pedido outro = new Pedido();
+        outro.setId(101L);
+        outro.setDataPedido(LocalDateTime.of(2024, 3, 15, 10, 0));
+        outro.setItens(new ArrayList<>(List.of(new ItemPedido(coleira, 4))));
+        service.registrar(pedido);
+        service.registrar(outro);
+        linhasExistentes(1, 1);
+
+        // Act
+        service.descarregar();
+
+        // Assert
+        assertArrayEquals(soma(5, 150.0, 1L, 20L), loteGravado().get(0));
+    }
+
+    @Test
+    void testRollbackNaoAcumula() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.registrar(pedido);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act
+        int linhas = service.descarregar();
+
+        // Assert
+        assertEquals(0, linhas);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testRegistrarGravaACategoriaNosItens() {
+        // Act
+        service.registrar(pedido);
+
+        // Assert
+        assertEquals(List.of(10L, 20L, 10L), pedido.getItens().stream().map(ItemPedido::getCategoriaId).toList());
+    }
+
+    @Test
+    void testEstornoAntesDaGravacaoAnulaAVenda() {
+        // Arrange
+        service.registrar(pedido);
+        service.estornar(pedido);
+
+        // Act
+        int linhas = service.descarregar();
+
+        // Assert
+        assertEquals(0, linhas);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testEstornarUsaACategoriaDaConfirmacao() {
+        // Arrange
+        service.registrar(pedido);
+        linhasExistentes(1, 1);
+        service.descarregar();
+        Categoria higiene = new Categoria();
+        higiene.setId(30L);
+        racao.setCategoria(higiene);
+        service.estornar(pedido);
+        reset(jdbcTemplate);
+        linhasExistentes(1, 1);
+
+        // Act
+        service.descarregar();
+
+        // Assert
+        List<Object[]> lote = loteGravado();
+        assertArrayEquals(soma(-1, -30.0, 1L, 20L), lote.get(0));
+        assertArrayEquals(soma(-3, -150.0, 2L, 10L), lote.get(1));
+    }
+
+    @Test
+    void testPrimeiraVendaDoDiaCriaALinha() {
+        // Arrange
+        pedido.setItens(new ArrayList<>(List.of(new ItemPedido(coleira, 2))));
+        service.registrar(pedido);
+        linhasExistentes(0);
+
+        // Act
+        service.descarregar();
+
+        // Assert
+        verify(jdbcTemplate).update(VendasDiariasService.SQL_CRIAR,
+                LocalDate.of(2024, 3, 15), 1L, 20L, 2, 60.0);
+        verify(jdbcTemplate, never()).update(eq(VendasDiariasService.SQL_SOMAR), any(Object[].class));
+    }
+
+    @Test
+    void testLinhaCriadaPorOutraEscritaRefazOUpdate() {
+        // Arrange
+        pedido.setItens(new ArrayList<>(List.of(new ItemPedido(coleira, 2))));
+        service.registrar(pedido);
+        linhasExistentes(0);
+        when(jdbcTemplate.update(eq(VendasDiariasService.SQL_CRIAR), any(Object[].class)))
+                .thenThrow(new DuplicateKeyException("vendas_diarias"));
+
+        // Act
+        service.descarregar();
+
+        // Assert
+        verify(jdbcTemplate).update(VendasDiariasService.SQL_SOMAR, soma(2, 60.0, 1L, 20L));
+        // Savepoint antes do INSERT e rollback até ele depois da falha
+        verify(jdbcTemplate, times(2)).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void testFalhaNaGravacaoMantemPendencias() {
+        // Arrange
+        service.registrar(pedido);
+        when(jdbcTemplate.batchUpdate(eq(VendasDiariasService.SQL_SOMAR), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("banco fora"));
+
+        // Act
+        int linhas = service.descarregar();
+
+        // Assert
+        assertEquals(0, linhas);
+        assertEquals(2, service.quantidadePendente());
+    }
+
+    @Test
+    void testPorPeriodoAgrupaPorSemanaComecandoNaSegunda() {
+        // Arrange
+        LocalDate inicio = LocalDate.of(2024, 3, 1);
+        LocalDate fim = LocalDate.of(2024, 3, 31);
+        when(vendaDiariaRepository.somarPorDia(inicio, fim)).thenReturn(List.of(
+                new VendaPeriodoDTO(LocalDate.of(2024, 3, 10), 1L, 10.0),   // domingo
+                new VendaPeriodoDTO(LocalDate.of(2024, 3, 11), 2L, 20.0),   // segunda
+                new VendaPeriodoDTO(LocalDate.of(2024, 3, 17), 3L, 30.0))); // domingo
+
+        // Act
+        List<VendaPeriodoDTO> semanas = service.porPeriodo(inicio, fim, Agrupamento.SEMANA);
+
+        // Assert
+        assertEquals(List.of(
+                new VendaPeriodoDTO(LocalDate.of(2024, 3, 4), 1L, 10.0),
+                new VendaPeriodoDTO(LocalDate.of(2024, 3, 11), 5L, 50.0)), semanas);
+    }
+
+    @Test
+    void testPorPeriodoAgrupaPorMes() {
+        // Arrange
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        LocalDate fim = LocalDate.of(2024, 2, 29);
+        when(vendaDiariaRepository.somarPorDia(inicio, fim)).thenReturn(List.of(
+                new VendaPeriodoDTO(LocalDate.of(2024, 1, 5), 1L, 10.0),
+                new VendaPeriodoDTO(LocalDate.of(2024, 1, 31), 1L, 15.0),
+                new VendaPeriodoDTO(LocalDate.of(2024, 2, 29), 4L, 40.0)));
+
+        // Act
+        List<VendaPeriodoDTO> meses = service.porPeriodo(inicio, fim, Agrupamento.MES);
+
+        // Assert
+        assertEquals(List.of(
+                new VendaPeriodoDTO(LocalDate.of(2024, 1, 1), 2L, 25.0),
+                new VendaPeriodoDTO(LocalDate.of(2024, 2, 1), 4L, 40.0)), meses);
+    }
+
+    @Test
+    void testIntervaloInvertido() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                service.porCategoria(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1)));
+
+        assertEquals("A data final deve ser igual ou posterior à data inicial", exception.getMessage());
+        verifyNoInteractions(vendaDiariaRepository);
+    }
+
+    @Test
+    void testReconstruirDescartaAsSomasPendentes() {
+        // Arrange
+        service.registrar(pedido);
+
+        // Act
+        service.reconstruir();
+
+        // Assert: o consolidado regenerado já contém o pedido
+        assertEquals(0, service.quantidadePendente());
+        assertEquals(0, service.descarregar());
+    }
+
+    @Test
+    void testReconstruirEsperaPedidoQueJaRegistrouAVenda() throws Exception {
+        // Arrange: a venda foi registrada e a transação ainda não terminou
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizacoes;
+        try {
+            service.registrar(pedido);
+            sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Act
+        CompletableFuture<Integer> durante = CompletableFuture.supplyAsync(service::reconstruir);
+        ExecutionException recusada = assertThrows(ExecutionException.class, durante::get);
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        CompletableFuture.supplyAsync(service::reconstruir).get();
+
+        // Assert
+        assertTrue(recusada.getCause().getMessage().contains("tente reconstruir as vendas novamente"));
+        verify(vendaDiariaRepository, times(1)).apagarTudo();
+        assertEquals(0, service.quantidadePendente());
+    }
+
+    @Test
+    void testReconstruirApagaAntesDeRegenerar() {
+        // Arrange
+        when(vendaDiariaRepository.reconstruir(VendasDiariasService.STATUS_VENDIDOS)).thenReturn(7);
+
+        // Act
+        int linhas = service.reconstruir();
+
+        // Assert
+        assertEquals(7, linhas);
+        InOrder ordem = inOrder(vendaDiariaRepository);
+        ordem.verify(vendaDiariaRepository).apagarTudo();
+        ordem.verify(vendaDiariaRepository).reconstruir(VendasDiariasService.STATUS_VENDIDOS);
+        assertFalse(VendasDiariasService.STATUS_VENDIDOS.contains("CANCELADO"));
+    }
+}
@@ -5,11 +5,13 @@ import com.petshop.functions.shared.model.Cliente;
 import com.petshop.functions.shared.model.Usuario;
 import com.petshop.functions.shared.repository.ClienteRepository;
 import com.petshop.functions.shared.repository.UsuarioRepository;
+import com.petshop.functions.shared.security.HashingUnavailableException;
 import com.petshop.functions.shared.security.JwtService;
+import com.petshop.functions.shared.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -35,7 +37,8 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
@@ -59,10 +62,17 @@ public class AuthController {
             }
 
             Usuario usuario = usuarioOpt.get();
-            if (!passwordEncoder.matches(request.getSenha(), usuario.getSenha())) {
+            if (!passwordHasher.matches(request.getSenha(), usuario.getSenha())) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials"));
             }
 
+            if (passwordHasher.needsRehash(usuario.getSenha())) {
+                passwordHasher.rehash(request.getSenha()).ifPresent(newHash -> {
+                    usuario.setSenha(newHash);
+                    usuarioRepository.save(usuario);
+                });
+            }
+
             String token = jwtService.generateToken(usuario.getUsername(), usuario.getRole(), usuario.getClienteId());
 
             LoginResponseDTO response = new LoginResponseDTO();
@@ -77,6 +87,8 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (HashingUnavailableException e) {
+            return hashingUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Login failed: " + e.getMessage()));
@@ -109,7 +121,7 @@ public class AuthController {
             // Create Usuario
             Usuario usuario = new Usuario();
             usuario.setUsername(request.getUsername());
-            usuario.setSenha(passwordEncoder.encode(request.getSenha()));
+            usuario.setSenha(passwordHasher.hash(request.getSenha()));
             usuario.setEmail(request.getEmail());
             usuario.setRole("USER");
             usuario.setCliente(cliente);
@@ -126,6 +138,8 @@ public class AuthController {
 
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
 
+        } catch (HashingUnavailableException e) {
+            return hashingUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Registration failed: " + e.getMessage()));
@@ -229,18 +243,27 @@ public class AuthController {
 
             Usuario usuario = usuarioOpt.get();
             
-            if (!passwordEncoder.matches(currentPassword, usuario.getSenha())) {
+            if (!passwordHasher.matches(currentPassword, usuario.getSenha())) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Current password is incorrect"));
             }
 
-            usuario.setSenha(passwordEncoder.encode(newPassword));
+            usuario.setSenha(passwordHasher.hash(newPassword));
             usuarioRepository.save(usuario);
 
             return ResponseEntity.ok(Map.of("message", "Password changed successfully"));
 
+        } catch (HashingUnavailableException e) {
+            return hashingUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to change password: " + e.getMessage()));
         }
     }
+
+    // 429 or 503 with Retry-After when the password hashing pool is saturated
+    private ResponseEntity<?> hashingUnavailable(HashingUnavailableException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 }
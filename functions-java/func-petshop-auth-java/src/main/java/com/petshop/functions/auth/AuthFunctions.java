@@ -3,16 +3,18 @@ package com.petshop.functions.auth;
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
 import com.petshop.functions.shared.dto.*;
-import com.petshop.functions.shared.model.Cliente;
 import com.petshop.functions.shared.model.Usuario;
-import com.petshop.functions.shared.repository.ClienteRepository;
 import com.petshop.functions.shared.repository.UsuarioRepository;
 import com.petshop.functions.shared.security.FunctionAuthorization;
+import com.petshop.functions.shared.security.HashingUnavailableException;
+import com.petshop.functions.shared.security.JwtPrincipal;
 import com.petshop.functions.shared.security.JwtService;
+import com.petshop.functions.shared.security.PasswordHasher;
+import com.petshop.functions.shared.security.TokenRevocations;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -23,22 +25,26 @@ import java.util.Optional;
 public class AuthFunctions {
 
     private final UsuarioRepository usuarioRepository;
-    private final ClienteRepository clienteRepository;
     private final JwtService jwtService;
     private final FunctionAuthorization functionAuthorization;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final UserProfileCache userProfileCache;
+    private final TokenRevocations tokenRevocations;
 
     @Autowired
     public AuthFunctions(
             UsuarioRepository usuarioRepository,
-            ClienteRepository clienteRepository,
             JwtService jwtService,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            PasswordHasher passwordHasher,
+            UserProfileCache userProfileCache,
+            TokenRevocations tokenRevocations) {
         this.usuarioRepository = usuarioRepository;
-        this.clienteRepository = clienteRepository;
         this.jwtService = jwtService;
         this.functionAuthorization = functionAuthorization;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordHasher = passwordHasher;
+        this.userProfileCache = userProfileCache;
+        this.tokenRevocations = tokenRevocations;
     }
 
     /**
@@ -75,56 +81,58 @@ public class AuthFunctions {
                         .build();
             }
 
-            // Find user
+            // Find user, hash and linked cliente in a single query
             context.getLogger().info("Looking for user: " + loginRequest.getUsername());
-            Optional<Usuario> usuarioOpt = usuarioRepository.findByUsernameAndAtivo(loginRequest.getUsername(), true);
-        
-        if (usuarioOpt.isEmpty()) {
-            return request.createResponseBuilder(HttpStatus.UNAUTHORIZED)
-                    .header("Content-Type", "application/json")
-                    .body(Map.of("error", "Invalid credentials"))
-                    .build();
-        }
+            Optional<UsuarioLoginProjecao> loginOpt = usuarioRepository.findLoginByUsername(loginRequest.getUsername());
 
-        Usuario usuario = usuarioOpt.get();
+            if (loginOpt.isEmpty()) {
+                return request.createResponseBuilder(HttpStatus.UNAUTHORIZED)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("error", "Invalid credentials"))
+                        .build();
+            }
 
-        // Verify password
-        if (!passwordEncoder.matches(loginRequest.getSenha(), usuario.getSenha())) {
-            return request.createResponseBuilder(HttpStatus.UNAUTHORIZED)
-                    .header("Content-Type", "application/json")
-                    .body(Map.of("error", "Invalid credentials"))
-                    .build();
-        }
+            UsuarioLoginProjecao usuario = loginOpt.get();
 
-        // Get clienteId if user is a Cliente
-        Long clienteId = null;
-        String clienteNome = null;
-        if ("Cliente".equals(usuario.getRole())) {
-            Optional<Cliente> clienteOpt = clienteRepository.findByEmail(usuario.getEmail());
-            if (clienteOpt.isPresent()) {
-                clienteId = clienteOpt.get().getId();
-                clienteNome = clienteOpt.get().getNome();
+            // Verify password
+            if (!passwordHasher.matches(loginRequest.getSenha(), usuario.senha())) {
+                return request.createResponseBuilder(HttpStatus.UNAUTHORIZED)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("error", "Invalid credentials"))
+                        .build();
             }
-        }
 
-        // Generate JWT
-        String token = jwtService.generateToken(usuario.getUsername(), usuario.getRole(), clienteId);
+            // Upgrade hashes created with a different BCrypt cost
+            if (passwordHasher.needsRehash(usuario.senha())) {
+                passwordHasher.rehash(loginRequest.getSenha())
+                        .ifPresent(newHash -> usuarioRepository.atualizarSenha(usuario.id(), newHash));
+            }
 
-        LoginResponseDTO response = new LoginResponseDTO(
-                token,
-                usuario.getUsername(),
-                usuario.getEmail(),
-                usuario.getRole(),
-                clienteId,
-                clienteNome
-        );
+            // Generate JWT
+            String token = jwtService.generateToken(usuario.username(), usuario.role(), usuario.clienteId());
 
-        context.getLogger().info("Login successful for user: " + usuario.getUsername());
+            // Warm the profile cache so auth/me does not hit the database
+            userProfileCache.put(new UserProfileCache.UserProfile(usuario.id(), usuario.username(),
+                    usuario.email(), usuario.role()));
 
-        return request.createResponseBuilder(HttpStatus.OK)
-                .header("Content-Type", "application/json")
-                .body(response)
-                .build();
+            LoginResponseDTO response = new LoginResponseDTO(
+                    token,
+                    usuario.username(),
+                    usuario.email(),
+                    usuario.role(),
+                    usuario.clienteId(),
+                    usuario.clienteNome()
+            );
+
+            context.getLogger().info("Login successful for user: " + usuario.username());
+
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(response)
+                    .build();
+        } catch (HashingUnavailableException e) {
+            context.getLogger().warning("Login rejected, password hashing saturated: " + e.getMessage());
+            return hashingUnavailable(request, e);
         } catch (Exception e) {
             context.getLogger().severe("Login error: " + e.getMessage());
             e.printStackTrace();
@@ -185,10 +193,17 @@ public class AuthFunctions {
                     .build();
         }
 
+        String passwordHash;
+        try {
+            passwordHash = passwordHasher.hash(registerRequest.getSenha());
+        } catch (HashingUnavailableException e) {
+            return hashingUnavailable(request, e);
+        }
+
         // Create new user
         Usuario usuario = new Usuario();
         usuario.setUsername(registerRequest.getUsername());
-        usuario.setSenha(passwordEncoder.encode(registerRequest.getSenha()));
+        usuario.setSenha(passwordHash);
         usuario.setEmail(registerRequest.getEmail());
         usuario.setRole("Cliente"); // Default role
         usuario.setAtivo(true);
@@ -240,14 +255,14 @@ public class AuthFunctions {
                     .build();
         }
 
-        JwtService.TokenInfo tokenInfo = jwtService.validateAndExtract(tokenOpt.get());
-        
-        TokenValidationResponseDTO response = new TokenValidationResponseDTO(
-                tokenInfo.isValid(),
-                tokenInfo.username(),
-                tokenInfo.role(),
-                tokenInfo.clienteId()
-        );
+        // Revoked tokens are reported as invalid
+        TokenValidationResponseDTO response = functionAuthorization.resolvePrincipal(tokenOpt.get())
+                .map(principal -> new TokenValidationResponseDTO(
+                        true,
+                        principal.username(),
+                        principal.role(),
+                        principal.clienteId()))
+                .orElseGet(() -> new TokenValidationResponseDTO(false, null, null, null));
 
         return request.createResponseBuilder(HttpStatus.OK)
                 .header("Content-Type", "application/json")
@@ -255,6 +270,55 @@ public class AuthFunctions {
                 .build();
     }
 
+    /**
+     * POST /api/auth/logout
+     * Revokes the token sent in the Authorization header
+     */
+    @FunctionName("logout")
+    public HttpResponseMessage logout(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.POST},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "auth/logout"
+            ) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Processing logout request");
+
+        Optional<String> tokenOpt = functionAuthorization.extractToken(request);
+        if (tokenOpt.isEmpty()) {
+            return functionAuthorization.createUnauthorizedResponse(request, "Token not provided");
+        }
+        return revokeToken(request, tokenOpt.get(), HttpStatus.UNAUTHORIZED);
+    }
+
+    /**
+     * POST /api/auth/revoke
+     * Revokes the token given in the body (e.g. a session on another device)
+     */
+    @FunctionName("revokeToken")
+    public HttpResponseMessage revoke(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.POST},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "auth/revoke"
+            ) HttpRequestMessage<Optional<Map<String, String>>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Processing token revocation request");
+
+        String token = request.getBody().map(body -> body.get("token")).orElse(null);
+        if (token == null || token.isBlank()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Token is required"))
+                    .build();
+        }
+        return revokeToken(request, token, HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * GET /api/auth/me
      * Returns current user info from token
@@ -272,26 +336,35 @@ public class AuthFunctions {
         context.getLogger().info("Processing get current user request");
 
         return functionAuthorization.executeProtected(request, authResult -> {
-            Optional<Usuario> usuarioOpt = usuarioRepository.findByUsername(authResult.username());
-            
-            if (usuarioOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "User not found"))
-                        .build();
+            UserProfileCache.UserProfile profile = userProfileCache.get(authResult.username());
+
+            if (profile == null) {
+                Optional<Usuario> usuarioOpt = usuarioRepository.findByUsername(authResult.username());
+
+                if (usuarioOpt.isEmpty()) {
+                    return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                            .header("Content-Type", "application/json")
+                            .body(Map.of("error", "User not found"))
+                            .build();
+                }
+
+                Usuario usuario = usuarioOpt.get();
+                profile = new UserProfileCache.UserProfile(usuario.getId(), usuario.getUsername(),
+                        usuario.getEmail(), usuario.getRole());
+                userProfileCache.put(profile);
             }
 
-            Usuario usuario = usuarioOpt.get();
-            
+            // Map.of rejects nulls, and clienteId is null for non-Cliente users
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", profile.id());
+            body.put("username", profile.username());
+            body.put("email", profile.email());
+            body.put("role", profile.role());
+            body.put("clienteId", authResult.clienteId());
+
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
-                    .body(Map.of(
-                            "id", usuario.getId(),
-                            "username", usuario.getUsername(),
-                            "email", usuario.getEmail(),
-                            "role", usuario.getRole(),
-                            "clienteId", authResult.clienteId()
-                    ))
+                    .body(body)
                     .build();
         });
     }
@@ -342,16 +415,20 @@ public class AuthFunctions {
 
             Usuario usuario = usuarioOpt.get();
 
-            // Verify current password
-            if (!passwordEncoder.matches(currentPassword, usuario.getSenha())) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Current password is incorrect"))
-                        .build();
+            try {
+                // Verify current password
+                if (!passwordHasher.matches(currentPassword, usuario.getSenha())) {
+                    return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                            .header("Content-Type", "application/json")
+                            .body(Map.of("error", "Current password is incorrect"))
+                            .build();
+                }
+
+                // Update password
+                usuario.setSenha(passwordHasher.hash(newPassword));
+            } catch (HashingUnavailableException e) {
+                return hashingUnavailable(request, e);
             }
-
-            // Update password
-            usuario.setSenha(passwordEncoder.encode(newPassword));
             usuarioRepository.save(usuario);
 
             return request.createResponseBuilder(HttpStatus.OK)
@@ -360,4 +437,30 @@ public class AuthFunctions {
                     .build();
         });
     }
+
+    /**
+     * Records the token's jti until it expires; holding a valid token is enough to revoke it
+     */
+    private HttpResponseMessage revokeToken(HttpRequestMessage<?> request, String token, HttpStatus invalidStatus) {
+        Optional<JwtPrincipal> principal = jwtService.verify(token);
+        if (principal.isEmpty() || principal.get().tokenId() == null) {
+            return request.createResponseBuilder(invalidStatus)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Invalid, expired or non-revocable token"))
+                    .build();
+        }
+        tokenRevocations.revoke(principal.get().tokenId(), principal.get().expiresAtMillis());
+        return request.createResponseBuilder(HttpStatus.NO_CONTENT).build();
+    }
+
+    /**
+     * 429 or 503 with Retry-After when the password hashing pool is saturated
+     */
+    private HttpResponseMessage hashingUnavailable(HttpRequestMessage<?> request, HashingUnavailableException e) {
+        return request.createResponseBuilder(HttpStatus.valueOf(e.getStatusCode()))
+                .header("Content-Type", "application/json")
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()))
+                .build();
+    }
 }
@@ -0,0 +1,57 @@
+package com.petshop.functions.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived, per-instance cache of non-secret user data (never the password hash).
+ *
+ * Filled by login and by the first auth/me miss, so auth/me on a warm instance
+ * answers without a database round trip. Entries expire after a few minutes,
+ * which bounds how stale an email or role change can look.
+ */
+@Component
+public class UserProfileCache {
+
+    public record UserProfile(Long id, String username, String email, String role) {
+    }
+
+    private record Entry(UserProfile profile, long expiresAtMillis) {
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public UserProfileCache(@Value("${auth.profile-cache.ttl-ms:120000}") long ttlMillis,
+                            @Value("${auth.profile-cache.max-entries:5000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached profile, or null when missing or expired
+     */
+    public synchronized UserProfile get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAtMillis()) {
+            entries.remove(username);
+            return null;
+        }
+        return entry.profile();
+    }
+
+    public synchronized void put(UserProfile profile) {
+        entries.put(profile.username(), new Entry(profile, System.currentTimeMillis() + ttlMillis));
+    }
+}
@@ -1,5 +1,6 @@
 package com.petshop.functions.catalog;
 
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.*;
 import com.petshop.functions.shared.model.Categoria;
 import com.petshop.functions.shared.model.Produto;
@@ -7,10 +8,14 @@ import com.petshop.functions.shared.model.Servico;
 import com.petshop.functions.shared.repository.CategoriaRepository;
 import com.petshop.functions.shared.repository.ProdutoRepository;
 import com.petshop.functions.shared.repository.ServicoRepository;
+import com.petshop.functions.shared.search.ProductSearchIndex;
+import com.petshop.functions.shared.stock.StockLedger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -36,6 +41,18 @@ public class CatalogController {
     @Autowired
     private ServicoRepository servicoRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // ==================== HEALTH ====================
 
     @GetMapping("/api/categories/health")
@@ -64,7 +81,10 @@ public class CatalogController {
     // ==================== CATEGORIES ====================
 
     @GetMapping("/api/categories")
-    public ResponseEntity<List<CategoriaResponseDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoriaResponseDTO>> getAllCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.collectionEtag(CatalogVersions.Resource.CATEGORIA))) {
+            return null;
+        }
         List<Categoria> categorias = categoriaRepository.findAll();
         List<CategoriaResponseDTO> response = categorias.stream()
                 .map(this::toCategoriaResponseDTO)
@@ -73,7 +93,10 @@ public class CatalogController {
     }
 
     @GetMapping("/api/categories/{id}")
-    public ResponseEntity<?> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<?> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.itemEtag(CatalogVersions.Resource.CATEGORIA, id))) {
+            return null;
+        }
         Optional<Categoria> categoriaOpt = categoriaRepository.findById(id);
         if (categoriaOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -89,6 +112,7 @@ public class CatalogController {
             categoria.setNome(request.getNome());
             categoria.setDescricao(request.getDescricao());
             categoria = categoriaRepository.save(categoria);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, categoria.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(toCategoriaResponseDTO(categoria));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -108,6 +132,7 @@ public class CatalogController {
             if (request.getNome() != null) categoria.setNome(request.getNome());
             if (request.getDescricao() != null) categoria.setDescricao(request.getDescricao());
             categoria = categoriaRepository.save(categoria);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, id);
             return ResponseEntity.ok(toCategoriaResponseDTO(categoria));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -123,6 +148,7 @@ public class CatalogController {
                         .body(Map.of("error", "Category not found"));
             }
             categoriaRepository.deleteById(id);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, id);
             return ResponseEntity.ok(Map.of("message", "Category deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -133,7 +159,10 @@ public class CatalogController {
     // ==================== PRODUCTS ====================
 
     @GetMapping("/api/products")
-    public ResponseEntity<List<ProdutoResponseDTO>> getAllProducts() {
+    public ResponseEntity<List<ProdutoResponseDTO>> getAllProducts(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.collectionEtag(CatalogVersions.Resource.PRODUTO))) {
+            return null;
+        }
         List<Produto> produtos = produtoRepository.findAll();
         List<ProdutoResponseDTO> response = produtos.stream()
                 .map(this::toProdutoResponseDTO)
@@ -142,7 +171,10 @@ public class CatalogController {
     }
 
     @GetMapping("/api/products/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.itemEtag(CatalogVersions.Resource.PRODUTO, id))) {
+            return null;
+        }
         Optional<Produto> produtoOpt = produtoRepository.findById(id);
         if (produtoOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -152,7 +184,10 @@ public class CatalogController {
     }
 
     @GetMapping("/api/products/categoria/{categoriaId}")
-    public ResponseEntity<List<ProdutoResponseDTO>> getProductsByCategory(@PathVariable Long categoriaId) {
+    public ResponseEntity<List<ProdutoResponseDTO>> getProductsByCategory(@PathVariable Long categoriaId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.collectionEtag(CatalogVersions.Resource.PRODUTO))) {
+            return null;
+        }
         List<Produto> produtos = produtoRepository.findByCategoriaId(categoriaId);
         List<ProdutoResponseDTO> response = produtos.stream()
                 .map(this::toProdutoResponseDTO)
@@ -177,7 +212,14 @@ public class CatalogController {
             produto.setCategoria(categoriaOpt.get());
             produto.setUrlImagem(request.getUrlImagem());
             produto.setAtivo(request.getAtivo() != null ? request.getAtivo() : true);
-            produto = produtoRepository.save(produto);
+            Produto novo = produto;
+            produto = transactionTemplate.execute(status -> {
+                Produto salvo = produtoRepository.save(novo);
+                stockLedger.importStock(salvo.getId(), salvo.getQuantidadeEstoque());
+                return salvo;
+            });
+            productSearchIndex.index(produto);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produto.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(toProdutoResponseDTO(produto));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -194,6 +236,7 @@ public class CatalogController {
                         .body(Map.of("error", "Product not found"));
             }
             Produto produto = produtoOpt.get();
+            int estoqueAnterior = produto.getQuantidadeEstoque();
             if (request.getNome() != null) produto.setNome(request.getNome());
             if (request.getDescricao() != null) produto.setDescricao(request.getDescricao());
             if (request.getPreco() != null) produto.setPreco(request.getPreco());
@@ -204,7 +247,13 @@ public class CatalogController {
             }
             if (request.getUrlImagem() != null) produto.setUrlImagem(request.getUrlImagem());
             if (request.getAtivo() != null) produto.setAtivo(request.getAtivo());
-            produto = produtoRepository.save(produto);
+            Produto alterado = produto;
+            produto = transactionTemplate.execute(status -> {
+                stockLedger.adjust(id, alterado.getQuantidadeEstoque() - estoqueAnterior);
+                return produtoRepository.save(alterado);
+            });
+            productSearchIndex.index(produto);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
             return ResponseEntity.ok(toProdutoResponseDTO(produto));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -220,6 +269,8 @@ public class CatalogController {
                         .body(Map.of("error", "Product not found"));
             }
             produtoRepository.deleteById(id);
+            productSearchIndex.remove(id);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
             return ResponseEntity.ok(Map.of("message", "Product deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -230,7 +281,10 @@ public class CatalogController {
     // ==================== SERVICES ====================
 
     @GetMapping("/api/services")
-    public ResponseEntity<List<ServicoResponseDTO>> getAllServices() {
+    public ResponseEntity<List<ServicoResponseDTO>> getAllServices(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.collectionEtag(CatalogVersions.Resource.SERVICO))) {
+            return null;
+        }
         List<Servico> servicos = servicoRepository.findAll();
         List<ServicoResponseDTO> response = servicos.stream()
                 .map(this::toServicoResponseDTO)
@@ -239,7 +293,10 @@ public class CatalogController {
     }
 
     @GetMapping("/api/services/{id}")
-    public ResponseEntity<?> getServiceById(@PathVariable Long id) {
+    public ResponseEntity<?> getServiceById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.itemEtag(CatalogVersions.Resource.SERVICO, id))) {
+            return null;
+        }
         Optional<Servico> servicoOpt = servicoRepository.findById(id);
         if (servicoOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -257,6 +314,7 @@ public class CatalogController {
             servico.setPreco(request.getPreco());
             servico.setAtivo(request.getAtivo() != null ? request.getAtivo() : true);
             servico = servicoRepository.save(servico);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, servico.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(toServicoResponseDTO(servico));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -278,6 +336,7 @@ public class CatalogController {
             if (request.getPreco() != null) servico.setPreco(request.getPreco());
             if (request.getAtivo() != null) servico.setAtivo(request.getAtivo());
             servico = servicoRepository.save(servico);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, id);
             return ResponseEntity.ok(toServicoResponseDTO(servico));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -293,6 +352,7 @@ public class CatalogController {
                         .body(Map.of("error", "Service not found"));
             }
             servicoRepository.deleteById(id);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, id);
             return ResponseEntity.ok(Map.of("message", "Service deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
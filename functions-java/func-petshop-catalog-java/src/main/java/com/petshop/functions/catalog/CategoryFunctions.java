@@ -2,6 +2,7 @@ package com.petshop.functions.catalog;
 
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.CategoriaRequestDTO;
 import com.petshop.functions.shared.dto.CategoriaResponseDTO;
 import com.petshop.functions.shared.model.Categoria;
@@ -23,13 +24,16 @@ public class CategoryFunctions {
 
     private final CategoriaRepository categoriaRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
     public CategoryFunctions(
             CategoriaRepository categoriaRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            CatalogVersions catalogVersions) {
         this.categoriaRepository = categoriaRepository;
         this.functionAuthorization = functionAuthorization;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
@@ -48,12 +52,18 @@ public class CategoryFunctions {
 
         context.getLogger().info("Getting all categories");
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.CATEGORIA);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         List<Categoria> categorias = categoriaRepository.findByAtivo(true);
         List<CategoriaResponseDTO> response = categorias.stream()
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -105,6 +115,11 @@ public class CategoryFunctions {
 
         context.getLogger().info("Getting category by ID: " + id);
 
+        String etag = catalogVersions.itemEtag(CatalogVersions.Resource.CATEGORIA, id);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         Optional<Categoria> categoriaOpt = categoriaRepository.findById(id);
         
         if (categoriaOpt.isEmpty()) {
@@ -115,6 +130,7 @@ public class CategoryFunctions {
         }
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(toResponseDTO(categoriaOpt.get()))
                 .build();
@@ -167,6 +183,7 @@ public class CategoryFunctions {
             categoria.setAtivo(dto.getAtivo() != null ? dto.getAtivo() : true);
 
             categoria = categoriaRepository.save(categoria);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, categoria.getId());
 
             return request.createResponseBuilder(HttpStatus.CREATED)
                     .header("Content-Type", "application/json")
@@ -217,6 +234,7 @@ public class CategoryFunctions {
             if (dto.getAtivo() != null) categoria.setAtivo(dto.getAtivo());
 
             categoria = categoriaRepository.save(categoria);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, id);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -252,6 +270,7 @@ public class CategoryFunctions {
             }
 
             categoriaRepository.deleteById(id);
+            catalogVersions.changed(CatalogVersions.Resource.CATEGORIA, id);
 
             return request.createResponseBuilder(HttpStatus.NO_CONTENT)
                     .build();
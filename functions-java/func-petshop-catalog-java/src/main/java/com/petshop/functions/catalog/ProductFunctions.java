@@ -2,15 +2,20 @@ package com.petshop.functions.catalog;
 
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.ProdutoRequestDTO;
 import com.petshop.functions.shared.dto.ProdutoResponseDTO;
 import com.petshop.functions.shared.model.Categoria;
+import com.petshop.functions.shared.model.MovimentacaoEstoque;
 import com.petshop.functions.shared.model.Produto;
 import com.petshop.functions.shared.repository.CategoriaRepository;
 import com.petshop.functions.shared.repository.ProdutoRepository;
+import com.petshop.functions.shared.search.ProductSearchIndex;
 import com.petshop.functions.shared.security.FunctionAuthorization;
+import com.petshop.functions.shared.stock.StockLedger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Map;
@@ -26,15 +31,27 @@ public class ProductFunctions {
     private final ProdutoRepository produtoRepository;
     private final CategoriaRepository categoriaRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogVersions catalogVersions;
+    private final StockLedger stockLedger;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public ProductFunctions(
             ProdutoRepository produtoRepository,
             CategoriaRepository categoriaRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            ProductSearchIndex productSearchIndex,
+            CatalogVersions catalogVersions,
+            StockLedger stockLedger,
+            TransactionTemplate transactionTemplate) {
         this.produtoRepository = produtoRepository;
         this.categoriaRepository = categoriaRepository;
         this.functionAuthorization = functionAuthorization;
+        this.productSearchIndex = productSearchIndex;
+        this.catalogVersions = catalogVersions;
+        this.stockLedger = stockLedger;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -53,12 +70,18 @@ public class ProductFunctions {
 
         context.getLogger().info("Getting all products");
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.PRODUTO);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         List<Produto> produtos = produtoRepository.findProdutosDisponiveis();
         List<ProdutoResponseDTO> response = produtos.stream()
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -110,6 +133,11 @@ public class ProductFunctions {
 
         context.getLogger().info("Getting product by ID: " + id);
 
+        String etag = catalogVersions.itemEtag(CatalogVersions.Resource.PRODUTO, id);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         Optional<Produto> produtoOpt = produtoRepository.findById(id);
         
         if (produtoOpt.isEmpty()) {
@@ -120,6 +148,7 @@ public class ProductFunctions {
         }
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(toResponseDTO(produtoOpt.get()))
                 .build();
@@ -142,12 +171,18 @@ public class ProductFunctions {
 
         context.getLogger().info("Getting products by category: " + categoriaId);
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.PRODUTO);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         List<Produto> produtos = produtoRepository.findProdutosDisponiveisPorCategoria(categoriaId);
         List<ProdutoResponseDTO> response = produtos.stream()
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -155,7 +190,7 @@ public class ProductFunctions {
 
     /**
      * GET /api/produtos/buscar
-     * Search products by name (public)
+     * Search products by name and description, accent-insensitive (public)
      */
     @FunctionName("searchProducts")
     public HttpResponseMessage searchProducts(
@@ -169,6 +204,11 @@ public class ProductFunctions {
 
         context.getLogger().info("Searching products");
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.PRODUTO);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         String nome = request.getQueryParameters().get("nome");
         if (nome == null || nome.isEmpty()) {
             return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
@@ -177,12 +217,13 @@ public class ProductFunctions {
                     .build();
         }
 
-        List<Produto> produtos = produtoRepository.buscarPorNome(nome);
+        List<Produto> produtos = productSearchIndex.search(nome);
         List<ProdutoResponseDTO> response = produtos.stream()
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -205,6 +246,11 @@ public class ProductFunctions {
 
         context.getLogger().info("Getting product stock: " + id);
 
+        String etag = catalogVersions.itemEtag(CatalogVersions.Resource.PRODUTO, id);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         Optional<Produto> produtoOpt = produtoRepository.findById(id);
         
         if (produtoOpt.isEmpty()) {
@@ -215,6 +261,7 @@ public class ProductFunctions {
         }
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "text/plain")
                 .body(String.valueOf(produtoOpt.get().getQuantidadeEstoque()))
                 .build();
@@ -267,7 +314,14 @@ public class ProductFunctions {
                 categoriaOpt.ifPresent(produto::setCategoria);
             }
 
-            produto = produtoRepository.save(produto);
+            Produto novo = produto;
+            produto = transactionTemplate.execute(status -> {
+                Produto salvo = produtoRepository.save(novo);
+                stockLedger.importStock(salvo.getId(), salvo.getQuantidadeEstoque());
+                return salvo;
+            });
+            productSearchIndex.index(produto);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produto.getId());
 
             return request.createResponseBuilder(HttpStatus.CREATED)
                     .header("Content-Type", "application/json")
@@ -312,6 +366,7 @@ public class ProductFunctions {
 
             ProdutoRequestDTO dto = bodyOpt.get();
             Produto produto = produtoOpt.get();
+            int estoqueAnterior = produto.getQuantidadeEstoque();
 
             if (dto.getNome() != null) produto.setNome(dto.getNome());
             if (dto.getDescricao() != null) produto.setDescricao(dto.getDescricao());
@@ -325,7 +380,13 @@ public class ProductFunctions {
                 categoriaOpt.ifPresent(produto::setCategoria);
             }
 
-            produto = produtoRepository.save(produto);
+            Produto alterado = produto;
+            produto = transactionTemplate.execute(status -> {
+                stockLedger.adjust(id, alterado.getQuantidadeEstoque() - estoqueAnterior);
+                return produtoRepository.save(alterado);
+            });
+            productSearchIndex.index(produto);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -369,8 +430,13 @@ public class ProductFunctions {
             }
 
             Produto produto = produtoOpt.get();
+            int diferenca = bodyOpt.get().get("quantidade") - produto.getQuantidadeEstoque();
             produto.setQuantidadeEstoque(bodyOpt.get().get("quantidade"));
-            produtoRepository.save(produto);
+            transactionTemplate.executeWithoutResult(status -> {
+                produtoRepository.save(produto);
+                stockLedger.adjust(id, diferenca);
+            });
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -414,21 +480,109 @@ public class ProductFunctions {
             }
 
             int quantidade = bodyOpt.get().get("quantidade");
-            Produto produto = produtoOpt.get();
 
-            if (produto.getQuantidadeEstoque() < quantidade) {
+            // Conditional UPDATE: the stock check happens in the database, under the row lock
+            Boolean deduzido = transactionTemplate.execute(status -> {
+                if (produtoRepository.reduzirEstoque(id, quantidade) == 0) {
+                    return false;
+                }
+                stockLedger.adjust(id, -quantidade);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(deduzido)) {
                 return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
                         .header("Content-Type", "application/json")
                         .body(Map.of("error", "Estoque insuficiente"))
                         .build();
             }
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
 
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidade);
-            produtoRepository.save(produto);
+            Integer estoque = produtoRepository.findById(id)
+                    .map(Produto::getQuantidadeEstoque)
+                    .orElse(0);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
-                    .body(Map.of("estoque", produto.getQuantidadeEstoque()))
+                    .body(Map.of("estoque", estoque))
+                    .build();
+        });
+    }
+
+    /**
+     * GET /api/produtos/{id}/movimentacoes
+     * Stock ledger entries of a product, newest first (Admin only)
+     */
+    @FunctionName("getProductStockMovements")
+    public HttpResponseMessage getProductStockMovements(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.GET},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "produtos/{id}/movimentacoes"
+            ) HttpRequestMessage<Optional<String>> request,
+            @BindingName("id") Long id,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Getting product stock movements: " + id);
+
+        return functionAuthorization.executeProtectedAdmin(request, authResult -> {
+            if (!produtoRepository.existsById(id)) {
+                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("error", "Produto não encontrado"))
+                        .build();
+            }
+
+            int limite;
+            try {
+                limite = Integer.parseInt(request.getQueryParameters().getOrDefault("limite", "50"));
+            } catch (NumberFormatException e) {
+                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("error", "limite inválido"))
+                        .build();
+            }
+
+            List<MovimentacaoEstoque> movimentacoes = stockLedger.movements(id, Math.max(1, Math.min(limite, 500)));
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(movimentacoes)
+                    .build();
+        });
+    }
+
+    /**
+     * POST /api/produtos/estoque/reconstruir
+     * Rewrites every product's stock from the ledger (Admin only)
+     */
+    @FunctionName("rebuildProductStock")
+    public HttpResponseMessage rebuildProductStock(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.POST},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "produtos/estoque/reconstruir"
+            ) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Rebuilding product stock from the ledger");
+
+        return functionAuthorization.executeProtectedAdmin(request, authResult -> {
+            // Blocked when the database is shared with the monolith (see StockLedger)
+            if (!stockLedger.isRebuildEnabled()) {
+                return request.createResponseBuilder(HttpStatus.CONFLICT)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("error", "Reconstrução do estoque desativada nas Function Apps; use a do backend"))
+                        .build();
+            }
+            int produtos = stockLedger.rebuild();
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produtoRepository.findAll().stream()
+                    .map(Produto::getId)
+                    .toArray(Long[]::new));
+
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("produtos", produtos))
                     .build();
         });
     }
@@ -460,6 +614,8 @@ public class ProductFunctions {
             }
 
             produtoRepository.deleteById(id);
+            productSearchIndex.remove(id);
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, id);
 
             return request.createResponseBuilder(HttpStatus.NO_CONTENT)
                     .build();
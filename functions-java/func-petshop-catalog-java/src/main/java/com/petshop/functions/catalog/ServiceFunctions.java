@@ -2,6 +2,7 @@ package com.petshop.functions.catalog;
 
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.ServicoRequestDTO;
 import com.petshop.functions.shared.dto.ServicoResponseDTO;
 import com.petshop.functions.shared.dto.ServicoSimpleDTO;
@@ -24,13 +25,16 @@ public class ServiceFunctions {
 
     private final ServicoRepository servicoRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
     public ServiceFunctions(
             ServicoRepository servicoRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            CatalogVersions catalogVersions) {
         this.servicoRepository = servicoRepository;
         this.functionAuthorization = functionAuthorization;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
@@ -49,12 +53,18 @@ public class ServiceFunctions {
 
         context.getLogger().info("Getting all services");
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.SERVICO);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         List<Servico> servicos = servicoRepository.findByAtivo(true);
         List<ServicoResponseDTO> response = servicos.stream()
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -76,12 +86,18 @@ public class ServiceFunctions {
 
         context.getLogger().info("Getting all services (simple)");
 
+        String etag = catalogVersions.collectionEtag(CatalogVersions.Resource.SERVICO);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         List<Servico> servicos = servicoRepository.findByAtivo(true);
         List<ServicoSimpleDTO> response = servicos.stream()
                 .map(s -> new ServicoSimpleDTO(s.getId(), s.getNome(), s.getPreco()))
                 .collect(Collectors.toList());
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(response)
                 .build();
@@ -133,6 +149,11 @@ public class ServiceFunctions {
 
         context.getLogger().info("Getting service by ID: " + id);
 
+        String etag = catalogVersions.itemEtag(CatalogVersions.Resource.SERVICO, id);
+        if (catalogVersions.notModified(request, etag)) {
+            return catalogVersions.notModifiedResponse(request, etag);
+        }
+
         Optional<Servico> servicoOpt = servicoRepository.findById(id);
         
         if (servicoOpt.isEmpty()) {
@@ -143,6 +164,7 @@ public class ServiceFunctions {
         }
 
         return request.createResponseBuilder(HttpStatus.OK)
+                .header("ETag", etag)
                 .header("Content-Type", "application/json")
                 .body(toResponseDTO(servicoOpt.get()))
                 .build();
@@ -196,6 +218,7 @@ public class ServiceFunctions {
             servico.setAtivo(dto.getAtivo() != null ? dto.getAtivo() : true);
 
             servico = servicoRepository.save(servico);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, servico.getId());
 
             return request.createResponseBuilder(HttpStatus.CREATED)
                     .header("Content-Type", "application/json")
@@ -247,6 +270,7 @@ public class ServiceFunctions {
             if (dto.getAtivo() != null) servico.setAtivo(dto.getAtivo());
 
             servico = servicoRepository.save(servico);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, id);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -282,6 +306,7 @@ public class ServiceFunctions {
             }
 
             servicoRepository.deleteById(id);
+            catalogVersions.changed(CatalogVersions.Resource.SERVICO, id);
 
             return request.createResponseBuilder(HttpStatus.NO_CONTENT)
                     .build();
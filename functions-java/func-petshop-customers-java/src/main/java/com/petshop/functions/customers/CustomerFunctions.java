@@ -4,12 +4,16 @@ import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
 import com.petshop.functions.shared.dto.ClienteRequestDTO;
 import com.petshop.functions.shared.dto.ClienteResponseDTO;
+import com.petshop.functions.shared.messages.ServiceBusMessages.CustomerRegisteredMessage;
+import com.petshop.functions.shared.messages.ServiceBusPublisher;
 import com.petshop.functions.shared.model.Cliente;
 import com.petshop.functions.shared.repository.ClienteRepository;
 import com.petshop.functions.shared.security.FunctionAuthorization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,13 +28,19 @@ public class CustomerFunctions {
 
     private final ClienteRepository clienteRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final ServiceBusPublisher serviceBusPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public CustomerFunctions(
             ClienteRepository clienteRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            ServiceBusPublisher serviceBusPublisher,
+            TransactionTemplate transactionTemplate) {
         this.clienteRepository = clienteRepository;
         this.functionAuthorization = functionAuthorization;
+        this.serviceBusPublisher = serviceBusPublisher;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -234,11 +244,17 @@ public class CustomerFunctions {
             cliente.setDataNascimento(dto.getDataNascimento());
             cliente.setSexo(dto.getSexo());
 
-            cliente = clienteRepository.save(cliente);
+            // Customer and its outbox event are committed together
+            Cliente saved = transactionTemplate.execute(status -> {
+                Cliente persisted = clienteRepository.save(cliente);
+                serviceBusPublisher.publishCustomerRegistered(new CustomerRegisteredMessage(
+                        persisted.getId(), null, persisted.getNome(), persisted.getEmail(), LocalDateTime.now()));
+                return persisted;
+            });
 
             return request.createResponseBuilder(HttpStatus.CREATED)
                     .header("Content-Type", "application/json")
-                    .body(toResponseDTO(cliente))
+                    .body(toResponseDTO(saved))
                     .build();
         });
     }
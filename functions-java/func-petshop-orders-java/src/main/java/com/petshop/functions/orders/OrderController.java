@@ -1,29 +1,29 @@
 package com.petshop.functions.orders;
 
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.ItemPedidoDTO;
-import com.petshop.functions.shared.dto.ItemPedidoRequestDTO;
 import com.petshop.functions.shared.dto.PedidoRequestDTO;
 import com.petshop.functions.shared.dto.PedidoResponseDTO;
 import com.petshop.functions.shared.model.Cliente;
 import com.petshop.functions.shared.model.ItemPedido;
 import com.petshop.functions.shared.model.Pedido;
 import com.petshop.functions.shared.model.Pedido.StatusPedido;
-import com.petshop.functions.shared.model.Produto;
 import com.petshop.functions.shared.repository.ClienteRepository;
-import com.petshop.functions.shared.repository.ItemPedidoRepository;
 import com.petshop.functions.shared.repository.PedidoRepository;
 import com.petshop.functions.shared.repository.ProdutoRepository;
+import com.petshop.functions.shared.sales.DailySales;
+import com.petshop.functions.shared.stock.StockLedger;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,18 +32,33 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final PedidoRepository pedidoRepository;
-    private final ItemPedidoRepository itemPedidoRepository;
     private final ClienteRepository clienteRepository;
     private final ProdutoRepository produtoRepository;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderPlacement orderPlacement;
+    private final OrderEvents orderEvents;
+    private final StockLedger stockLedger;
+    private final DailySales dailySales;
 
     public OrderController(PedidoRepository pedidoRepository,
-                           ItemPedidoRepository itemPedidoRepository,
                            ClienteRepository clienteRepository,
-                           ProdutoRepository produtoRepository) {
+                           ProdutoRepository produtoRepository,
+                           CatalogVersions catalogVersions,
+                           TransactionTemplate transactionTemplate,
+                           OrderPlacement orderPlacement,
+                           OrderEvents orderEvents,
+                           StockLedger stockLedger,
+                           DailySales dailySales) {
         this.pedidoRepository = pedidoRepository;
-        this.itemPedidoRepository = itemPedidoRepository;
         this.clienteRepository = clienteRepository;
         this.produtoRepository = produtoRepository;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.orderPlacement = orderPlacement;
+        this.orderEvents = orderEvents;
+        this.stockLedger = stockLedger;
+        this.dailySales = dailySales;
     }
 
     // === HEALTH CHECK ===
@@ -113,61 +128,16 @@ public class OrderController {
                 .body(Map.of("error", "O pedido deve conter pelo menos um item"));
         }
         
-        // Criar pedido
-        Pedido pedido = new Pedido();
-        pedido.setCliente(clienteOpt.get());
-        pedido.setDataPedido(LocalDateTime.now());
-        pedido.setFormaPagamento(request.getFormaPagamento());
-        pedido.setObservacoes(request.getObservacoes());
-        pedido.setStatus(StatusPedido.PENDENTE);
-        
-        // Processar itens
-        List<ItemPedido> itens = new ArrayList<>();
-        double valorTotal = 0.0;
-        
-        for (ItemPedidoRequestDTO itemDto : request.getItens()) {
-            Optional<Produto> produtoOpt = produtoRepository.findById(itemDto.getProdutoId());
-            if (produtoOpt.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Produto não encontrado: " + itemDto.getProdutoId()));
-            }
-            
-            Produto produto = produtoOpt.get();
-            
-            // Verificar estoque
-            if (produto.getQuantidadeEstoque() < itemDto.getQuantidade()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Estoque insuficiente para o produto: " + produto.getNome()));
-            }
-            
-            ItemPedido item = new ItemPedido();
-            item.setPedido(pedido);
-            item.setProduto(produto);
-            item.setQuantidade(itemDto.getQuantidade());
-            item.setPrecoUnitario(produto.getPreco());
-            item.setSubtotal(produto.getPreco() * itemDto.getQuantidade());
-            
-            itens.add(item);
-            valorTotal += item.getSubtotal();
-            
-            // Atualizar estoque
-            produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - itemDto.getQuantidade());
-            produtoRepository.save(produto);
-        }
-        
-        pedido.setValorTotal(valorTotal);
-        pedido.setItens(itens);
-        
-        Pedido saved = pedidoRepository.save(pedido);
-        
-        // Salvar itens
-        for (ItemPedido item : itens) {
-            item.setPedido(saved);
-            itemPedidoRepository.save(item);
+        // Produtos numa consulta só (travados em ordem de id), estoque conferido
+        // e baixado em memória, pedido e itens gravados num único flush
+        OrderPlacement.Outcome outcome = orderPlacement.place(clienteOpt.get(), request);
+        if (!outcome.isPlaced()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", outcome.message()));
         }
         
         return ResponseEntity.status(HttpStatus.CREATED)
-            .body(toPedidoResponse(saved));
+            .body(toPedidoResponse(outcome.pedido()));
     }
 
     @PatchMapping("/pedidos/{id}/status")
@@ -197,16 +167,23 @@ public class OrderController {
         Pedido pedido = existingOpt.get();
         
         // Se cancelando, devolver estoque
-        if (newStatus == StatusPedido.CANCELADO && pedido.getStatus() != StatusPedido.CANCELADO) {
-            for (ItemPedido item : pedido.getItens()) {
-                Produto produto = item.getProduto();
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + item.getQuantidade());
-                produtoRepository.save(produto);
-            }
-        }
+        StatusPedido previousStatus = pedido.getStatus();
+        boolean devolverEstoque = newStatus == StatusPedido.CANCELADO && previousStatus != StatusPedido.CANCELADO;
         
         pedido.setStatus(newStatus);
-        Pedido updated = pedidoRepository.save(pedido);
+        Pedido updated = transactionTemplate.execute(status -> {
+            if (devolverEstoque) {
+                produtoRepository.devolverEstoqueDoPedido(id);
+                stockLedger.recordReturn(id);
+                dailySales.recordReturn(pedido);
+            }
+            Pedido saved = pedidoRepository.save(pedido);
+            orderEvents.statusChanged(saved, previousStatus);
+            return saved;
+        });
+        if (devolverEstoque) {
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produtoIds(pedido.getItens()).toArray(new Long[0]));
+        }
         
         return ResponseEntity.ok(toPedidoResponse(updated));
     }
@@ -222,22 +199,33 @@ public class OrderController {
         
         Pedido pedido = pedidoOpt.get();
         
-        // Devolver estoque se não cancelado
-        if (pedido.getStatus() != StatusPedido.CANCELADO) {
-            for (ItemPedido item : pedido.getItens()) {
-                Produto produto = item.getProduto();
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + item.getQuantidade());
-                produtoRepository.save(produto);
+        // Devolver estoque se não cancelado (antes de os itens serem removidos)
+        boolean devolverEstoque = pedido.getStatus() != StatusPedido.CANCELADO;
+        Set<Long> produtoIds = produtoIds(pedido.getItens());
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            if (devolverEstoque) {
+                produtoRepository.devolverEstoqueDoPedido(id);
+                stockLedger.recordReturn(id);
+                dailySales.recordReturn(pedido);
             }
+            pedidoRepository.delete(pedido);
+        });
+        if (devolverEstoque) {
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produtoIds.toArray(new Long[0]));
         }
         
-        pedidoRepository.delete(pedido);
-        
         return ResponseEntity.ok(Map.of("message", "Pedido excluído com sucesso"));
     }
 
     // === MÉTODOS AUXILIARES ===
     
+    private Set<Long> produtoIds(List<ItemPedido> itens) {
+        return itens.stream()
+            .map(item -> item.getProduto().getId())
+            .collect(Collectors.toSet());
+    }
+    
     private PedidoResponseDTO toPedidoResponse(Pedido pedido) {
         PedidoResponseDTO dto = new PedidoResponseDTO();
         dto.setId(pedido.getId());
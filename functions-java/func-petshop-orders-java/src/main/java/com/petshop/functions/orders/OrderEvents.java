@@ -0,0 +1,49 @@
+package com.petshop.functions.orders;
+
+import com.petshop.functions.shared.messages.ServiceBusMessages.OrderConfirmedMessage;
+import com.petshop.functions.shared.messages.ServiceBusMessages.OrderStatusChangedMessage;
+import com.petshop.functions.shared.messages.ServiceBusPublisher;
+import com.petshop.functions.shared.model.Pedido;
+import com.petshop.functions.shared.model.Pedido.StatusPedido;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order events written to the outbox. Must be called inside the transaction
+ * that persists the change, after the order has an id.
+ */
+@Component
+public class OrderEvents {
+
+    private final ServiceBusPublisher serviceBusPublisher;
+
+    public OrderEvents(ServiceBusPublisher serviceBusPublisher) {
+        this.serviceBusPublisher = serviceBusPublisher;
+    }
+
+    /**
+     * Status transition of an order; previous is null for a new order.
+     * Confirmation also goes to its own queue.
+     */
+    public void statusChanged(Pedido pedido, StatusPedido previous) {
+        if (previous == pedido.getStatus()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        serviceBusPublisher.publishOrderStatusChanged(new OrderStatusChangedMessage(
+                pedido.getId(),
+                previous != null ? previous.name() : null,
+                pedido.getStatus().name(),
+                now));
+        if (pedido.getStatus() == StatusPedido.CONFIRMADO) {
+            serviceBusPublisher.publishOrderConfirmed(new OrderConfirmedMessage(
+                    pedido.getId(),
+                    pedido.getCliente() != null ? pedido.getCliente().getId() : null,
+                    pedido.getValorTotal() != null ? BigDecimal.valueOf(pedido.getValorTotal()) : null,
+                    pedido.getStatus().name(),
+                    now));
+        }
+    }
+}
@@ -2,16 +2,22 @@ package com.petshop.functions.orders;
 
 import com.microsoft.azure.functions.*;
 import com.microsoft.azure.functions.annotation.*;
+import com.petshop.functions.shared.catalog.CatalogVersions;
 import com.petshop.functions.shared.dto.*;
+import com.petshop.functions.shared.idempotency.IdempotencyStore;
 import com.petshop.functions.shared.model.*;
 import com.petshop.functions.shared.model.Pedido.StatusPedido;
 import com.petshop.functions.shared.repository.*;
+import com.petshop.functions.shared.sales.DailySales;
 import com.petshop.functions.shared.security.FunctionAuthorization;
+import com.petshop.functions.shared.security.FunctionAuthorization.AuthorizationResult;
+import com.petshop.functions.shared.stock.StockLedger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,11 +30,21 @@ import java.util.stream.Collectors;
 @Component
 public class OrderFunctions {
 
+    // Report range when no dates are given
+    private static final int DIAS_RELATORIO = 30;
+
     private final PedidoRepository pedidoRepository;
     private final ItemPedidoRepository itemPedidoRepository;
     private final ClienteRepository clienteRepository;
     private final ProdutoRepository produtoRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderPlacement orderPlacement;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderEvents orderEvents;
+    private final StockLedger stockLedger;
+    private final DailySales dailySales;
 
     @Autowired
     public OrderFunctions(
@@ -36,12 +52,26 @@ public class OrderFunctions {
             ItemPedidoRepository itemPedidoRepository,
             ClienteRepository clienteRepository,
             ProdutoRepository produtoRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            CatalogVersions catalogVersions,
+            TransactionTemplate transactionTemplate,
+            OrderPlacement orderPlacement,
+            IdempotencyStore idempotencyStore,
+            OrderEvents orderEvents,
+            StockLedger stockLedger,
+            DailySales dailySales) {
         this.pedidoRepository = pedidoRepository;
         this.itemPedidoRepository = itemPedidoRepository;
         this.clienteRepository = clienteRepository;
         this.produtoRepository = produtoRepository;
         this.functionAuthorization = functionAuthorization;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.orderPlacement = orderPlacement;
+        this.idempotencyStore = idempotencyStore;
+        this.orderEvents = orderEvents;
+        this.stockLedger = stockLedger;
+        this.dailySales = dailySales;
     }
 
     /**
@@ -75,9 +105,7 @@ public class OrderFunctions {
                 pedidos = pedidoRepository.findByClienteId(authResult.clienteId());
             }
 
-            List<PedidoResponseDTO> response = pedidos.stream()
-                    .map(this::toResponseDTO)
-                    .collect(Collectors.toList());
+            List<PedidoResponseDTO> response = toResponseDTOs(pedidos);
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -149,9 +177,7 @@ public class OrderFunctions {
             try {
                 StatusPedido status = StatusPedido.valueOf(statusStr.toUpperCase());
                 List<Pedido> pedidos = pedidoRepository.findByStatus(status);
-                List<PedidoResponseDTO> response = pedidos.stream()
-                        .map(this::toResponseDTO)
-                        .collect(Collectors.toList());
+                List<PedidoResponseDTO> response = toResponseDTOs(pedidos);
 
                 return request.createResponseBuilder(HttpStatus.OK)
                         .header("Content-Type", "application/json")
@@ -182,107 +208,69 @@ public class OrderFunctions {
 
         context.getLogger().info("Creating new order");
 
-        return functionAuthorization.executeProtectedWithRoles(request, Set.of("Admin", "Cliente"), authResult -> {
-            Optional<PedidoRequestDTO> bodyOpt = request.getBody();
-            if (bodyOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Request body is required"))
-                        .build();
-            }
-
-            PedidoRequestDTO dto = bodyOpt.get();
-
-            // Validate items
-            if (dto.getItens() == null || dto.getItens().isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "O pedido deve conter pelo menos um item"))
-                        .build();
-            }
-
-            // Determine clienteId
-            Long clienteId = dto.getClienteId();
-            if ("Cliente".equals(authResult.role())) {
-                clienteId = authResult.clienteId();
-            }
-
-            if (clienteId == null) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Cliente não identificado"))
-                        .build();
-            }
-
-            Optional<Cliente> clienteOpt = clienteRepository.findById(clienteId);
-            if (clienteOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Cliente não encontrado"))
-                        .build();
-            }
-
-            // Validate products and calculate total
-            double valorTotal = 0.0;
-            List<ItemPedido> itens = new ArrayList<>();
-
-            for (ItemPedidoRequestDTO itemDTO : dto.getItens()) {
-                Optional<Produto> produtoOpt = produtoRepository.findById(itemDTO.getProdutoId());
-                if (produtoOpt.isEmpty()) {
-                    return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                            .header("Content-Type", "application/json")
-                            .body(Map.of("error", "Produto não encontrado: " + itemDTO.getProdutoId()))
-                            .build();
-                }
-
-                Produto produto = produtoOpt.get();
+        return functionAuthorization.executeProtectedWithRoles(request, Set.of("Admin", "Cliente"), authResult ->
+                idempotencyStore.execute(request, "POST pedidos", authResult.username(),
+                        request.getBody().orElse(null), () -> placeOrder(request, authResult)));
+    }
 
-                // Check stock
-                if (produto.getQuantidadeEstoque() < itemDTO.getQuantidade()) {
-                    return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                            .header("Content-Type", "application/json")
-                            .body(Map.of("error", "Estoque insuficiente para o produto: " + produto.getNome()))
-                            .build();
-                }
+    private HttpResponseMessage placeOrder(HttpRequestMessage<Optional<PedidoRequestDTO>> request,
+                                           AuthorizationResult authResult) {
+        Optional<PedidoRequestDTO> bodyOpt = request.getBody();
+        if (bodyOpt.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Request body is required"))
+                    .build();
+        }
 
-                ItemPedido item = new ItemPedido();
-                item.setProduto(produto);
-                item.setQuantidade(itemDTO.getQuantidade());
-                item.setPrecoUnitario(produto.getPreco());
-                itens.add(item);
+        PedidoRequestDTO dto = bodyOpt.get();
 
-                valorTotal += produto.getPreco() * itemDTO.getQuantidade();
+        // Validate items
+        if (dto.getItens() == null || dto.getItens().isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "O pedido deve conter pelo menos um item"))
+                    .build();
+        }
 
-                // Deduct stock
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - itemDTO.getQuantidade());
-                produtoRepository.save(produto);
-            }
+        // Determine clienteId
+        Long clienteId = dto.getClienteId();
+        if ("Cliente".equals(authResult.role())) {
+            clienteId = authResult.clienteId();
+        }
 
-            // Create order
-            Pedido pedido = new Pedido();
-            pedido.setCliente(clienteOpt.get());
-            pedido.setDataPedido(LocalDateTime.now());
-            pedido.setStatus(StatusPedido.PENDENTE);
-            pedido.setValorTotal(valorTotal);
-            pedido.setFormaPagamento(dto.getFormaPagamento());
-            pedido.setObservacoes(dto.getObservacoes());
-
-            pedido = pedidoRepository.save(pedido);
-
-            // Save items
-            for (ItemPedido item : itens) {
-                item.setPedido(pedido);
-                itemPedidoRepository.save(item);
-            }
+        if (clienteId == null) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Cliente não identificado"))
+                    .build();
+        }
 
-            // Reload to get items
-            pedido = pedidoRepository.findById(pedido.getId()).orElse(pedido);
+        Optional<Cliente> clienteOpt = clienteRepository.findById(clienteId);
+        if (clienteOpt.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Cliente não encontrado"))
+                    .build();
+        }
 
-            return request.createResponseBuilder(HttpStatus.CREATED)
+        // One locked lookup for every product, stock checked and deducted in memory
+        OrderPlacement.Outcome outcome = orderPlacement.place(clienteOpt.get(), dto);
+        if (!outcome.isPlaced()) {
+            HttpStatus status = outcome.failure() == OrderPlacement.Failure.PRODUCT_NOT_FOUND
+                    ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            return request.createResponseBuilder(status)
                     .header("Content-Type", "application/json")
-                    .body(toResponseDTO(pedido))
+                    .body(Map.of("error", outcome.message()))
                     .build();
-        });
+        }
+
+        // Built from the persisted objects, no reload
+        Pedido pedido = outcome.pedido();
+        return request.createResponseBuilder(HttpStatus.CREATED)
+                .header("Content-Type", "application/json")
+                .body(toResponseDTO(pedido, pedido.getItens()))
+                .build();
     }
 
     /**
@@ -325,18 +313,21 @@ public class OrderFunctions {
                 StatusPedido statusAnterior = pedido.getStatus();
 
                 // If cancelling, restore stock
-                if (novoStatus == StatusPedido.CANCELADO && statusAnterior != StatusPedido.CANCELADO) {
-                    List<ItemPedido> itens = itemPedidoRepository.findByPedidoId(id);
-                    for (ItemPedido item : itens) {
-                        Produto produto = item.getProduto();
-                        produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + item.getQuantidade());
-                        produtoRepository.save(produto);
+                boolean devolverEstoque = novoStatus == StatusPedido.CANCELADO && statusAnterior != StatusPedido.CANCELADO;
+                pedido.setStatus(novoStatus);
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (devolverEstoque) {
+                        produtoRepository.devolverEstoqueDoPedido(id);
+                        stockLedger.recordReturn(id);
+                        dailySales.recordReturn(pedido);
                     }
+                    pedidoRepository.save(pedido);
+                    orderEvents.statusChanged(pedido, statusAnterior);
+                });
+                if (devolverEstoque) {
+                    estoqueDevolvido(id);
                 }
 
-                pedido.setStatus(novoStatus);
-                pedidoRepository.save(pedido);
-
                 return request.createResponseBuilder(HttpStatus.OK)
                         .header("Content-Type", "application/json")
                         .body(toResponseDTO(pedido))
@@ -392,17 +383,22 @@ public class OrderFunctions {
                         .build();
             }
 
-            // Restore stock
-            List<ItemPedido> itens = itemPedidoRepository.findByPedidoId(id);
-            for (ItemPedido item : itens) {
-                Produto produto = item.getProduto();
-                produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + item.getQuantidade());
-                produtoRepository.save(produto);
-            }
-
-            // Update status
+            // Restore stock (only once) and update status together
+            StatusPedido statusAnterior = pedido.getStatus();
+            boolean devolverEstoque = statusAnterior != StatusPedido.CANCELADO;
             pedido.setStatus(StatusPedido.CANCELADO);
-            pedidoRepository.save(pedido);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (devolverEstoque) {
+                    produtoRepository.devolverEstoqueDoPedido(id);
+                    stockLedger.recordReturn(id);
+                    dailySales.recordReturn(pedido);
+                }
+                pedidoRepository.save(pedido);
+                orderEvents.statusChanged(pedido, statusAnterior);
+            });
+            if (devolverEstoque) {
+                estoqueDevolvido(id);
+            }
 
             return request.createResponseBuilder(HttpStatus.OK)
                     .header("Content-Type", "application/json")
@@ -448,9 +444,159 @@ public class OrderFunctions {
         });
     }
 
+    /**
+     * GET /api/relatorios/vendas?inicio=&fim=&agrupamento=DIA|SEMANA|MES
+     * Revenue and quantity sold per day, week or month, read from the daily
+     * sales rollup (Admin only). Defaults to the last 30 days by day.
+     */
+    @FunctionName("getSalesReport")
+    public HttpResponseMessage getSalesReport(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.GET},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "relatorios/vendas"
+            ) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Getting sales report");
+
+        return functionAuthorization.executeProtectedAdmin(request, authResult -> {
+            Map<String, String> params = request.getQueryParameters();
+            LocalDate inicio;
+            LocalDate fim;
+            DailySales.Period period;
+            try {
+                fim = dateParam(params, "fim", LocalDate.now());
+                inicio = dateParam(params, "inicio", fim.minusDays(DIAS_RELATORIO - 1));
+                period = DailySales.Period.valueOf(params.getOrDefault("agrupamento", "DIA").toUpperCase());
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                return invalidReportParameters(request);
+            }
+            if (fim.isBefore(inicio)) {
+                return invalidReportRange(request);
+            }
+
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(dailySales.byPeriod(inicio, fim, period))
+                    .build();
+        });
+    }
+
+    /**
+     * GET /api/relatorios/vendas/categorias?inicio=&fim=
+     * Revenue and quantity sold per category, read from the daily sales
+     * rollup (Admin only)
+     */
+    @FunctionName("getSalesByCategory")
+    public HttpResponseMessage getSalesByCategory(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.GET},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "relatorios/vendas/categorias"
+            ) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Getting sales by category");
+
+        return functionAuthorization.executeProtectedAdmin(request, authResult -> {
+            Map<String, String> params = request.getQueryParameters();
+            LocalDate inicio;
+            LocalDate fim;
+            try {
+                fim = dateParam(params, "fim", LocalDate.now());
+                inicio = dateParam(params, "inicio", fim.minusDays(DIAS_RELATORIO - 1));
+            } catch (DateTimeParseException e) {
+                return invalidReportParameters(request);
+            }
+            if (fim.isBefore(inicio)) {
+                return invalidReportRange(request);
+            }
+
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(dailySales.byCategory(inicio, fim))
+                    .build();
+        });
+    }
+
+    /**
+     * POST /api/relatorios/vendas/reconstruir
+     * Regenerates the daily sales rollup from order history (Admin only)
+     */
+    @FunctionName("rebuildDailySales")
+    public HttpResponseMessage rebuildDailySales(
+            @HttpTrigger(
+                name = "req",
+                methods = {HttpMethod.POST},
+                authLevel = AuthorizationLevel.ANONYMOUS,
+                route = "relatorios/vendas/reconstruir"
+            ) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+
+        context.getLogger().info("Rebuilding the daily sales rollup");
+
+        return functionAuthorization.executeProtectedAdmin(request, authResult ->
+                request.createResponseBuilder(HttpStatus.OK)
+                        .header("Content-Type", "application/json")
+                        .body(Map.of("linhas", dailySales.rebuild()))
+                        .build());
+    }
+
+    private static LocalDate dateParam(Map<String, String> params, String name, LocalDate defaultValue) {
+        String value = params.get(name);
+        return value == null || value.isBlank() ? defaultValue : LocalDate.parse(value);
+    }
+
+    private HttpResponseMessage invalidReportParameters(HttpRequestMessage<Optional<String>> request) {
+        return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                .header("Content-Type", "application/json")
+                .body(Map.of("error", "Parâmetros inválidos. Use datas AAAA-MM-DD e agrupamento DIA, SEMANA ou MES"))
+                .build();
+    }
+
+    private HttpResponseMessage invalidReportRange(HttpRequestMessage<Optional<String>> request) {
+        return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                .header("Content-Type", "application/json")
+                .body(Map.of("error", "A data final deve ser igual ou posterior à data inicial"))
+                .build();
+    }
+
+    private Set<Long> produtoIds(List<ItemPedido> itens) {
+        return itens.stream()
+                .map(item -> item.getProduto().getId())
+                .collect(Collectors.toSet());
+    }
+
+    // Stock is part of the product ETag
+    private void estoqueDevolvido(Long pedidoId) {
+        Set<Long> produtoIds = produtoIds(itemPedidoRepository.findByPedidoId(pedidoId));
+        catalogVersions.changed(CatalogVersions.Resource.PRODUTO, produtoIds.toArray(new Long[0]));
+    }
+
     private PedidoResponseDTO toResponseDTO(Pedido pedido) {
-        List<ItemPedido> itens = itemPedidoRepository.findByPedidoId(pedido.getId());
-        
+        return toResponseDTOs(List.of(pedido)).get(0);
+    }
+
+    /**
+     * Maps a list of orders with a single extra query for all of their items
+     * (and products), instead of one query per order and per product.
+     */
+    private List<PedidoResponseDTO> toResponseDTOs(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = pedidos.stream().map(Pedido::getId).collect(Collectors.toList());
+        Map<Long, List<ItemPedido>> itensPorPedido = itemPedidoRepository.findByPedidoIdsComProduto(ids).stream()
+                .collect(Collectors.groupingBy(item -> item.getPedido().getId()));
+        return pedidos.stream()
+                .map(pedido -> toResponseDTO(pedido, itensPorPedido.getOrDefault(pedido.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private PedidoResponseDTO toResponseDTO(Pedido pedido, List<ItemPedido> itens) {
         List<ItemPedidoDTO> itensDTO = itens.stream()
                 .map(item -> new ItemPedidoDTO(
                         item.getId(),
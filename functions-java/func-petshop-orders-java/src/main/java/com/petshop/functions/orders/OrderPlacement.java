@@ -0,0 +1,140 @@
+package com.petshop.functions.orders;
+
+import com.petshop.functions.shared.catalog.CatalogVersions;
+import com.petshop.functions.shared.dto.ItemPedidoRequestDTO;
+import com.petshop.functions.shared.dto.PedidoRequestDTO;
+import com.petshop.functions.shared.model.Cliente;
+import com.petshop.functions.shared.model.ItemPedido;
+import com.petshop.functions.shared.model.Pedido;
+import com.petshop.functions.shared.model.Pedido.StatusPedido;
+import com.petshop.functions.shared.model.MovimentacaoEstoque.TipoMovimentacao;
+import com.petshop.functions.shared.model.Produto;
+import com.petshop.functions.shared.repository.PedidoRepository;
+import com.petshop.functions.shared.repository.ProdutoRepository;
+import com.petshop.functions.shared.sales.DailySales;
+import com.petshop.functions.shared.stock.StockLedger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Order creation shared by the HTTP function and the local controller.
+ *
+ * All referenced products are loaded in one query that locks their rows in
+ * ascending id order, so concurrent orders sharing products queue up instead
+ * of deadlocking. Stock is validated and deducted in memory on those locked
+ * rows, and the order, its items and the stock updates reach the database in
+ * a single flush at commit (JDBC batches), together with the order's outbox
+ * event and its stock ledger entries; the daily sales rollup is incremented
+ * in the same transaction. The response is built from the same objects,
+ * without re-reading the order.
+ */
+@Component
+public class OrderPlacement {
+
+    public enum Failure {
+        PRODUCT_NOT_FOUND,
+        INSUFFICIENT_STOCK
+    }
+
+    /**
+     * Either the persisted order or the reason it was refused
+     */
+    public record Outcome(Pedido pedido, Failure failure, String message) {
+
+        static Outcome placed(Pedido pedido) {
+            return new Outcome(pedido, null, null);
+        }
+
+        static Outcome failed(Failure failure, String message) {
+            return new Outcome(null, failure, message);
+        }
+
+        public boolean isPlaced() {
+            return pedido != null;
+        }
+    }
+
+    private final PedidoRepository pedidoRepository;
+    private final ProdutoRepository produtoRepository;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderEvents orderEvents;
+    private final StockLedger stockLedger;
+    private final DailySales dailySales;
+
+    public OrderPlacement(PedidoRepository pedidoRepository,
+                          ProdutoRepository produtoRepository,
+                          CatalogVersions catalogVersions,
+                          TransactionTemplate transactionTemplate,
+                          OrderEvents orderEvents,
+                          StockLedger stockLedger,
+                          DailySales dailySales) {
+        this.pedidoRepository = pedidoRepository;
+        this.produtoRepository = produtoRepository;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.orderEvents = orderEvents;
+        this.stockLedger = stockLedger;
+        this.dailySales = dailySales;
+    }
+
+    /**
+     * Validates and persists the order; dto must have at least one item
+     */
+    public Outcome place(Cliente cliente, PedidoRequestDTO dto) {
+        // Total per product: the same product may appear in more than one item
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        for (ItemPedidoRequestDTO itemDTO : dto.getItens()) {
+            quantidades.merge(itemDTO.getProdutoId(), itemDTO.getQuantidade(), Integer::sum);
+        }
+
+        Outcome outcome = transactionTemplate.execute(status -> {
+            Map<Long, Produto> produtos = produtoRepository.findAllByIdParaAtualizar(quantidades.keySet()).stream()
+                    .collect(Collectors.toMap(Produto::getId, Function.identity()));
+
+            // Nothing has been written yet, so a refusal only releases the locks
+            for (Map.Entry<Long, Integer> entry : quantidades.entrySet()) {
+                Produto produto = produtos.get(entry.getKey());
+                if (produto == null) {
+                    return Outcome.failed(Failure.PRODUCT_NOT_FOUND, "Produto não encontrado: " + entry.getKey());
+                }
+                if (!produto.temEstoque(entry.getValue())) {
+                    return Outcome.failed(Failure.INSUFFICIENT_STOCK,
+                            "Estoque insuficiente para o produto: " + produto.getNome());
+                }
+            }
+
+            Pedido pedido = new Pedido();
+            pedido.setCliente(cliente);
+            pedido.setDataPedido(LocalDateTime.now());
+            pedido.setStatus(StatusPedido.PENDENTE);
+            pedido.setFormaPagamento(dto.getFormaPagamento());
+            pedido.setObservacoes(dto.getObservacoes());
+            for (ItemPedidoRequestDTO itemDTO : dto.getItens()) {
+                pedido.adicionarItem(new ItemPedido(produtos.get(itemDTO.getProdutoId()), itemDTO.getQuantidade()));
+            }
+            quantidades.forEach((produtoId, quantidade) -> produtos.get(produtoId).reduzirEstoque(quantidade));
+
+            // Items cascade from the order; dirty products are updated in the same flush
+            Pedido saved = pedidoRepository.save(pedido);
+            orderEvents.statusChanged(saved, null);
+            Map<Long, Integer> baixas = new TreeMap<>();
+            quantidades.forEach((produtoId, quantidade) -> baixas.put(produtoId, -quantidade));
+            stockLedger.record(TipoMovimentacao.BAIXA, saved.getId(), baixas);
+            dailySales.record(saved);
+            return Outcome.placed(saved);
+        });
+
+        if (outcome.isPlaced()) {
+            catalogVersions.changed(CatalogVersions.Resource.PRODUTO, quantidades.keySet().toArray(new Long[0]));
+            stockLedger.compactIfDue();
+        }
+        return outcome;
+    }
+}
@@ -5,6 +5,10 @@ import com.microsoft.azure.functions.annotation.*;
 import com.petshop.functions.shared.dto.AgendamentoRequestDTO;
 import com.petshop.functions.shared.dto.AgendamentoResponseDTO;
 import com.petshop.functions.shared.dto.ServicoSimpleDTO;
+import com.petshop.functions.shared.idempotency.IdempotencyStore;
+import com.petshop.functions.shared.messages.ServiceBusMessages.SchedulingCancelledMessage;
+import com.petshop.functions.shared.messages.ServiceBusMessages.SchedulingCreatedMessage;
+import com.petshop.functions.shared.messages.ServiceBusPublisher;
 import com.petshop.functions.shared.model.Agendamento;
 import com.petshop.functions.shared.model.Agendamento.StatusAgendamento;
 import com.petshop.functions.shared.model.Cliente;
@@ -15,10 +19,13 @@ import com.petshop.functions.shared.repository.ClienteRepository;
 import com.petshop.functions.shared.repository.PetRepository;
 import com.petshop.functions.shared.repository.ServicoRepository;
 import com.petshop.functions.shared.security.FunctionAuthorization;
+import com.petshop.functions.shared.security.FunctionAuthorization.AuthorizationResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +44,9 @@ public class SchedulingFunctions {
     private final PetRepository petRepository;
     private final ServicoRepository servicoRepository;
     private final FunctionAuthorization functionAuthorization;
+    private final IdempotencyStore idempotencyStore;
+    private final ServiceBusPublisher serviceBusPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public SchedulingFunctions(
@@ -44,12 +54,18 @@ public class SchedulingFunctions {
             ClienteRepository clienteRepository,
             PetRepository petRepository,
             ServicoRepository servicoRepository,
-            FunctionAuthorization functionAuthorization) {
+            FunctionAuthorization functionAuthorization,
+            IdempotencyStore idempotencyStore,
+            ServiceBusPublisher serviceBusPublisher,
+            TransactionTemplate transactionTemplate) {
         this.agendamentoRepository = agendamentoRepository;
         this.clienteRepository = clienteRepository;
         this.petRepository = petRepository;
         this.servicoRepository = servicoRepository;
         this.functionAuthorization = functionAuthorization;
+        this.idempotencyStore = idempotencyStore;
+        this.serviceBusPublisher = serviceBusPublisher;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -263,110 +279,120 @@ public class SchedulingFunctions {
 
         context.getLogger().info("Creating new appointment");
 
-        return functionAuthorization.executeProtectedWithRoles(request, Set.of("Admin", "Cliente"), authResult -> {
-            Optional<AgendamentoRequestDTO> bodyOpt = request.getBody();
-            if (bodyOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Request body is required"))
-                        .build();
-            }
+        return functionAuthorization.executeProtectedWithRoles(request, Set.of("Admin", "Cliente"), authResult ->
+                idempotencyStore.execute(request, "POST agendamentos", authResult.username(),
+                        request.getBody().orElse(null), () -> scheduleAppointment(request, authResult)));
+    }
 
-            AgendamentoRequestDTO dto = bodyOpt.get();
+    private HttpResponseMessage scheduleAppointment(HttpRequestMessage<Optional<AgendamentoRequestDTO>> request,
+                                                    AuthorizationResult authResult) {
+        Optional<AgendamentoRequestDTO> bodyOpt = request.getBody();
+        if (bodyOpt.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Request body is required"))
+                    .build();
+        }
 
-            // Validate required fields
-            if (dto.getPetId() == null || dto.getServicoIds() == null || dto.getServicoIds().isEmpty() || 
-                dto.getDataAgendamento() == null || dto.getHorario() == null) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Pet, serviço, data e hora são obrigatórios"))
-                        .build();
-            }
+        AgendamentoRequestDTO dto = bodyOpt.get();
 
-            // Determine clienteId
-            Long clienteId = dto.getClienteId();
-            if ("Cliente".equals(authResult.role())) {
-                clienteId = authResult.clienteId();
-            }
+        // Validate required fields
+        if (dto.getPetId() == null || dto.getServicoIds() == null || dto.getServicoIds().isEmpty() || 
+            dto.getDataAgendamento() == null || dto.getHorario() == null) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Pet, serviço, data e hora são obrigatórios"))
+                    .build();
+        }
 
-            if (clienteId == null) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Cliente não identificado"))
-                        .build();
-            }
+        // Determine clienteId
+        Long clienteId = dto.getClienteId();
+        if ("Cliente".equals(authResult.role())) {
+            clienteId = authResult.clienteId();
+        }
 
-            // Validate entities exist
-            Optional<Cliente> clienteOpt = clienteRepository.findById(clienteId);
-            if (clienteOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Cliente não encontrado"))
-                        .build();
-            }
+        if (clienteId == null) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Cliente não identificado"))
+                    .build();
+        }
 
-            Optional<Pet> petOpt = petRepository.findById(dto.getPetId());
-            if (petOpt.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Pet não encontrado"))
-                        .build();
-            }
+        // Validate entities exist
+        Optional<Cliente> clienteOpt = clienteRepository.findById(clienteId);
+        if (clienteOpt.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Cliente não encontrado"))
+                    .build();
+        }
 
-            // Validate pet belongs to customer
-            Pet pet = petOpt.get();
-            if ("Cliente".equals(authResult.role()) && 
-                (pet.getCliente() == null || !pet.getCliente().getId().equals(clienteId))) {
-                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
-                        .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Este pet não pertence a você"))
-                        .build();
-            }
+        Optional<Pet> petOpt = petRepository.findById(dto.getPetId());
+        if (petOpt.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Pet não encontrado"))
+                    .build();
+        }
 
-            // Load services
-            List<Servico> servicos = new ArrayList<>();
-            double valorTotal = 0.0;
-            for (Long servicoId : dto.getServicoIds()) {
-                Optional<Servico> servicoOpt = servicoRepository.findById(servicoId);
-                if (servicoOpt.isEmpty()) {
-                    return request.createResponseBuilder(HttpStatus.NOT_FOUND)
-                            .header("Content-Type", "application/json")
-                            .body(Map.of("error", "Serviço não encontrado: " + servicoId))
-                            .build();
-                }
-                servicos.add(servicoOpt.get());
-                valorTotal += servicoOpt.get().getPreco();
-            }
+        // Validate pet belongs to customer
+        Pet pet = petOpt.get();
+        if ("Cliente".equals(authResult.role()) && 
+            (pet.getCliente() == null || !pet.getCliente().getId().equals(clienteId))) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "application/json")
+                    .body(Map.of("error", "Este pet não pertence a você"))
+                    .build();
+        }
 
-            // Check for conflicting appointments
-            List<Agendamento> conflitos = agendamentoRepository.findByDataAndHorario(
-                    dto.getDataAgendamento(), dto.getHorario());
-            if (!conflitos.isEmpty()) {
-                return request.createResponseBuilder(HttpStatus.CONFLICT)
+        // Load services
+        List<Servico> servicos = new ArrayList<>();
+        double valorTotal = 0.0;
+        for (Long servicoId : dto.getServicoIds()) {
+            Optional<Servico> servicoOpt = servicoRepository.findById(servicoId);
+            if (servicoOpt.isEmpty()) {
+                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
                         .header("Content-Type", "application/json")
-                        .body(Map.of("error", "Já existe um agendamento para esta data e horário"))
+                        .body(Map.of("error", "Serviço não encontrado: " + servicoId))
                         .build();
             }
+            servicos.add(servicoOpt.get());
+            valorTotal += servicoOpt.get().getPreco();
+        }
 
-            Agendamento agendamento = new Agendamento();
-            agendamento.setCliente(clienteOpt.get());
-            agendamento.setPet(pet);
-            agendamento.setServicos(servicos);
-            agendamento.setDataAgendamento(dto.getDataAgendamento());
-            agendamento.setHorario(dto.getHorario());
-            agendamento.setMetodoAtendimento(dto.getMetodoAtendimento() != null ? dto.getMetodoAtendimento() : "local");
-            agendamento.setPortePet(dto.getPortePet());
-            agendamento.setObservacoes(dto.getObservacoes());
-            agendamento.setValorTotal(valorTotal);
-            agendamento.setStatus(StatusAgendamento.PENDENTE);
-
-            agendamento = agendamentoRepository.save(agendamento);
-
-            return request.createResponseBuilder(HttpStatus.CREATED)
+        // Check for conflicting appointments
+        List<Agendamento> conflitos = agendamentoRepository.findByDataAndHorario(
+                dto.getDataAgendamento(), dto.getHorario());
+        if (!conflitos.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.CONFLICT)
                     .header("Content-Type", "application/json")
-                    .body(toResponseDTO(agendamento))
+                    .body(Map.of("error", "Já existe um agendamento para esta data e horário"))
                     .build();
+        }
+
+        Agendamento agendamento = new Agendamento();
+        agendamento.setCliente(clienteOpt.get());
+        agendamento.setPet(pet);
+        agendamento.setServicos(servicos);
+        agendamento.setDataAgendamento(dto.getDataAgendamento());
+        agendamento.setHorario(dto.getHorario());
+        agendamento.setMetodoAtendimento(dto.getMetodoAtendimento() != null ? dto.getMetodoAtendimento() : "local");
+        agendamento.setPortePet(dto.getPortePet());
+        agendamento.setObservacoes(dto.getObservacoes());
+        agendamento.setValorTotal(valorTotal);
+        agendamento.setStatus(StatusAgendamento.PENDENTE);
+
+        // Appointment and its outbox event are committed together
+        Agendamento saved = transactionTemplate.execute(status -> {
+            Agendamento persisted = agendamentoRepository.save(agendamento);
+            appointmentCreated(persisted);
+            return persisted;
         });
+
+        return request.createResponseBuilder(HttpStatus.CREATED)
+                .header("Content-Type", "application/json")
+                .body(toResponseDTO(saved))
+                .build();
     }
 
     /**
@@ -466,8 +492,14 @@ public class SchedulingFunctions {
             try {
                 Agendamento agendamento = agendamentoOpt.get();
                 StatusAgendamento status = StatusAgendamento.valueOf(bodyOpt.get().get("status").toUpperCase());
+                boolean cancelling = status == StatusAgendamento.CANCELADO && agendamento.getStatus() != StatusAgendamento.CANCELADO;
                 agendamento.setStatus(status);
-                agendamentoRepository.save(agendamento);
+                transactionTemplate.executeWithoutResult(tx -> {
+                    agendamentoRepository.save(agendamento);
+                    if (cancelling) {
+                        appointmentCancelled(id, "Cancelado pelo administrador");
+                    }
+                });
 
                 return request.createResponseBuilder(HttpStatus.OK)
                         .header("Content-Type", "application/json")
@@ -517,18 +549,44 @@ public class SchedulingFunctions {
             }
 
             // For Cliente, change status to Cancelado instead of deleting
-            if ("Cliente".equals(authResult.role())) {
-                agendamento.setStatus(StatusAgendamento.CANCELADO);
-                agendamentoRepository.save(agendamento);
-            } else {
-                agendamentoRepository.deleteById(id);
-            }
+            boolean wasActive = agendamento.getStatus() != StatusAgendamento.CANCELADO;
+            transactionTemplate.executeWithoutResult(tx -> {
+                if ("Cliente".equals(authResult.role())) {
+                    agendamento.setStatus(StatusAgendamento.CANCELADO);
+                    agendamentoRepository.save(agendamento);
+                    if (wasActive) {
+                        appointmentCancelled(id, "Cancelado pelo cliente");
+                    }
+                } else {
+                    agendamentoRepository.deleteById(id);
+                    if (wasActive) {
+                        appointmentCancelled(id, "Removido pelo administrador");
+                    }
+                }
+            });
 
             return request.createResponseBuilder(HttpStatus.NO_CONTENT)
                     .build();
         });
     }
 
+    // Outbox events: callers must be inside the transaction that writes the change
+    private void appointmentCreated(Agendamento agendamento) {
+        List<Servico> servicos = agendamento.getServicos();
+        serviceBusPublisher.publishSchedulingCreated(new SchedulingCreatedMessage(
+                agendamento.getId(),
+                agendamento.getCliente().getId(),
+                agendamento.getPet().getId(),
+                servicos != null && !servicos.isEmpty() ? servicos.get(0).getId() : null,
+                LocalDateTime.of(agendamento.getDataAgendamento(), agendamento.getHorario()),
+                LocalDateTime.now()));
+    }
+
+    private void appointmentCancelled(Long agendamentoId, String reason) {
+        serviceBusPublisher.publishSchedulingCancelled(
+                new SchedulingCancelledMessage(agendamentoId, reason, LocalDateTime.now()));
+    }
+
     private AgendamentoResponseDTO toResponseDTO(Agendamento agendamento) {
         AgendamentoResponseDTO dto = new AgendamentoResponseDTO();
         dto.setId(agendamento.getId());
@@ -0,0 +1,153 @@
+package com.petshop.functions.shared.catalog;
+
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import com.petshop.functions.shared.model.CatalogoVersao;
+import com.petshop.functions.shared.repository.CatalogoVersaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Versões do catálogo (produtos, categorias e serviços) para GET condicional.
+ *
+ * Cada escrita incrementa a versão da coleção e dos itens alterados na tabela
+ * catalogo_versoes, compartilhada por todas as function apps (o estoque, por
+ * exemplo, é alterado pela app de pedidos). A ETag é montada a partir dessas
+ * versões com uma única consulta por chave primária, sem carregar nem
+ * serializar as entidades; If-None-Match igual devolve 304.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersions.class);
+
+    public enum Resource {
+        CATEGORIA("categorias", null),
+        SERVICO("servicos", null),
+        // A resposta de produto inclui o nome da categoria
+        PRODUTO("produtos", CATEGORIA);
+
+        private final String key;
+        private final Resource dependency;
+
+        Resource(String key, Resource dependency) {
+            this.key = key;
+            this.dependency = dependency;
+        }
+    }
+
+    private final CatalogoVersaoRepository catalogoVersaoRepository;
+
+    @Autowired
+    public CatalogVersions(CatalogoVersaoRepository catalogoVersaoRepository) {
+        this.catalogoVersaoRepository = catalogoVersaoRepository;
+    }
+
+    /**
+     * ETag forte das listagens do recurso
+     */
+    public String collectionEtag(Resource resource) {
+        return etag(resource, resource.key);
+    }
+
+    /**
+     * ETag forte de um item do recurso
+     */
+    public String itemEtag(Resource resource, Long id) {
+        return etag(resource, resource.key + ":" + id);
+    }
+
+    /**
+     * Registra a alteração da coleção e dos itens informados. Chamar após o
+     * save/delete: uma falha aqui é apenas logada, sem desfazer a escrita.
+     */
+    public void changed(Resource resource, Long... ids) {
+        List<String> keys = new ArrayList<>();
+        keys.add(resource.key);
+        for (Long id : ids) {
+            if (id != null) {
+                keys.add(resource.key + ":" + id);
+            }
+        }
+
+        try {
+            if (catalogoVersaoRepository.incrementar(keys) == keys.size()) {
+                return;
+            }
+            // Chaves ainda inexistentes começam na versão 1
+            List<String> existing = catalogoVersaoRepository.findAllById(keys).stream()
+                    .map(CatalogoVersao::getChave)
+                    .collect(Collectors.toList());
+            for (String key : keys) {
+                if (!existing.contains(key)) {
+                    create(key);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar versão do catálogo {}: {}", keys, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Verifica o header If-None-Match (aceita lista de ETags e "*")
+     */
+    public boolean notModified(HttpRequestMessage<?> request, String etag) {
+        String header = request.getHeaders().get("if-none-match");
+        if (header == null) {
+            header = request.getHeaders().get("If-None-Match");
+        }
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public HttpResponseMessage notModifiedResponse(HttpRequestMessage<?> request, String etag) {
+        return request.createResponseBuilder(HttpStatus.NOT_MODIFIED)
+                .header("ETag", etag)
+                .build();
+    }
+
+    private String etag(Resource resource, String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        if (resource.dependency != null) {
+            keys.add(resource.dependency.key);
+        }
+        Map<String, Long> versions = catalogoVersaoRepository.findAllById(keys).stream()
+                .collect(Collectors.toMap(CatalogoVersao::getChave, CatalogoVersao::getVersao));
+
+        StringBuilder etag = new StringBuilder("\"").append(key).append('-').append(versions.getOrDefault(key, 0L));
+        if (resource.dependency != null) {
+            etag.append('-').append(resource.dependency.key).append(versions.getOrDefault(resource.dependency.key, 0L));
+        }
+        return etag.append('"').toString();
+    }
+
+    private void create(String key) {
+        try {
+            catalogoVersaoRepository.save(new CatalogoVersao(key, 1L));
+        } catch (DataIntegrityViolationException e) {
+            // Criada por outra instância entre o UPDATE e o INSERT
+            catalogoVersaoRepository.incrementar(List.of(key));
+        }
+    }
+}
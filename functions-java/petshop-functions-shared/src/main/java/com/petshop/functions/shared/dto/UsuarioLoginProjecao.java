@@ -0,0 +1,9 @@
+package com.petshop.functions.shared.dto;
+
+/**
+ * Dados do login lidos por projeção JPQL: usuário ativo, hash da senha e o
+ * cliente de mesmo email, tudo numa única consulta ao banco.
+ */
+public record UsuarioLoginProjecao(Long id, String username, String senha, String email, String role,
+                                   Long clienteId, String clienteNome) {
+}
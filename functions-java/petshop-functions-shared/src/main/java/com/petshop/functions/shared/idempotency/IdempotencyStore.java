@@ -0,0 +1,249 @@
+package com.petshop.functions.shared.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import com.microsoft.azure.functions.HttpStatusType;
+import com.petshop.functions.shared.model.ChaveIdempotencia;
+import com.petshop.functions.shared.repository.ChaveIdempotenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key nos POST que criam recursos (pedidos, agendamentos).
+ *
+ * Sem o cabeçalho a função executa normalmente. Com ele, a primeira
+ * invocação reserva a chave (INSERT na coluna única de chaves_idempotencia,
+ * o que coordena as instâncias), executa e, se der 2xx, guarda status e
+ * corpo JSON; repetições recebem essa resposta sem executar de novo. A chave
+ * vale por usuário e por rota. Mesma chave com outro corpo é 422, repetição
+ * enquanto a primeira executa é 409, e respostas de erro liberam a chave.
+ * Uma resposta 2xx que não pôde ser guardada mantém a chave reservada até o
+ * prazo de execução vencer.
+ * Respostas concluídas ficam também num LRU da instância. Sem agendador nas
+ * Function Apps, os registros vencidos são apagados sob demanda.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private record StoredResponse(String fingerprint, int status, String body, long expiresAtMillis) {
+    }
+
+    private final ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Duration executionLease;
+    private final long purgeIntervalMs;
+    private final ReentrantLock purgeLock = new ReentrantLock();
+    private final Map<String, StoredResponse> completed;
+    private volatile long purgedAtMillis;
+
+    public IdempotencyStore(ChaveIdempotenciaRepository chaveIdempotenciaRepository,
+                            @Value("${idempotency.retention-hours:24}") long retentionHours,
+                            @Value("${idempotency.execution-lease-ms:60000}") long executionLeaseMs,
+                            @Value("${idempotency.purge-interval-ms:600000}") long purgeIntervalMs,
+                            @Value("${idempotency.cache.max-entries:5000}") int maxEntries) {
+        this.chaveIdempotenciaRepository = chaveIdempotenciaRepository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.executionLease = Duration.ofMillis(executionLeaseMs);
+        this.purgeIntervalMs = purgeIntervalMs;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Executa action uma única vez por Idempotency-Key.
+     *
+     * @param scope  rota da função (ex.: "POST agendamentos")
+     * @param caller usuário autenticado, para que chaves de usuários diferentes não colidam
+     * @param body   corpo já desserializado, usado na impressão da requisição
+     */
+    public HttpResponseMessage execute(HttpRequestMessage<?> request, String scope, String caller, Object body,
+                                       Supplier<HttpResponseMessage> action) {
+        String key = request.getHeaders().get("idempotency-key");
+        if (key == null) {
+            key = request.getHeaders().get(HEADER);
+        }
+        if (key == null) {
+            return action.get();
+        }
+        key = key.trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return error(request, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres");
+        }
+
+        purgeIfDue();
+        String hashedKey = sha256(scope + "|" + caller + "|" + key);
+        String fingerprint = sha256(toJson(body));
+
+        Optional<StoredResponse> stored = find(hashedKey);
+        if (stored.isEmpty()) {
+            if (reserve(hashedKey, fingerprint)) {
+                return run(request, hashedKey, fingerprint, action);
+            }
+            // Outra invocação reservou entre a busca e o INSERT
+            stored = find(hashedKey);
+        }
+
+        StoredResponse response = stored.orElse(null);
+        if (response != null && !response.fingerprint().equals(fingerprint)) {
+            return error(request, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key já utilizada com outro corpo de requisição");
+        }
+        if (response == null || response.status() == 0) {
+            return request.createResponseBuilder(HttpStatus.CONFLICT)
+                    .header("Content-Type", "application/json")
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", "Requisição com esta Idempotency-Key ainda em processamento"))
+                    .build();
+        }
+        return request.createResponseBuilder(HttpStatusType.custom(response.status()))
+                .header("Content-Type", "application/json")
+                .header(REPLAYED_HEADER, "true")
+                .body(response.body())
+                .build();
+    }
+
+    private HttpResponseMessage run(HttpRequestMessage<?> request, String hashedKey, String fingerprint,
+                                    Supplier<HttpResponseMessage> action) {
+        HttpResponseMessage response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            chaveIdempotenciaRepository.liberar(hashedKey);
+            throw e;
+        }
+        int status = response.getStatusCode();
+        if (status < 200 || status >= 300) {
+            chaveIdempotenciaRepository.liberar(hashedKey);
+            return response;
+        }
+        // O recurso já foi criado: daqui em diante a chave não é liberada, ou
+        // uma nova tentativa o criaria de novo. Se a resposta não puder ser
+        // guardada, a reserva responde 409 até o prazo de execução vencer.
+        try {
+            // O corpo vai como JSON já serializado, igual ao que as repetições recebem
+            String json = response.getBody() instanceof String text ? text : toJson(response.getBody());
+            chaveIdempotenciaRepository.concluir(hashedKey, status, "application/json",
+                    json.getBytes(StandardCharsets.UTF_8), LocalDateTime.now().plus(retention));
+            synchronized (completed) {
+                completed.put(hashedKey, new StoredResponse(fingerprint, status, json,
+                        System.currentTimeMillis() + retention.toMillis()));
+            }
+            return request.createResponseBuilder(HttpStatusType.custom(status))
+                    .header("Content-Type", "application/json")
+                    .body(json)
+                    .build();
+        } catch (RuntimeException e) {
+            logger.warn("Resposta da Idempotency-Key não guardada; a reserva fica até expirar: {}", e.getMessage());
+            return response;
+        }
+    }
+
+    // Status 0 representa reserva em andamento
+    private Optional<StoredResponse> find(String hashedKey) {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            StoredResponse cached = completed.get(hashedKey);
+            if (cached != null && cached.expiresAtMillis() > now) {
+                return Optional.of(cached);
+            }
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        return chaveIdempotenciaRepository.findByChave(hashedKey)
+                .filter(chave -> chave.getExpiraEm().isAfter(agora))
+                .map(chave -> new StoredResponse(chave.getImpressao(),
+                        chave.getStatus() != null ? chave.getStatus() : 0,
+                        chave.getCorpo() != null ? new String(chave.getCorpo(), StandardCharsets.UTF_8) : null,
+                        now + Duration.between(agora, chave.getExpiraEm()).toMillis()));
+    }
+
+    private boolean reserve(String hashedKey, String fingerprint) {
+        LocalDateTime agora = LocalDateTime.now();
+        chaveIdempotenciaRepository.removerSeExpirada(hashedKey, agora);
+        try {
+            chaveIdempotenciaRepository.saveAndFlush(
+                    new ChaveIdempotencia(hashedKey, fingerprint, agora.plus(executionLease)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Apaga os registros vencidos no máximo uma vez por intervalo; as
+     * invocações concorrentes não esperam
+     */
+    private void purgeIfDue() {
+        if (System.currentTimeMillis() - purgedAtMillis < purgeIntervalMs || !purgeLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - purgedAtMillis >= purgeIntervalMs) {
+                chaveIdempotenciaRepository.removerExpiradas(LocalDateTime.now());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao remover chaves de idempotência vencidas: {}", e.getMessage());
+        } finally {
+            purgedAtMillis = System.currentTimeMillis();
+            purgeLock.unlock();
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar para JSON", e);
+        }
+    }
+
+    private static HttpResponseMessage error(HttpRequestMessage<?> request, HttpStatus status, String message) {
+        return request.createResponseBuilder(status)
+                .header("Content-Type", "application/json")
+                .body(Map.of("error", message))
+                .build();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.petshop.functions.shared.messages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transporte local: guarda as mensagens em memória, por fila. Usado quando
+ * não há connection string do Service Bus (desenvolvimento) e para exercitar
+ * o relay sem broker.
+ */
+public class InMemoryTransport implements MessageTransport {
+
+    private final Map<String, List<String>> queues = new ConcurrentHashMap<>();
+
+    @Override
+    public void send(String queueName, List<String> jsonMessages) {
+        List<String> queue = queues.computeIfAbsent(queueName, name -> new ArrayList<>());
+        synchronized (queue) {
+            queue.addAll(jsonMessages);
+        }
+    }
+
+    /**
+     * Cópia das mensagens recebidas pela fila, na ordem de entrega
+     */
+    public List<String> messages(String queueName) {
+        List<String> queue = queues.get(queueName);
+        if (queue == null) {
+            return List.of();
+        }
+        synchronized (queue) {
+            return List.copyOf(queue);
+        }
+    }
+
+    public void clear() {
+        queues.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package com.petshop.functions.shared.messages;
+
+import java.util.List;
+
+/**
+ * Destino das mensagens drenadas do outbox pelo OutboxRelay.
+ *
+ * send entrega o lote inteiro na ordem da lista ou lança exceção; nesse caso
+ * o relay considera o lote todo não entregue e tenta de novo depois (entrega
+ * pelo menos uma vez).
+ */
+public interface MessageTransport {
+
+    void send(String queueName, List<String> jsonMessages);
+}
@@ -0,0 +1,26 @@
+package com.petshop.functions.shared.messages;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transporte usado pelo OutboxRelay: Service Bus quando há connection
+ * string, memória local caso contrário
+ */
+@Configuration
+public class MessagingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagingConfig.class);
+
+    @Bean
+    public MessageTransport messageTransport(@Value("${azure.servicebus.connection-string:}") String connectionString) {
+        if (connectionString == null || connectionString.isBlank()) {
+            logger.warn("Service Bus connection string não configurada. Eventos do outbox ficarão apenas em memória");
+            return new InMemoryTransport();
+        }
+        return new ServiceBusTransport(connectionString);
+    }
+}
@@ -0,0 +1,220 @@
+package com.petshop.functions.shared.messages;
+
+import com.petshop.functions.shared.model.EventoOutbox;
+import com.petshop.functions.shared.repository.EventoOutboxRepository;
+import com.petshop.functions.shared.repository.TravaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publica os eventos do outbox fora das requisições.
+ *
+ * Uma thread própria drena a tabela a cada intervalo e também logo após cada
+ * commit que gravou eventos (wakeUp), então a latência do broker nunca entra
+ * no tempo de resposta. Só uma instância drena por vez (trava "outbox-relay"
+ * com prazo na tabela travas), e os pendentes são lidos em ordem de id: os
+ * eventos de um mesmo agregado saem na ordem em que foram gravados.
+ *
+ * Eventos consecutivos da mesma fila vão num único envio. Se um envio
+ * falhar, os agregados daquele lote ficam bloqueados até a próxima rodada,
+ * para que nenhum evento posterior deles passe na frente. A marcação de
+ * publicado acontece depois do envio: uma queda entre os dois reenvia o lote
+ * (entrega pelo menos uma vez; consumidores devem tolerar duplicatas).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    static final String LOCK_NAME = "outbox-relay";
+    private static final long PURGE_INTERVAL_MS = 3_600_000L;
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final TravaRepository travaRepository;
+    private final MessageTransport transport;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollIntervalMs;
+    private final Duration lease;
+    private final Duration retention;
+    private final String relayId = UUID.randomUUID().toString();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+    private long purgedAtMillis;
+
+    public OutboxRelay(EventoOutboxRepository eventoOutboxRepository,
+                       TravaRepository travaRepository,
+                       MessageTransport transport,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.poll-interval-ms:5000}") long pollIntervalMs,
+                       @Value("${outbox.relay.lease-ms:30000}") long leaseMs,
+                       @Value("${outbox.relay.retention-hours:168}") long retentionHours) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.travaRepository = travaRepository;
+        this.transport = transport;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drainQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pede uma drenagem imediata; chamadas repetidas antes dela começar se
+     * juntam numa só
+     */
+    public void wakeUp() {
+        if (executor != null && wakeUpPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                wakeUpPending.set(false);
+                drainQuietly();
+            });
+        }
+    }
+
+    /**
+     * Publica os pendentes até esvaziar a tabela ou uma rodada não avançar.
+     *
+     * @return quantidade de eventos publicados
+     */
+    public int drain() {
+        if (!acquireLock()) {
+            return 0;
+        }
+        int published = 0;
+        while (true) {
+            List<EventoOutbox> pending = eventoOutboxRepository.findPendentes(maxAttempts, PageRequest.of(0, batchSize));
+            if (pending.isEmpty()) {
+                break;
+            }
+            int count = publish(pending);
+            published += count;
+            if (count < pending.size() || !acquireLock()) {
+                // Falhas esperam a próxima rodada; sem a trava, outra instância assumiu
+                break;
+            }
+        }
+        purgeIfDue();
+        return published;
+    }
+
+    int publish(List<EventoOutbox> pending) {
+        Set<String> blocked = new HashSet<>();
+        List<Long> published = new ArrayList<>();
+        List<EventoOutbox> run = new ArrayList<>();
+        for (EventoOutbox evento : pending) {
+            if (!run.isEmpty() && !run.get(0).getFila().equals(evento.getFila())) {
+                send(run, published, blocked);
+                run.clear();
+            }
+            if (!blocked.contains(evento.chaveAgregado())) {
+                run.add(evento);
+            }
+        }
+        if (!run.isEmpty()) {
+            send(run, published, blocked);
+        }
+        if (!published.isEmpty()) {
+            eventoOutboxRepository.marcarPublicados(published, LocalDateTime.now());
+        }
+        return published.size();
+    }
+
+    private void send(List<EventoOutbox> run, List<Long> published, Set<String> blocked) {
+        String queueName = run.get(0).getFila();
+        try {
+            transport.send(queueName, run.stream().map(EventoOutbox::getPayload).toList());
+            run.forEach(evento -> published.add(evento.getId()));
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao publicar {} eventos na queue {}: {}", run.size(), queueName, e.getMessage());
+            run.forEach(evento -> blocked.add(evento.chaveAgregado()));
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            eventoOutboxRepository.registrarFalha(run.stream().map(EventoOutbox::getId).toList(),
+                    message.length() > 500 ? message.substring(0, 500) : message);
+        }
+    }
+
+    private boolean acquireLock() {
+        LocalDateTime now = LocalDateTime.now();
+        if (travaRepository.adquirir(LOCK_NAME, relayId, now, now.plus(lease)) > 0) {
+            return true;
+        }
+        if (travaRepository.existsById(LOCK_NAME)) {
+            return false;
+        }
+        try {
+            return travaRepository.criar(LOCK_NAME, relayId, now.plus(lease)) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância criou a trava ao mesmo tempo
+            return false;
+        }
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - purgedAtMillis >= PURGE_INTERVAL_MS) {
+            purgedAtMillis = now;
+            eventoOutboxRepository.removerPublicadosAntes(LocalDateTime.now().minus(retention));
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // A thread do relay não pode morrer: a próxima rodada tenta de novo
+            logger.warn("Falha ao drenar o outbox: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        // Deixa terminar o envio em curso antes de os repositórios serem fechados
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,26 +1,28 @@
 package com.petshop.functions.shared.messages;
 
-import com.azure.messaging.servicebus.ServiceBusClientBuilder;
-import com.azure.messaging.servicebus.ServiceBusMessage;
-import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import com.petshop.functions.shared.model.EventoOutbox;
+import com.petshop.functions.shared.repository.EventoOutboxRepository;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Helper para publicar mensagens no Azure Service Bus
+ *
+ * Nada aqui fala com o broker: cada publish grava o evento na tabela
+ * eventos_outbox dentro da transação corrente, junto com a alteração que o
+ * originou. Se a transação desfizer, o evento some com ela; se confirmar, o
+ * OutboxRelay é acordado logo após o commit e publica em segundo plano.
  */
 @Component
 public class ServiceBusPublisher {
 
-    private static final Logger logger = LoggerFactory.getLogger(ServiceBusPublisher.class);
-
-    @Value("${azure.servicebus.connection-string:}")
-    private String connectionString;
-
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final OutboxRelay outboxRelay;
     private final ObjectMapper objectMapper;
 
     // Queue names
@@ -33,95 +35,97 @@ public class ServiceBusPublisher {
     public static final String QUEUE_CUSTOMER_REGISTERED = "customer-registered";
     public static final String QUEUE_NOTIFICATIONS = "notifications";
 
-    public ServiceBusPublisher() {
+    // Agregados: eventos do mesmo agregado e id são publicados em ordem
+    public static final String AGGREGATE_PEDIDO = "Pedido";
+    public static final String AGGREGATE_AGENDAMENTO = "Agendamento";
+    public static final String AGGREGATE_CLIENTE = "Cliente";
+    public static final String AGGREGATE_NOTIFICACAO = "Notificacao";
+
+    public ServiceBusPublisher(EventoOutboxRepository eventoOutboxRepository, OutboxRelay outboxRelay) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.outboxRelay = outboxRelay;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
 
     /**
-     * Publica uma mensagem em uma queue do Service Bus
+     * Grava uma mensagem no outbox para a queue informada. Exige transação
+     * ativa: é ela que garante que evento e alteração são gravados juntos.
      */
-    public <T> boolean publish(String queueName, T message) {
-        if (connectionString == null || connectionString.isBlank()) {
-            logger.warn("Service Bus connection string não configurada. Mensagem não enviada para queue: {}", queueName);
-            return false;
+    public <T> void publish(String queueName, String aggregateType, Long aggregateId, T message) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Eventos devem ser publicados dentro da transação da alteração: " + queueName);
         }
-
+        String jsonMessage;
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            
-            try (ServiceBusSenderClient senderClient = new ServiceBusClientBuilder()
-                    .connectionString(connectionString)
-                    .sender()
-                    .queueName(queueName)
-                    .buildClient()) {
-                
-                ServiceBusMessage busMessage = new ServiceBusMessage(jsonMessage);
-                busMessage.setContentType("application/json");
-                
-                senderClient.sendMessage(busMessage);
-                logger.info("Mensagem publicada na queue {}: {}", queueName, jsonMessage);
-                return true;
-            }
-        } catch (Exception e) {
-            logger.error("Erro ao publicar mensagem na queue {}: {}", queueName, e.getMessage(), e);
-            return false;
+            jsonMessage = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Mensagem não serializável para a queue " + queueName, e);
         }
+        eventoOutboxRepository.save(new EventoOutbox(queueName, aggregateType, aggregateId, jsonMessage));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
     }
 
     /**
      * Publica mensagem de dedução de estoque
      */
-    public boolean publishStockDeduction(ServiceBusMessages.StockDeductionMessage message) {
-        return publish(QUEUE_STOCK_DEDUCTION, message);
+    public void publishStockDeduction(ServiceBusMessages.StockDeductionMessage message) {
+        publish(QUEUE_STOCK_DEDUCTION, AGGREGATE_PEDIDO, message.pedidoId(), message);
     }
 
     /**
      * Publica mensagem de restauração de estoque
      */
-    public boolean publishStockRestore(ServiceBusMessages.StockRestoreMessage message) {
-        return publish(QUEUE_STOCK_RESTORE, message);
+    public void publishStockRestore(ServiceBusMessages.StockRestoreMessage message) {
+        publish(QUEUE_STOCK_RESTORE, AGGREGATE_PEDIDO, message.pedidoId(), message);
     }
 
     /**
      * Publica mensagem de pedido confirmado
      */
-    public boolean publishOrderConfirmed(ServiceBusMessages.OrderConfirmedMessage message) {
-        return publish(QUEUE_ORDER_CONFIRMED, message);
+    public void publishOrderConfirmed(ServiceBusMessages.OrderConfirmedMessage message) {
+        publish(QUEUE_ORDER_CONFIRMED, AGGREGATE_PEDIDO, message.pedidoId(), message);
     }
 
     /**
      * Publica mensagem de mudança de status de pedido
      */
-    public boolean publishOrderStatusChanged(ServiceBusMessages.OrderStatusChangedMessage message) {
-        return publish(QUEUE_ORDER_STATUS_CHANGED, message);
+    public void publishOrderStatusChanged(ServiceBusMessages.OrderStatusChangedMessage message) {
+        publish(QUEUE_ORDER_STATUS_CHANGED, AGGREGATE_PEDIDO, message.pedidoId(), message);
     }
 
     /**
      * Publica mensagem de agendamento criado
      */
-    public boolean publishSchedulingCreated(ServiceBusMessages.SchedulingCreatedMessage message) {
-        return publish(QUEUE_SCHEDULING_CREATED, message);
+    public void publishSchedulingCreated(ServiceBusMessages.SchedulingCreatedMessage message) {
+        publish(QUEUE_SCHEDULING_CREATED, AGGREGATE_AGENDAMENTO, message.agendamentoId(), message);
     }
 
     /**
      * Publica mensagem de agendamento cancelado
      */
-    public boolean publishSchedulingCancelled(ServiceBusMessages.SchedulingCancelledMessage message) {
-        return publish(QUEUE_SCHEDULING_CANCELLED, message);
+    public void publishSchedulingCancelled(ServiceBusMessages.SchedulingCancelledMessage message) {
+        publish(QUEUE_SCHEDULING_CANCELLED, AGGREGATE_AGENDAMENTO, message.agendamentoId(), message);
     }
 
     /**
      * Publica mensagem de cliente registrado
      */
-    public boolean publishCustomerRegistered(ServiceBusMessages.CustomerRegisteredMessage message) {
-        return publish(QUEUE_CUSTOMER_REGISTERED, message);
+    public void publishCustomerRegistered(ServiceBusMessages.CustomerRegisteredMessage message) {
+        publish(QUEUE_CUSTOMER_REGISTERED, AGGREGATE_CLIENTE, message.clienteId(), message);
     }
 
     /**
-     * Publica notificação
+     * Publica notificação (todas numa única sequência ordenada)
      */
-    public boolean publishNotification(ServiceBusMessages.NotificationMessage message) {
-        return publish(QUEUE_NOTIFICATIONS, message);
+    public void publishNotification(ServiceBusMessages.NotificationMessage message) {
+        publish(QUEUE_NOTIFICATIONS, AGGREGATE_NOTIFICACAO, 0L, message);
     }
 }
@@ -0,0 +1,53 @@
+package com.petshop.functions.shared.messages;
+
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envio ao Azure Service Bus. Um sender por fila, reaproveitado entre lotes
+ * (abrir conexão AMQP a cada mensagem custa mais que o envio), e as
+ * mensagens de um lote vão em quantos ServiceBusMessageBatch forem precisos.
+ */
+public class ServiceBusTransport implements MessageTransport, AutoCloseable {
+
+    private final ServiceBusClientBuilder clientBuilder;
+    private final Map<String, ServiceBusSenderClient> senders = new ConcurrentHashMap<>();
+
+    public ServiceBusTransport(String connectionString) {
+        this.clientBuilder = new ServiceBusClientBuilder().connectionString(connectionString);
+    }
+
+    @Override
+    public void send(String queueName, List<String> jsonMessages) {
+        ServiceBusSenderClient sender = senders.computeIfAbsent(queueName,
+                name -> clientBuilder.sender().queueName(name).buildClient());
+
+        ServiceBusMessageBatch batch = sender.createMessageBatch();
+        for (String json : jsonMessages) {
+            ServiceBusMessage message = new ServiceBusMessage(json);
+            message.setContentType("application/json");
+            if (!batch.tryAddMessage(message)) {
+                sender.sendMessages(batch);
+                batch = sender.createMessageBatch();
+                if (!batch.tryAddMessage(message)) {
+                    throw new IllegalStateException("Mensagem maior que o limite do lote do Service Bus na queue " + queueName);
+                }
+            }
+        }
+        if (batch.getCount() > 0) {
+            sender.sendMessages(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        senders.values().forEach(ServiceBusSenderClient::close);
+        senders.clear();
+    }
+}
@@ -0,0 +1,45 @@
+package com.petshop.functions.shared.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contador de versão de uma coleção ou item do catálogo (ex.: "produtos",
+ * "produtos:42"), usado para gerar ETags entre todas as instâncias das functions.
+ */
+@Entity
+@Table(name = "catalogo_versoes")
+public class CatalogoVersao {
+
+    @Id
+    @Column(length = 64)
+    private String chave;
+
+    @Column(nullable = false)
+    private Long versao = 0L;
+
+    // Construtores
+    public CatalogoVersao() {
+    }
+
+    public CatalogoVersao(String chave, Long versao) {
+        this.chave = chave;
+        this.versao = versao;
+    }
+
+    // Getters e Setters
+    public String getChave() {
+        return chave;
+    }
+
+    public void setChave(String chave) {
+        this.chave = chave;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+}
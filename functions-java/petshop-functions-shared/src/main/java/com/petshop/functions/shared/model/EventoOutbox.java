@@ -0,0 +1,139 @@
+package com.petshop.functions.shared.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Evento a publicar no Service Bus, gravado na mesma transação da alteração
+ * que o originou (outbox). O OutboxRelay publica os pendentes em ordem de id
+ * e marca publicadoEm; agregado/agregadoId identificam a entidade cujos
+ * eventos precisam sair em ordem.
+ */
+@Entity
+@Table(name = "eventos_outbox", indexes = {
+        @Index(name = "idx_eventos_outbox_publicado_em", columnList = "publicado_em, id")
+})
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String fila;
+
+    @Column(nullable = false, length = 50)
+    private String agregado;
+
+    @Column(name = "agregado_id", nullable = false)
+    private Long agregadoId;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "publicado_em")
+    private LocalDateTime publicadoEm;
+
+    @Column(nullable = false)
+    private int tentativas;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    // Construtores
+    public EventoOutbox() {
+        this.criadoEm = LocalDateTime.now();
+    }
+
+    public EventoOutbox(String fila, String agregado, Long agregadoId, String payload) {
+        this();
+        this.fila = fila;
+        this.agregado = agregado;
+        this.agregadoId = agregadoId;
+        this.payload = payload;
+    }
+
+    /**
+     * Chave de ordenação: eventos com a mesma chave saem na ordem de gravação
+     */
+    public String chaveAgregado() {
+        return agregado + ":" + agregadoId;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFila() {
+        return fila;
+    }
+
+    public void setFila(String fila) {
+        this.fila = fila;
+    }
+
+    public String getAgregado() {
+        return agregado;
+    }
+
+    public void setAgregado(String agregado) {
+        this.agregado = agregado;
+    }
+
+    public Long getAgregadoId() {
+        return agregadoId;
+    }
+
+    public void setAgregadoId(Long agregadoId) {
+        this.agregadoId = agregadoId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    public LocalDateTime getPublicadoEm() {
+        return publicadoEm;
+    }
+
+    public void setPublicadoEm(LocalDateTime publicadoEm) {
+        this.publicadoEm = publicadoEm;
+    }
+
+    public int getTentativas() {
+        return tentativas;
+    }
+
+    public void setTentativas(int tentativas) {
+        this.tentativas = tentativas;
+    }
+
+    public String getUltimoErro() {
+        return ultimoErro;
+    }
+
+    public void setUltimoErro(String ultimoErro) {
+        this.ultimoErro = ultimoErro;
+    }
+}
@@ -8,7 +8,8 @@ import jakarta.validation.constraints.*;
 public class ItemPedido {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itens_pedido_seq")
+    @SequenceGenerator(name = "itens_pedido_seq", sequenceName = "itens_pedido_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Quantidade é obrigatória")
@@ -33,6 +34,12 @@ public class ItemPedido {
     @JoinColumn(name = "produto_id", nullable = false)
     private Produto produto;
 
+    // Categoria do produto quando a venda entrou no consolidado diário; o
+    // estorno volta para a mesma linha mesmo que o produto mude de categoria.
+    // Nula em itens de pedidos ainda não vendidos ou anteriores à coluna.
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
     // Construtores
     public ItemPedido() {
     }
@@ -95,6 +102,14 @@ public class ItemPedido {
         this.produto = produto;
     }
 
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public void setCategoriaId(Long categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+
     // Métodos auxiliares
     public void calcularSubtotal() {
         if (this.quantidade != null && this.precoUnitario != null) {
@@ -0,0 +1,83 @@
+package com.petshop.functions.shared.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lançamento do livro de estoque. Só recebe inserts: o estoque de um produto
+ * é o último snapshot mais a soma dos lançamentos posteriores a ele.
+ * Quantidade com sinal (baixa negativa, devolução positiva). Produto e pedido
+ * sem chave estrangeira, para o histórico sobreviver à exclusão de ambos.
+ */
+@Entity
+@Table(name = "movimentacoes_estoque",
+        indexes = @Index(name = "idx_movimentacoes_produto_criado", columnList = "produto_id, criado_em"))
+public class MovimentacaoEstoque {
+
+    // Mesma sequência em blocos dos pedidos: os inserts vão em lotes JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimentacoes_estoque_seq")
+    @SequenceGenerator(name = "movimentacoes_estoque_seq", sequenceName = "movimentacoes_estoque_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Column(name = "pedido_id")
+    private Long pedidoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoMovimentacao tipo;
+
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    public enum TipoMovimentacao {
+        BAIXA,
+        DEVOLUCAO,
+        AJUSTE,
+        IMPORTACAO
+    }
+
+    // Construtores
+    public MovimentacaoEstoque() {
+    }
+
+    public MovimentacaoEstoque(Long produtoId, Long pedidoId, TipoMovimentacao tipo, Integer quantidade,
+                               LocalDateTime criadoEm) {
+        this.produtoId = produtoId;
+        this.pedidoId = pedidoId;
+        this.tipo = tipo;
+        this.quantidade = quantidade;
+        this.criadoEm = criadoEm;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public TipoMovimentacao getTipo() {
+        return tipo;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+}
@@ -2,9 +2,13 @@ package com.petshop.functions.shared.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.ArrayList;
 import java.util.List;
 
+// Proxies de produto (ex.: item.getProduto()) são inicializados em lote
+@BatchSize(size = 50)
 @Entity
 @Table(name = "produtos")
 public class Produto {
@@ -13,6 +17,13 @@ public class Produto {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Versão para controle de concorrência otimista. Os UPDATEs diretos de
+    // estoque também a incrementam, para que quem editou uma cópia antiga perceba
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+
     @NotBlank(message = "Nome do produto é obrigatório")
     @Column(nullable = false)
     private String nome;
@@ -64,6 +75,10 @@ public class Produto {
         this.id = id;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     public String getNome() {
         return nome;
     }
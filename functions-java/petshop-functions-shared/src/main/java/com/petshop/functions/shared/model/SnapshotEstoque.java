@@ -0,0 +1,47 @@
+package com.petshop.functions.shared.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Estoque de um produto consolidado a partir do livro: a quantidade soma
+ * todos os lançamentos criados antes de calculadoAte. A compactação avança
+ * esse instante, então o cálculo do estoque só lê os lançamentos recentes.
+ */
+@Entity
+@Table(name = "snapshots_estoque")
+public class SnapshotEstoque {
+
+    @Id
+    @Column(name = "produto_id")
+    private Long produtoId;
+
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    @Column(name = "calculado_ate", nullable = false)
+    private LocalDateTime calculadoAte;
+
+    // Construtores
+    public SnapshotEstoque() {
+    }
+
+    public SnapshotEstoque(Long produtoId, Integer quantidade, LocalDateTime calculadoAte) {
+        this.produtoId = produtoId;
+        this.quantidade = quantidade;
+        this.calculadoAte = calculadoAte;
+    }
+
+    // Getters
+    public Long getProdutoId() {
+        return produtoId;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public LocalDateTime getCalculadoAte() {
+        return calculadoAte;
+    }
+}
@@ -0,0 +1,59 @@
+package com.petshop.functions.shared.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Trava com prazo (lease) compartilhada entre instâncias pelo banco. Quem a
+ * detém renova antes de expiraEm; se a instância cair, outra assume quando o
+ * prazo vence.
+ */
+@Entity
+@Table(name = "travas")
+public class Trava {
+
+    @Id
+    @Column(length = 100)
+    private String nome;
+
+    @Column(nullable = false, length = 100)
+    private String dono;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    // Construtores
+    public Trava() {
+    }
+
+    public Trava(String nome, String dono, LocalDateTime expiraEm) {
+        this.nome = nome;
+        this.dono = dono;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getDono() {
+        return dono;
+    }
+
+    public void setDono(String dono) {
+        this.dono = dono;
+    }
+
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+
+    public void setExpiraEm(LocalDateTime expiraEm) {
+        this.expiraEm = expiraEm;
+    }
+}
@@ -2,6 +2,7 @@ package com.petshop.functions.shared.repository;
 
 import com.petshop.functions.shared.model.Agendamento;
 import com.petshop.functions.shared.model.Agendamento.StatusAgendamento;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,16 +11,32 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
 
+    // As functions montam os DTOs fora de uma sessão do Hibernate: cliente, pet
+    // e serviços vêm no mesmo SELECT. Sem paginação aqui, trazer a coleção no
+    // join não obriga o Hibernate a paginar em memória
+
+    @Override
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
+    List<Agendamento> findAll();
+
+    @Override
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
+    Optional<Agendamento> findById(Long id);
+
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
     List<Agendamento> findByClienteId(Long clienteId);
 
     List<Agendamento> findByPetId(Long petId);
 
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
     List<Agendamento> findByStatus(StatusAgendamento status);
 
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
     List<Agendamento> findByDataAgendamento(LocalDate dataAgendamento);
 
     List<Agendamento> findByDataAgendamentoAndStatus(LocalDate dataAgendamento, StatusAgendamento status);
@@ -27,6 +44,7 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
     @Query("SELECT a FROM Agendamento a WHERE a.dataAgendamento = :data AND a.horario = :horario")
     List<Agendamento> findByDataAndHorario(@Param("data") LocalDate data, @Param("horario") LocalTime horario);
 
+    @EntityGraph(Agendamento.GRAFO_DETALHE)
     @Query("SELECT a FROM Agendamento a WHERE a.dataAgendamento BETWEEN :dataInicio AND :dataFim")
     List<Agendamento> findByDataAgendamentoBetween(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
 
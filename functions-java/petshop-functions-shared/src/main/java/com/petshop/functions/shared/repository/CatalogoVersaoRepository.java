@@ -0,0 +1,20 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.CatalogoVersao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface CatalogoVersaoRepository extends JpaRepository<CatalogoVersao, String> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CatalogoVersao v SET v.versao = v.versao + 1 WHERE v.chave IN :chaves")
+    int incrementar(@Param("chaves") Collection<String> chaves);
+}
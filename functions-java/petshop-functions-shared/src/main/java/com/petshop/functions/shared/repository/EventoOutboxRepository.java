@@ -0,0 +1,37 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.EventoOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // Eventos que esgotaram as tentativas ficam parados para análise
+    @Query("SELECT e FROM EventoOutbox e WHERE e.publicadoEm IS NULL AND e.tentativas < :maximoTentativas ORDER BY e.id")
+    List<EventoOutbox> findPendentes(@Param("maximoTentativas") int maximoTentativas, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.publicadoEm = :agora WHERE e.id IN :ids")
+    int marcarPublicados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.tentativas = e.tentativas + 1, e.ultimoErro = :erro WHERE e.id IN :ids")
+    int registrarFalha(@Param("ids") Collection<Long> ids, @Param("erro") String erro);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.publicadoEm < :limite")
+    int removerPublicadosAntes(@Param("limite") LocalDateTime limite);
+}
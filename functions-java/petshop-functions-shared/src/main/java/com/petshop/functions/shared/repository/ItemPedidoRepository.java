@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +14,10 @@ public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
 
     List<ItemPedido> findByPedidoId(Long pedidoId);
 
+    // Itens de vários pedidos, com os produtos, numa única consulta
+    @Query("SELECT i FROM ItemPedido i JOIN FETCH i.produto WHERE i.pedido.id IN :pedidoIds ORDER BY i.id")
+    List<ItemPedido> findByPedidoIdsComProduto(@Param("pedidoIds") Collection<Long> pedidoIds);
+
     List<ItemPedido> findByProdutoId(Long produtoId);
 
     @Query("SELECT i FROM ItemPedido i WHERE i.pedido.cliente.id = :clienteId")
@@ -0,0 +1,22 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.MovimentacaoEstoque;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MovimentacaoEstoqueRepository extends JpaRepository<MovimentacaoEstoque, Long> {
+
+    @Query("SELECT m FROM MovimentacaoEstoque m WHERE m.produtoId = :produtoId ORDER BY m.criadoEm DESC, m.id DESC")
+    List<MovimentacaoEstoque> findRecentesPorProduto(@Param("produtoId") Long produtoId, Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(m.quantidade), 0) FROM MovimentacaoEstoque m " +
+           "WHERE m.produtoId = :produtoId AND m.criadoEm >= :desde")
+    long somarDesde(@Param("produtoId") Long produtoId, @Param("desde") LocalDateTime desde);
+}
@@ -2,6 +2,7 @@ package com.petshop.functions.shared.repository;
 
 import com.petshop.functions.shared.model.Pedido;
 import com.petshop.functions.shared.model.Pedido.StatusPedido;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,19 +10,37 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
+    // As functions montam os DTOs fora de uma sessão do Hibernate: o cliente
+    // vem no mesmo SELECT e os itens da lista inteira numa única consulta
+    // (ItemPedidoRepository.findByPedidoIdsComProduto)
+
+    @Override
+    @EntityGraph(Pedido.GRAFO_RESUMO)
+    List<Pedido> findAll();
+
+    @Override
+    @EntityGraph(Pedido.GRAFO_RESUMO)
+    Optional<Pedido> findById(Long id);
+
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByClienteId(Long clienteId);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByStatus(StatusPedido status);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     List<Pedido> findByClienteIdAndStatus(Long clienteId, StatusPedido status);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     @Query("SELECT p FROM Pedido p WHERE p.dataPedido BETWEEN :dataInicio AND :dataFim")
     List<Pedido> findByDataPedidoBetween(@Param("dataInicio") LocalDateTime dataInicio, @Param("dataFim") LocalDateTime dataFim);
 
+    @EntityGraph(Pedido.GRAFO_RESUMO)
     @Query("SELECT p FROM Pedido p WHERE p.cliente.id = :clienteId ORDER BY p.dataPedido DESC")
     List<Pedido> findByClienteIdOrderByDataPedidoDesc(@Param("clienteId") Long clienteId);
 
@@ -1,11 +1,16 @@
 package com.petshop.functions.shared.repository;
 
 import com.petshop.functions.shared.model.Produto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,8 +28,50 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     @Query("SELECT p FROM Produto p WHERE p.ativo = true AND p.quantidadeEstoque > 0 AND p.categoria.id = :categoriaId")
     List<Produto> findProdutosDisponiveisPorCategoria(@Param("categoriaId") Long categoriaId);
 
-    @Query("SELECT p FROM Produto p WHERE LOWER(p.nome) LIKE LOWER(CONCAT('%', :termo, '%')) AND p.ativo = true")
-    List<Produto> buscarPorNome(@Param("termo") String termo);
+    @Query("SELECT p FROM Produto p LEFT JOIN FETCH p.categoria WHERE p.id IN :ids AND p.ativo = true")
+    List<Produto> findAtivosPorIds(@Param("ids") Collection<Long> ids);
 
     List<Produto> findByQuantidadeEstoqueLessThan(Integer quantidade);
+
+    // Produtos de um pedido numa consulta só, com as linhas travadas (FOR UPDATE)
+    // sempre em ordem de id: pedidos concorrentes com produtos em comum esperam
+    // um pelo outro em vez de entrar em deadlock. Deve rodar numa transação
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Produto p WHERE p.id IN :ids ORDER BY p.id")
+    List<Produto> findAllByIdParaAtualizar(@Param("ids") Collection<Long> ids);
+
+    // Baixa e devolução de estoque em um único UPDATE condicional: a
+    // verificação de saldo acontece no banco, sob o lock da linha, sem a
+    // sequência ler-verificar-salvar que perde atualizações concorrentes.
+    // Retornam a quantidade de produtos alterados.
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque - :quantidade " +
+           "WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade")
+    int reduzirEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque + :quantidade WHERE p.id = :id")
+    int adicionarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Variantes para o pedido inteiro. Um produto sem saldo simplesmente não é
+    // alterado: quem chama compara o retorno com o número de produtos
+    // distintos do pedido e desfaz a transação se faltar algum
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque - " +
+           "(SELECT SUM(i.quantidade) FROM ItemPedido i WHERE i.pedido.id = :pedidoId AND i.produto.id = p.id) " +
+           "WHERE p.id IN (SELECT ip.produto.id FROM ItemPedido ip WHERE ip.pedido.id = :pedidoId) " +
+           "AND p.quantidadeEstoque >= " +
+           "(SELECT SUM(iq.quantidade) FROM ItemPedido iq WHERE iq.pedido.id = :pedidoId AND iq.produto.id = p.id)")
+    int reduzirEstoqueDoPedido(@Param("pedidoId") Long pedidoId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Produto p SET p.versao = p.versao + 1, p.quantidadeEstoque = p.quantidadeEstoque + " +
+           "(SELECT SUM(i.quantidade) FROM ItemPedido i WHERE i.pedido.id = :pedidoId AND i.produto.id = p.id) " +
+           "WHERE p.id IN (SELECT ip.produto.id FROM ItemPedido ip WHERE ip.pedido.id = :pedidoId)")
+    int devolverEstoqueDoPedido(@Param("pedidoId") Long pedidoId);
 }
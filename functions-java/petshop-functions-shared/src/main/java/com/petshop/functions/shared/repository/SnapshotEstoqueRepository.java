@@ -0,0 +1,46 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.SnapshotEstoque;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SnapshotEstoqueRepository extends JpaRepository<SnapshotEstoque, Long> {
+
+    // Produtos anteriores ao livro: o estoque atual vira o ponto de partida
+    @Modifying
+    @Query(value = "INSERT INTO snapshots_estoque (produto_id, quantidade, calculado_ate) " +
+                   "SELECT p.id, p.quantidade_estoque, :agora FROM produtos p " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM snapshots_estoque s WHERE s.produto_id = p.id)",
+           nativeQuery = true)
+    int criarFaltantes(@Param("agora") LocalDateTime agora);
+
+    // Incorpora ao snapshot os lançamentos anteriores ao limite; só toca
+    // produtos que tiveram lançamentos desde o último snapshot
+    @Modifying
+    @Query(value = "UPDATE snapshots_estoque SET quantidade = quantidade + " +
+                   "(SELECT COALESCE(SUM(m.quantidade), 0) FROM movimentacoes_estoque m " +
+                   "WHERE m.produto_id = snapshots_estoque.produto_id " +
+                   "AND m.criado_em >= snapshots_estoque.calculado_ate AND m.criado_em < :limite), " +
+                   "calculado_ate = :limite " +
+                   "WHERE calculado_ate < :limite AND EXISTS (SELECT 1 FROM movimentacoes_estoque m " +
+                   "WHERE m.produto_id = snapshots_estoque.produto_id " +
+                   "AND m.criado_em >= snapshots_estoque.calculado_ate AND m.criado_em < :limite)",
+           nativeQuery = true)
+    int compactar(@Param("limite") LocalDateTime limite);
+
+    // Regrava produtos.quantidade_estoque como snapshot + lançamentos posteriores
+    @Modifying
+    @Query(value = "UPDATE produtos SET versao = versao + 1, quantidade_estoque = " +
+                   "(SELECT s.quantidade + COALESCE((SELECT SUM(m.quantidade) FROM movimentacoes_estoque m " +
+                   "WHERE m.produto_id = s.produto_id AND m.criado_em >= s.calculado_ate), 0) " +
+                   "FROM snapshots_estoque s WHERE s.produto_id = produtos.id) " +
+                   "WHERE id IN (SELECT produto_id FROM snapshots_estoque)",
+           nativeQuery = true)
+    int reconstruirEstoques();
+}
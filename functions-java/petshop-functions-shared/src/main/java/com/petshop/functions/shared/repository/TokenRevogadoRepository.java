@@ -0,0 +1,27 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.TokenRevogado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, Long> {
+
+    boolean existsByJti(String jti);
+
+    // Só os identificadores, para montar o filtro de Bloom
+    @Query("SELECT t.jti FROM TokenRevogado t WHERE t.expiraEm > :agora")
+    List<String> findJtisValidos(@Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm <= :agora")
+    int removerExpirados(@Param("agora") LocalDateTime agora);
+}
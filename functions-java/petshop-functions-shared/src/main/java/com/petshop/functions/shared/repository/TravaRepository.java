@@ -0,0 +1,31 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.model.Trava;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TravaRepository extends JpaRepository<Trava, String> {
+
+    // Renova a própria trava ou assume uma vencida; 0 se outra instância a detém
+    @Transactional
+    @Modifying
+    @Query("UPDATE Trava t SET t.dono = :dono, t.expiraEm = :expiraEm "
+            + "WHERE t.nome = :nome AND (t.dono = :dono OR t.expiraEm < :agora)")
+    int adquirir(@Param("nome") String nome,
+                 @Param("dono") String dono,
+                 @Param("agora") LocalDateTime agora,
+                 @Param("expiraEm") LocalDateTime expiraEm);
+
+    // INSERT explícito: save() faria merge e poderia sobrescrever a trava de outra instância
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO travas (nome, dono, expira_em) VALUES (:nome, :dono, :expiraEm)", nativeQuery = true)
+    int criar(@Param("nome") String nome, @Param("dono") String dono, @Param("expiraEm") LocalDateTime expiraEm);
+}
@@ -1,8 +1,13 @@
 package com.petshop.functions.shared.repository;
 
+import com.petshop.functions.shared.dto.UsuarioLoginProjecao;
 import com.petshop.functions.shared.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -18,4 +23,18 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     boolean existsByEmail(String email);
     
     Optional<Usuario> findByUsernameAndAtivo(String username, boolean ativo);
+
+    // Login numa ida ao banco: usuário ativo e, se for Cliente, o cadastro de
+    // mesmo email (mesma regra de antes, sem a segunda consulta)
+    @Query("SELECT new com.petshop.functions.shared.dto.UsuarioLoginProjecao(" +
+           "u.id, u.username, u.senha, u.email, u.role, c.id, c.nome) " +
+           "FROM Usuario u LEFT JOIN Cliente c ON c.email = u.email AND u.role = 'Cliente' " +
+           "WHERE u.username = :username AND u.ativo = true")
+    Optional<UsuarioLoginProjecao> findLoginByUsername(@Param("username") String username);
+
+    // Troca só o hash, sem carregar a entidade (rehash no login)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.senha = :senha WHERE u.id = :id")
+    int atualizarSenha(@Param("id") Long id, @Param("senha") String senha);
 }
@@ -0,0 +1,42 @@
+package com.petshop.functions.shared.repository;
+
+import com.petshop.functions.shared.dto.VendaCategoriaDTO;
+import com.petshop.functions.shared.dto.VendaPeriodoDTO;
+import com.petshop.functions.shared.model.VendaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VendaDiariaRepository extends JpaRepository<VendaDiaria, VendaDiaria.Chave> {
+
+    @Query("SELECT new com.petshop.functions.shared.dto.VendaPeriodoDTO(v.data, SUM(v.quantidade), SUM(v.receita)) " +
+           "FROM VendaDiaria v WHERE v.data BETWEEN :inicio AND :fim GROUP BY v.data ORDER BY v.data")
+    List<VendaPeriodoDTO> somarPorDia(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT new com.petshop.functions.shared.dto.VendaCategoriaDTO(v.categoriaId, c.nome, SUM(v.quantidade), SUM(v.receita)) " +
+           "FROM VendaDiaria v LEFT JOIN Categoria c ON c.id = v.categoriaId " +
+           "WHERE v.data BETWEEN :inicio AND :fim GROUP BY v.categoriaId, c.nome ORDER BY SUM(v.receita) DESC")
+    List<VendaCategoriaDTO> somarPorCategoria(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendas_diarias", nativeQuery = true)
+    int apagarTudo();
+
+    // Regenera a tabela a partir dos itens dos pedidos vendidos, com a
+    // categoria gravada no registro da venda ou, sem ela, a atual do produto
+    @Modifying
+    @Query(value = "INSERT INTO vendas_diarias (data, produto_id, categoria_id, quantidade, receita) " +
+                   "SELECT CAST(p.data_pedido AS DATE), i.produto_id, COALESCE(i.categoria_id, pr.categoria_id), SUM(i.quantidade), SUM(i.subtotal) " +
+                   "FROM itens_pedido i JOIN pedidos p ON p.id = i.pedido_id JOIN produtos pr ON pr.id = i.produto_id " +
+                   "WHERE p.status IN (:status) " +
+                   "GROUP BY CAST(p.data_pedido AS DATE), i.produto_id, COALESCE(i.categoria_id, pr.categoria_id)",
+           nativeQuery = true)
+    int reconstruir(@Param("status") Collection<String> status);
+}
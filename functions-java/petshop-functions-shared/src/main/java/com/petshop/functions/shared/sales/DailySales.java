@@ -0,0 +1,196 @@
+package com.petshop.functions.shared.sales;
+
+import com.petshop.functions.shared.dto.VendaCategoriaDTO;
+import com.petshop.functions.shared.dto.VendaPeriodoDTO;
+import com.petshop.functions.shared.model.ItemPedido;
+import com.petshop.functions.shared.model.Pedido;
+import com.petshop.functions.shared.model.Pedido.StatusPedido;
+import com.petshop.functions.shared.model.Produto;
+import com.petshop.functions.shared.repository.ItemPedidoRepository;
+import com.petshop.functions.shared.repository.VendaDiariaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consolidado diário de vendas (tabela vendas_diarias, a mesma do monólito),
+ * por dia, produto e categoria.
+ *
+ * Acompanha o estoque: nas Function Apps ele é baixado na criação do pedido
+ * e devolvido no cancelamento ou na exclusão de um pedido não cancelado, e o
+ * consolidado soma e subtrai nesses mesmos pontos. Os métodos de registro
+ * devem rodar dentro da transação do pedido. O dia é o da data do pedido e
+ * a categoria é a gravada em cada item no registro da venda, para o estorno
+ * cair na mesma linha dela. Os relatórios somam linhas por
+ * dia em vez de varrer itens_pedido; semana e mês são agrupados aqui.
+ */
+@Component
+public class DailySales {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailySales.class);
+
+    static final String SQL_SOMAR = "UPDATE vendas_diarias SET quantidade = quantidade + ?, receita = receita + ? " +
+                                    "WHERE data = ? AND produto_id = ? AND categoria_id = ?";
+    static final String SQL_CRIAR = "INSERT INTO vendas_diarias (data, produto_id, categoria_id, quantidade, receita) " +
+                                    "VALUES (?, ?, ?, ?, ?)";
+
+    // Pedidos com estoque baixado e não devolvido
+    static final List<String> STATUS_VENDIDOS = Arrays.stream(StatusPedido.values())
+            .filter(status -> status != StatusPedido.CANCELADO)
+            .map(StatusPedido::name)
+            .toList();
+
+    public enum Period {
+        DIA, SEMANA, MES
+    }
+
+    private static final class VendaProduto {
+        private final Long categoriaId;
+        private int quantidade;
+        private double receita;
+
+        private VendaProduto(Long categoriaId) {
+            this.categoriaId = categoriaId;
+        }
+    }
+
+    private final VendaDiariaRepository vendaDiariaRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public DailySales(VendaDiariaRepository vendaDiariaRepository,
+                      ItemPedidoRepository itemPedidoRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager) {
+        this.vendaDiariaRepository = vendaDiariaRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Soma os itens de um pedido recém-criado e grava neles a categoria atual
+     * de cada produto
+     */
+    public void record(Pedido pedido) {
+        for (ItemPedido item : pedido.getItens()) {
+            item.setCategoriaId(item.getProduto().getCategoria().getId());
+        }
+        apply(pedido.getDataPedido().toLocalDate(), pedido.getItens(), 1);
+    }
+
+    /**
+     * Subtrai os itens de um pedido cujo estoque foi devolvido (mesmos pontos
+     * de ProdutoRepository.devolverEstoqueDoPedido), na categoria gravada no
+     * registro da venda
+     */
+    public void recordReturn(Pedido pedido) {
+        apply(pedido.getDataPedido().toLocalDate(),
+                itemPedidoRepository.findByPedidoIdsComProduto(List.of(pedido.getId())), -1);
+    }
+
+    public List<VendaPeriodoDTO> byPeriod(LocalDate inicio, LocalDate fim, Period period) {
+        List<VendaPeriodoDTO> dias = vendaDiariaRepository.somarPorDia(inicio, fim);
+        if (period == Period.DIA) {
+            return dias;
+        }
+        Map<LocalDate, VendaPeriodoDTO> periodos = new LinkedHashMap<>();
+        for (VendaPeriodoDTO dia : dias) {
+            LocalDate inicioPeriodo = periodStart(dia.inicio(), period);
+            periodos.merge(inicioPeriodo, new VendaPeriodoDTO(inicioPeriodo, dia.quantidade(), dia.receita()),
+                    (atual, novo) -> new VendaPeriodoDTO(atual.inicio(), atual.quantidade() + novo.quantidade(),
+                            atual.receita() + novo.receita()));
+        }
+        return new ArrayList<>(periodos.values());
+    }
+
+    public List<VendaCategoriaDTO> byCategory(LocalDate inicio, LocalDate fim) {
+        return vendaDiariaRepository.somarPorCategoria(inicio, fim);
+    }
+
+    /**
+     * Regenera o consolidado a partir de todos os pedidos não cancelados, com
+     * a categoria gravada em cada item (a atual do produto nos itens vendidos
+     * antes de ela ser gravada)
+     *
+     * @return quantidade de linhas geradas
+     */
+    public int rebuild() {
+        Integer linhas = newTransaction.execute(status -> {
+            int apagadas = vendaDiariaRepository.apagarTudo();
+            int geradas = vendaDiariaRepository.reconstruir(STATUS_VENDIDOS);
+            logger.info("Vendas diárias reconstruídas: {} linhas apagadas, {} geradas", apagadas, geradas);
+            return geradas;
+        });
+        return linhas != null ? linhas : 0;
+    }
+
+    // Segunda-feira da semana ou primeiro dia do mês
+    static LocalDate periodStart(LocalDate data, Period period) {
+        return switch (period) {
+            case DIA -> data;
+            case SEMANA -> data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> data.withDayOfMonth(1);
+        };
+    }
+
+    // Uma linha por produto, em ordem de id: transações concorrentes travam as
+    // linhas na mesma ordem
+    private void apply(LocalDate data, List<ItemPedido> itens, int sinal) {
+        Map<Long, VendaProduto> porProduto = new TreeMap<>();
+        for (ItemPedido item : itens) {
+            Produto produto = item.getProduto();
+            VendaProduto venda = porProduto.computeIfAbsent(produto.getId(),
+                    id -> new VendaProduto(saleCategory(item)));
+            venda.quantidade += item.getQuantidade();
+            venda.receita += item.getSubtotal();
+        }
+        porProduto.forEach((produtoId, venda) ->
+                add(data, produtoId, venda.categoriaId, sinal * venda.quantidade, sinal * venda.receita));
+    }
+
+    // Itens vendidos antes de a categoria ser gravada ficam com a atual do
+    // produto, a mesma que a reconstrução usa para eles
+    private static Long saleCategory(ItemPedido item) {
+        return item.getCategoriaId() != null ? item.getCategoriaId() : item.getProduto().getCategoria().getId();
+    }
+
+    // UPDATE da linha existente; na primeira venda do dia, INSERT depois de um
+    // savepoint. Se outra transação criou a linha entre os dois, só o INSERT
+    // é desfeito e o UPDATE é refeito sobre a linha dela.
+    private void add(LocalDate data, Long produtoId, Long categoriaId, int quantidade, double receita) {
+        if (jdbcTemplate.update(SQL_SOMAR, quantidade, receita, data, produtoId, categoriaId) > 0) {
+            return;
+        }
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        try {
+            jdbcTemplate.update(SQL_CRIAR, data, produtoId, categoriaId, quantidade, receita);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) conexao -> {
+                conexao.rollback(savepoint);
+                return null;
+            });
+            jdbcTemplate.update(SQL_SOMAR, quantidade, receita, data, produtoId, categoriaId);
+        }
+    }
+}
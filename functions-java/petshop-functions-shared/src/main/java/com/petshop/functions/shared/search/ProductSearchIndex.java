@@ -0,0 +1,253 @@
+package com.petshop.functions.shared.search;
+
+import com.petshop.functions.shared.model.Produto;
+import com.petshop.functions.shared.repository.ProdutoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido em memória para a busca de produtos por nome e descrição.
+ *
+ * Textos normalizados (minúsculas, sem acentos) e indexados pelos prefixos de
+ * cada palavra: "racao" e "raç" encontram "Ração". Todas as palavras do termo
+ * precisam casar; o resultado é ordenado por relevância (palavra inteira antes
+ * de prefixo, nome antes de descrição). Apenas produtos ativos são indexados.
+ *
+ * O índice é carregado na primeira busca e recarregado periodicamente, já que
+ * outras instâncias da function podem alterar produtos no banco.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // Prefixos mais longos que isso não ganham entrada própria: a busca usa o
+    // prefixo truncado e confirma a palavra completa na pontuação
+    static final int MAX_PREFIX_LENGTH = 12;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final ProdutoRepository produtoRepository;
+    private final Map<String, Set<Long>> prefixes = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    @Value("${search.index.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    @Value("${search.index.max-results:50}")
+    private int maxResults;
+
+    private volatile long loadedAt;
+
+    @Autowired
+    public ProductSearchIndex(ProdutoRepository produtoRepository) {
+        this.produtoRepository = produtoRepository;
+    }
+
+    /**
+     * Produtos ativos que casam com todas as palavras do termo, do mais
+     * relevante para o menos relevante.
+     */
+    public List<Produto> search(String term) {
+        List<Long> ids = searchIds(term);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Produto> byId = produtoRepository.findAtivosPorIds(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public List<Long> searchIds(String term) {
+        ensureLoaded();
+
+        List<String> words = tokenize(term).stream().distinct().collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> candidates = null;
+        for (String word : words) {
+            Set<Long> ids = prefixes.getOrDefault(key(word), Set.of());
+            if (candidates == null) {
+                candidates = new HashSet<>(ids);
+            } else {
+                candidates.retainAll(ids);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Long id : candidates) {
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            int score = document.score(words);
+            if (score > 0) {
+                hits.add(new Hit(id, score));
+            }
+        }
+
+        return hits.stream()
+                .sorted(Comparator.comparingInt(Hit::score).reversed().thenComparing(Hit::id))
+                .limit(maxResults)
+                .map(Hit::id)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reindexa o produto após ser salvo. Produtos inativos saem do índice.
+     */
+    public void index(Produto produto) {
+        if (loadedAt != 0) {
+            apply(produto.getId(), documentOf(produto));
+        }
+    }
+
+    public void remove(Long produtoId) {
+        if (loadedAt != 0) {
+            apply(produtoId, null);
+        }
+    }
+
+    public synchronized void rebuild(Collection<Produto> produtos) {
+        prefixes.clear();
+        documents.clear();
+        for (Produto produto : produtos) {
+            apply(produto.getId(), documentOf(produto));
+        }
+        loadedAt = System.currentTimeMillis();
+        logger.info("Índice de busca de produtos carregado com {} produtos", documents.size());
+    }
+
+    private void ensureLoaded() {
+        long now = System.currentTimeMillis();
+        if (loadedAt != 0 && now - loadedAt < refreshSeconds * 1000) {
+            return;
+        }
+        synchronized (this) {
+            if (loadedAt == 0 || now - loadedAt >= refreshSeconds * 1000) {
+                rebuild(produtoRepository.findByAtivo(true));
+            }
+        }
+    }
+
+    /**
+     * Minúsculas, sem acentos e separado em palavras alfanuméricas.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(w -> !w.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String key(String word) {
+        return word.length() > MAX_PREFIX_LENGTH ? word.substring(0, MAX_PREFIX_LENGTH) : word;
+    }
+
+    private static Document documentOf(Produto produto) {
+        if (!Boolean.TRUE.equals(produto.getAtivo())) {
+            return null;
+        }
+        return new Document(tokenize(produto.getNome()), tokenize(produto.getDescricao()));
+    }
+
+    private synchronized void apply(Long id, Document document) {
+        Document previous = document != null ? documents.put(id, document) : documents.remove(id);
+        if (previous != null) {
+            for (String prefix : previous.prefixes()) {
+                prefixes.computeIfPresent(prefix, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        if (document != null) {
+            for (String prefix : document.prefixes()) {
+                prefixes.computeIfAbsent(prefix, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private record Document(List<String> name, List<String> description) {
+
+        Set<String> prefixes() {
+            Set<String> result = new HashSet<>();
+            for (List<String> words : List.of(name, description)) {
+                for (String word : words) {
+                    int limit = Math.min(word.length(), MAX_PREFIX_LENGTH);
+                    for (int i = 1; i <= limit; i++) {
+                        result.add(word.substring(0, i));
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Soma, para cada palavra buscada, o melhor casamento encontrado.
+         * Retorna zero se alguma palavra não casar (prefixo truncado no índice).
+         */
+        int score(List<String> searched) {
+            int total = 0;
+            for (String word : searched) {
+                int best = Math.max(bestMatch(name, word, 10, 6), bestMatch(description, word, 3, 1));
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            // Nome começando pelo termo buscado aparece primeiro
+            if (!name.isEmpty() && name.get(0).startsWith(searched.get(0))) {
+                total += 2;
+            }
+            return total;
+        }
+
+        private static int bestMatch(List<String> words, String searched, int exact, int prefix) {
+            int best = 0;
+            for (String word : words) {
+                if (word.equals(searched)) {
+                    return exact;
+                }
+                if (word.startsWith(searched)) {
+                    best = prefix;
+                }
+            }
+            return best;
+        }
+    }
+
+    private record Hit(Long id, int score) {
+    }
+}
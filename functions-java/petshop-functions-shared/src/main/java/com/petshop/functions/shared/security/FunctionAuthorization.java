@@ -3,6 +3,8 @@ package com.petshop.functions.shared.security;
 import com.microsoft.azure.functions.HttpRequestMessage;
 import com.microsoft.azure.functions.HttpResponseMessage;
 import com.microsoft.azure.functions.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -13,14 +15,25 @@ import java.util.function.Function;
 /**
  * Helper class para autorização em Azure Functions
  * Valida JWT e verifica roles
+ *
+ * Principals já verificados ficam num LRU da instância: numa instância
+ * aquecida, autorizar um token repetido custa só o hash do token e a busca.
+ * Tokens revogados (logout) são barrados pelo filtro de TokenRevocations.
+ * Conflitos de versão (@Version) no handler viram 409.
  */
 @Component
 public class FunctionAuthorization {
 
     private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocations tokenRevocations;
 
-    public FunctionAuthorization(JwtService jwtService) {
+    public FunctionAuthorization(JwtService jwtService,
+                                 TokenRevocations tokenRevocations,
+                                 @Value("${jwt.principal-cache.max-entries:10000}") int principalCacheMaxEntries) {
         this.jwtService = jwtService;
+        this.tokenRevocations = tokenRevocations;
+        this.principalCache = new PrincipalCache(principalCacheMaxEntries);
     }
 
     /**
@@ -49,22 +62,43 @@ public class FunctionAuthorization {
         }
         
         try {
-            JwtService.TokenInfo tokenInfo = jwtService.validateAndExtract(tokenOpt.get());
+            JwtPrincipal principal = resolvePrincipal(tokenOpt.get()).orElse(null);
             
-            if (!tokenInfo.isValid()) {
-                return AuthorizationResult.unauthorized("Token inválido ou expirado");
+            if (principal == null) {
+                return AuthorizationResult.unauthorized("Token inválido, expirado ou revogado");
             }
             
             return AuthorizationResult.authorized(
-                tokenInfo.username(),
-                tokenInfo.role(),
-                tokenInfo.clienteId()
+                principal.username(),
+                principal.role(),
+                principal.clienteId()
             );
         } catch (Exception e) {
             return AuthorizationResult.unauthorized("Erro ao validar token: " + e.getMessage());
         }
     }
 
+    /**
+     * Principal do token, do cache da instância ou verificado agora; vazio se
+     * o token for inválido, estiver expirado ou tiver sido revogado
+     */
+    public Optional<JwtPrincipal> resolvePrincipal(String token) {
+        String key = PrincipalCache.keyOf(token);
+        JwtPrincipal principal = principalCache.get(key, System.currentTimeMillis());
+        if (principal == null) {
+            principal = jwtService.verify(token).orElse(null);
+            if (principal == null) {
+                return Optional.empty();
+            }
+            principalCache.put(key, principal);
+        }
+        // A revogação é conferida a cada uso, inclusive para principals em cache
+        if (tokenRevocations.isRevoked(principal.tokenId())) {
+            return Optional.empty();
+        }
+        return Optional.of(principal);
+    }
+
     /**
      * Valida o token e verifica se o usuário tem uma das roles permitidas
      */
@@ -109,7 +143,7 @@ public class FunctionAuthorization {
             return createUnauthorizedResponse(request, authResult.errorMessage());
         }
         
-        return handler.apply(authResult);
+        return handle(request, authResult, handler);
     }
 
     /**
@@ -129,7 +163,7 @@ public class FunctionAuthorization {
             return createUnauthorizedResponse(request, authResult.errorMessage());
         }
         
-        return handler.apply(authResult);
+        return handle(request, authResult, handler);
     }
 
     /**
@@ -141,6 +175,28 @@ public class FunctionAuthorization {
         return executeProtectedWithRoles(request, Set.of("Admin"), handler);
     }
 
+    /**
+     * Cria resposta 409 Conflict
+     */
+    public <T> HttpResponseMessage createConflictResponse(HttpRequestMessage<T> request, String message) {
+        return request.createResponseBuilder(HttpStatus.CONFLICT)
+                .header("Content-Type", "application/json")
+                .body(Map.of("error", message))
+                .build();
+    }
+
+    // Outra requisição alterou o mesmo registro entre a leitura e o commit
+    private <T> HttpResponseMessage handle(
+            HttpRequestMessage<T> request,
+            AuthorizationResult authResult,
+            Function<AuthorizationResult, HttpResponseMessage> handler) {
+        try {
+            return handler.apply(authResult);
+        } catch (OptimisticLockingFailureException e) {
+            return createConflictResponse(request, "O registro foi alterado por outra requisição. Tente novamente.");
+        }
+    }
+
     /**
      * Cria resposta 401 Unauthorized
      */
@@ -0,0 +1,25 @@
+package com.petshop.functions.shared.security;
+
+/**
+ * O pool de hashing de senhas não aceitou ou não concluiu a tarefa a tempo.
+ * statusCode é 429 quando a fila está cheia e 503 quando a espera estourou.
+ */
+public class HashingUnavailableException extends RuntimeException {
+
+    private final int statusCode;
+    private final int retryAfterSeconds;
+
+    public HashingUnavailableException(int statusCode, String message, int retryAfterSeconds) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
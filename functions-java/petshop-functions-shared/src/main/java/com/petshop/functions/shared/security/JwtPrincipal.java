@@ -0,0 +1,13 @@
+package com.petshop.functions.shared.security;
+
+/**
+ * Dados de um token já verificado (assinatura e expiração), extraídos numa
+ * única leitura dos claims. Imutável, pode ser compartilhado entre invocações.
+ * tokenId é o jti, usado na revogação (nulo em tokens antigos).
+ */
+public record JwtPrincipal(String tokenId, String username, String role, Long clienteId, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -1,8 +1,10 @@
 package com.petshop.functions.shared.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -11,6 +13,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -28,9 +32,18 @@ public class JwtService {
     @Value("${jwt.audience:PetshopFrontend}")
     private String audience;
 
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Chave e parser são imutáveis e thread-safe: montados uma vez por instância
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
@@ -56,7 +69,9 @@ public class JwtService {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expiration);
 
+        // jti: identifica o token para revogação (logout)
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .claims(claims)
                 .subject(subject)
                 .issuer(issuer)
@@ -76,14 +91,16 @@ public class JwtService {
     }
 
     public Long extractClienteId(String token) {
-        return extractClaim(token, claims -> {
-            Object clienteId = claims.get("clienteId");
-            if (clienteId == null) return null;
-            if (clienteId instanceof Long) return (Long) clienteId;
-            if (clienteId instanceof Integer) return ((Integer) clienteId).longValue();
-            if (clienteId instanceof String) return Long.parseLong((String) clienteId);
-            return null;
-        });
+        return extractClaim(token, JwtService::clienteIdOf);
+    }
+
+    private static Long clienteIdOf(Claims claims) {
+        Object clienteId = claims.get("clienteId");
+        if (clienteId == null) return null;
+        if (clienteId instanceof Long) return (Long) clienteId;
+        if (clienteId instanceof Integer) return ((Integer) clienteId).longValue();
+        if (clienteId instanceof String) return Long.parseLong((String) clienteId);
+        return null;
     }
 
     public Date extractExpiration(String token) {
@@ -95,29 +112,40 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    // O parser já rejeita tokens expirados (ExpiredJwtException)
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean validateToken(String token, String username) {
         final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return extractedUsername.equals(username);
     }
 
     public Boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    /**
+     * Verifica assinatura e expiração e extrai o principal numa única leitura
+     * dos claims.
+     * @return vazio se o token for inválido ou estiver expirado
+     */
+    public Optional<JwtPrincipal> verify(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            Claims claims = extractAllClaims(token);
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new JwtPrincipal(
+                    claims.getId(),
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    clienteIdOf(claims),
+                    expiration.getTime()));
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
         }
     }
 
@@ -126,18 +154,9 @@ public class JwtService {
      * @return TokenInfo com isValid, username, role, clienteId
      */
     public TokenInfo validateAndExtract(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            if (isTokenExpired(token)) {
-                return new TokenInfo(false, null, null, null);
-            }
-            String username = claims.getSubject();
-            String role = claims.get("role", String.class);
-            Long clienteId = extractClienteId(token);
-            return new TokenInfo(true, username, role, clienteId);
-        } catch (Exception e) {
-            return new TokenInfo(false, null, null, null);
-        }
+        return verify(token)
+                .map(principal -> new TokenInfo(true, principal.username(), principal.role(), principal.clienteId()))
+                .orElseGet(() -> new TokenInfo(false, null, null, null));
     }
 
     /**
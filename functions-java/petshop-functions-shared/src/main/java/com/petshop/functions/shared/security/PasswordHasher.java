@@ -0,0 +1,116 @@
+package com.petshop.functions.shared.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hash e conferência de senhas com BCrypt num pool próprio e limitado.
+ *
+ * Um pico de logins ocupa só as threads deste pool, não as que atendem as
+ * demais invocações. Fila cheia recusa na hora (429); espera acima do limite
+ * responde 503. O custo é configurável e hashes com outro custo são refeitos
+ * no login seguinte, sem exigir troca de senha.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public PasswordHasher(@Value("${auth.bcrypt.cost:10}") int cost,
+                          @Value("${auth.bcrypt.threads:0}") int threads,
+                          @Value("${auth.bcrypt.queue:32}") int queue,
+                          @Value("${auth.bcrypt.timeout-ms:5000}") long timeoutMs) {
+        // Zero threads: uma por núcleo disponível
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.cost = cost;
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), task -> {
+                    Thread thread = new Thread(task, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String hash(String password) {
+        return execute(() -> encoder.encode(password));
+    }
+
+    public boolean matches(String password, String hash) {
+        return execute(() -> encoder.matches(password, hash));
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo diferente do configurado
+     */
+    public boolean needsRehash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    /**
+     * Novo hash com o custo atual, se o pool tiver folga; senão fica para o
+     * próximo login
+     */
+    public Optional<String> rehash(String password) {
+        try {
+            return Optional.of(hash(password));
+        } catch (HashingUnavailableException e) {
+            return Optional.empty();
+        }
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new HashingUnavailableException(429, "Too many concurrent authentications, try again shortly", 1);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new HashingUnavailableException(503, "Authentication service overloaded, try again shortly", 5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new HashingUnavailableException(503, "Authentication interrupted", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
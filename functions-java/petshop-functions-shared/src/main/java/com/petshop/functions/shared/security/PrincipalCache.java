@@ -0,0 +1,59 @@
+package com.petshop.functions.shared.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU dos principals já verificados nesta instância da Function App.
+ *
+ * A chave é o SHA-256 do token (o token em si não fica em memória) e cada
+ * entrada só vale até a expiração do próprio token; entradas vencidas são
+ * descartadas na leitura e as menos usadas saem quando o limite é atingido.
+ */
+public class PrincipalCache {
+
+    private final Map<String, JwtPrincipal> entries;
+
+    public PrincipalCache(int maxEntries) {
+        // Ordem de acesso: o primeiro elemento é o menos usado recentemente
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Principal do token, ou null se não estiver no cache ou já tiver expirado.
+     */
+    public synchronized JwtPrincipal get(String key, long nowMillis) {
+        JwtPrincipal principal = entries.get(key);
+        if (principal != null && principal.isExpired(nowMillis)) {
+            entries.remove(key);
+            return null;
+        }
+        return principal;
+    }
+
+    public synchronized void put(String key, JwtPrincipal principal) {
+        entries.put(key, principal);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static String keyOf(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
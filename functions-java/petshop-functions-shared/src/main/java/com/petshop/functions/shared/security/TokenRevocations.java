@@ -0,0 +1,149 @@
+package com.petshop.functions.shared.security;
+
+import com.petshop.functions.shared.model.TokenRevogado;
+import com.petshop.functions.shared.repository.TokenRevogadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revogação de tokens JWT (logout) sem consulta ao banco em toda invocação.
+ *
+ * Os jti revogados ficam na tabela tokens_revogados e, em memória, num filtro
+ * de Bloom. A consulta passa primeiro pelo filtro: um "não" encerra a
+ * verificação; só um "talvez" vai à tabela, e o resultado exato fica guardado
+ * até a próxima reconstrução. Sem agendador nas Function Apps, o filtro é
+ * refeito sob demanda: a primeira invocação depois do intervalo reconstrói,
+ * as concorrentes seguem com o filtro anterior. Revogações feitas em outra
+ * instância aparecem aqui na reconstrução seguinte.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+    private static final int MAX_CONFIRMED = 10_000;
+
+    private final TokenRevogadoRepository tokenRevogadoRepository;
+    private final int minimumCapacity;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalMs;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Map<String, Boolean> confirmed = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_CONFIRMED;
+        }
+    };
+
+    // Nulo até a primeira reconstrução: enquanto isso, toda consulta vai à tabela
+    private volatile BloomFilter filter;
+    private volatile long builtAtMillis;
+
+    public TokenRevocations(TokenRevogadoRepository tokenRevogadoRepository,
+                            @Value("${jwt.revocation.minimum-capacity:1024}") int minimumCapacity,
+                            @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${jwt.revocation.rebuild-interval-ms:60000}") long rebuildIntervalMs) {
+        this.tokenRevogadoRepository = tokenRevogadoRepository;
+        this.minimumCapacity = minimumCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    /**
+     * Indica se o token de identificador jti foi revogado. Tokens sem jti
+     * (emitidos antes da revogação existir) não são revogáveis.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - builtAtMillis >= rebuildIntervalMs) {
+            rebuildIfIdle();
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(jti)) {
+            return false;
+        }
+        synchronized (confirmed) {
+            Boolean revoked = confirmed.get(jti);
+            if (revoked != null) {
+                return revoked;
+            }
+        }
+        boolean revoked = tokenRevogadoRepository.existsByJti(jti);
+        synchronized (confirmed) {
+            // Uma revogação concorrente nesta instância prevalece sobre a leitura
+            Boolean concurrent = confirmed.putIfAbsent(jti, revoked);
+            return concurrent != null ? concurrent : revoked;
+        }
+    }
+
+    public void revoke(String jti, long expiresAtMillis) {
+        if (jti == null) {
+            throw new IllegalArgumentException("Token sem identificador não pode ser revogado");
+        }
+        LocalDateTime expiraEm = LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault());
+        try {
+            if (!tokenRevogadoRepository.existsByJti(jti)) {
+                tokenRevogadoRepository.save(new TokenRevogado(jti, expiraEm));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Revogado ao mesmo tempo por outra invocação
+        }
+        // Sob a trava: ou entra no filtro atual ou a reconstrução em curso já lê do banco
+        rebuildLock.lock();
+        try {
+            BloomFilter current = filter;
+            if (current != null) {
+                current.add(jti);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+        synchronized (confirmed) {
+            confirmed.put(jti, true);
+        }
+    }
+
+    /**
+     * Refaz o filtro com os jti ainda válidos e apaga os registros vencidos.
+     * Só uma invocação reconstrói por vez; se o banco falhar, o filtro
+     * anterior continua em uso até o próximo intervalo.
+     */
+    private void rebuildIfIdle() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - builtAtMillis < rebuildIntervalMs) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            tokenRevogadoRepository.removerExpirados(now);
+            List<String> jtis = tokenRevogadoRepository.findJtisValidos(now);
+            // Folga para as revogações que chegam até a próxima reconstrução
+            BloomFilter rebuilt = new BloomFilter(Math.max(minimumCapacity, jtis.size() * 2), falsePositiveRate);
+            jtis.forEach(rebuilt::add);
+            synchronized (confirmed) {
+                confirmed.clear();
+            }
+            filter = rebuilt;
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao reconstruir o filtro de tokens revogados: {}", e.getMessage());
+        } finally {
+            // Falhando ou não, a próxima tentativa espera o intervalo
+            builtAtMillis = System.currentTimeMillis();
+            rebuildLock.unlock();
+        }
+    }
+}
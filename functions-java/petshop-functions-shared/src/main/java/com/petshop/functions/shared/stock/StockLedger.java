@@ -0,0 +1,172 @@
+package com.petshop.functions.shared.stock;
+
+import com.petshop.functions.shared.model.ItemPedido;
+import com.petshop.functions.shared.model.MovimentacaoEstoque;
+import com.petshop.functions.shared.model.MovimentacaoEstoque.TipoMovimentacao;
+import com.petshop.functions.shared.model.SnapshotEstoque;
+import com.petshop.functions.shared.repository.ItemPedidoRepository;
+import com.petshop.functions.shared.repository.MovimentacaoEstoqueRepository;
+import com.petshop.functions.shared.repository.SnapshotEstoqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Livro de estoque (tabelas movimentacoes_estoque e snapshots_estoque,
+ * as mesmas do monólito).
+ *
+ * Toda mudança de estoque grava um lançamento com sinal, só por INSERT, na
+ * transação que altera produtos.quantidade_estoque; os métodos de registro
+ * devem rodar dentro dela. O estoque de um produto é o snapshot mais os
+ * lançamentos criados a partir de calculado_ate, e quantidade_estoque pode
+ * ser reconstruída do livro. Sem agendador nas Function Apps, a compactação
+ * dos snapshots roda sob demanda, no máximo uma vez por intervalo, sempre
+ * com uma margem no passado para não perder lançamentos ainda sem commit.
+ *
+ * O monólito acumula baixas já lançadas no livro e ainda não gravadas na
+ * coluna. Num banco compartilhado com ele, uma reconstrução feita aqui
+ * incluiria essas baixas na coluna e o lote seguinte do monólito as
+ * gravaria de novo; nesse caso stock.ledger.rebuild-enabled=false bloqueia a
+ * reconstrução, que passa a ser feita pelo monólito.
+ */
+@Component
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    private final MovimentacaoEstoqueRepository movimentacaoRepository;
+    private final SnapshotEstoqueRepository snapshotRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final TransactionTemplate newTransaction;
+    private final Duration compactionMargin;
+    private final long compactionIntervalMs;
+    private final boolean rebuildEnabled;
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private volatile long compactedAtMillis = System.currentTimeMillis();
+
+    public StockLedger(MovimentacaoEstoqueRepository movimentacaoRepository,
+                       SnapshotEstoqueRepository snapshotRepository,
+                       ItemPedidoRepository itemPedidoRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${stock.ledger.compaction-margin-ms:600000}") long compactionMarginMs,
+                       @Value("${stock.ledger.compaction-interval-ms:300000}") long compactionIntervalMs,
+                       @Value("${stock.ledger.rebuild-enabled:true}") boolean rebuildEnabled) {
+        this.movimentacaoRepository = movimentacaoRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.compactionMargin = Duration.ofMillis(compactionMarginMs);
+        this.compactionIntervalMs = compactionIntervalMs;
+        this.rebuildEnabled = rebuildEnabled;
+    }
+
+    /**
+     * Lança as variações (com sinal) de um pedido, em ordem de produto
+     */
+    public void record(TipoMovimentacao tipo, Long pedidoId, Map<Long, Integer> variacoes) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentacaoEstoque> lancamentos = new ArrayList<>(variacoes.size());
+        new TreeMap<>(variacoes).forEach((produtoId, quantidade) ->
+                lancamentos.add(new MovimentacaoEstoque(produtoId, pedidoId, tipo, quantidade, agora)));
+        movimentacaoRepository.saveAll(lancamentos);
+    }
+
+    /**
+     * Devolução dos itens de um pedido cancelado (mesmas quantidades de
+     * ProdutoRepository.devolverEstoqueDoPedido)
+     */
+    public void recordReturn(Long pedidoId) {
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        for (ItemPedido item : itemPedidoRepository.findByPedidoId(pedidoId)) {
+            quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Integer::sum);
+        }
+        record(TipoMovimentacao.DEVOLUCAO, pedidoId, quantidades);
+    }
+
+    /**
+     * Ajuste manual de estoque (diferença com sinal)
+     */
+    public void adjust(Long produtoId, int diferenca) {
+        if (diferenca != 0) {
+            movimentacaoRepository.save(new MovimentacaoEstoque(produtoId, null, TipoMovimentacao.AJUSTE,
+                    diferenca, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Estoque inicial de um produto recém-cadastrado: snapshot zerado e a
+     * quantidade como lançamento de importação
+     */
+    public void importStock(Long produtoId, int quantidade) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (!snapshotRepository.existsById(produtoId)) {
+            snapshotRepository.save(new SnapshotEstoque(produtoId, 0, agora));
+        }
+        movimentacaoRepository.save(new MovimentacaoEstoque(produtoId, null, TipoMovimentacao.IMPORTACAO,
+                quantidade, agora));
+    }
+
+    public boolean isRebuildEnabled() {
+        return rebuildEnabled;
+    }
+
+    public List<MovimentacaoEstoque> movements(Long produtoId, int limit) {
+        return movimentacaoRepository.findRecentesPorProduto(produtoId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Regrava o estoque de todos os produtos a partir do livro. Produtos
+     * anteriores ao livro ganham antes um snapshot com o estoque atual.
+     *
+     * @return quantidade de produtos regravados
+     */
+    public int rebuild() {
+        if (!rebuildEnabled) {
+            throw new IllegalStateException("Reconstrução do estoque desativada nas Function Apps; use a do backend");
+        }
+        Integer produtos = newTransaction.execute(status -> {
+            int novos = snapshotRepository.criarFaltantes(LocalDateTime.now());
+            if (novos > 0) {
+                logger.info("{} produtos sem snapshot de estoque; estoque atual adotado como ponto de partida", novos);
+            }
+            return snapshotRepository.reconstruirEstoques();
+        });
+        return produtos != null ? produtos : 0;
+    }
+
+    /**
+     * Incorpora aos snapshots os lançamentos mais antigos que a margem, se o
+     * intervalo já passou. Chamar fora da transação da operação: roda na sua
+     * própria, e uma falha é apenas logada.
+     */
+    public void compactIfDue() {
+        if (System.currentTimeMillis() - compactedAtMillis < compactionIntervalMs || !compactionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - compactedAtMillis >= compactionIntervalMs) {
+                LocalDateTime limite = LocalDateTime.now().minus(compactionMargin);
+                newTransaction.executeWithoutResult(status -> snapshotRepository.compactar(limite));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Erro ao compactar o livro de estoque: {}", e.getMessage());
+        } finally {
+            compactedAtMillis = System.currentTimeMillis();
+            compactionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+-- =============================================================================
+-- Migração de IDENTITY para sequências: pedidos, itens_pedido e agendamentos
+-- PostgreSQL 10 ou superior
+--
+-- Pedido, ItemPedido e Agendamento passaram a gerar o id por sequência
+-- (pedidos_seq, itens_pedido_seq e agendamentos_seq, alocação de 50 em 50)
+-- no backend Spring Boot e nas Function Apps de pedidos e agendamentos. O
+-- ddl-auto=update cria essas sequências começando em 1, e os ids gerados
+-- colidem com os que já existem.
+--
+-- Este script, para cada tabela:
+--   1. tira da coluna id o IDENTITY (ou o DEFAULT de uma coluna serial);
+--   2. cria (ou reposiciona) a sequência para o próximo valor ser
+--      MAX(id) + 50. O Hibernate usa o valor lido da sequência como o último
+--      id do bloco de 50, então o primeiro id gerado é MAX(id) + 1.
+--
+-- Rodar com o backend e as Function Apps parados, uma vez em cada banco
+-- (o do backend e o das Function Apps, se forem bancos diferentes). Pode
+-- ser repetido.
+-- =============================================================================
+
+BEGIN;
+
+DO $$
+DECLARE
+    tabela text;
+    proximo bigint;
+BEGIN
+    FOREACH tabela IN ARRAY ARRAY['pedidos', 'itens_pedido', 'agendamentos'] LOOP
+        CONTINUE WHEN to_regclass(tabela) IS NULL;
+
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tabela);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', tabela);
+
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) + 50 FROM %I', tabela) INTO proximo;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', tabela || '_seq');
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', tabela || '_seq');
+        PERFORM setval(quote_ident(tabela || '_seq')::regclass, proximo, false);
+        RAISE NOTICE 'Sequência %_seq começando em %', tabela, proximo;
+    END LOOP;
+END
+$$;
+
+COMMIT;
@@ -0,0 +1,123 @@
+-- =============================================================================
+-- Migração de IDENTITY para sequências: pedidos, itens_pedido e agendamentos
+-- SQL Server / Azure SQL (2017 ou superior)
+--
+-- Pedido, ItemPedido e Agendamento passaram a gerar o id por sequência
+-- (pedidos_seq, itens_pedido_seq e agendamentos_seq, alocação de 50 em 50)
+-- no backend Spring Boot e nas Function Apps de pedidos e agendamentos. O
+-- ddl-auto=update não tira o IDENTITY de uma coluna existente, e o SQL
+-- Server recusa INSERT com id explícito numa coluna IDENTITY.
+--
+-- Este script, para cada tabela:
+--   1. recria a coluna id como bigint simples, com os mesmos valores, e
+--      refaz a chave primária, as chaves estrangeiras que apontam para ela
+--      e o índice idx_pedidos_data_id;
+--   2. cria (ou reinicia) a sequência em MAX(id) + 50. O Hibernate usa o
+--      valor lido da sequência como o último id do bloco de 50, então o
+--      primeiro id gerado é MAX(id) + 1.
+--
+-- Rodar com o backend e as Function Apps parados, uma vez em cada banco
+-- (o do backend e o das Function Apps, se forem bancos diferentes). Pode
+-- ser repetido: colunas já migradas são puladas e as sequências são
+-- reposicionadas acima do maior id.
+-- =============================================================================
+
+SET XACT_ABORT ON;
+BEGIN TRANSACTION;
+
+DECLARE @tabela sysname;
+DECLARE @sql nvarchar(max);
+DECLARE @proximo bigint;
+DECLARE @recriar_indice bit = 0;
+
+-- Chaves estrangeiras que apontam para as colunas migradas, para recriar
+-- depois da troca
+SELECT fk.name AS nome,
+       OBJECT_NAME(fk.parent_object_id) AS tabela,
+       COL_NAME(fkc.parent_object_id, fkc.parent_column_id) AS coluna,
+       OBJECT_NAME(fk.referenced_object_id) AS referenciada
+INTO #chaves_estrangeiras
+FROM sys.foreign_keys fk
+JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id
+WHERE fk.referenced_object_id IN (OBJECT_ID('pedidos'), OBJECT_ID('itens_pedido'), OBJECT_ID('agendamentos'))
+  AND COLUMNPROPERTY(fk.referenced_object_id, 'id', 'IsIdentity') = 1;
+
+SELECT @sql = STRING_AGG(CAST(N'ALTER TABLE ' + QUOTENAME(tabela) + N' DROP CONSTRAINT ' + QUOTENAME(nome)
+                              AS nvarchar(max)), N'; ')
+FROM #chaves_estrangeiras;
+IF @sql IS NOT NULL
+    EXEC sp_executesql @sql;
+
+-- O índice de exportação do backend inclui a coluna id
+IF COLUMNPROPERTY(OBJECT_ID('pedidos'), 'id', 'IsIdentity') = 1
+   AND EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_pedidos_data_id' AND object_id = OBJECT_ID('pedidos'))
+BEGIN
+    DROP INDEX idx_pedidos_data_id ON pedidos;
+    SET @recriar_indice = 1;
+END
+
+DECLARE tabelas CURSOR LOCAL FAST_FORWARD FOR
+    SELECT nome FROM (VALUES ('pedidos'), ('itens_pedido'), ('agendamentos')) AS t(nome)
+    WHERE OBJECT_ID(nome) IS NOT NULL;
+
+OPEN tabelas;
+FETCH NEXT FROM tabelas INTO @tabela;
+WHILE @@FETCH_STATUS = 0
+BEGIN
+    IF COLUMNPROPERTY(OBJECT_ID(@tabela), 'id', 'IsIdentity') = 1
+    BEGIN
+        SET @sql = NULL;
+        SELECT @sql = N'ALTER TABLE ' + QUOTENAME(@tabela) + N' DROP CONSTRAINT ' + QUOTENAME(name)
+        FROM sys.key_constraints
+        WHERE parent_object_id = OBJECT_ID(@tabela) AND type = 'PK';
+        IF @sql IS NOT NULL
+            EXEC sp_executesql @sql;
+
+        -- Comandos separados: cada um só compila depois que o anterior
+        -- alterou a tabela
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@tabela) + N' ADD id_migrado bigint NULL';
+        EXEC sp_executesql @sql;
+        SET @sql = N'UPDATE ' + QUOTENAME(@tabela) + N' SET id_migrado = id';
+        EXEC sp_executesql @sql;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@tabela) + N' ALTER COLUMN id_migrado bigint NOT NULL';
+        EXEC sp_executesql @sql;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@tabela) + N' DROP COLUMN id';
+        EXEC sp_executesql @sql;
+        SET @sql = @tabela + N'.id_migrado';
+        EXEC sp_rename @sql, N'id', N'COLUMN';
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@tabela) + N' ADD CONSTRAINT ' + QUOTENAME(N'PK_' + @tabela)
+                 + N' PRIMARY KEY (id)';
+        EXEC sp_executesql @sql;
+        PRINT 'Coluna id de ' + @tabela + ' recriada sem IDENTITY';
+    END
+
+    SET @sql = N'SELECT @proximo = ISNULL(MAX(id), 0) + 50 FROM ' + QUOTENAME(@tabela);
+    EXEC sp_executesql @sql, N'@proximo bigint OUTPUT', @proximo = @proximo OUTPUT;
+    IF OBJECT_ID(@tabela + N'_seq', 'SO') IS NULL
+        SET @sql = N'CREATE SEQUENCE ' + QUOTENAME(@tabela + N'_seq') + N' AS bigint START WITH '
+                 + CAST(@proximo AS nvarchar(20)) + N' INCREMENT BY 50';
+    ELSE
+        SET @sql = N'ALTER SEQUENCE ' + QUOTENAME(@tabela + N'_seq') + N' RESTART WITH '
+                 + CAST(@proximo AS nvarchar(20)) + N' INCREMENT BY 50';
+    EXEC sp_executesql @sql;
+    PRINT 'Sequência ' + @tabela + '_seq começando em ' + CAST(@proximo AS varchar(20));
+
+    FETCH NEXT FROM tabelas INTO @tabela;
+END
+CLOSE tabelas;
+DEALLOCATE tabelas;
+
+IF @recriar_indice = 1
+    CREATE INDEX idx_pedidos_data_id ON pedidos (data_pedido, id);
+
+SET @sql = NULL;
+SELECT @sql = STRING_AGG(CAST(N'ALTER TABLE ' + QUOTENAME(tabela) + N' ADD CONSTRAINT ' + QUOTENAME(nome)
+                              + N' FOREIGN KEY (' + QUOTENAME(coluna) + N') REFERENCES ' + QUOTENAME(referenciada)
+                              + N' (id)' AS nvarchar(max)), N'; ')
+FROM #chaves_estrangeiras;
+IF @sql IS NOT NULL
+    EXEC sp_executesql @sql;
+
+DROP TABLE #chaves_estrangeiras;
+
+COMMIT TRANSACTION;